@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.application.ComponentInitializationListenerCollection;
 import org.apache.wicket.application.ComponentInstantiationListenerCollection;
@@ -34,6 +35,7 @@ import org.apache.wicket.application.ComponentOnBeforeRenderListenerCollection;
 import org.apache.wicket.application.HeaderContributorListenerCollection;
 import org.apache.wicket.application.IComponentInitializationListener;
 import org.apache.wicket.application.IComponentInstantiationListener;
+import org.apache.wicket.core.instrument.IRenderInstrumentation;
 import org.apache.wicket.core.request.mapper.IMapperContext;
 import org.apache.wicket.core.util.lang.PropertyResolver;
 import org.apache.wicket.core.util.lang.WicketObjects;
@@ -42,6 +44,7 @@ import org.apache.wicket.event.IEvent;
 import org.apache.wicket.event.IEventSink;
 import org.apache.wicket.javascript.DefaultJavaScriptCompressor;
 import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupWarmUp;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.ResourceAggregator;
 import org.apache.wicket.markup.html.IHeaderContributor;
@@ -60,6 +63,8 @@ import org.apache.wicket.markup.resolver.WicketMessageResolver;
 import org.apache.wicket.page.DefaultPageManagerContext;
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.IPageManagerContext;
+import org.apache.wicket.page.PageAccessStatistics;
+import org.apache.wicket.pageStore.PageCacheStatistics;
 import org.apache.wicket.pageStore.IDataStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.protocol.http.IRequestLogger;
@@ -77,6 +82,7 @@ import org.apache.wicket.request.cycle.IRequestCycleListener;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.cycle.RequestCycleContext;
 import org.apache.wicket.request.cycle.RequestCycleListenerCollection;
+import org.apache.wicket.request.cycle.UrlCacheStatistics;
 import org.apache.wicket.request.mapper.CompoundRequestMapper;
 import org.apache.wicket.request.mapper.ICompoundRequestMapper;
 import org.apache.wicket.request.resource.ResourceReferenceRegistry;
@@ -168,6 +174,9 @@ public abstract class Application implements UnboundListener, IEventSink
 	 */
 	private static final Map<String, Application> applicationKeyToApplication = Generics.newHashMap(1);
 
+	/** number of applications with a render instrumentation, see {@link #isRenderInstrumented()} */
+	private static final AtomicInteger renderInstrumentedApplications = new AtomicInteger();
+
 	/** Log. */
 	private static final Logger log = LoggerFactory.getLogger(Application.class);
 
@@ -195,6 +204,12 @@ public abstract class Application implements UnboundListener, IEventSink
 	/** page renderer provider */
 	private IPageRendererProvider pageRendererProvider;
 
+	/** render instrumentation, null if disabled */
+	private volatile IRenderInstrumentation renderInstrumentation;
+
+	/** counters of the remembered Urls */
+	private final UrlCacheStatistics urlCacheStatistics = new UrlCacheStatistics();
+
 	/** request cycle provider */
 	private IRequestCycleProvider requestCycleProvider;
 
@@ -204,6 +219,12 @@ public abstract class Application implements UnboundListener, IEventSink
 	/** session store provider */
 	private IProvider<ISessionStore> sessionStoreProvider;
 
+	/** counters about the page locks acquired by the sessions of this application */
+	private final PageAccessStatistics pageAccessStatistics = new PageAccessStatistics();
+
+	/** counters about the cache of serialized pages of the page store of this application */
+	private final PageCacheStatistics pageCacheStatistics = new PageCacheStatistics();
+
 	/**
 	 * The decorator this application uses to decorate any header responses created by Wicket
 	 */
@@ -669,6 +690,8 @@ public abstract class Application implements UnboundListener, IEventSink
 		internalGetPageManager().destroy();
 		getSessionStore().destroy();
 
+		setRenderInstrumentation(null);
+
 		applicationKeyToApplication.remove(getApplicationKey());
 	}
 
@@ -819,6 +842,24 @@ public abstract class Application implements UnboundListener, IEventSink
 		applicationListeners.onAfterInitialized(this);
 
 		validateInit();
+
+		// after init() so that the pages mounted there are known
+		if (getMarkupSettings().getWarmUpMarkup())
+		{
+			newMarkupWarmUp().warmUp();
+		}
+	}
+
+	/**
+	 * Creates the warm-up loading markup at startup if enabled with
+	 * {@link IMarkupSettings#setWarmUpMarkup(boolean)}. Override to add components or change the
+	 * locale.
+	 * 
+	 * @return the markup warm-up, by default for the home page and all mounted pages
+	 */
+	protected MarkupWarmUp newMarkupWarmUp()
+	{
+		return new MarkupWarmUp(this).addMountedPages();
 	}
 
 	/**
@@ -1400,6 +1441,23 @@ public abstract class Application implements UnboundListener, IEventSink
 		return pageManagerContext;
 	}
 
+	/**
+	 * @return the counters about the page locks acquired by the sessions of this application
+	 */
+	public final PageAccessStatistics getPageAccessStatistics()
+	{
+		return pageAccessStatistics;
+	}
+
+	/**
+	 * @return the counters about the cache of serialized pages of the page store of this
+	 *         application
+	 */
+	public final PageCacheStatistics getPageCacheStatistics()
+	{
+		return pageCacheStatistics;
+	}
+
 	// /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	// /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	//
@@ -1427,6 +1485,59 @@ public abstract class Application implements UnboundListener, IEventSink
 		this.pageRendererProvider = pageRendererProvider;
 	}
 
+	/**
+	 * @return the instrumentation told about render times, or {@code null} if disabled
+	 * @see #setRenderInstrumentation(IRenderInstrumentation)
+	 */
+	public final IRenderInstrumentation getRenderInstrumentation()
+	{
+		return renderInstrumentation;
+	}
+
+	/**
+	 * Sets the instrumentation told how long components take to configure and render and models to
+	 * load, e.g. a {@link org.apache.wicket.core.instrument.RenderStatistics}. May be changed at
+	 * any time, also while requests are being processed.
+	 * 
+	 * @param renderInstrumentation
+	 *            the instrumentation or {@code null} to disable it
+	 */
+	public final synchronized void setRenderInstrumentation(
+		final IRenderInstrumentation renderInstrumentation)
+	{
+		if (this.renderInstrumentation == null && renderInstrumentation != null)
+		{
+			renderInstrumentedApplications.incrementAndGet();
+		}
+		else if (this.renderInstrumentation != null && renderInstrumentation == null)
+		{
+			renderInstrumentedApplications.decrementAndGet();
+		}
+		this.renderInstrumentation = renderInstrumentation;
+	}
+
+	/**
+	 * Tells whether any application in this class loader has a render instrumentation. The render
+	 * hooks check this first, so without an instrumentation, which is the default, they do not
+	 * have to look up the application of the current thread.
+	 * 
+	 * @return {@code true} if an application has a render instrumentation
+	 * @see #setRenderInstrumentation(IRenderInstrumentation)
+	 */
+	public static boolean isRenderInstrumented()
+	{
+		return renderInstrumentedApplications.get() > 0;
+	}
+
+	/**
+	 * @return the counters of the Urls taken from the cache of the {@link SystemMapper}
+	 * @see IRequestCycleSettings#setUrlCacheSize(int)
+	 */
+	public final UrlCacheStatistics getUrlCacheStatistics()
+	{
+		return urlCacheStatistics;
+	}
+
 
 	// /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	// /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -32,6 +32,8 @@ import org.apache.wicket.authorization.IAuthorizationStrategy;
 import org.apache.wicket.authorization.UnauthorizedActionException;
 import org.apache.wicket.authorization.strategies.page.SimplePageAuthorizationStrategy;
 import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.core.instrument.IRenderInstrumentation;
+import org.apache.wicket.core.instrument.Measure;
 import org.apache.wicket.core.request.handler.BookmarkableListenerInterfaceRequestHandler;
 import org.apache.wicket.core.request.handler.ListenerInterfaceRequestHandler;
 import org.apache.wicket.core.request.handler.PageAndComponentProvider;
@@ -470,12 +472,6 @@ public abstract class Component
 	/** Must only be used by auto components */
 	private transient IMarkupFragment markup;
 
-	/**
-	 * Will be re-created instead of persisted when session is replicated. Markup sourcing strategy
-	 * are typically stateless (but don't have to).
-	 */
-	private transient IMarkupSourcingStrategy markupSourcingStrategy;
-
 	/**
 	 * The object that holds the component state.
 	 * <p>
@@ -917,11 +913,20 @@ public abstract class Component
 		{
 			setRequestFlag(RFLAG_BEFORE_RENDER_SUPER_CALL_VERIFIED, false);
 
+			IRenderInstrumentation instrumentation = Application.isRenderInstrumented()
+				? getApplication().getRenderInstrumentation() : null;
+			long start = instrumentation != null ? System.nanoTime() : 0;
+
 			getApplication().getComponentPreOnBeforeRenderListeners().onBeforeRender(this);
 
 			onBeforeRender();
 			getApplication().getComponentPostOnBeforeRenderListeners().onBeforeRender(this);
 
+			if (instrumentation != null)
+			{
+				instrumentation.onComponent(this, Measure.BEFORE_RENDER, System.nanoTime() - start);
+			}
+
 			if (!getRequestFlag(RFLAG_BEFORE_RENDER_SUPER_CALL_VERIFIED))
 			{
 				throw new IllegalStateException(Component.class.getName() +
@@ -1023,6 +1028,10 @@ public abstract class Component
 	{
 		if (!getRequestFlag(RFLAG_CONFIGURED))
 		{
+			IRenderInstrumentation instrumentation = Application.isRenderInstrumented()
+				? getApplication().getRenderInstrumentation() : null;
+			long start = instrumentation != null ? System.nanoTime() : 0;
+
 			clearEnabledInHierarchyCache();
 			clearVisibleInHierarchyCache();
 			onConfigure();
@@ -1040,6 +1049,11 @@ public abstract class Component
 			internalOnAfterConfigure();
 
 			setRequestFlag(RFLAG_CONFIGURED, true);
+
+			if (instrumentation != null)
+			{
+				instrumentation.onComponent(this, Measure.CONFIGURE, System.nanoTime() - start);
+			}
 		}
 	}
 
@@ -2303,7 +2317,16 @@ public abstract class Component
 			}
 
 			// Do the render
+			IRenderInstrumentation instrumentation = Application.isRenderInstrumented()
+				? getApplication().getRenderInstrumentation() : null;
+			long start = instrumentation != null ? System.nanoTime() : 0;
+
 			internalRender();
+
+			if (instrumentation != null)
+			{
+				instrumentation.onComponent(this, Measure.RENDER, System.nanoTime() - start);
+			}
 		}
 		catch (final RuntimeException ex)
 		{
@@ -2623,6 +2646,7 @@ public abstract class Component
 	 */
 	protected final IMarkupSourcingStrategy getMarkupSourcingStrategy()
 	{
+		IMarkupSourcingStrategy markupSourcingStrategy = getKeptMarkupSourcingStrategy();
 		if (markupSourcingStrategy == null)
 		{
 			markupSourcingStrategy = newMarkupSourcingStrategy();
@@ -2632,10 +2656,36 @@ public abstract class Component
 			{
 				markupSourcingStrategy = DefaultMarkupSourcingStrategy.get();
 			}
+			keepMarkupSourcingStrategy(markupSourcingStrategy);
 		}
 		return markupSourcingStrategy;
 	}
 
+	/**
+	 * Gets the markup sourcing strategy kept by {@link #keepMarkupSourcingStrategy}.
+	 * <p>
+	 * Components which are not containers don't keep their strategy, saving a field in each of
+	 * them.
+	 * 
+	 * @return {@code null}
+	 * @see MarkupContainer#getKeptMarkupSourcingStrategy()
+	 */
+	IMarkupSourcingStrategy getKeptMarkupSourcingStrategy()
+	{
+		return null;
+	}
+
+	/**
+	 * Keeps the markup sourcing strategy created by {@link #newMarkupSourcingStrategy()}, does
+	 * nothing for components which are not containers.
+	 * 
+	 * @param markupSourcingStrategy
+	 * @see MarkupContainer#keepMarkupSourcingStrategy(IMarkupSourcingStrategy)
+	 */
+	void keepMarkupSourcingStrategy(final IMarkupSourcingStrategy markupSourcingStrategy)
+	{
+	}
+
 	/**
 	 * If {@link #getMarkupSourcingStrategy()} returns null, this method will be called. By default
 	 * it returns null, which means that a default markup strategy will be attached to the
@@ -2643,7 +2693,8 @@ public abstract class Component
 	 * <p>
 	 * Please note that markup source strategies are not persisted. Instead they get re-created by
 	 * calling this method again. That's ok since markup sourcing strategies usually do not maintain
-	 * a state.
+	 * a state. Components which are not containers don't keep the strategy at all, for them this
+	 * method is called whenever it is needed.
 	 * 
 	 * @return Markup sourcing strategy
 	 */
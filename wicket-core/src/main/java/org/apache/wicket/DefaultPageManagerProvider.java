@@ -58,7 +58,8 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		if (dataStore.canBeAsynchronous())
 		{
 			int capacity = storeSettings.getAsynchronousQueueCapacity();
-			dataStore = new AsynchronousDataStore(dataStore, capacity);
+			int writers = storeSettings.getAsynchronousWriterThreads();
+			dataStore = new AsynchronousDataStore(dataStore, capacity, writers);
 		}
 
 		IPageStore pageStore = newPageStore(dataStore);
@@ -69,8 +70,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 	protected IPageStore newPageStore(IDataStore dataStore)
 	{
 		int inmemoryCacheSize = getStoreSettings().getInmemoryCacheSize();
+		Bytes inmemoryCacheMaxBytes = getStoreSettings().getInmemoryCacheMaxBytes();
 		ISerializer pageSerializer = application.getFrameworkSettings().getSerializer();
-		return new DefaultPageStore(pageSerializer, dataStore, inmemoryCacheSize);
+		return new DefaultPageStore(pageSerializer, dataStore, inmemoryCacheSize,
+			inmemoryCacheMaxBytes, application.getPageCacheStatistics());
 	}
 
 	protected IDataStore newDataStore()
@@ -78,8 +81,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		IStoreSettings storeSettings = getStoreSettings();
 		Bytes maxSizePerSession = storeSettings.getMaxSizePerSession();
 		File fileStoreFolder = storeSettings.getFileStoreFolder();
+		int fileChannelPoolCapacity = storeSettings.getFileChannelPoolCapacity();
 
-		return new DiskDataStore(application.getName(), fileStoreFolder, maxSizePerSession);
+		return new DiskDataStore(application.getName(), fileStoreFolder, maxSizePerSession,
+			fileChannelPoolCapacity);
 	}
 
 	IStoreSettings getStoreSettings()
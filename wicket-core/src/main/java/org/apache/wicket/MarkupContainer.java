@@ -20,8 +20,10 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.wicket.core.util.string.ComponentStrings;
 import org.apache.wicket.markup.ComponentTag;
@@ -36,6 +38,7 @@ import org.apache.wicket.markup.MarkupType;
 import org.apache.wicket.markup.WicketTag;
 import org.apache.wicket.markup.html.border.Border;
 import org.apache.wicket.markup.html.internal.InlineEnclosure;
+import org.apache.wicket.markup.html.panel.IMarkupSourcingStrategy;
 import org.apache.wicket.markup.resolver.ComponentResolvers;
 import org.apache.wicket.model.IComponentInheritedModel;
 import org.apache.wicket.model.IModel;
@@ -105,6 +108,13 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	/** List of children or single child */
 	private Object children;
 
+	/**
+	 * Will be re-created instead of persisted when session is replicated. Markup sourcing strategy
+	 * are typically stateless (but don't have to). Kept here instead of in {@link Component},
+	 * since only containers can have stateful strategies.
+	 */
+	private transient IMarkupSourcingStrategy markupSourcingStrategy;
+
 	/**
 	 * @see org.apache.wicket.Component#Component(String)
 	 */
@@ -1088,19 +1098,13 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 		else
 		{
-			Object[] children;
-			int size = 0;
 			if (this.children instanceof ChildList)
 			{
-				children = ((ChildList)this.children).childs;
-				size = ((ChildList)this.children).size;
+				return ((ChildList)this.children).get(id);
 			}
-			else
-			{
-				children = (Object[])this.children;
-				size = children.length;
-			}
-			for (int i = 0; i < size; i++)
+
+			Object[] children = (Object[])this.children;
+			for (int i = 0; i < children.length; i++)
 			{
 				if (getId(children[i]).equals(id))
 				{
@@ -1130,22 +1134,14 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 				return 0;
 			}
 		}
+		else if (this.children instanceof ChildList)
+		{
+			return ((ChildList)this.children).indexOf(child.getId());
+		}
 		else
 		{
-			int size = 0;
-			Object[] children;
-			if (this.children instanceof Object[])
-			{
-				children = (Object[])this.children;
-				size = children.length;
-			}
-			else
-			{
-				children = ((ChildList)this.children).childs;
-				size = ((ChildList)this.children).size;
-			}
-
-			for (int i = 0; i < size; i++)
+			Object[] children = (Object[])this.children;
+			for (int i = 0; i < children.length; i++)
 			{
 				if (getId(children[i]).equals(child.getId()))
 				{
@@ -1573,6 +1569,24 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 	}
 
+	/**
+	 * @see org.apache.wicket.Component#getKeptMarkupSourcingStrategy()
+	 */
+	@Override
+	IMarkupSourcingStrategy getKeptMarkupSourcingStrategy()
+	{
+		return markupSourcingStrategy;
+	}
+
+	/**
+	 * @see org.apache.wicket.Component#keepMarkupSourcingStrategy(IMarkupSourcingStrategy)
+	 */
+	@Override
+	void keepMarkupSourcingStrategy(final IMarkupSourcingStrategy markupSourcingStrategy)
+	{
+		this.markupSourcingStrategy = markupSourcingStrategy;
+	}
+
 	/**
 	 * @see org.apache.wicket.Component#removeChildren()
 	 */
@@ -1618,9 +1632,17 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		if (children instanceof ChildList)
 		{
 			ChildList lst = (ChildList)children;
-			Object[] tmp = new Object[lst.size];
-			System.arraycopy(lst.childs, 0, tmp, 0, lst.size);
-			children = tmp;
+			if (lst.isIndexed())
+			{
+				// keep the list of wide containers for its index
+				lst.trimToSize();
+			}
+			else
+			{
+				Object[] tmp = new Object[lst.size];
+				System.arraycopy(lst.childs, 0, tmp, 0, lst.size);
+				children = tmp;
+			}
 		}
 	}
 
@@ -1736,14 +1758,28 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	}
 
 	/**
-	 * 
+	 * The children of a container having more than one child. Containers with more children than
+	 * {@link #INDEX_THRESHOLD} additionally index them by id, so looking up, adding and replacing
+	 * children doesn't need to scan all of them. The index is not serialized but rebuilt when
+	 * needed.
 	 */
 	private static class ChildList extends AbstractList<Object> implements IClusterable
 	{
 		private static final long serialVersionUID = -7861580911447631127L;
+
+		/**
+		 * The number of children above which they are indexed by id. Can be set with the system
+		 * property "wicket.MarkupContainer.indexThreshold".
+		 */
+		private static final int INDEX_THRESHOLD = Integer.getInteger(
+			"wicket.MarkupContainer.indexThreshold", 32);
+
 		private int size;
 		private Object[] childs;
 
+		/** id => position, only if there are more children than the threshold */
+		private transient Map<String, Integer> index;
+
 		/**
 		 * Construct.
 		 * 
@@ -1763,6 +1799,56 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 		}
 
+		/**
+		 * @return whether the children are indexed by id
+		 */
+		public boolean isIndexed()
+		{
+			return size > INDEX_THRESHOLD;
+		}
+
+		/**
+		 * Gets a child by its id.
+		 * 
+		 * @param id
+		 * @return the child or {@code null}
+		 */
+		public Component get(String id)
+		{
+			int position = indexOf(id);
+			return position == -1 ? null : (Component)childs[position];
+		}
+
+		/**
+		 * Gets the position of a child.
+		 * 
+		 * @param id
+		 *            the id of the child
+		 * @return the position or -1
+		 */
+		public int indexOf(String id)
+		{
+			if (isIndexed())
+			{
+				if (index == null)
+				{
+					index = new HashMap<String, Integer>((int)(size / 0.75f) + 1);
+					reindex(0);
+				}
+				Integer position = index.get(id);
+				return position == null ? -1 : position;
+			}
+
+			for (int i = 0; i < size; i++)
+			{
+				if (((Component)childs[i]).getId().equals(id))
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+
 		@Override
 		public Object get(int index)
 		{
@@ -1780,6 +1866,10 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		{
 			ensureCapacity(size + 1);
 			childs[size++] = o;
+			if (index != null)
+			{
+				index.put(((Component)o).getId(), size - 1);
+			}
 			return true;
 		}
 
@@ -1795,6 +1885,10 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			System.arraycopy(childs, index, childs, index + 1, size - index);
 			childs[index] = element;
 			size++;
+			if (this.index != null)
+			{
+				reindex(index);
+			}
 		}
 
 		@Override
@@ -1807,6 +1901,11 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 			Object oldValue = childs[index];
 			childs[index] = element;
+			if (this.index != null)
+			{
+				this.index.remove(((Component)oldValue).getId());
+				this.index.put(((Component)element).getId(), index);
+			}
 			return oldValue;
 		}
 
@@ -1827,9 +1926,66 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 			childs[--size] = null; // Let gc do its work
 
+			if (this.index != null)
+			{
+				if (isIndexed())
+				{
+					this.index.remove(((Component)oldValue).getId());
+					reindex(index);
+				}
+				else
+				{
+					this.index = null;
+				}
+			}
+
 			return oldValue;
 		}
 
+		/**
+		 * Swaps the positions of two children.
+		 * 
+		 * @param idx1
+		 * @param idx2
+		 */
+		public void swap(int idx1, int idx2)
+		{
+			Object tmp = childs[idx1];
+			childs[idx1] = childs[idx2];
+			childs[idx2] = tmp;
+			if (index != null)
+			{
+				index.put(((Component)childs[idx1]).getId(), idx1);
+				index.put(((Component)childs[idx2]).getId(), idx2);
+			}
+		}
+
+		/**
+		 * Updates the positions in the index starting at the given one.
+		 * 
+		 * @param from
+		 */
+		private void reindex(int from)
+		{
+			for (int i = from; i < size; i++)
+			{
+				index.put(((Component)childs[i]).getId(), i);
+			}
+		}
+
+		/**
+		 * Shrinks the capacity to the number of children.
+		 */
+		public void trimToSize()
+		{
+			if (childs.length > size)
+			{
+				Object[] tmp = new Object[size];
+				System.arraycopy(childs, 0, tmp, 0, size);
+				childs = tmp;
+			}
+		}
+
 		/**
 		 * @param minCapacity
 		 */
@@ -1888,10 +2044,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 		else
 		{
-			ChildList list = (ChildList)children;
-			Object tmp = list.childs[idx1];
-			list.childs[idx1] = list.childs[idx2];
-			list.childs[idx2] = tmp;
+			((ChildList)children).swap(idx1, idx2);
 		}
 	}
 
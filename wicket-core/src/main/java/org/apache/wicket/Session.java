@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.wicket.application.IClassResolver;
 import org.apache.wicket.authorization.IAuthorizationStrategy;
@@ -33,6 +34,7 @@ import org.apache.wicket.event.IEventSink;
 import org.apache.wicket.feedback.FeedbackMessage;
 import org.apache.wicket.feedback.FeedbackMessages;
 import org.apache.wicket.page.IPageManager;
+import org.apache.wicket.page.PageAccessStatistics;
 import org.apache.wicket.page.PageAccessSynchronizer;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.cycle.RequestCycle;
@@ -115,11 +117,19 @@ public abstract class Session implements IClusterable, IEventSink
 	/** Name of session attribute under which this session is stored */
 	public static final String SESSION_ATTRIBUTE_NAME = "session";
 
+	/** atomically increments {@link #sequence} */
+	private static final AtomicIntegerFieldUpdater<Session> SEQUENCE =
+		AtomicIntegerFieldUpdater.newUpdater(Session.class, "sequence");
+
+	/** atomically increments {@link #pageId} */
+	private static final AtomicIntegerFieldUpdater<Session> PAGE_ID =
+		AtomicIntegerFieldUpdater.newUpdater(Session.class, "pageId");
+
 	/** a sequence used for whenever something session-specific needs a unique value */
-	private int sequence = 1;
+	private volatile int sequence = 1;
 
 	/** a sequence used for generating page IDs */
-	private int pageId = 0;
+	private volatile int pageId = 0;
 
 	/** synchronize page's access by session */
 	private final IProvider<PageAccessSynchronizer> pageAccessSynchronizer;
@@ -176,7 +186,7 @@ public abstract class Session implements IClusterable, IEventSink
 	protected ClientInfo clientInfo;
 
 	/** True if session state has been changed */
-	private transient boolean dirty = false;
+	private transient volatile boolean dirty = false;
 
 	/** feedback messages */
 	private final FeedbackMessages feedbackMessages = new FeedbackMessages();
@@ -187,8 +197,11 @@ public abstract class Session implements IClusterable, IEventSink
 	/** The locale to use when loading resources for this session. */
 	private Locale locale;
 
-	/** Application level meta data. */
-	private MetaDataEntry<?>[] metaData;
+	/**
+	 * Application level meta data. Never modified in place but replaced by a modified copy, so it
+	 * can be read without locking.
+	 */
+	private volatile MetaDataEntry<?>[] metaData;
 
 	/** True, if session has been invalidated */
 	private transient boolean sessionInvalidated = false;
@@ -432,7 +445,7 @@ public abstract class Session implements IClusterable, IEventSink
 	 * @return The metadata
 	 * @see MetaDataKey
 	 */
-	public synchronized final <M extends Serializable> M getMetaData(final MetaDataKey<M> key)
+	public final <M extends Serializable> M getMetaData(final MetaDataKey<M> key)
 	{
 		return key.get(metaData);
 	}
@@ -618,10 +631,37 @@ public abstract class Session implements IClusterable, IEventSink
 	 */
 	public final synchronized void setMetaData(final MetaDataKey<?> key, final Serializable object)
 	{
-		metaData = key.set(metaData, object);
+		metaData = key.set(copy(metaData), object);
 		dirty();
 	}
 
+	/**
+	 * Copies the metadata, so {@link MetaDataKey#set(MetaDataEntry[], Object)} can modify it while
+	 * other threads are reading the original.
+	 * 
+	 * @param metaData
+	 *            the metadata to copy, may be {@code null}
+	 * @return the copy
+	 */
+	private static MetaDataEntry<?>[] copy(final MetaDataEntry<?>[] metaData)
+	{
+		if (metaData == null)
+		{
+			return null;
+		}
+		MetaDataEntry<?>[] copy = new MetaDataEntry<?>[metaData.length];
+		for (int i = 0; i < metaData.length; i++)
+		{
+			copy[i] = copy(metaData[i]);
+		}
+		return copy;
+	}
+
+	private static <T> MetaDataEntry<T> copy(final MetaDataEntry<T> entry)
+	{
+		return new MetaDataEntry<T>(entry.key, entry.object);
+	}
+
 	/**
 	 * Set the style (see {@link org.apache.wicket.Session}).
 	 * 
@@ -701,10 +741,26 @@ public abstract class Session implements IClusterable, IEventSink
 	{
 		if (dirty)
 		{
-			Request request = RequestCycle.get().getRequest();
-			getSessionStore().flushSession(request, this);
+			// reset before flushing, so changes made meanwhile by concurrent requests are flushed
+			// by them again
+			dirty = false;
+
+			boolean flushed = false;
+			try
+			{
+				Request request = RequestCycle.get().getRequest();
+				getSessionStore().flushSession(request, this);
+				flushed = true;
+			}
+			finally
+			{
+				if (flushed == false)
+				{
+					// the session is clean only after a successful flush
+					dirty = true;
+				}
+			}
 		}
-		dirty = false;
 	}
 
 	/**
@@ -864,18 +920,18 @@ public abstract class Session implements IClusterable, IEventSink
 	 * 
 	 * @return session-unique value
 	 */
-	public synchronized int nextSequenceValue()
+	public int nextSequenceValue()
 	{
-		return sequence++;
+		return SEQUENCE.getAndIncrement(this);
 	}
 
 	/**
 	 * 
 	 * @return the next page id
 	 */
-	public synchronized int nextPageId()
+	public int nextPageId()
 	{
-		return pageId++;
+		return PAGE_ID.getAndIncrement(this);
 	}
 
 	/**
@@ -918,9 +974,11 @@ public abstract class Session implements IClusterable, IEventSink
 		protected PageAccessSynchronizer createInstance()
 		{
 			final Duration timeout;
+			PageAccessStatistics statistics = null;
 			if (Application.exists())
 			{
 				timeout = Application.get().getRequestCycleSettings().getTimeout();
+				statistics = Application.get().getPageAccessStatistics();
 			}
 			else
 			{
@@ -929,7 +987,7 @@ public abstract class Session implements IClusterable, IEventSink
 					"PageAccessSynchronizer created outside of application thread, using default timeout: {}",
 					timeout);
 			}
-			return new PageAccessSynchronizer(timeout);
+			return new PageAccessSynchronizer(timeout, statistics);
 		}
 	}
 
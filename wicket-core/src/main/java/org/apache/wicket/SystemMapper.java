@@ -16,19 +16,36 @@
  */
 package org.apache.wicket;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.wicket.core.request.handler.BookmarkablePageRequestHandler;
 import org.apache.wicket.core.request.mapper.BookmarkableMapper;
 import org.apache.wicket.core.request.mapper.BufferedResponseMapper;
 import org.apache.wicket.core.request.mapper.HomePageMapper;
 import org.apache.wicket.core.request.mapper.PageInstanceMapper;
 import org.apache.wicket.core.request.mapper.ResourceReferenceMapper;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.cycle.UrlCacheStatistics;
+import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.mapper.parameter.PageParametersEncoder;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.util.IProvider;
+import org.apache.wicket.util.lang.Objects;
 
 /**
  * Mapper that encapsulates mappers that are necessary for Wicket to function.
+ * <p>
+ * If enabled with {@link org.apache.wicket.settings.IRequestCycleSettings#setUrlCacheSize(int)}
+ * the Urls of bookmarkable pages and resource references are remembered, so rendering many links
+ * to the same targets asks the mounted mappers only once.
+ * </p>
  * 
  * @author igor.vaynberg
  * 
@@ -37,6 +54,11 @@ public class SystemMapper extends CompoundRequestMapper
 {
 	private final Application application;
 
+	/**
+	 * the remembered Urls, {@code null} until the first Url is generated with the cache enabled
+	 */
+	private volatile UrlCache urlCache;
+
 	/**
 	 * Constructor
 	 * 
@@ -55,6 +77,178 @@ public class SystemMapper extends CompoundRequestMapper
 		add(new BufferedResponseMapper());
 	}
 
+	@Override
+	public CompoundRequestMapper add(final IRequestMapper mapper)
+	{
+		CompoundRequestMapper result = super.add(mapper);
+		urlCache = null;
+		return result;
+	}
+
+	@Override
+	public CompoundRequestMapper remove(final IRequestMapper mapper)
+	{
+		CompoundRequestMapper result = super.remove(mapper);
+		urlCache = null;
+		return result;
+	}
+
+	@Override
+	public Url mapHandler(final IRequestHandler requestHandler)
+	{
+		int size = application.getRequestCycleSettings().getUrlCacheSize();
+		UrlKey key = size > 0 ? newUrlKey(requestHandler) : null;
+		if (key == null)
+		{
+			return super.mapHandler(requestHandler);
+		}
+
+		UrlCache cache = urlCache;
+		if (cache == null || cache.size != size)
+		{
+			cache = new UrlCache(size);
+			urlCache = cache;
+		}
+
+		UrlCacheStatistics statistics = application.getUrlCacheStatistics();
+		Url url = cache.get(key);
+		if (url != null)
+		{
+			statistics.mapHit();
+		}
+		else
+		{
+			statistics.mapMiss();
+			url = super.mapHandler(requestHandler);
+			if (url == null)
+			{
+				return null;
+			}
+			cache.put(key, new Url(url));
+		}
+
+		// the Url is mutable, so give out copies only
+		return new Url(url);
+	}
+
+	/**
+	 * Creates the key of the Url of a handler, if its Url depends only on the handler.
+	 * 
+	 * @param requestHandler
+	 * @return the key or {@code null} if the Url of the handler must not be remembered
+	 */
+	private UrlKey newUrlKey(final IRequestHandler requestHandler)
+	{
+		// subclasses may carry more state than their class and parameters
+		if (requestHandler.getClass() == BookmarkablePageRequestHandler.class)
+		{
+			BookmarkablePageRequestHandler handler = (BookmarkablePageRequestHandler)requestHandler;
+			return new UrlKey(BookmarkablePageRequestHandler.class, handler.getPageClass(),
+				handler.getPageParameters(), null, null);
+		}
+		else if (requestHandler.getClass() == ResourceReferenceRequestHandler.class &&
+			application.usesDeploymentConfig() && Session.exists())
+		{
+			// the version of a resource is fixed in deployment mode only, its url attributes
+			// depend on the locale and style of the session
+			ResourceReferenceRequestHandler handler = (ResourceReferenceRequestHandler)requestHandler;
+			Session session = Session.get();
+			return new UrlKey(ResourceReferenceRequestHandler.class,
+				handler.getResourceReference(), handler.getPageParameters(), session.getLocale(),
+				session.getStyle());
+		}
+		return null;
+	}
+
+	/**
+	 * The remembered Urls, the least recently used one is removed when the size is exceeded
+	 */
+	private static class UrlCache
+	{
+		private final int size;
+
+		/** the Urls from the least to the most recently used, guarded by itself */
+		private final Map<UrlKey, Url> urls;
+
+		private UrlCache(final int size)
+		{
+			this.size = size;
+			urls = new LinkedHashMap<UrlKey, Url>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<UrlKey, Url> eldest)
+				{
+					return size() > UrlCache.this.size;
+				}
+			};
+		}
+
+		private Url get(final UrlKey key)
+		{
+			synchronized (urls)
+			{
+				return urls.get(key);
+			}
+		}
+
+		private void put(final UrlKey key, final Url url)
+		{
+			synchronized (urls)
+			{
+				urls.put(key, url);
+			}
+		}
+	}
+
+	private static class UrlKey
+	{
+		private final Class<?> handlerType;
+
+		private final Object target;
+
+		private final PageParameters parameters;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private UrlKey(final Class<?> handlerType, final Object target,
+			final PageParameters parameters, final Locale locale, final String style)
+		{
+			this.handlerType = handlerType;
+			this.target = target;
+			// the parameters are mutable, so keep a copy of them
+			this.parameters = parameters != null ? new PageParameters(parameters) : null;
+			this.locale = locale;
+			this.style = style;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hashCode(handlerType, target, parameters, locale, style);
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof UrlKey == false)
+			{
+				return false;
+			}
+			UrlKey other = (UrlKey)obj;
+			return handlerType == other.handlerType && Objects.equal(target, other.target) &&
+				Objects.equal(parameters, other.parameters) && Objects.equal(locale, other.locale) &&
+				Objects.equal(style, other.style);
+		}
+	}
+
 	private IProvider<IResourceCachingStrategy> getResourceCachingStrategy()
 	{
 		return new IProvider<IResourceCachingStrategy>()
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The histograms of all {@link Measure}s of one class of components or models.
+ * 
+ * @see RenderStatistics
+ */
+public class ClassStatistics
+{
+	private final Class<?> type;
+
+	private final Map<Measure, Histogram> histograms;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param type
+	 *            the class of the components or models
+	 */
+	public ClassStatistics(final Class<?> type)
+	{
+		this.type = type;
+
+		histograms = new EnumMap<Measure, Histogram>(Measure.class);
+		for (Measure measure : Measure.values())
+		{
+			histograms.put(measure, new Histogram());
+		}
+	}
+
+	/**
+	 * @return the class of the components or models
+	 */
+	public Class<?> getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @param measure
+	 * @return the histogram of the given measure
+	 */
+	public Histogram get(final Measure measure)
+	{
+		return histograms.get(measure);
+	}
+
+	/**
+	 * Forgets all recorded durations.
+	 */
+	public void reset()
+	{
+		for (Histogram histogram : histograms.values())
+		{
+			histogram.reset();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder string = new StringBuilder(type.getName());
+		for (Map.Entry<Measure, Histogram> entry : histograms.entrySet())
+		{
+			if (entry.getValue().getCount() > 0)
+			{
+				string.append(' ')
+					.append(entry.getKey())
+					.append(" [")
+					.append(entry.getValue())
+					.append(']');
+			}
+		}
+		return string.toString();
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with buckets of powers of two nanoseconds, i.e. percentiles
+ * are precise up to a factor of two.
+ */
+public class Histogram
+{
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 * 
+	 * @param nanos
+	 */
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+
+		// the bucket of a duration is the position of its highest bit
+		buckets.incrementAndGet(nanos == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long current;
+		while ((current = max.get()) < nanos)
+		{
+			if (max.compareAndSet(current, nanos))
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of recorded durations
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * @return the sum of all recorded durations in nanoseconds
+	 */
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	/**
+	 * @return the longest recorded duration in nanoseconds
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * @return the average duration in nanoseconds
+	 */
+	public long getMean()
+	{
+		long count = getCount();
+		return count == 0 ? 0 : getTotal() / count;
+	}
+
+	/**
+	 * Gets an upper bound for the duration the given fraction of the recorded durations don't
+	 * exceed.
+	 * 
+	 * @param fraction
+	 *            e.g. 0.99 for the 99th percentile
+	 * @return the duration in nanoseconds
+	 */
+	public long getPercentile(final double fraction)
+	{
+		long count = getCount();
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long threshold = (long)Math.ceil(count * fraction);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += buckets.get(i);
+			if (seen >= threshold)
+			{
+				// the upper bound of the bucket, but not more than the max
+				return Math.min((2L << i) - 1, getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forgets all recorded durations.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "count=" + getCount() + ", mean=" + getMean() / 1000 + "us, p99=" +
+			getPercentile(0.99) / 1000 + "us, max=" + getMax() / 1000 + "us";
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.model.IModel;
+
+/**
+ * Is told how long components take to configure and render, and models to load. Useful to find
+ * slow components in production, e.g. with {@link RenderStatistics}.
+ * <p>
+ * Enable it with {@link org.apache.wicket.Application#setRenderInstrumentation(IRenderInstrumentation)}.
+ * The methods are called by the threads processing requests, so implementations must be
+ * thread-safe and fast.
+ * 
+ * @see RenderStatistics
+ */
+public interface IRenderInstrumentation
+{
+	/**
+	 * Called after a component has been configured, prepared for render or rendered.
+	 * 
+	 * @param component
+	 *            the component
+	 * @param measure
+	 *            what has been measured, one of {@link Measure#CONFIGURE},
+	 *            {@link Measure#BEFORE_RENDER} or {@link Measure#RENDER}
+	 * @param nanos
+	 *            the time it took
+	 */
+	void onComponent(Component component, Measure measure, long nanos);
+
+	/**
+	 * Called after a {@link org.apache.wicket.model.LoadableDetachableModel} has loaded its
+	 * object.
+	 * 
+	 * @param model
+	 *            the model
+	 * @param nanos
+	 *            the time it took
+	 */
+	void onModelLoaded(IModel<?> model, long nanos);
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+/**
+ * What the {@link IRenderInstrumentation} is told about.
+ */
+public enum Measure
+{
+	/** {@link org.apache.wicket.Component#onConfigure()} including the behaviors */
+	CONFIGURE,
+
+	/**
+	 * {@link org.apache.wicket.Component#onBeforeRender()} including the listeners and the children
+	 * of a container
+	 */
+	BEFORE_RENDER,
+
+	/** {@link org.apache.wicket.Component#render()} including the children of a container */
+	RENDER,
+
+	/** {@link org.apache.wicket.model.LoadableDetachableModel#load()} */
+	MODEL_LOAD
+}
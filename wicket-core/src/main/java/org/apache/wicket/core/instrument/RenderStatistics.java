@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.model.IModel;
+
+/**
+ * An {@link IRenderInstrumentation} aggregating the durations per class of components and models.
+ * Since pages are components too, the render time of whole pages is found under their page
+ * classes.
+ * <p>
+ * Note that the render time of a container includes the render time of its children.
+ * 
+ * @see org.apache.wicket.Application#setRenderInstrumentation(IRenderInstrumentation)
+ */
+public class RenderStatistics implements IRenderInstrumentation
+{
+	private final ConcurrentMap<Class<?>, ClassStatistics> statistics = new ConcurrentHashMap<Class<?>, ClassStatistics>();
+
+	@Override
+	public void onComponent(final Component component, final Measure measure, final long nanos)
+	{
+		get(component.getClass()).get(measure).record(nanos);
+	}
+
+	@Override
+	public void onModelLoaded(final IModel<?> model, final long nanos)
+	{
+		get(model.getClass()).get(Measure.MODEL_LOAD).record(nanos);
+	}
+
+	/**
+	 * Gets the statistics of a class, creating them if needed.
+	 * 
+	 * @param type
+	 *            the class of components or models
+	 * @return the statistics
+	 */
+	public ClassStatistics get(final Class<?> type)
+	{
+		ClassStatistics classStatistics = statistics.get(type);
+		if (classStatistics == null)
+		{
+			classStatistics = new ClassStatistics(type);
+			ClassStatistics existing = statistics.putIfAbsent(type, classStatistics);
+			if (existing != null)
+			{
+				classStatistics = existing;
+			}
+		}
+		return classStatistics;
+	}
+
+	/**
+	 * Gets the statistics of all classes, the ones with the longest total time of the given
+	 * measure first.
+	 * 
+	 * @param measure
+	 *            the measure to sort by
+	 * @return the statistics
+	 */
+	public List<ClassStatistics> getStatistics(final Measure measure)
+	{
+		List<ClassStatistics> list = new ArrayList<ClassStatistics>(statistics.values());
+		Collections.sort(list, new Comparator<ClassStatistics>()
+		{
+			@Override
+			public int compare(final ClassStatistics o1, final ClassStatistics o2)
+			{
+				long total1 = o1.get(measure).getTotal();
+				long total2 = o2.get(measure).getTotal();
+				return total1 < total2 ? 1 : (total1 == total2 ? 0 : -1);
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * Forgets the statistics of all classes.
+	 */
+	public void reset()
+	{
+		statistics.clear();
+	}
+}
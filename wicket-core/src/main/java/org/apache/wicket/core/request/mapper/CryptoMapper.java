@@ -16,14 +16,18 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.core.request.handler.RequestSettingRequestHandler;
 import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.IProvider;
 import org.apache.wicket.util.crypt.ICrypt;
 import org.apache.wicket.util.lang.Args;
@@ -43,6 +47,9 @@ import org.slf4j.LoggerFactory;
  * deemed a plain text sibling of the corresponding segment in the encrypted URL, and all subsequent
  * segments are considered plain text children of the current segment.
  *
+ * The encrypted URLs are remembered during a request, so pages linking many times to the same
+ * URL encrypt it only once.
+ *
  *
  * @author igor.vaynberg
  * @author Jesse Long
@@ -52,6 +59,13 @@ public class CryptoMapper implements IRequestMapper
 {
 	private static final Logger log = LoggerFactory.getLogger(CryptoMapper.class);
 
+	/** metadata-key used to remember the encrypted urls during a request */
+	private static final MetaDataKey<EncryptedUrls> ENCRYPTED_URLS =
+		new MetaDataKey<EncryptedUrls>()
+		{
+			private static final long serialVersionUID = 1L;
+		};
+
 	private final IRequestMapper wrappedMapper;
 	private final IProvider<ICrypt> cryptProvider;
 
@@ -146,7 +160,35 @@ public class CryptoMapper implements IRequestMapper
 		{
 			return url;
 		}
-		String encryptedUrlString = getCrypt().encryptUrlSafe(url.toString());
+
+		ICrypt crypt = getCrypt();
+		RequestCycle cycle = RequestCycle.get();
+		String plainUrl = url.toString();
+		if (cycle == null)
+		{
+			return encryptUrl(crypt, url, plainUrl);
+		}
+
+		EncryptedUrls encryptedUrls = cycle.getMetaData(ENCRYPTED_URLS);
+		if (encryptedUrls == null || encryptedUrls.crypt != crypt)
+		{
+			encryptedUrls = new EncryptedUrls(crypt);
+			cycle.setMetaData(ENCRYPTED_URLS, encryptedUrls);
+		}
+
+		Url encryptedUrl = encryptedUrls.urls.get(plainUrl);
+		if (encryptedUrl == null)
+		{
+			encryptedUrl = encryptUrl(crypt, url, plainUrl);
+			encryptedUrls.urls.put(plainUrl, encryptedUrl);
+		}
+		// the Url is mutable, so give out copies only
+		return new Url(encryptedUrl);
+	}
+
+	private Url encryptUrl(final ICrypt crypt, final Url url, final String plainUrl)
+	{
+		String encryptedUrlString = crypt.encryptUrlSafe(plainUrl);
 
 		Url encryptedUrl = new Url(url.getCharset());
 		encryptedUrl.getSegments().add(encryptedUrlString);
@@ -246,6 +288,21 @@ public class CryptoMapper implements IRequestMapper
 		return url;
 	}
 
+	/**
+	 * The urls encrypted with a crypt during a request.
+	 */
+	private static class EncryptedUrls
+	{
+		private final ICrypt crypt;
+
+		private final Map<String, Url> urls = new HashMap<String, Url>();
+
+		private EncryptedUrls(final ICrypt crypt)
+		{
+			this.crypt = crypt;
+		}
+	}
+
 	private static class ApplicationCryptProvider implements IProvider<ICrypt>
 	{
 		private final Application application;
@@ -17,15 +17,22 @@
 package org.apache.wicket.core.request.mapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.RequestListenerInterface;
+import org.apache.wicket.core.request.handler.BookmarkableListenerInterfaceRequestHandler;
+import org.apache.wicket.core.request.handler.BookmarkablePageRequestHandler;
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
 import org.apache.wicket.core.request.handler.ListenerInterfaceRequestHandler;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.info.ComponentInfo;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.info.PageInfo;
@@ -66,7 +73,7 @@ import org.apache.wicket.util.string.Strings;
  *
  * @author Matej Knopp
  */
-public class MountedMapper extends AbstractBookmarkableMapper
+public class MountedMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	private final IPageParametersEncoder pageParametersEncoder;
 
@@ -542,11 +549,80 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return pageClass.equals(this.getPageClass());
 	}
 
-	private Class<? extends IRequestablePage> getPageClass()
+	/**
+	 * @return the class of the mounted page
+	 */
+	public Class<? extends IRequestablePage> getPageClass()
 	{
 		return pageClassProvider.get();
 	}
 
+	/**
+	 * Only a {@link MountedMapper} itself, not a subclass, with a page class which is known already
+	 * is indexed. Subclasses may map other urls or handlers, and a lazily resolved page class must
+	 * not be resolved when the index is built. Subclasses may opt in by overriding this method.
+	 * 
+	 * @return {@code true} if this mapper may be indexed
+	 */
+	@Override
+	public boolean isIndexable()
+	{
+		return getClass() == MountedMapper.class && pageClassProvider instanceof ClassReference;
+	}
+
+	/**
+	 * @return the fixed segments of the mount path up to the first placeholder
+	 */
+	@Override
+	public String[] getUrlPrefix()
+	{
+		int length = 0;
+		while (length < mountSegments.length && isFixedSegment(mountSegments[length]))
+		{
+			length++;
+		}
+		return Arrays.copyOf(mountSegments, length);
+	}
+
+	/**
+	 * @return the class of the mounted page
+	 */
+	@Override
+	public Object getHandlerKey()
+	{
+		return getPageClass();
+	}
+
+	/**
+	 * @return the class of the page of the handler as checked by {@link #mapHandler(IRequestHandler)}
+	 */
+	@Override
+	public Object getHandlerKey(IRequestHandler requestHandler)
+	{
+		if (requestHandler instanceof ListenerInterfaceRequestHandler)
+		{
+			if (getRecreateMountedPagesAfterExpiry())
+			{
+				IRequestablePage page = ((ListenerInterfaceRequestHandler)requestHandler).getPage();
+				return page != null ? page.getClass() : null;
+			}
+			return null;
+		}
+
+		while (requestHandler instanceof IRequestHandlerDelegate)
+		{
+			requestHandler = ((IRequestHandlerDelegate)requestHandler).getDelegateHandler();
+		}
+
+		if (requestHandler instanceof BookmarkablePageRequestHandler ||
+			requestHandler instanceof RenderPageRequestHandler ||
+			requestHandler instanceof BookmarkableListenerInterfaceRequestHandler)
+		{
+			return ((IPageClassRequestHandler)requestHandler).getPageClass();
+		}
+		return null;
+	}
+
 	@Override
 	public String toString()
 	{
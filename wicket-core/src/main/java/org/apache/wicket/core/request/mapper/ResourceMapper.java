@@ -16,6 +16,7 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.wicket.Application;
@@ -25,6 +26,7 @@ import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.mapper.AbstractMapper;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.mapper.parameter.PageParametersEncoder;
@@ -66,7 +68,7 @@ import org.apache.wicket.util.string.Strings;
  *
  * @author Peter Ertl
  */
-public class ResourceMapper extends AbstractMapper implements IRequestMapper
+public class ResourceMapper extends AbstractMapper implements IIndexableRequestMapper
 {
 	// encode page parameters into url + decode page parameters from url
 	private final IPageParametersEncoder parametersEncoder;
@@ -202,6 +204,55 @@ public class ResourceMapper extends AbstractMapper implements IRequestMapper
 		return encodePageParameters(url, parameters, parametersEncoder);
 	}
 
+	/**
+	 * Only a {@link ResourceMapper} itself, not a subclass, is indexed. Subclasses may map other
+	 * urls or handlers, they may opt in by overriding this method.
+	 * 
+	 * @return {@code true} if this mapper may be indexed
+	 */
+	@Override
+	public boolean isIndexable()
+	{
+		return getClass() == ResourceMapper.class;
+	}
+
+	/**
+	 * @return the fixed segments of the mount path up to the first placeholder, without the file
+	 *         name which may be decorated by the caching strategy
+	 */
+	@Override
+	public String[] getUrlPrefix()
+	{
+		int length = 0;
+		while (length < mountSegments.length - 1 && getPlaceholder(mountSegments[length]) == null)
+		{
+			length++;
+		}
+		return Arrays.copyOf(mountSegments, length);
+	}
+
+	/**
+	 * @return the mounted resource reference
+	 */
+	@Override
+	public Object getHandlerKey()
+	{
+		return resourceReference;
+	}
+
+	/**
+	 * @return the resource reference of a {@link ResourceReferenceRequestHandler}
+	 */
+	@Override
+	public Object getHandlerKey(IRequestHandler requestHandler)
+	{
+		if (requestHandler instanceof ResourceReferenceRequestHandler)
+		{
+			return ((ResourceReferenceRequestHandler)requestHandler).getResourceReference();
+		}
+		return null;
+	}
+
 	protected IResourceCachingStrategy getCachingStrategy()
 	{
 		return Application.get().getResourceSettings().getCachingStrategy();
@@ -20,6 +20,7 @@ import java.util.UUID;
 
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Session;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.crypt.ICrypt;
 import org.apache.wicket.util.crypt.ICryptFactory;
 import org.apache.wicket.util.crypt.SunJceCrypt;
@@ -31,6 +32,9 @@ import org.apache.wicket.util.crypt.SunJceCrypt;
  *
  * Note that the use of this crypt factory will result in an immediate creation of a http session
  *
+ * The crypt is reused during a request, so all urls of a page are encrypted with the same
+ * initialized cipher.
+ *
  * @author igor.vaynberg
  */
 public class KeyInSessionSunJceCryptFactory implements ICryptFactory
@@ -41,6 +45,11 @@ public class KeyInSessionSunJceCryptFactory implements ICryptFactory
 		private static final long serialVersionUID = 1L;
 	};
 
+	/** metadata-key used to keep the crypt during a request */
+	private static final MetaDataKey<SunJceCrypt> CRYPT = new MetaDataKey<SunJceCrypt>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
 
 	@Override
 	public ICrypt newCrypt()
@@ -57,9 +66,19 @@ public class KeyInSessionSunJceCryptFactory implements ICryptFactory
 			session.setMetaData(KEY, key);
 		}
 
-		// build the crypt based on session key
-		ICrypt crypt = new SunJceCrypt();
-		crypt.setKey(key);
+		// reuse the crypt of this request unless the session has changed
+		RequestCycle cycle = RequestCycle.get();
+		SunJceCrypt crypt = cycle != null ? cycle.getMetaData(CRYPT) : null;
+		if (crypt == null || key.equals(crypt.getKey()) == false)
+		{
+			// build the crypt based on session key
+			crypt = new SunJceCrypt();
+			crypt.setKey(key);
+			if (cycle != null)
+			{
+				cycle.setMetaData(CRYPT, crypt);
+			}
+		}
 		return crypt;
 	}
 }
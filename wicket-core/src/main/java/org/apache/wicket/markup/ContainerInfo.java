@@ -86,6 +86,15 @@ public class ContainerInfo
 		return markupType != null ? markupType.getExtension() : null;
 	}
 
+	/**
+	 * 
+	 * @return The container markup type
+	 */
+	public MarkupType getMarkupType()
+	{
+		return markupType;
+	}
+
 	/**
 	 * 
 	 * @return The container locale
@@ -49,30 +49,50 @@ public class DefaultMarkupCacheKeyProvider implements IMarkupCacheKeyProvider
 	 */
 	@Override
 	public String getCacheKey(final MarkupContainer container, final Class<?> clazz)
+	{
+		return getCacheKey(clazz, container.getVariation(), container.getStyle(),
+			container.getLocale(), container.getMarkupType().getExtension());
+	}
+
+	/**
+	 * Construct the key for markup loaded without a container.
+	 * 
+	 * @param containerInfo
+	 *            The locale, style, variation and markup type to get the key for
+	 * @param clazz
+	 *            The clazz to get the key for
+	 * @return Key that uniquely identifies the markup
+	 * @see MarkupFactory#getMarkup(ContainerInfo, Class, boolean)
+	 */
+	public String getCacheKey(final ContainerInfo containerInfo, final Class<?> clazz)
+	{
+		return getCacheKey(clazz, containerInfo.getVariation(), containerInfo.getStyle(),
+			containerInfo.getLocale(), containerInfo.getFileExtension());
+	}
+
+	private String getCacheKey(final Class<?> clazz, final String variation, final String style,
+		final Locale locale, final String extension)
 	{
 		final String classname = clazz.getName();
 		final StringBuilder buffer = new StringBuilder(classname.length() + 64);
 		buffer.append(classname);
 
-		final String variation = container.getVariation();
 		if (variation != null)
 		{
 			buffer.append('_').append(variation);
 		}
 
-		final String style = container.getStyle();
 		if (style != null)
 		{
 			buffer.append('_').append(style);
 		}
 
-		final Locale locale = container.getLocale();
 		if (locale != null)
 		{
 			buffer.append('_').append(locale.toString());
 		}
 
-		buffer.append('.').append(container.getMarkupType().getExtension());
+		buffer.append('.').append(extension);
 		return buffer.toString();
 	}
 }
@@ -52,6 +52,15 @@ public class Markup implements IMarkupFragment
 	/** The associated markup file */
 	private final MarkupResourceStream markupResourceStream;
 
+	/** True once {@link #compile()} has been run */
+	private boolean compiled;
+
+	/**
+	 * The index of the matching close tag for each open tag, -1 for all other elements. Null if
+	 * the markup is not compiled or has been modified since.
+	 */
+	private int[] closeTagIndexes;
+
 	/**
 	 * Take the markup string, parse it and return the Markup (list of MarkupElements).
 	 * <p>
@@ -152,6 +161,7 @@ public class Markup implements IMarkupFragment
 		}
 
 		markupElements.set(index, elem);
+		closeTagIndexes = null;
 	}
 
 	/**
@@ -178,6 +188,7 @@ public class Markup implements IMarkupFragment
 	final public void addMarkupElement(final MarkupElement markupElement)
 	{
 		markupElements.add(markupElement);
+		closeTagIndexes = null;
 	}
 
 	/**
@@ -189,6 +200,7 @@ public class Markup implements IMarkupFragment
 	final public void addMarkupElement(final int pos, final MarkupElement markupElement)
 	{
 		markupElements.add(pos, markupElement);
+		closeTagIndexes = null;
 	}
 
 	/**
@@ -208,6 +220,140 @@ public class Markup implements IMarkupFragment
 		markupElements = Collections.unmodifiableList(markupElements);
 	}
 
+	/**
+	 * Prepares the markup for rendering. Called once by {@link MarkupFactory} when the markup has
+	 * been loaded and before it is cached and rendered.
+	 * <ul>
+	 * <li>Adjacent {@link RawMarkup} elements, e.g. left behind by markup filters removing
+	 * elements, are joined so that they are written at once.</li>
+	 * <li>The index of the matching close tag is determined for each open tag, so that
+	 * {@link MarkupStream#skipComponent()} and {@link MarkupFragment} jump to the end of a
+	 * component instead of scanning its body.</li>
+	 * </ul>
+	 */
+	final void compile()
+	{
+		if (compiled || (markupElements == null))
+		{
+			return;
+		}
+		compiled = true;
+
+		joinRawMarkup();
+
+		final int size = markupElements.size();
+		final int[] indexes = new int[size];
+		final int[] openTags = new int[size];
+		int depth = 0;
+		for (int i = 0; i < size; i++)
+		{
+			indexes[i] = -1;
+
+			MarkupElement element = markupElements.get(i);
+			if (element instanceof ComponentTag)
+			{
+				ComponentTag tag = (ComponentTag)element;
+				if (tag.isOpen() && (tag.hasNoCloseTag() == false))
+				{
+					openTags[depth++] = i;
+				}
+				else if (tag.isClose())
+				{
+					// unwind to the open tag this tag closes, ignoring unbalanced tags
+					for (int d = depth - 1; d >= 0; d--)
+					{
+						if (tag.closes(markupElements.get(openTags[d])))
+						{
+							indexes[openTags[d]] = i;
+							depth = d;
+							break;
+						}
+					}
+				}
+			}
+		}
+		closeTagIndexes = indexes;
+	}
+
+	/**
+	 * Replaces runs of adjacent {@link RawMarkup} elements with a single one.
+	 */
+	private void joinRawMarkup()
+	{
+		List<MarkupElement> joined = null;
+		final int size = markupElements.size();
+		for (int i = 0; i < size; i++)
+		{
+			MarkupElement element = markupElements.get(i);
+			int end = i + 1;
+			if (element instanceof RawMarkup)
+			{
+				while ((end < size) && (markupElements.get(end) instanceof RawMarkup))
+				{
+					end++;
+				}
+			}
+
+			if (end - i > 1)
+			{
+				if (joined == null)
+				{
+					joined = new ArrayList<MarkupElement>(markupElements.subList(0, i));
+				}
+				StringBuilder raw = new StringBuilder();
+				for (int j = i; j < end; j++)
+				{
+					raw.append(markupElements.get(j).toCharSequence());
+				}
+				joined.add(new RawMarkup(raw.toString()));
+				i = end - 1;
+			}
+			else if (joined != null)
+			{
+				joined.add(element);
+			}
+		}
+
+		if (joined != null)
+		{
+			boolean immutable = (markupElements instanceof ArrayList) == false;
+			markupElements = immutable ? Collections.unmodifiableList(joined) : joined;
+		}
+	}
+
+	/**
+	 * @param index
+	 *            the index of an open tag
+	 * @return the index of its close tag, or -1 if the markup is not compiled
+	 */
+	final int getCloseTagIndex(final int index)
+	{
+		final int[] indexes = closeTagIndexes;
+		return (indexes != null) ? indexes[index] : -1;
+	}
+
+	/**
+	 * Looks up the index of the close tag in a compiled markup.
+	 * 
+	 * @param markup
+	 *            the markup
+	 * @param index
+	 *            the index of an open tag in the markup
+	 * @return the index of its close tag, or -1 if unknown
+	 */
+	static int getCloseTagIndex(final IMarkupFragment markup, final int index)
+	{
+		if (markup instanceof Markup)
+		{
+			return ((Markup)markup).getCloseTagIndex(index);
+		}
+		else if (markup instanceof MarkupFragment)
+		{
+			return ((MarkupFragment)markup).getCloseTagIndex(index);
+		}
+		return -1;
+	}
+
 	@Override
 	public final IMarkupFragment find(final String id)
 	{
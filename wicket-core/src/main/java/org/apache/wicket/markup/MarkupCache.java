@@ -16,9 +16,16 @@
  */
 package org.apache.wicket.markup;
 
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.MarkupContainer;
@@ -39,6 +46,10 @@ import org.slf4j.LoggerFactory;
  * If the application is in development mode and a markup file changes, it'll automatically be
  * removed from the cache and reloaded when needed.
  * <p>
+ * Concurrent requests for the same uncached markup load it only once. The cache can be bounded by
+ * {@link IMarkupSettings#setMarkupCacheSize(int)}, its lookups are counted in
+ * {@link #getStatistics()}.
+ * <p>
  * MarkupCache is registered with {@link MarkupFactory} which in turn is registered with
  * {@link IMarkupSettings} and thus can be replaced with a subclassed version.
  * 
@@ -67,6 +78,12 @@ public class MarkupCache implements IMarkupCache
 	/** The markup cache key provider used by MarkupCache */
 	private IMarkupCacheKeyProvider markupCacheKeyProvider;
 
+	/** cache key => lock held by the thread loading that markup */
+	private final ConcurrentMap<String, Object> loadLocks = new ConcurrentHashMap<String, Object>();
+
+	/** Counters about the lookups of this cache */
+	private final MarkupCacheStatistics statistics = new MarkupCacheStatistics();
+
 	/**
 	 * Note that you can not use Application.get() since removeMarkup() will be called from a
 	 * ModificationWatcher thread which has no associated Application.
@@ -277,38 +294,83 @@ public class MarkupCache implements IMarkupCache
 		final String cacheKey = getMarkupCacheKeyProvider(container).getCacheKey(container,
 			containerClass);
 
-		// Is the markup already in the cache?
-		Markup markup = null;
-		if ((enforceReload == false) && (cacheKey != null))
-		{
-			markup = getMarkupFromCache(cacheKey, container);
-		}
+		return getMarkup(cacheKey, container, null, containerClass, enforceReload);
+	}
 
-		// If markup not found in cache or cache disabled, than ...
-		if (markup == null)
+	/**
+	 * Get the markup of a class without a container, see
+	 * {@link MarkupFactory#getMarkup(ContainerInfo, Class, boolean)}. The cache key is built by
+	 * {@link DefaultMarkupCacheKeyProvider}, if another key provider is used the markup is loaded
+	 * but not cached.
+	 * <p>
+	 * The methods which may be overridden to change the caching are called with a {@code null}
+	 * container.
+	 * 
+	 * @param containerInfo
+	 *            The locale, style, variation and markup type to find the markup for
+	 * @param containerClass
+	 *            The class to find the markup for
+	 * @param enforceReload
+	 *            The cache will be ignored and all, including inherited markup files, will be
+	 *            reloaded. Whatever is in the cache, it will be ignored
+	 * @return The markup. Null, if not found.
+	 */
+	public final Markup getMarkup(final ContainerInfo containerInfo, final Class<?> containerClass,
+		final boolean enforceReload)
+	{
+		Args.notNull(containerInfo, "containerInfo");
+		Args.notNull(containerClass, "containerClass");
+
+		String cacheKey = null;
+		IMarkupCacheKeyProvider keyProvider = getMarkupCacheKeyProvider(null);
+		if (keyProvider instanceof DefaultMarkupCacheKeyProvider)
 		{
-			if (log.isDebugEnabled())
-			{
-				log.debug("Load markup: cacheKey=" + cacheKey);
-			}
+			cacheKey = ((DefaultMarkupCacheKeyProvider)keyProvider).getCacheKey(containerInfo,
+				containerClass);
+		}
 
-			// Get the markup resource stream for the container
-			final MarkupResourceStream resourceStream = MarkupFactory.get()
-				.getMarkupResourceStream(container, containerClass);
+		return getMarkup(cacheKey, null, containerInfo, containerClass, enforceReload);
+	}
 
-			// Found markup?
-			if (resourceStream != null)
+	/**
+	 * @param cacheKey
+	 *            If null, than the cache will be ignored
+	 * @param container
+	 *            The container requesting the markup, or {@code null} if the containerInfo is
+	 *            given
+	 * @param containerInfo
+	 *            {@code null} if the container is given
+	 * @param containerClass
+	 * @param enforceReload
+	 * @return The markup. Null, if not found.
+	 */
+	private Markup getMarkup(final String cacheKey, final MarkupContainer container,
+		final ContainerInfo containerInfo, final Class<?> containerClass,
+		final boolean enforceReload)
+	{
+		// Is the markup already in the cache?
+		Markup markup;
+		if ((enforceReload == false) && (cacheKey != null))
+		{
+			markup = getMarkupFromCache(cacheKey, container);
+			if (markup != null)
 			{
-				resourceStream.setCacheKey(cacheKey);
-
-				// load the markup and watch for changes
-				markup = loadMarkupAndWatchForChanges(container, resourceStream, enforceReload);
+				statistics.hit();
 			}
 			else
 			{
-				markup = onMarkupNotFound(cacheKey, container, Markup.NO_MARKUP);
+				statistics.miss();
+
+				// load it unless another thread is doing so already
+				markup = loadMarkupOnce(cacheKey, container, containerInfo, containerClass);
 			}
 		}
+		else
+		{
+			// reload or cache disabled
+			markup = locateAndLoadMarkup(cacheKey, container, containerInfo, containerClass,
+				enforceReload);
+		}
 
 		// NO_MARKUP should only be used inside the Cache.
 		if (markup == Markup.NO_MARKUP)
@@ -319,6 +381,91 @@ public class MarkupCache implements IMarkupCache
 		return markup;
 	}
 
+	/**
+	 * Loads the markup while holding a lock for the cache key, so that concurrent requests for the
+	 * same markup wait for the first one to load it instead of parsing it again.
+	 * 
+	 * @param cacheKey
+	 * @param container
+	 * @param containerInfo
+	 * @param containerClass
+	 * @return The markup. Markup.NO_MARKUP, if not found.
+	 */
+	private Markup loadMarkupOnce(final String cacheKey, final MarkupContainer container,
+		final ContainerInfo containerInfo, final Class<?> containerClass)
+	{
+		Object lock = new Object();
+		Object existing = loadLocks.putIfAbsent(cacheKey, lock);
+		if (existing != null)
+		{
+			lock = existing;
+		}
+
+		try
+		{
+			synchronized (lock)
+			{
+				// another thread might have loaded the markup meanwhile
+				Markup markup = getMarkupFromCache(cacheKey, container);
+				if (markup == null)
+				{
+					markup = locateAndLoadMarkup(cacheKey, container, containerInfo,
+						containerClass, false);
+				}
+				return markup;
+			}
+		}
+		finally
+		{
+			loadLocks.remove(cacheKey, lock);
+		}
+	}
+
+	/**
+	 * Locates the markup resource stream of the container and loads the markup.
+	 * 
+	 * @param cacheKey
+	 *            If null, than the cache will be ignored
+	 * @param container
+	 *            {@code null} if loaded without a container
+	 * @param containerInfo
+	 *            The locale, style, variation and markup type if loaded without a container
+	 * @param containerClass
+	 * @param enforceReload
+	 * @return The markup. Markup.NO_MARKUP, if not found.
+	 */
+	private Markup locateAndLoadMarkup(final String cacheKey, final MarkupContainer container,
+		final ContainerInfo containerInfo, final Class<?> containerClass,
+		final boolean enforceReload)
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("Load markup: cacheKey=" + cacheKey);
+		}
+
+		long start = System.nanoTime();
+
+		// Get the markup resource stream for the container
+		final MarkupResourceStream resourceStream = container != null ? MarkupFactory.get()
+			.getMarkupResourceStream(container, containerClass) : MarkupFactory.get()
+			.getMarkupResourceStream(containerInfo, containerClass);
+
+		// Found markup?
+		if (resourceStream != null)
+		{
+			resourceStream.setCacheKey(cacheKey);
+
+			// load the markup and watch for changes
+			Markup markup = loadMarkupAndWatchForChanges(container, resourceStream, enforceReload);
+			statistics.loaded(System.nanoTime() - start);
+			return markup;
+		}
+		else
+		{
+			return onMarkupNotFound(cacheKey, container, Markup.NO_MARKUP);
+		}
+	}
+
 	/**
 	 * Will be called if the markup was not in the cache yet and could not be found either.
 	 * <p>
@@ -328,6 +475,7 @@ public class MarkupCache implements IMarkupCache
 	 * 
 	 * @param cacheKey
 	 * @param container
+	 *            {@code null} if loaded without a container
 	 * @param markup
 	 *            Markup.NO_MARKUP
 	 * @return Same as parameter "markup"
@@ -362,7 +510,7 @@ public class MarkupCache implements IMarkupCache
 	 * @param locationString
 	 *            If {@code null} then ignore the cache
 	 * @param container
-	 *            The container this markup is for.
+	 *            The container this markup is for, {@code null} if loaded without a container.
 	 * @param markup
 	 * @return markup The markup provided, except if the cacheKey already existed in the cache, then
 	 *         the markup from the cache is provided.
@@ -406,6 +554,7 @@ public class MarkupCache implements IMarkupCache
 	 * @param cacheKey
 	 *            If null, than the cache will be ignored
 	 * @param container
+	 *            {@code null} if loaded without a container
 	 * @return null, if not found or to enforce reloading the markup
 	 */
 	protected Markup getMarkupFromCache(final String cacheKey, final MarkupContainer container)
@@ -445,8 +594,9 @@ public class MarkupCache implements IMarkupCache
 			locationString = cacheKey;
 		}
 
-		Markup markup = MarkupFactory.get().loadMarkup(container, markupResourceStream,
-			enforceReload);
+		Markup markup = container != null ? MarkupFactory.get().loadMarkup(container,
+			markupResourceStream, enforceReload) : MarkupFactory.get().loadMarkup(
+			markupResourceStream, enforceReload);
 		if (markup != null)
 		{
 			if (cacheKey != null)
@@ -541,11 +691,20 @@ public class MarkupCache implements IMarkupCache
 		return loadMarkup(container, markupResourceStream, enforceReload);
 	}
 
+	/**
+	 * @return the counters about the lookups of this cache
+	 */
+	public final MarkupCacheStatistics getStatistics()
+	{
+		return statistics;
+	}
+
 	/**
 	 * Get the markup cache key provider to be used
 	 * 
 	 * @param container
-	 *            The MarkupContainer requesting the markup resource stream
+	 *            The MarkupContainer requesting the markup resource stream, {@code null} if loaded
+	 *            without a container
 	 * @return IMarkupResourceStreamProvider
 	 */
 	public IMarkupCacheKeyProvider getMarkupCacheKeyProvider(final MarkupContainer container)
@@ -564,7 +723,8 @@ public class MarkupCache implements IMarkupCache
 
 	/**
 	 * Allows you to change the map implementation which will hold the cache data. By default it is
-	 * a ConcurrentHashMap() in order to allow multiple thread to access the data in a secure way.
+	 * a ConcurrentHashMap() in order to allow multiple thread to access the data in a secure way,
+	 * bounded if {@link IMarkupSettings#getMarkupCacheSize()} is set.
 	 * 
 	 * @param <K>
 	 * @param <V>
@@ -572,6 +732,11 @@ public class MarkupCache implements IMarkupCache
 	 */
 	protected <K, V> ICache<K, V> newCacheImplementation()
 	{
+		int maxSize = application.getMarkupSettings().getMarkupCacheSize();
+		if (maxSize > 0)
+		{
+			return new BoundedCacheImplementation<K, V>(maxSize);
+		}
 		return new DefaultCacheImplementation<K, V>();
 	}
 
@@ -735,4 +900,262 @@ public class MarkupCache implements IMarkupCache
 			clear();
 		}
 	}
+
+	/**
+	 * A cache holding at most a maximum number of entries. When the maximum is exceeded, the least
+	 * recently used entry is removed.
+	 * <p>
+	 * The entries are kept in an access ordered {@link LinkedHashMap}, so an access and an eviction
+	 * take constant time. All accesses are synchronized on the map. {@link #getKeys()} and
+	 * {@link #getValues()} return snapshots, removing through their iterators removes the entries
+	 * from the cache.
+	 * 
+	 * @param <K>
+	 * @param <V>
+	 */
+	public static class BoundedCacheImplementation<K, V> implements ICache<K, V>
+	{
+		private final int maxSize;
+
+		/** the entries from the least to the most recently used, guarded by itself */
+		private final LinkedHashMap<K, V> cache;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param maxSize
+		 *            the maximum number of entries
+		 */
+		public BoundedCacheImplementation(final int maxSize)
+		{
+			Args.withinRange(1, Integer.MAX_VALUE, maxSize, "maxSize");
+			this.maxSize = maxSize;
+
+			cache = new LinkedHashMap<K, V>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<K, V> eldest)
+				{
+					return size() > maxSize;
+				}
+			};
+		}
+
+		@Override
+		public void clear()
+		{
+			synchronized (cache)
+			{
+				cache.clear();
+			}
+		}
+
+		@Override
+		public boolean containsKey(final Object key)
+		{
+			if (key == null)
+			{
+				return false;
+			}
+			synchronized (cache)
+			{
+				return cache.containsKey(key);
+			}
+		}
+
+		@Override
+		public V get(final Object key)
+		{
+			if (key == null)
+			{
+				return null;
+			}
+			synchronized (cache)
+			{
+				return cache.get(key);
+			}
+		}
+
+		@Override
+		public Collection<K> getKeys()
+		{
+			final List<Map.Entry<K, V>> entries = snapshot();
+			return new AbstractCollection<K>()
+			{
+				@Override
+				public Iterator<K> iterator()
+				{
+					final Iterator<Map.Entry<K, V>> iterator = new SnapshotIterator(entries);
+					return new Iterator<K>()
+					{
+						@Override
+						public boolean hasNext()
+						{
+							return iterator.hasNext();
+						}
+
+						@Override
+						public K next()
+						{
+							return iterator.next().getKey();
+						}
+
+						@Override
+						public void remove()
+						{
+							iterator.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size()
+				{
+					return entries.size();
+				}
+			};
+		}
+
+		@Override
+		public Collection<V> getValues()
+		{
+			final List<Map.Entry<K, V>> entries = snapshot();
+			return new AbstractCollection<V>()
+			{
+				@Override
+				public Iterator<V> iterator()
+				{
+					final Iterator<Map.Entry<K, V>> iterator = new SnapshotIterator(entries);
+					return new Iterator<V>()
+					{
+						@Override
+						public boolean hasNext()
+						{
+							return iterator.hasNext();
+						}
+
+						@Override
+						public V next()
+						{
+							return iterator.next().getValue();
+						}
+
+						@Override
+						public void remove()
+						{
+							iterator.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size()
+				{
+					return entries.size();
+				}
+			};
+		}
+
+		@Override
+		public void put(final K key, final V value)
+		{
+			synchronized (cache)
+			{
+				cache.put(key, value);
+			}
+		}
+
+		@Override
+		public boolean remove(final K key)
+		{
+			if (key == null)
+			{
+				return false;
+			}
+			synchronized (cache)
+			{
+				return cache.remove(key) != null;
+			}
+		}
+
+		@Override
+		public int size()
+		{
+			synchronized (cache)
+			{
+				return cache.size();
+			}
+		}
+
+		@Override
+		public void shutdown()
+		{
+			clear();
+		}
+
+		/**
+		 * @return the maximum number of entries
+		 */
+		public int getMaxSize()
+		{
+			return maxSize;
+		}
+
+		/**
+		 * @return a copy of the entries
+		 */
+		private List<Map.Entry<K, V>> snapshot()
+		{
+			synchronized (cache)
+			{
+				List<Map.Entry<K, V>> entries = new ArrayList<Map.Entry<K, V>>(cache.size());
+				for (Map.Entry<K, V> entry : cache.entrySet())
+				{
+					entries.add(new AbstractMap.SimpleImmutableEntry<K, V>(entry));
+				}
+				return entries;
+			}
+		}
+
+		/**
+		 * Iterates over a snapshot of the entries and removes the entries from the cache
+		 */
+		private class SnapshotIterator implements Iterator<Map.Entry<K, V>>
+		{
+			private final Iterator<Map.Entry<K, V>> entries;
+
+			private Map.Entry<K, V> current;
+
+			private SnapshotIterator(final List<Map.Entry<K, V>> entries)
+			{
+				this.entries = entries.iterator();
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return entries.hasNext();
+			}
+
+			@Override
+			public Map.Entry<K, V> next()
+			{
+				current = entries.next();
+				return current;
+			}
+
+			@Override
+			public void remove()
+			{
+				if (current == null)
+				{
+					throw new IllegalStateException();
+				}
+				BoundedCacheImplementation.this.remove(current.getKey());
+				current = null;
+			}
+		}
+	}
 }
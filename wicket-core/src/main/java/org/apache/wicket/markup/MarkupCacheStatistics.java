@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters about the lookups of {@link MarkupCache}.
+ * 
+ * @see MarkupCache#getStatistics()
+ */
+public class MarkupCacheStatistics
+{
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong loadTime = new AtomicLong();
+
+	/**
+	 * Records a markup found in the cache.
+	 */
+	public void hit()
+	{
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records a markup not found in the cache.
+	 */
+	public void miss()
+	{
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Records a markup loaded from its resource stream.
+	 * 
+	 * @param nanos
+	 *            the time needed to locate and load the markup
+	 */
+	public void loaded(final long nanos)
+	{
+		loads.incrementAndGet();
+		loadTime.addAndGet(nanos);
+	}
+
+	/**
+	 * @return the number of markups found in the cache
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of markups not found in the cache
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of markups loaded from their resource streams
+	 */
+	public long getLoads()
+	{
+		return loads.get();
+	}
+
+	/**
+	 * @return the total time needed to load markups, in milliseconds
+	 */
+	public long getLoadTime()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(loadTime.get());
+	}
+
+	/**
+	 * @return the average time needed to load a markup, in milliseconds
+	 */
+	public double getAverageLoadTime()
+	{
+		long count = loads.get();
+		return count == 0 ? 0 : loadTime.get() / 1000000d / count;
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset()
+	{
+		hits.set(0);
+		misses.set(0);
+		loads.set(0);
+		loadTime.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MarkupCacheStatistics [hits=" + getHits() + ", misses=" + getMisses() +
+			", loads=" + getLoads() + ", loadTime=" + getLoadTime() + "ms]";
+	}
+}
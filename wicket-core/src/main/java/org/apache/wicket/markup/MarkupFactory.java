@@ -51,7 +51,7 @@ public class MarkupFactory
 	private IMarkupCache markupCache = null;
 
 	/** The markup resource stream provider used by MarkupCache */
-	private IMarkupResourceStreamProvider markupResourceStreamProvider = null;
+	private DefaultMarkupResourceStreamProvider markupResourceStreamProvider = null;
 
 	/**
 	 * @return Gets the markup factory registered with the Wicket application
@@ -243,6 +243,53 @@ public class MarkupFactory
 		return loadMarkup(container, markupResourceStream, enforceReload);
 	}
 
+	/**
+	 * Get the markup of a class without an instance of it, e.g. to load it into the cache before it
+	 * is needed. The markup is looked up and cached the same way as for a container with the given
+	 * locale, style, variation and markup type by {@link DefaultMarkupResourceStreamProvider} and
+	 * {@link DefaultMarkupCacheKeyProvider}. Hence it is not meant for classes providing their own
+	 * markup or cache key.
+	 * <p>
+	 * Markup caches other than {@link MarkupCache} can't be used without a container, they are
+	 * bypassed.
+	 * 
+	 * @param containerInfo
+	 *            The class, locale, style, variation and markup type to find the markup for
+	 * @param clazz
+	 *            Must be the container class or any of its super classes. May be null.
+	 * @param enforceReload
+	 *            The cache will be ignored and all, including inherited markup files, will be
+	 *            reloaded. Whatever is in the cache, it will be ignored
+	 * @return The markup associated with the class. Null, if the markup was not found or the
+	 *         markup type is missing. Wicket Exception in case of errors.
+	 */
+	public final Markup getMarkup(final ContainerInfo containerInfo, final Class<?> clazz,
+		final boolean enforceReload)
+	{
+		Args.notNull(containerInfo, "containerInfo");
+
+		if (containerInfo.getMarkupType() == null)
+		{
+			return null;
+		}
+
+		Class<?> containerClass = getContainerClass(containerInfo, clazz);
+
+		IMarkupCache cache = getMarkupCache();
+		if (cache instanceof MarkupCache)
+		{
+			return ((MarkupCache)cache).getMarkup(containerInfo, containerClass, enforceReload);
+		}
+
+		MarkupResourceStream markupResourceStream = getMarkupResourceStream(containerInfo,
+			containerClass);
+		if (markupResourceStream == null)
+		{
+			return null;
+		}
+		return loadMarkup(markupResourceStream, enforceReload);
+	}
+
 	/**
 	 * Without a markup type we can not search for a file and we can not construct the cacheKey. We
 	 * can not even load associated markup as required for Panels. Though every MarkupContainer can
@@ -283,6 +330,11 @@ public class MarkupFactory
 			return (IMarkupResourceStreamProvider)container;
 		}
 
+		return getDefaultMarkupResourceStreamProvider();
+	}
+
+	private DefaultMarkupResourceStreamProvider getDefaultMarkupResourceStreamProvider()
+	{
 		if (markupResourceStreamProvider == null)
 		{
 			markupResourceStreamProvider = new DefaultMarkupResourceStreamProvider();
@@ -363,6 +415,43 @@ public class MarkupFactory
 		return containerClass;
 	}
 
+	private Class<?> getContainerClass(final ContainerInfo containerInfo, final Class<?> clazz)
+	{
+		Class<?> containerClass = containerInfo.getContainerClass();
+		if (clazz == null)
+		{
+			return Args.notNull(containerClass, "containerClass");
+		}
+		else if (containerClass != null && !clazz.isAssignableFrom(containerClass))
+		{
+			throw new IllegalArgumentException("Parameter clazz must be an instance of " +
+				containerClass.getName() + ", but is a " + clazz.getName());
+		}
+		return clazz;
+	}
+
+	/**
+	 * Create a new markup resource stream for a class without a container, see
+	 * {@link #getMarkup(ContainerInfo, Class, boolean)}.
+	 * 
+	 * @param containerInfo
+	 *            The locale, style, variation and markup type to look for
+	 * @param clazz
+	 *            The container class or any of its super classes
+	 * @return A IResourceStream if the resource was found
+	 */
+	final MarkupResourceStream getMarkupResourceStream(final ContainerInfo containerInfo,
+		final Class<?> clazz)
+	{
+		final IResourceStream resourceStream = getDefaultMarkupResourceStreamProvider().getMarkupResourceStream(
+			containerInfo, clazz);
+		if (resourceStream == null || resourceStream instanceof MarkupResourceStream)
+		{
+			return (MarkupResourceStream)resourceStream;
+		}
+		return new MarkupResourceStream(resourceStream, containerInfo, clazz);
+	}
+
 	/**
 	 * Loads markup from a resource stream. It'll call the registered markup loader to load the
 	 * markup.
@@ -394,6 +483,39 @@ public class MarkupFactory
 			return null;
 		}
 
+		return internalLoadMarkup(container, markupResourceStream, enforceReload);
+	}
+
+	/**
+	 * Loads markup from a resource stream without a container, see
+	 * {@link #getMarkup(ContainerInfo, Class, boolean)}. The markup loader is called with a
+	 * {@code null} container.
+	 * 
+	 * @param markupResourceStream
+	 *            The markup resource stream to load
+	 * @param enforceReload
+	 *            The cache will be ignored and all, including inherited markup files, will be
+	 *            reloaded. Whatever is in the cache, it will be ignored
+	 * @return The markup. Null, if the markup was not found. Wicket Exception in case of errors.
+	 */
+	public final Markup loadMarkup(final MarkupResourceStream markupResourceStream,
+		final boolean enforceReload)
+	{
+		Args.notNull(markupResourceStream, "markupResourceStream");
+
+		return internalLoadMarkup(null, markupResourceStream, enforceReload);
+	}
+
+	/**
+	 * @param container
+	 *            The original requesting markup container or {@code null}
+	 * @param markupResourceStream
+	 * @param enforceReload
+	 * @return The markup. Null, if the markup was not found.
+	 */
+	private Markup internalLoadMarkup(final MarkupContainer container,
+		final MarkupResourceStream markupResourceStream, final boolean enforceReload)
+	{
 		try
 		{
 			// The InheritedMarkupMarkupLoader needs to load the base markup. It'll do it via
@@ -409,8 +531,13 @@ public class MarkupFactory
 			// reloads. The base markup itself might be merged as it might inherit from its base
 			// class.
 
-			return getMarkupLoader().loadMarkup(container, markupResourceStream, null,
+			Markup markup = getMarkupLoader().loadMarkup(container, markupResourceStream, null,
 				enforceReload);
+			if (markup != null)
+			{
+				markup.compile();
+			}
+			return markup;
 		}
 		catch (MarkupNotFoundException e)
 		{
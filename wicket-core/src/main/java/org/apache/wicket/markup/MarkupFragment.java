@@ -106,6 +106,10 @@ public class MarkupFragment implements IMarkupFragment
 				endIndex = markupSize;
 			}
 		}
+		else if (isCloseTagIndex(markup, startIndex, startTag))
+		{
+			endIndex = Markup.getCloseTagIndex(markup, startIndex);
+		}
 		else
 		{
 			for (endIndex = startIndex + 1; endIndex < markupSize; endIndex++)
@@ -131,6 +135,35 @@ public class MarkupFragment implements IMarkupFragment
 		size = endIndex - startIndex + 1;
 	}
 
+	/**
+	 * @param markup
+	 * @param startIndex
+	 * @param startTag
+	 * @return true, if the compiled markup knows the close tag of the start tag
+	 */
+	private static boolean isCloseTagIndex(final IMarkupFragment markup, final int startIndex,
+		final ComponentTag startTag)
+	{
+		int closeIndex = Markup.getCloseTagIndex(markup, startIndex);
+		return (closeIndex > startIndex) && markup.get(closeIndex).closes(startTag);
+	}
+
+	/**
+	 * @param index
+	 *            the index of an open tag in this fragment
+	 * @return the index of its close tag, or -1 if unknown
+	 * @see Markup#getCloseTagIndex(IMarkupFragment, int)
+	 */
+	final int getCloseTagIndex(final int index)
+	{
+		int closeIndex = Markup.getCloseTagIndex(markup, startIndex + index);
+		if ((closeIndex < startIndex) || (closeIndex - startIndex >= size))
+		{
+			return -1;
+		}
+		return closeIndex - startIndex;
+	}
+
 	@Override
 	public final MarkupElement get(final int index)
 	{
@@ -461,6 +461,17 @@ public class MarkupStream
 	 */
 	public void skipToMatchingCloseTag(final ComponentTag openTag)
 	{
+		// Usually the open tag is the previous element, a compiled markup knows its close tag
+		if (currentIndex > 0)
+		{
+			int closeIndex = Markup.getCloseTagIndex(markup, currentIndex - 1);
+			if ((closeIndex >= currentIndex) && get(closeIndex).closes(openTag))
+			{
+				setCurrentIndex(closeIndex);
+				return;
+			}
+		}
+
 		// Loop through the markup in this container
 		while (hasMore())
 		{
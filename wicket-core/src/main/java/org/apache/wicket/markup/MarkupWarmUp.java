@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.core.request.mapper.MountedMapper;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.ICompoundRequestMapper;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the markup of pages and components into the {@link MarkupCache} before the first request
+ * needs it, e.g. at application startup so that the first requests after a deployment don't pay
+ * for locating and parsing the markup.
+ * <p>
+ * The markup is loaded in parallel on a {@link ForkJoinPool}, without instantiating the pages or
+ * components, by {@link MarkupFactory#getMarkup(ContainerInfo, Class, boolean)}. It is looked up
+ * for the given locale without style and variation, the same way
+ * {@link DefaultMarkupResourceStreamProvider} would do it for a session having that locale.
+ * Classes providing their own markup or cache key (see {@link IMarkupResourceStreamProvider} and
+ * {@link IMarkupCacheKeyProvider}) are skipped.
+ * 
+ * <pre>
+ * new MarkupWarmUp(application).addMountedPages().add(MyPanel.class).warmUp();
+ * </pre>
+ * 
+ * @see org.apache.wicket.settings.IMarkupSettings#setWarmUpMarkup(boolean)
+ */
+public class MarkupWarmUp
+{
+	private static final Logger log = LoggerFactory.getLogger(MarkupWarmUp.class);
+
+	private final Application application;
+
+	private final Set<Class<? extends MarkupContainer>> containerClasses = new LinkedHashSet<Class<? extends MarkupContainer>>();
+
+	private Locale locale = Locale.getDefault();
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 */
+	public MarkupWarmUp(final Application application)
+	{
+		this.application = Args.notNull(application, "application");
+	}
+
+	/**
+	 * Adds a page or component whose markup should be loaded.
+	 * 
+	 * @param containerClass
+	 * @return this
+	 */
+	public MarkupWarmUp add(final Class<? extends MarkupContainer> containerClass)
+	{
+		Args.notNull(containerClass, "containerClass");
+
+		if (IMarkupResourceStreamProvider.class.isAssignableFrom(containerClass) ||
+			IMarkupCacheKeyProvider.class.isAssignableFrom(containerClass))
+		{
+			log.debug("Skipping {}, it provides its own markup", containerClass.getName());
+		}
+		else
+		{
+			containerClasses.add(containerClass);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the home page and all pages mounted with a {@link MountedMapper}.
+	 * 
+	 * @return this
+	 */
+	public MarkupWarmUp addMountedPages()
+	{
+		addPage(application.getHomePage());
+		addMountedPages(application.getRootRequestMapper());
+		return this;
+	}
+
+	private void addMountedPages(final IRequestMapper mapper)
+	{
+		if (mapper instanceof ICompoundRequestMapper)
+		{
+			for (IRequestMapper child : (ICompoundRequestMapper)mapper)
+			{
+				addMountedPages(child);
+			}
+		}
+		else if (mapper instanceof MountedMapper)
+		{
+			addPage(((MountedMapper)mapper).getPageClass());
+		}
+	}
+
+	private void addPage(final Class<? extends IRequestablePage> pageClass)
+	{
+		// only html pages, the markup type can't be determined without an instance
+		if (pageClass != null && WebPage.class.isAssignableFrom(pageClass))
+		{
+			add(pageClass.asSubclass(WebPage.class));
+		}
+	}
+
+	/**
+	 * @param locale
+	 *            the locale to load the markup for, the default locale of the JVM by default
+	 * @return this
+	 */
+	public MarkupWarmUp setLocale(final Locale locale)
+	{
+		this.locale = Args.notNull(locale, "locale");
+		return this;
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of threads loading markup, the number of processors by default
+	 * @return this
+	 */
+	public MarkupWarmUp setParallelism(final int parallelism)
+	{
+		// 0x7fff is the limit of ForkJoinPool
+		this.parallelism = Args.withinRange(1, 0x7fff, parallelism, "parallelism");
+		return this;
+	}
+
+	/**
+	 * @return the pages and components whose markup will be loaded
+	 */
+	public Collection<Class<? extends MarkupContainer>> getContainerClasses()
+	{
+		return containerClasses;
+	}
+
+	/**
+	 * Loads the markup of all added pages and components. Failures are logged, they don't stop the
+	 * warm-up.
+	 * 
+	 * @return the time needed to load the markup
+	 */
+	public Duration warmUp()
+	{
+		final long start = System.nanoTime();
+
+		int loaded = 0;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+			for (final Class<? extends MarkupContainer> containerClass : containerClasses)
+			{
+				tasks.add(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call()
+					{
+						return loadMarkup(containerClass);
+					}
+				});
+			}
+
+			for (Future<Boolean> result : pool.invokeAll(tasks))
+			{
+				if (result.get())
+				{
+					loaded++;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			throw new WicketRuntimeException(e.getCause());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		Duration duration = Duration.milliseconds((System.nanoTime() - start) / 1000000);
+		log.info("Loaded the markup of {} of {} pages and components in {}", new Object[] {
+				loaded, containerClasses.size(), duration });
+		return duration;
+	}
+
+	/**
+	 * Loads the markup of a class on a thread of the pool.
+	 * 
+	 * @param containerClass
+	 * @return {@code true} if markup has been found
+	 */
+	private boolean loadMarkup(final Class<? extends MarkupContainer> containerClass)
+	{
+		ThreadContext.setApplication(application);
+		try
+		{
+			ContainerInfo containerInfo = new ContainerInfo(containerClass, locale, null, null,
+				MarkupType.HTML_MARKUP_TYPE);
+			return MarkupFactory.get().getMarkup(containerInfo, containerClass, false) != null;
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Unable to load the markup of " + containerClass.getName(), e);
+			return false;
+		}
+		finally
+		{
+			ThreadContext.detach();
+		}
+	}
+}
@@ -121,6 +121,25 @@ public class WebPage extends Page
 		return MarkupType.HTML_MARKUP_TYPE;
 	}
 
+	/**
+	 * Whether this page may be streamed, i.e. written directly to the client while it renders
+	 * instead of being rendered into a buffer first. Streaming reduces the memory needed per
+	 * response and sends the &lt;head&gt; section early, so the browser can start loading
+	 * resources while the rest of the page renders.
+	 * <p>
+	 * A page is streamed only when it is rendered without a redirect, e.g. with
+	 * {@link org.apache.wicket.settings.IRequestCycleSettings.RenderStrategy#ONE_PASS_RENDER} or
+	 * when its url doesn't change. Once the first bytes are sent the response can no longer be
+	 * replaced, so a streamable page should not schedule another request handler or fail during
+	 * render.
+	 * 
+	 * @return {@code false} by default
+	 */
+	public boolean isStreamable()
+	{
+		return false;
+	}
+
 	/**
 	 * Common code executed by constructors.
 	 */
@@ -34,6 +34,8 @@ import org.apache.wicket.markup.head.internal.HeaderResponse;
 import org.apache.wicket.markup.html.TransparentWebMarkupContainer;
 import org.apache.wicket.markup.renderStrategy.AbstractHeaderRenderStrategy;
 import org.apache.wicket.request.Response;
+import org.apache.wicket.request.handler.render.WebPageRenderer;
+import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.response.StringResponse;
 
 
@@ -200,6 +202,24 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 		}
 	}
 
+	/**
+	 * A streamed page sends its header as soon as the header container has been rendered
+	 * completely, so the browser can start fetching the contributed resources while the body is
+	 * rendered. All header contributions are known at this point, since the header sections of the
+	 * whole hierarchy have been rendered. A compressed response stays compressed, the flush only
+	 * pushes out what has been compressed so far.
+	 */
+	@Override
+	protected void onRender()
+	{
+		super.onRender();
+
+		if (WebPageRenderer.isStreaming(getRequestCycle()) && (getResponse() instanceof WebResponse))
+		{
+			((WebResponse)getResponse()).flush();
+		}
+	}
+
 	/**
 	 * Renders the content of the &lt;head&gt; section of the page, including &lt;wicket:head&gt;
 	 * sections in subclasses of the page. For every child-component, the content is rendered to a
@@ -47,7 +47,10 @@ public interface IMarkupLoader
 	 * Loads markup from a resource stream.
 	 * 
 	 * @param container
-	 *            The original requesting markup container
+	 *            The original requesting markup container, {@code null} if the markup is loaded
+	 *            without a container (see
+	 *            {@link MarkupFactory#getMarkup(org.apache.wicket.markup.ContainerInfo, Class, boolean)}
+	 *            )
 	 * @param markupResourceStream
 	 *            The markup resource stream to load
 	 * @param baseLoader
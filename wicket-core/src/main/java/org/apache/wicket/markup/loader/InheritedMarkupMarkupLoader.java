@@ -96,6 +96,12 @@ public class InheritedMarkupMarkupLoader implements IMarkupLoader
 		final Class<?> location = markup.getMarkupResourceStream().getMarkupClass().getSuperclass();
 
 		// get the base markup
+		if (container == null)
+		{
+			// loaded without a container, look it up the same way as the derived markup
+			return MarkupFactory.get().getMarkup(
+				markup.getMarkupResourceStream().getContainerInfo(), location, enforceReload);
+		}
 		return MarkupFactory.get().getMarkup(container, location, enforceReload);
 	}
 
@@ -28,8 +28,6 @@ import org.apache.wicket.util.io.FullyBufferedReader;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.XmlReader;
 import org.apache.wicket.util.lang.Args;
-import org.apache.wicket.util.parse.metapattern.parsers.TagNameParser;
-import org.apache.wicket.util.parse.metapattern.parsers.VariableAssignmentParser;
 import org.apache.wicket.util.string.Strings;
 
 /**
@@ -222,12 +220,15 @@ public final class XmlPullParser implements IXmlPullParser
 				input.getPosition());
 		}
 
-		// Get the complete tag text
-		lastText = input.getSubstring(openBracketIndex, closeBracketIndex + 1);
+		// Get the complete tag text. The tag text in between the brackets is not copied, it is
+		// addressed by its start and end index within the complete text.
+		final String text = input.getSubstring(openBracketIndex, closeBracketIndex + 1)
+			.toString();
+		lastText = text;
 
-		// Get the tagtext between open and close brackets
-		String tagText = lastText.subSequence(1, lastText.length() - 1).toString();
-		if (tagText.length() == 0)
+		int tagTextStart = 1;
+		int tagTextEnd = text.length() - 1;
+		if (tagTextStart == tagTextEnd)
 		{
 			throw new ParseException("Found empty tag: '<>' at" + getLineAndColumnText(),
 				input.getPosition());
@@ -237,16 +238,16 @@ public final class XmlPullParser implements IXmlPullParser
 		final TagType type;
 
 		// If the tag ends in '/', it's a "simple" tag like <foo/>
-		if (tagText.endsWith("/"))
+		if (text.charAt(tagTextEnd - 1) == '/')
 		{
 			type = TagType.OPEN_CLOSE;
-			tagText = tagText.substring(0, tagText.length() - 1);
+			tagTextEnd--;
 		}
-		else if (tagText.startsWith("/"))
+		else if (text.charAt(tagTextStart) == '/')
 		{
 			// The tag text starts with a '/', it's a simple close tag
 			type = TagType.CLOSE;
-			tagText = tagText.substring(1);
+			tagTextStart++;
 		}
 		else
 		{
@@ -254,16 +255,15 @@ public final class XmlPullParser implements IXmlPullParser
 			type = TagType.OPEN;
 
 			// If open tag and starts with "s" like "script" or "style", than ...
-			if ((tagText.length() > STYLE.length()) &&
-				((tagText.charAt(0) == 's') || (tagText.charAt(0) == 'S')))
+			if ((tagTextEnd - tagTextStart > STYLE.length()) &&
+				((text.charAt(tagTextStart) == 's') || (text.charAt(tagTextStart) == 'S')))
 			{
-				final String lowerCase = tagText.substring(0, 6).toLowerCase();
-				if (lowerCase.startsWith(SCRIPT))
+				if (text.regionMatches(true, tagTextStart, SCRIPT, 0, SCRIPT.length()))
 				{
 					// prepare to skip everything between the open and close tag
 					skipUntilText = SCRIPT;
 				}
-				else if (lowerCase.startsWith(STYLE))
+				else if (text.regionMatches(true, tagTextStart, STYLE, 0, STYLE.length()))
 				{
 					// prepare to skip everything between the open and close tag
 					skipUntilText = STYLE;
@@ -271,27 +271,34 @@ public final class XmlPullParser implements IXmlPullParser
 			}
 		}
 
+		if (tagTextStart >= tagTextEnd)
+		{
+			throw new ParseException("Found empty tag: '" + text + "' at" + getLineAndColumnText(),
+				input.getPosition());
+		}
+
 		// Handle special tags like <!-- and <![CDATA ...
-		final char firstChar = tagText.charAt(0);
+		final char firstChar = text.charAt(tagTextStart);
 		if ((firstChar == '!') || (firstChar == '?'))
 		{
-			specialTagHandling(tagText, openBracketIndex, closeBracketIndex);
+			specialTagHandling(text.substring(tagTextStart, tagTextEnd), openBracketIndex,
+				closeBracketIndex);
 
 			input.countLinesTo(openBracketIndex);
-			TextSegment text = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
-				input.getColumnNumber());
-			lastTag = new XmlTag(text, type);
+			TextSegment segment = new TextSegment(lastText, openBracketIndex,
+				input.getLineNumber(), input.getColumnNumber());
+			lastTag = new XmlTag(segment, type);
 
 			return lastType;
 		}
 
-		TextSegment text = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
+		TextSegment segment = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
 			input.getColumnNumber());
-		XmlTag tag = new XmlTag(text, type);
+		XmlTag tag = new XmlTag(segment, type);
 		lastTag = tag;
 
 		// Parse the tag text and populate tag attributes
-		if (parseTagText(tag, tagText))
+		if (parseTagText(tag, text, tagTextStart, tagTextEnd))
 		{
 			// Move to position after the tag
 			input.setPosition(closeBracketIndex + 1);
@@ -607,84 +614,263 @@ public final class XmlPullParser implements IXmlPullParser
 	}
 
 	/**
-	 * Parses the text between tags. For example, "a href=foo.html".
+	 * Parses the text between tags. For example, "a href=foo.html". The text is scanned in place,
+	 * only the name, namespace, keys and values of the attributes are copied.
+	 * <p>
+	 * The tag name is matched like {@code [namespace:]name} and the attributes like
+	 * {@code [namespace:[namespace:]]key[=value]}, where a namespace is a variable name, key and
+	 * name are xml names and a value is a quoted string or a sequence of word characters, '-' and
+	 * '.'. Anything else in between attributes is ignored.
 	 * 
 	 * @param tag
-	 * @param tagText
-	 *            The text between tags
+	 * @param text
+	 *            The complete text of the tag, including the brackets
+	 * @param start
+	 *            The index of the first char in between the brackets
+	 * @param end
+	 *            The index after the last char in between the brackets
 	 * @return false in case of an error
 	 * @throws ParseException
 	 */
-	private boolean parseTagText(final XmlTag tag, final String tagText) throws ParseException
+	private boolean parseTagText(final XmlTag tag, final String text, final int start,
+		final int end) throws ParseException
 	{
-		// Get the length of the tagtext
-		final int tagTextLength = tagText.length();
-
-		// If we match tagname pattern
-		final TagNameParser tagnameParser = new TagNameParser(tagText);
-		if (tagnameParser.matcher().lookingAt())
+		// Extract the namespace and the name
+		int nameStart = start;
+		int pos = scanVariableName(text, start, end);
+		if ((pos > start) && (pos < end) && (text.charAt(pos) == ':') &&
+			(scanXmlName(text, pos + 1, end) > pos + 1))
 		{
-			// Extract the tag from the pattern matcher
-			tag.name = tagnameParser.getName();
-			tag.namespace = tagnameParser.getNamespace();
+			tag.namespace = text.substring(start, pos).toLowerCase();
+			nameStart = pos + 1;
+		}
+		pos = scanXmlName(text, nameStart, end);
+		if (pos == nameStart)
+		{
+			return false;
+		}
+		tag.name = text.substring(nameStart, pos);
 
-			// Are we at the end? Then there are no attributes, so we just
-			// return the tag
-			int pos = tagnameParser.matcher().end(0);
-			if (pos == tagTextLength)
+		// Extract attributes
+		while (pos < end)
+		{
+			// Skip anything up to the next key
+			if (isNameStart(text.charAt(pos)) == false)
 			{
-				return true;
+				pos++;
+				continue;
 			}
 
-			// Extract attributes
-			final VariableAssignmentParser attributeParser = new VariableAssignmentParser(tagText);
-			while (attributeParser.matcher().find(pos))
-			{
-				// Get key and value using attribute pattern
-				String value = attributeParser.getValue();
+			final int keyStart = pos;
+			final int keyEnd = scanAttributeName(text, keyStart, end);
+			pos = keyEnd;
+
+			// In case like <html xmlns:wicket> will the value be empty
+			String value = "";
 
-				// In case like <html xmlns:wicket> will the value be null
-				if (value == null)
+			int equalsIndex = skipWhitespace(text, keyEnd, end);
+			if ((equalsIndex < end) && (text.charAt(equalsIndex) == '='))
+			{
+				final int valueStart = skipWhitespace(text, equalsIndex + 1, end);
+				final int valueEnd = scanValue(text, valueStart, end);
+				if (valueEnd != -1)
 				{
-					value = "";
+					value = getValue(text, valueStart, valueEnd);
+
+					// Set new position to end of attribute
+					pos = valueEnd;
 				}
+			}
 
-				// Set new position to end of attribute
-				pos = attributeParser.matcher().end(0);
+			// Put the attribute in the attributes hash
+			final String key = text.substring(keyStart, keyEnd);
+			if (null != tag.getAttributes().put(key, value))
+			{
+				throw new ParseException("Same attribute found twice: " + key +
+					getLineAndColumnText(), input.getPosition());
+			}
+		}
 
-				// Chop off double quotes or single quotes
-				if (value.startsWith("\"") || value.startsWith("\'"))
-				{
-					value = value.substring(1, value.length() - 1);
-				}
+		return true;
+	}
 
-				// Trim trailing whitespace
-				value = value.trim();
+	/**
+	 * Gets the value of an attribute without quotes and surrounding whitespace, and with markup
+	 * unescaped.
+	 * 
+	 * @param text
+	 * @param start
+	 *            The index of the value, including quotes
+	 * @param end
+	 *            The index after the value, including quotes
+	 * @return the value
+	 */
+	private static String getValue(final String text, int start, int end)
+	{
+		// Chop off double quotes or single quotes
+		final char first = text.charAt(start);
+		if ((first == '"') || (first == '\''))
+		{
+			start++;
+			end--;
+		}
 
-				// Unescape
-				value = Strings.unescapeMarkup(value).toString();
+		// Trim whitespace like String#trim()
+		while ((start < end) && (text.charAt(start) <= ' '))
+		{
+			start++;
+		}
+		while ((start < end) && (text.charAt(end - 1) <= ' '))
+		{
+			end--;
+		}
 
-				// Get key
-				final String key = attributeParser.getKey();
+		final String value = text.substring(start, end);
 
-				// Put the attribute in the attributes hash
-				if (null != tag.getAttributes().put(key, value))
-				{
-					throw new ParseException("Same attribute found twice: " + key +
-						getLineAndColumnText(), input.getPosition());
-				}
+		// Unescape, but only if there is something to unescape
+		if (value.indexOf('&') == -1)
+		{
+			return value;
+		}
+		return Strings.unescapeMarkup(value).toString();
+	}
 
-				// The input has to match exactly (no left over junk after
-				// attributes)
-				if (pos == tagTextLength)
+	/**
+	 * Scans an attribute key like "name" or "namespace:name" or "namespace:name:subname".
+	 * 
+	 * @param text
+	 * @param start
+	 *            The index of the first char of the key, which must be a name start char
+	 * @param end
+	 * @return the index after the key
+	 */
+	private static int scanAttributeName(final String text, final int start, final int end)
+	{
+		final int namespaceEnd = scanVariableName(text, start, end);
+		if ((namespaceEnd < end) && (text.charAt(namespaceEnd) == ':'))
+		{
+			final int subStart = namespaceEnd + 1;
+			final int subEnd = scanVariableName(text, subStart, end);
+			if ((subEnd > subStart) && (subEnd < end) && (text.charAt(subEnd) == ':'))
+			{
+				final int nameEnd = scanXmlName(text, subEnd + 1, end);
+				if (nameEnd > subEnd + 1)
 				{
-					return true;
+					return nameEnd;
 				}
 			}
 
-			return true;
+			final int nameEnd = scanXmlName(text, subStart, end);
+			if (nameEnd > subStart)
+			{
+				return nameEnd;
+			}
 		}
+		return scanXmlName(text, start, end);
+	}
 
-		return false;
+	/**
+	 * Scans a quoted string or a sequence of word characters, '-' and '.'.
+	 * 
+	 * @param text
+	 * @param start
+	 * @param end
+	 * @return the index after the value or -1 if there is no value at start
+	 */
+	private static int scanValue(final String text, final int start, final int end)
+	{
+		if (start == end)
+		{
+			return -1;
+		}
+
+		final char first = text.charAt(start);
+		if ((first == '"') || (first == '\''))
+		{
+			final int quote = text.indexOf(first, start + 1);
+			return ((quote == -1) || (quote >= end)) ? -1 : quote + 1;
+		}
+
+		final int valueEnd = scanNameChars(text, start, end);
+		return (valueEnd > start) ? valueEnd : -1;
+	}
+
+	/**
+	 * Scans a name like [A-Za-z_][A-Za-z0-9_]*
+	 * 
+	 * @param text
+	 * @param start
+	 * @param end
+	 * @return the index after the name, start if there is no name at start
+	 */
+	private static int scanVariableName(final String text, final int start, final int end)
+	{
+		if ((start == end) || (isNameStart(text.charAt(start)) == false))
+		{
+			return start;
+		}
+
+		int pos = start + 1;
+		while ((pos < end) && isVariableChar(text.charAt(pos)))
+		{
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * Scans a name like [A-Za-z_][A-Za-z0-9_.-]*
+	 * 
+	 * @param text
+	 * @param start
+	 * @param end
+	 * @return the index after the name, start if there is no name at start
+	 */
+	private static int scanXmlName(final String text, final int start, final int end)
+	{
+		if ((start == end) || (isNameStart(text.charAt(start)) == false))
+		{
+			return start;
+		}
+		return scanNameChars(text, start + 1, end);
+	}
+
+	private static int scanNameChars(final String text, int pos, final int end)
+	{
+		while ((pos < end) && (isVariableChar(text.charAt(pos)) || (text.charAt(pos) == '.') ||
+			(text.charAt(pos) == '-')))
+		{
+			pos++;
+		}
+		return pos;
+	}
+
+	private static int skipWhitespace(final String text, int pos, final int end)
+	{
+		while ((pos < end) && isWhitespace(text.charAt(pos)))
+		{
+			pos++;
+		}
+		return pos;
+	}
+
+	private static boolean isNameStart(final char ch)
+	{
+		return ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z')) || (ch == '_');
+	}
+
+	private static boolean isVariableChar(final char ch)
+	{
+		return isNameStart(ch) || ((ch >= '0') && (ch <= '9'));
+	}
+
+	/**
+	 * @param ch
+	 * @return whether the char is whitespace the way regular expressions define it
+	 */
+	private static boolean isWhitespace(final char ch)
+	{
+		return (ch == ' ') || (ch == '\t') || (ch == '\n') || (ch == '\u000B') || (ch == '\f') ||
+			(ch == '\r');
 	}
 }
@@ -297,6 +297,23 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 
 	}
 
+	/**
+	 * Gets the index of the first item of the current page as it was set, i.e. without trimming the
+	 * current page to the item count. Unlike {@link #getFirstItemOffset()} this does not need the
+	 * item count, so it can be used by {@link #internalGetItemCount()} to load the items of the
+	 * current page together with the count.
+	 * 
+	 * @return the index of the first item of the current page
+	 */
+	protected final long getRequestedFirstItemOffset()
+	{
+		if (currentPage > Long.MAX_VALUE / itemsPerPage)
+		{
+			return Long.MAX_VALUE;
+		}
+		return currentPage * itemsPerPage;
+	}
+
 	/**
 	 * @return the index of the first visible item in the view
 	 */
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+import java.util.List;
+
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * The models of a subset of the data of an {@link IBatchDataProvider} together with the total
+ * number of items.
+ * 
+ * @param <T>
+ */
+public final class Batch<T>
+{
+	private final List<IModel<T>> models;
+
+	private final long size;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param models
+	 *            the models of the requested items
+	 * @param size
+	 *            the total number of items
+	 */
+	public Batch(final List<IModel<T>> models, final long size)
+	{
+		this.models = Args.notNull(models, "models");
+		this.size = size;
+	}
+
+	/**
+	 * @return the models of the requested items
+	 */
+	public List<IModel<T>> getModels()
+	{
+		return models;
+	}
+
+	/**
+	 * @return the total number of items
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+}
@@ -16,7 +16,9 @@
  */
 package org.apache.wicket.markup.repeater.data;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.wicket.markup.html.navigation.paging.IPageable;
 import org.apache.wicket.markup.repeater.AbstractPageableView;
@@ -46,6 +48,16 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	private static final long serialVersionUID = 1L;
 	private final IDataProvider<T> dataProvider;
 
+	/**
+	 * The batch loaded in this request if the data provider is an {@link IBatchDataProvider}
+	 */
+	private transient Batch<T> batch;
+
+	/**
+	 * The index of the first item in {@link #batch}
+	 */
+	private transient long batchOffset;
+
 	/**
 	 * @param id
 	 *            component id
@@ -71,9 +83,49 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected final Iterator<IModel<T>> getItemModels(long offset, long count)
 	{
+		if (dataProvider instanceof IBatchDataProvider)
+		{
+			if (count <= 0)
+			{
+				return Collections.<IModel<T>> emptyList().iterator();
+			}
+
+			List<IModel<T>> models = getBatch(offset, count).getModels();
+			int from = (int)Math.min(offset - batchOffset, models.size());
+			int to = from + (int)Math.min(count, models.size() - from);
+			return models.subList(from, to).iterator();
+		}
+
 		return new ModelIterator<T>(internalGetDataProvider(), offset, count);
 	}
 
+	/**
+	 * Gets the batch containing the given items, reusing the batch loaded before in this request if
+	 * possible.
+	 * 
+	 * @param offset
+	 *            index of first item
+	 * @param count
+	 *            number of items
+	 * @return the batch
+	 */
+	private Batch<T> getBatch(long offset, long count)
+	{
+		if (batch != null && offset >= batchOffset)
+		{
+			long end = batchOffset + batch.getModels().size();
+			if (count <= end - offset || end >= batch.getSize())
+			{
+				// contains the items or all items up to the end
+				return batch;
+			}
+		}
+
+		batch = ((IBatchDataProvider<T>)dataProvider).batch(offset, count);
+		batchOffset = offset;
+		return batch;
+	}
+
 	/**
 	 * Helper class that converts input from IDataProvider to an iterator over view items.
 	 * 
@@ -139,15 +191,33 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected final long internalGetItemCount()
 	{
+		if (dataProvider instanceof IBatchDataProvider)
+		{
+			// load the current page together with the count
+			return getBatch(getRequestedFirstItemOffset(), getItemsPerPage()).getSize();
+		}
+
 		return internalGetDataProvider().size();
 	}
 
+	/**
+	 * @see org.apache.wicket.markup.repeater.AbstractPageableView#onBeforeRender()
+	 */
+	@Override
+	protected void onBeforeRender()
+	{
+		// the data might have been changed by a listener
+		batch = null;
+		super.onBeforeRender();
+	}
+
 	/**
 	 * @see org.apache.wicket.markup.repeater.AbstractPageableView#onDetach()
 	 */
 	@Override
 	protected void onDetach()
 	{
+		batch = null;
 		dataProvider.detach();
 		super.onDetach();
 	}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+/**
+ * A data provider which can load the items of a page together with the total number of items in a
+ * single round trip to the backend, e.g. with one query using a window function for the count.
+ * <p>
+ * Data views ({@link DataView}, {@link GridView} and the data tables of wicket-extensions) call
+ * {@link #batch(long, long)} once per request instead of {@link #size()},
+ * {@link #iterator(long, long)} and {@link #model(Object)} for each item, and keep the batch until
+ * the view is rendered again or detached. {@link #size()} and {@link #iterator(long, long)} are
+ * still used by other consumers, e.g. by components exporting all the data.
+ * 
+ * @see Batch
+ * 
+ * @param <T>
+ */
+public interface IBatchDataProvider<T> extends IDataProvider<T>
+{
+	/**
+	 * Loads the models for a subset of the data and the total number of items.
+	 * 
+	 * @param first
+	 *            first row of data
+	 * @param count
+	 *            maximum number of items to retrieve, may be {@link Long#MAX_VALUE} if the view is
+	 *            not paged
+	 * @return the models of at most <code>count</code> items starting at <code>first</code>
+	 *         and the total number of items
+	 */
+	Batch<T> batch(long first, long count);
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.model;
 
+import org.apache.wicket.Application;
+import org.apache.wicket.core.instrument.IRenderInstrumentation;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,8 +120,18 @@ public abstract class LoadableDetachableModel<T> implements IModel<T>
 		if (!attached)
 		{
 			attached = true;
+
+			IRenderInstrumentation instrumentation = Application.isRenderInstrumented() &&
+				Application.exists() ? Application.get().getRenderInstrumentation() : null;
+			long start = instrumentation != null ? System.nanoTime() : 0;
+
 			transientModelObject = load();
 
+			if (instrumentation != null)
+			{
+				instrumentation.onModelLoaded(this, System.nanoTime() - start);
+			}
+
 			if (log.isDebugEnabled())
 			{
 				log.debug("loaded transient object " + transientModelObject + " for " + this +
@@ -52,6 +52,28 @@ public class CouldNotLockPageException extends RuntimeException
 		this.threadName = threadName;
 	}
 
+	/**
+	 * Construct.
+	 * 
+	 * @param page
+	 *      the id of the page instance which is already locked
+	 * @param threadName
+	 *      the name of the thread that attempts to acquire the lock on the page
+	 * @param timeout
+	 *      the duration the thread was allowed to wait for the lock
+	 * @param cause
+	 *      the interruption of the thread while it was waiting
+	 */
+	public CouldNotLockPageException(int page, String threadName, Duration timeout,
+		InterruptedException cause)
+	{
+		super("Could not lock page " + page + ". The thread '" + threadName +
+			"' was interrupted while waiting", cause);
+		this.page = page;
+		this.timeout = timeout;
+		this.threadName = threadName;
+	}
+
 	/**
 	 * @return page
 	 */
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters about the acquiring of page locks by {@link PageAccessSynchronizer}s.
+ * <p>
+ * An instance is shared by the synchronizers of all sessions of an application, see
+ * {@link org.apache.wicket.Application#getPageAccessStatistics()}.
+ * </p>
+ */
+public class PageAccessStatistics
+{
+	private final AtomicLong acquiredLocks = new AtomicLong();
+
+	private final AtomicLong contendedLocks = new AtomicLong();
+
+	private final AtomicLong failedLocks = new AtomicLong();
+
+	private final AtomicLong totalWaitTime = new AtomicLong();
+
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	/**
+	 * Records an acquired lock.
+	 * 
+	 * @param waitNanos
+	 *            the time the thread waited for the lock, in nanoseconds
+	 * @param contended
+	 *            whether the lock was held by another thread when requested
+	 */
+	public void lockAcquired(final long waitNanos, final boolean contended)
+	{
+		acquiredLocks.incrementAndGet();
+		if (contended)
+		{
+			contendedLocks.incrementAndGet();
+			recordWait(waitNanos);
+		}
+	}
+
+	/**
+	 * Records a lock which could not be acquired in time.
+	 * 
+	 * @param waitNanos
+	 *            the time the thread waited for the lock, in nanoseconds
+	 */
+	public void lockFailed(final long waitNanos)
+	{
+		failedLocks.incrementAndGet();
+		recordWait(waitNanos);
+	}
+
+	private void recordWait(final long waitNanos)
+	{
+		totalWaitTime.addAndGet(waitNanos);
+
+		long max;
+		do
+		{
+			max = maxWaitTime.get();
+		}
+		while (waitNanos > max && maxWaitTime.compareAndSet(max, waitNanos) == false);
+	}
+
+	/**
+	 * @return the number of acquired locks
+	 */
+	public long getAcquiredLocks()
+	{
+		return acquiredLocks.get();
+	}
+
+	/**
+	 * @return the number of acquired locks for which the thread had to wait for another thread
+	 */
+	public long getContendedLocks()
+	{
+		return contendedLocks.get();
+	}
+
+	/**
+	 * @return the number of locks which could not be acquired in time
+	 */
+	public long getFailedLocks()
+	{
+		return failedLocks.get();
+	}
+
+	/**
+	 * @return the total time threads waited for page locks, in milliseconds
+	 */
+	public long getTotalWaitTime()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+	}
+
+	/**
+	 * @return the longest time a thread waited for a page lock, in milliseconds
+	 */
+	public long getMaxWaitTime()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset()
+	{
+		acquiredLocks.set(0);
+		contendedLocks.set(0);
+		failedLocks.set(0);
+		totalWaitTime.set(0);
+		maxWaitTime.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PageAccessStatistics [acquiredLocks=" + getAcquiredLocks() + ", contendedLocks=" +
+			getContendedLocks() + ", failedLocks=" + getFailedLocks() + ", totalWaitTime=" +
+			getTotalWaitTime() + "ms, maxWaitTime=" + getMaxWaitTime() + "ms]";
+	}
+}
@@ -17,9 +17,12 @@
 package org.apache.wicket.page;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.settings.IExceptionSettings.ThreadDumpStrategy;
@@ -27,7 +30,6 @@ import org.apache.wicket.util.IProvider;
 import org.apache.wicket.util.LazyInitializer;
 import org.apache.wicket.util.lang.Threads;
 import org.apache.wicket.util.time.Duration;
-import org.apache.wicket.util.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +59,9 @@ public class PageAccessSynchronizer implements Serializable
 	/** timeout value for acquiring a page lock */
 	private final Duration timeout;
 
+	/** the counters updated when acquiring locks, may be {@code null} */
+	private final PageAccessStatistics statistics;
+
 	/**
 	 * Constructor
 	 * 
@@ -65,16 +70,30 @@ public class PageAccessSynchronizer implements Serializable
 	 */
 	public PageAccessSynchronizer(Duration timeout)
 	{
-		this.timeout = timeout;
+		this(timeout, null);
 	}
 
-	private static long remaining(Time start, Duration timeout)
+	/**
+	 * Constructor
+	 * 
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 * @param statistics
+	 *            the counters to update when acquiring locks, may be {@code null}
+	 */
+	public PageAccessSynchronizer(Duration timeout, PageAccessStatistics statistics)
 	{
-		return Math.max(0, timeout.subtract(start.elapsedSince()).getMilliseconds());
+		this.timeout = timeout;
+		this.statistics = statistics;
 	}
 
 	/**
 	 * Acquire a lock to a page
+	 * <p>
+	 * Threads waiting for a page are queued in the order of their arrival. When the owner releases
+	 * the lock it is handed over directly to the first waiting thread, so only that thread is woken
+	 * up.
+	 * </p>
 	 * 
 	 * @param pageId
 	 *            page id
@@ -84,58 +103,76 @@ public class PageAccessSynchronizer implements Serializable
 	public void lockPage(int pageId) throws CouldNotLockPageException
 	{
 		final Thread thread = Thread.currentThread();
-		final PageLock lock = new PageLock(pageId, thread);
-		final Time start = Time.now();
-
-		boolean locked = false;
+		final long start = nanoTime();
+		final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout.getMilliseconds());
 
 		final boolean isDebugEnabled = logger.isDebugEnabled();
 
-		PageLock previous = null;
+		if (isDebugEnabled)
+		{
+			logger.debug("'{}' attempting to acquire lock to page with id '{}'", thread.getName(),
+				pageId);
+		}
+
+		PageLock previous;
+		boolean locked;
+		boolean contended = false;
 
-		while (!locked && start.elapsedSince().lessThan(timeout))
+		while (true)
 		{
-			if (isDebugEnabled)
+			previous = locks.get().putIfAbsent(pageId, new PageLock(pageId, thread));
+			if (previous == null)
 			{
-				logger.debug("'{}' attempting to acquire lock to page with id '{}'",
-					thread.getName(), pageId);
+				// first thread to acquire lock
+				locked = true;
+				break;
 			}
 
-			previous = locks.get().putIfAbsent(pageId, lock);
-
-			if (previous == null || previous.thread == thread)
+			boolean queued = false;
+			synchronized (previous)
 			{
-				// first thread to acquire lock or lock is already owned by this thread
-				locked = true;
+				if (previous.released == false)
+				{
+					if (previous.thread == thread)
+					{
+						// lock is already owned by this thread
+						locked = true;
+						break;
+					}
+					previous.waiters.add(thread);
+					queued = true;
+				}
 			}
-			else
+
+			if (queued)
 			{
-				// wait for a lock to become available
-				long remaining = remaining(start, timeout);
-				if (remaining > 0)
+				contended = true;
+				try
 				{
-					synchronized (previous)
+					locked = awaitLock(previous, deadline);
+				}
+				catch (InterruptedException e)
+				{
+					// keep the interrupt for the code further up the stack
+					thread.interrupt();
+					if (statistics != null)
 					{
-						if (isDebugEnabled)
-						{
-							logger.debug("{} waiting for lock to page {} for {}", new Object[] {
-									thread.getName(), pageId, Duration.milliseconds(remaining) });
-						}
-						try
-						{
-							previous.wait(remaining);
-						}
-						catch (InterruptedException e)
-						{
-							// TODO better exception
-							throw new RuntimeException(e);
-						}
+						statistics.lockFailed(nanoTime() - start);
 					}
+					throw new CouldNotLockPageException(pageId, thread.getName(), timeout, e);
 				}
+				break;
 			}
+			// the lock has been released meanwhile, try again
 		}
+
+		final long waited = nanoTime() - start;
 		if (locked)
 		{
+			if (statistics != null)
+			{
+				statistics.lockAcquired(waited, contended);
+			}
 			if (isDebugEnabled)
 			{
 				logger.debug("{} acquired lock to page {}", thread.getName(), pageId);
@@ -143,11 +180,16 @@ public class PageAccessSynchronizer implements Serializable
 		}
 		else
 		{
+			if (statistics != null)
+			{
+				statistics.lockFailed(waited);
+			}
 			if (logger.isWarnEnabled())
 			{
 				logger.warn(
 					"Thread '{}' failed to acquire lock to page with id '{}', attempted for {} out of allowed {}. The thread that holds the lock has name '{}'.",
-					new Object[] { thread.getName(), pageId, start.elapsedSince(), timeout,
+					new Object[] { thread.getName(), pageId,
+							Duration.milliseconds(TimeUnit.NANOSECONDS.toMillis(waited)), timeout,
 							previous.thread.getName() });
 				if (Application.exists())
 				{
@@ -172,6 +214,61 @@ public class PageAccessSynchronizer implements Serializable
 		}
 	}
 
+	/**
+	 * Parks the current thread, which is queued as a waiter of the lock, until the lock is handed
+	 * over to it or the deadline passes.
+	 * 
+	 * @param lock
+	 *            the lock to wait for
+	 * @param deadline
+	 *            the value of {@link #nanoTime()} after which to give up
+	 * @return {@code true} if the current thread owns the lock
+	 * @throws InterruptedException
+	 *             if the current thread has been interrupted while waiting, it is not queued
+	 *             anymore then
+	 */
+	private boolean awaitLock(final PageLock lock, final long deadline)
+		throws InterruptedException
+	{
+		final Thread thread = Thread.currentThread();
+
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("{} waiting for lock to page {} for {}", new Object[] {
+					thread.getName(), lock.pageId,
+					Duration.milliseconds(TimeUnit.NANOSECONDS.toMillis(deadline - nanoTime())) });
+		}
+
+		while (true)
+		{
+			long remaining = deadline - nanoTime();
+			if (remaining > 0)
+			{
+				LockSupport.parkNanos(lock, remaining);
+				remaining = deadline - nanoTime();
+			}
+
+			synchronized (lock)
+			{
+				if (lock.thread == thread)
+				{
+					return true;
+				}
+				if (Thread.interrupted())
+				{
+					lock.waiters.remove(thread);
+					throw new InterruptedException("Interrupted while waiting for the lock to page " +
+						lock.pageId);
+				}
+				if (remaining <= 0)
+				{
+					lock.waiters.remove(thread);
+					return false;
+				}
+			}
+		}
+	}
+
 	/**
 	 * Unlocks all pages locked by this thread
 	 */
@@ -194,41 +291,79 @@ public class PageAccessSynchronizer implements Serializable
 	private void internalUnlockPages(final Integer pageId)
 	{
 		final Thread thread = Thread.currentThread();
-		final Iterator<PageLock> locks = this.locks.get().values().iterator();
+		final ConcurrentMap<Integer, PageLock> locks = this.locks.get();
+
+		if (pageId != null)
+		{
+			// unlock just the page with the specified id
+			final PageLock lock = locks.get(pageId);
+			if (lock != null && lock.thread == thread)
+			{
+				release(locks, lock);
+			}
+			return;
+		}
 
+		// remove all locks held by this thread
+		for (PageLock lock : locks.values())
+		{
+			if (lock.thread == thread)
+			{
+				release(locks, lock);
+			}
+		}
+	}
+
+	/**
+	 * Hands the lock over to the first waiting thread or removes it if there are no waiters.
+	 * 
+	 * @param locks
+	 * @param lock
+	 *            a lock owned by the current thread
+	 */
+	private void release(final ConcurrentMap<Integer, PageLock> locks, final PageLock lock)
+	{
 		final boolean isDebugEnabled = logger.isDebugEnabled();
 
-		while (locks.hasNext())
+		synchronized (lock)
 		{
-			// remove all locks held by this thread if 'pageId' is not specified
-			// otherwise just the lock for this 'pageId'
-			final PageLock lock = locks.next();
-			if ((pageId == null || pageId == lock.pageId) && lock.thread == thread)
+			if (isDebugEnabled)
+			{
+				logger.debug("'{}' released lock to page with id '{}'", lock.thread.getName(),
+					lock.pageId);
+			}
+
+			final Thread next = lock.waiters.poll();
+			if (next != null)
 			{
-				locks.remove();
 				if (isDebugEnabled)
 				{
-					logger.debug("'{}' released lock to page with id '{}'", thread.getName(),
-						lock.pageId);
-				}
-				// if any locks were removed notify threads waiting for a lock
-				synchronized (lock)
-				{
-					if (isDebugEnabled)
-					{
-						logger.debug("'{}' notifying blocked threads", thread.getName());
-					}
-					lock.notifyAll();
-				}
-				if (pageId != null)
-				{
-					// unlock just the page with the specified id
-					break;
+					logger.debug("'{}' handing over lock to page with id '{}' to '{}'",
+						new Object[] { lock.thread.getName(), lock.pageId, next.getName() });
 				}
+				lock.thread = next;
+				LockSupport.unpark(next);
+			}
+			else
+			{
+				lock.released = true;
+				locks.remove(lock.pageId, lock);
 			}
 		}
 	}
 
+	/**
+	 * The time source used to measure the waiting for page locks. Can be overridden to control the
+	 * time, e.g. in tests.
+	 * 
+	 * @return the current value of the time source, in nanoseconds
+	 * @see System#nanoTime()
+	 */
+	protected long nanoTime()
+	{
+		return System.nanoTime();
+	}
+
 	/*
 	 * used by tests
 	 */
@@ -299,7 +434,13 @@ public class PageAccessSynchronizer implements Serializable
 		private final int pageId;
 
 		/** thread that owns the lock */
-		private final Thread thread;
+		private volatile Thread thread;
+
+		/** threads waiting for the lock in the order of arrival. Guarded by this lock. */
+		private final Queue<Thread> waiters = new LinkedList<Thread>();
+
+		/** whether the lock has been removed because it had no waiters. Guarded by this lock. */
+		private boolean released = false;
 
 		/**
 		 * Constructor
@@ -328,5 +469,13 @@ public class PageAccessSynchronizer implements Serializable
 		{
 			return thread;
 		}
+
+		/*
+		 * used by tests
+		 */
+		synchronized boolean isWaiting(Thread waiter)
+		{
+			return waiters.contains(waiter);
+		}
 	}
 }
@@ -16,7 +16,11 @@
  */
 package org.apache.wicket.pageStore;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -35,9 +39,20 @@ import org.slf4j.LoggerFactory;
  * Later {@link PageSavingRunnable} reads in blocking manner from {@link #entries} and saves each
  * entry. Acts as consumer.
  * </p>
- * It starts only one instance of {@link PageSavingRunnable} because all we need is to make the page
- * storing asynchronous. We don't want to write concurrently in the wrapped {@link IDataStore},
- * though it may happen in the extreme case when the queue is full. These cases should be avoided.
+ * <p>
+ * By default it starts only one instance of {@link PageSavingRunnable} because all we need is to
+ * make the page storing asynchronous. We don't want to write concurrently in the wrapped
+ * {@link IDataStore}, though it may happen in the extreme case when the queue is full. These cases
+ * should be avoided.
+ * </p>
+ * <p>
+ * Each {@link PageSavingRunnable} drains all entries available in its queue at once and writes
+ * them grouped by session. Entries which are superseded by a newer entry for the same page are not
+ * written at all. When the wrapped {@link IDataStore} can handle concurrent writes for different
+ * sessions (like {@link DiskDataStore}) several writers can be used. The entries are partitioned
+ * between the writers by session id, so the pages of a session are always written by the same
+ * writer in the order they were stored.
+ * </p>
  * 
  * @author Matej Knopp
  */
@@ -57,9 +72,9 @@ public class AsynchronousDataStore implements IDataStore
 	private static final long POLL_WAIT = 1000L;
 
 	/**
-	 * The page saving thread.
+	 * The page saving threads.
 	 */
-	private final Thread pageSavingThread;
+	private final Thread[] pageSavingThreads;
 
 	/**
 	 * The wrapped {@link IDataStore} that actually stores that pages
@@ -67,9 +82,10 @@ public class AsynchronousDataStore implements IDataStore
 	private final IDataStore dataStore;
 
 	/**
-	 * The queue where the entries which have to be saved are temporary stored
+	 * The queues where the entries which have to be saved are temporary stored, one per page
+	 * saving thread
 	 */
-	private final BlockingQueue<Entry> entries;
+	private final List<BlockingQueue<Entry>> queues;
 
 	/**
 	 * A map 'sessionId:::pageId' -> {@link Entry}. Used for fast retrieval of {@link Entry}s which
@@ -87,14 +103,42 @@ public class AsynchronousDataStore implements IDataStore
 	 */
 	public AsynchronousDataStore(final IDataStore dataStore, final int capacity)
 	{
+		this(dataStore, capacity, 1);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param dataStore
+	 *            the wrapped {@link IDataStore} that actually saved the data
+	 * @param capacity
+	 *            the capacity of the queue of each writer that delays the saving
+	 * @param writers
+	 *            the number of threads writing in the wrapped {@link IDataStore}
+	 */
+	public AsynchronousDataStore(final IDataStore dataStore, final int capacity,
+		final int writers)
+	{
+		Args.withinRange(1, Integer.MAX_VALUE, writers, "writers");
+
 		this.dataStore = dataStore;
-		entries = new LinkedBlockingQueue<Entry>(capacity);
 		entryMap = new ConcurrentHashMap<String, Entry>();
+		queues = new ArrayList<BlockingQueue<Entry>>(writers);
+		pageSavingThreads = new Thread[writers];
 
-		PageSavingRunnable savingRunnable = new PageSavingRunnable(dataStore, entries, entryMap);
-		pageSavingThread = new Thread(savingRunnable, "Wicket-PageSavingThread");
-		pageSavingThread.setDaemon(true);
-		pageSavingThread.start();
+		for (int i = 0; i < writers; i++)
+		{
+			BlockingQueue<Entry> entries = new LinkedBlockingQueue<Entry>(capacity);
+			queues.add(entries);
+
+			PageSavingRunnable savingRunnable = new PageSavingRunnable(dataStore, entries,
+				entryMap);
+			String name = writers == 1 ? "Wicket-PageSavingThread" : "Wicket-PageSavingThread-" +
+				i;
+			pageSavingThreads[i] = new Thread(savingRunnable, name);
+			pageSavingThreads[i].setDaemon(true);
+			pageSavingThreads[i].start();
+		}
 	}
 
 	/**
@@ -103,15 +147,18 @@ public class AsynchronousDataStore implements IDataStore
 	@Override
 	public void destroy()
 	{
-		if (pageSavingThread.isAlive())
+		for (Thread pageSavingThread : pageSavingThreads)
 		{
-			pageSavingThread.interrupt();
-			try
-			{
-				pageSavingThread.join();
-			} catch (InterruptedException e)
+			if (pageSavingThread.isAlive())
 			{
-				log.error(e.getMessage(), e);
+				pageSavingThread.interrupt();
+				try
+				{
+					pageSavingThread.join();
+				} catch (InterruptedException e)
+				{
+					log.error(e.getMessage(), e);
+				}
 			}
 		}
 
@@ -130,6 +177,20 @@ public class AsynchronousDataStore implements IDataStore
 		return entryMap.get(getKey(sessionId, id));
 	}
 
+	/**
+	 * @param sessionId
+	 * @return the queue of the writer responsible for the given session
+	 */
+	private BlockingQueue<Entry> getQueue(final String sessionId)
+	{
+		if (queues.size() == 1)
+		{
+			return queues.get(0);
+		}
+		int hash = sessionId.hashCode() & Integer.MAX_VALUE;
+		return queues.get(hash % queues.size());
+	}
+
 	/**
 	 * @see org.apache.wicket.pageStore.IDataStore#getData(java.lang.String, int)
 	 */
@@ -173,7 +234,7 @@ public class AsynchronousDataStore implements IDataStore
 			Entry entry = entryMap.remove(key);
 			if (entry != null)
 			{
-				entries.remove(entry);
+				getQueue(sessionId).remove(entry);
 			}
 		}
 
@@ -186,7 +247,7 @@ public class AsynchronousDataStore implements IDataStore
 	@Override
 	public void removeData(final String sessionId)
 	{
-		for (Iterator<Entry> itor = entries.iterator(); itor.hasNext();)
+		for (Iterator<Entry> itor = getQueue(sessionId).iterator(); itor.hasNext();)
 		{
 			Entry entry = itor.next();
 			if (entry != null) // this check is not needed in JDK6
@@ -195,7 +256,7 @@ public class AsynchronousDataStore implements IDataStore
 
 				if (sessionId.equals(entrySessionId))
 				{
-					entryMap.remove(getKey(entry));
+					entryMap.remove(getKey(entry), entry);
 					itor.remove();
 				}
 			}
@@ -219,20 +280,20 @@ public class AsynchronousDataStore implements IDataStore
 
 		try
 		{
-			boolean added = entries.offer(entry, OFFER_WAIT, TimeUnit.MILLISECONDS);
+			boolean added = getQueue(sessionId).offer(entry, OFFER_WAIT, TimeUnit.MILLISECONDS);
 
 			if (added == false)
 			{
 				log.debug("Storing synchronously page with id '{}' in session '{}'", id, sessionId);
-				entryMap.remove(key);
 				dataStore.storeData(sessionId, id, data);
+				entryMap.remove(key, entry);
 			}
 		}
 		catch (InterruptedException e)
 		{
 			log.error(e.getMessage(), e);
-			entryMap.remove(key);
 			dataStore.storeData(sessionId, id, data);
+			entryMap.remove(key, entry);
 		}
 	}
 
@@ -337,6 +398,8 @@ public class AsynchronousDataStore implements IDataStore
 		@Override
 		public void run()
 		{
+			List<Entry> batch = new ArrayList<Entry>();
+
 			while (!Thread.interrupted())
 			{
 				Entry entry = null;
@@ -350,10 +413,48 @@ public class AsynchronousDataStore implements IDataStore
 				}
 
 				if (entry != null)
+				{
+					batch.add(entry);
+					entries.drainTo(batch);
+					save(batch);
+					batch.clear();
+				}
+			}
+		}
+
+		/**
+		 * Saves the entries grouped by session, skipping the ones which have been superseded by a
+		 * newer entry for the same page or removed meanwhile
+		 * 
+		 * @param batch
+		 */
+		private void save(final List<Entry> batch)
+		{
+			Map<String, List<Entry>> sessions = new LinkedHashMap<String, List<Entry>>();
+			for (Entry entry : batch)
+			{
+				if (entryMap.get(getKey(entry)) != entry)
+				{
+					log.debug("Skipping superseded or removed: {}", entry);
+					continue;
+				}
+
+				List<Entry> sessionEntries = sessions.get(entry.sessionId);
+				if (sessionEntries == null)
+				{
+					sessionEntries = new ArrayList<Entry>();
+					sessions.put(entry.sessionId, sessionEntries);
+				}
+				sessionEntries.add(entry);
+			}
+
+			for (List<Entry> sessionEntries : sessions.values())
+			{
+				for (Entry entry : sessionEntries)
 				{
 					log.debug("Saving asynchronously: {}...", entry);
 					dataStore.storeData(entry.sessionId, entry.pageId, entry.data);
-					entryMap.remove(getKey(entry));
+					entryMap.remove(getKey(entry), entry);
 				}
 			}
 		}
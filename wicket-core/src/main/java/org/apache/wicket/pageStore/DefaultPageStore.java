@@ -17,14 +17,18 @@
 package org.apache.wicket.pageStore;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.wicket.page.IManageablePage;
 import org.apache.wicket.serialize.ISerializer;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,13 +65,37 @@ public class DefaultPageStore implements IPageStore
 	 */
 	public DefaultPageStore(final ISerializer pageSerializer, final IDataStore dataStore,
 		final int cacheSize)
+	{
+		this(pageSerializer, dataStore, cacheSize, Bytes.MAX, new PageCacheStatistics());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageSerializer
+	 *            the {@link ISerializer} that will be used to convert pages from/to byte arrays
+	 * @param dataStore
+	 *            the {@link IDataStore} that actually stores the pages
+	 * @param cacheSize
+	 *            the number of pages to cache in memory before passing them to
+	 *            {@link IDataStore#storeData(String, int, byte[])}
+	 * @param maxCacheBytes
+	 *            the maximum size of the pages cached in memory
+	 * @param statistics
+	 *            the counters to update on access to the cache
+	 */
+	public DefaultPageStore(final ISerializer pageSerializer, final IDataStore dataStore,
+		final int cacheSize, final Bytes maxCacheBytes, final PageCacheStatistics statistics)
 	{
 		Args.notNull(pageSerializer, "pageSerializer");
 		Args.notNull(dataStore, "DataStore");
+		Args.notNull(maxCacheBytes, "maxCacheBytes");
+		Args.notNull(statistics, "statistics");
 
 		this.pageSerializer = pageSerializer;
 		pageDataStore = dataStore;
-		serializedPagesCache = new SerializedPagesCache(cacheSize);
+		serializedPagesCache = new SerializedPagesCache(cacheSize, maxCacheBytes.bytes(),
+			statistics);
 	}
 
 	/**
@@ -404,14 +432,65 @@ public class DefaultPageStore implements IPageStore
 	 * For example a page is serialized during request, but it might be also later serialized on
 	 * session replication. The purpose of this cache is to make sure that the data obtained from
 	 * first serialization is reused on second serialization.
+	 * </p>
+	 * <p>
+	 * The cache is bounded by the number of pages and by their size. When any of the bounds is
+	 * exceeded the least recently used pages are evicted, never the page just stored. A page bigger
+	 * than the maximum size is not cached at all. The pages are softly referenced, so the garbage
+	 * collector may drop them earlier.
+	 * </p>
+	 * <p>
+	 * The pages are kept in segments selected by the session id, each with its own lock, so
+	 * requests of different sessions rarely contend. Each use of a page is stamped from a global
+	 * counter, so the least recently used page of the whole cache is the oldest of the least
+	 * recently used pages of the segments. Pages cleared by the garbage collector don't count
+	 * towards the bounds anymore.
+	 * </p>
 	 * 
 	 * @author Matej Knopp
 	 */
 	static class SerializedPagesCache
 	{
+		/**
+		 * The estimated size of a cache entry besides the page data
+		 */
+		private static final int ENTRY_OVERHEAD = 128;
+
+		/**
+		 * The number of segments, a power of two
+		 */
+		private static final int SEGMENTS = 16;
+
 		private final int size;
 
-		private final List<SoftReference<SerializedPage>> cache;
+		private final long maxBytes;
+
+		private final PageCacheStatistics statistics;
+
+		/**
+		 * The cached pages, each segment from the least to the most recently used
+		 */
+		private final Segment[] segments;
+
+		/**
+		 * The number of cached pages
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * The size of the cached pages
+		 */
+		private final AtomicLong bytes = new AtomicLong();
+
+		/**
+		 * The stamp of the most recent use of a page
+		 */
+		private final AtomicLong clock = new AtomicLong();
+
+		/**
+		 * The entries whose pages have been cleared by the garbage collector
+		 */
+		private final ReferenceQueue<SerializedPage> cleared = new ReferenceQueue<SerializedPage>();
 
 		/**
 		 * Construct.
@@ -419,9 +498,31 @@ public class DefaultPageStore implements IPageStore
 		 * @param size
 		 */
 		public SerializedPagesCache(final int size)
+		{
+			this(size, Long.MAX_VALUE, new PageCacheStatistics());
+		}
+
+		/**
+		 * Construct.
+		 * 
+		 * @param size
+		 *            the maximum number of cached pages
+		 * @param maxBytes
+		 *            the maximum size of the cached pages
+		 * @param statistics
+		 *            the counters to update
+		 */
+		public SerializedPagesCache(final int size, final long maxBytes,
+			final PageCacheStatistics statistics)
 		{
 			this.size = size;
-			cache = new ArrayList<SoftReference<SerializedPage>>(size);
+			this.maxBytes = maxBytes;
+			this.statistics = statistics;
+			segments = new Segment[SEGMENTS];
+			for (int i = 0; i < SEGMENTS; i++)
+			{
+				segments[i] = new Segment();
+			}
 		}
 
 		/**
@@ -436,18 +537,14 @@ public class DefaultPageStore implements IPageStore
 
 			if (size > 0)
 			{
-				synchronized (cache)
+				Segment segment = segments[segmentIndex(sessionId)];
+				synchronized (segment)
 				{
-					for (Iterator<SoftReference<SerializedPage>> i = cache.iterator(); i.hasNext();)
+					CacheEntry entry = segment.entries.remove(new PageKey(sessionId, id));
+					if (entry != null)
 					{
-						SoftReference<SerializedPage> ref = i.next();
-						SerializedPage entry = ref.get();
-						if (entry != null && entry.getPageId() == id &&
-							entry.getSessionId().equals(sessionId))
-						{
-							i.remove();
-							return entry;
-						}
+						removed(entry);
+						return entry.get();
 					}
 				}
 			}
@@ -466,15 +563,16 @@ public class DefaultPageStore implements IPageStore
 
 			if (size > 0)
 			{
-				synchronized (cache)
+				Segment segment = segments[segmentIndex(sessionId)];
+				synchronized (segment)
 				{
-					for (Iterator<SoftReference<SerializedPage>> i = cache.iterator(); i.hasNext();)
+					for (Iterator<CacheEntry> i = segment.entries.values().iterator(); i.hasNext();)
 					{
-						SoftReference<SerializedPage> ref = i.next();
-						SerializedPage entry = ref.get();
-						if (entry != null && entry.getSessionId().equals(sessionId))
+						CacheEntry entry = i.next();
+						if (entry.key.sessionId.equals(sessionId))
 						{
 							i.remove();
+							removed(entry);
 						}
 					}
 				}
@@ -497,26 +595,34 @@ public class DefaultPageStore implements IPageStore
 			SerializedPage result = null;
 			if (size > 0)
 			{
-				synchronized (cache)
+				PageKey key = new PageKey(sessionId, pageId);
+				Segment segment = segments[segmentIndex(sessionId)];
+				synchronized (segment)
 				{
-					for (Iterator<SoftReference<SerializedPage>> i = cache.iterator(); i.hasNext();)
+					CacheEntry entry = segment.entries.get(key);
+					if (entry != null)
 					{
-						SoftReference<SerializedPage> ref = i.next();
-						SerializedPage entry = ref.get();
-						if (entry != null && entry.getPageId() == pageId &&
-							entry.getSessionId().equals(sessionId))
+						result = entry.get();
+						if (result == null)
 						{
-							i.remove();
-							result = entry;
-							break;
+							// collected by the garbage collector
+							segment.entries.remove(key);
+							removed(entry);
+						}
+						else
+						{
+							entry.used = clock.incrementAndGet();
 						}
 					}
+				}
 
-					if (result != null)
-					{
-						// move to top
-						storePage(result);
-					}
+				if (result != null)
+				{
+					statistics.hit();
+				}
+				else
+				{
+					statistics.miss();
 				}
 			}
 			return result;
@@ -530,30 +636,231 @@ public class DefaultPageStore implements IPageStore
 		 */
 		void storePage(SerializedPage page)
 		{
-			SoftReference<SerializedPage> ref = new SoftReference<SerializedPage>(page);
-
 			if (size > 0)
 			{
-				synchronized (cache)
+				expungeCleared();
+
+				PageKey key = new PageKey(page.getSessionId(), page.getPageId());
+				CacheEntry entry = new CacheEntry(key, page, cleared);
+				Segment segment = segments[segmentIndex(key.sessionId)];
+
+				if (entry.weight > maxBytes)
 				{
-					for (Iterator<SoftReference<SerializedPage>> i = cache.iterator(); i.hasNext();)
+					// bigger than the whole cache, drop an outdated version only
+					removePage(key.sessionId, key.pageId);
+					return;
+				}
+
+				synchronized (segment)
+				{
+					entry.used = clock.incrementAndGet();
+					CacheEntry previous = segment.entries.put(key, entry);
+					if (previous != null)
 					{
-						SoftReference<SerializedPage> r = i.next();
-						SerializedPage entry = r.get();
-						if (entry != null && entry.equals(page))
+						removed(previous);
+					}
+					count.incrementAndGet();
+					bytes.addAndGet(entry.weight);
+					statistics.changed(1, entry.weight);
+				}
+
+				evict(entry);
+			}
+		}
+
+		/**
+		 * Evicts the least recently used pages of the whole cache while any of the bounds is
+		 * exceeded, but never the page just stored.
+		 * 
+		 * @param stored
+		 *            the entry just stored
+		 */
+		private void evict(final CacheEntry stored)
+		{
+			while (isExceeded())
+			{
+				// find the segment with the oldest least recently used page
+				Segment victim = null;
+				long oldest = Long.MAX_VALUE;
+				for (Segment segment : segments)
+				{
+					synchronized (segment)
+					{
+						CacheEntry eldest = segment.eldest(stored);
+						if (eldest != null && eldest.used < oldest)
 						{
-							i.remove();
-							break;
+							oldest = eldest.used;
+							victim = segment;
 						}
 					}
+				}
+
+				if (victim == null)
+				{
+					// nothing left but the page just stored
+					return;
+				}
+
+				synchronized (victim)
+				{
+					// the segment may have changed meanwhile, its eldest page is still a good choice
+					CacheEntry eldest = victim.eldest(stored);
+					if (eldest != null)
+					{
+						victim.entries.remove(eldest.key);
+						removed(eldest);
+						statistics.eviction();
+					}
+				}
+			}
+		}
 
-					cache.add(ref);
-					if (cache.size() > size)
+		/**
+		 * Removes the entries whose pages have been cleared by the garbage collector, so that they
+		 * don't count towards the bounds anymore.
+		 */
+		private void expungeCleared()
+		{
+			Reference<? extends SerializedPage> reference;
+			while ((reference = cleared.poll()) != null)
+			{
+				CacheEntry entry = (CacheEntry)reference;
+				Segment segment = segments[segmentIndex(entry.key.sessionId)];
+				synchronized (segment)
+				{
+					// unless it has been removed or replaced already
+					if (segment.entries.get(entry.key) == entry)
 					{
-						cache.remove(0);
+						segment.entries.remove(entry.key);
+						removed(entry);
 					}
 				}
 			}
 		}
+
+		/**
+		 * @return whether any of the bounds is exceeded
+		 */
+		private boolean isExceeded()
+		{
+			return count.get() > size || bytes.get() > maxBytes;
+		}
+
+		/**
+		 * Must be called while holding the lock on the segment of the entry.
+		 * 
+		 * @param entry
+		 *            the entry removed from the cache
+		 */
+		private void removed(final CacheEntry entry)
+		{
+			count.decrementAndGet();
+			bytes.addAndGet(-entry.weight);
+			statistics.changed(-1, -entry.weight);
+		}
+
+		/**
+		 * @param sessionId
+		 * @return the index of the segment with the pages of the session
+		 */
+		private static int segmentIndex(final String sessionId)
+		{
+			int hash = sessionId.hashCode();
+			return (hash ^ (hash >>> 16)) & (SEGMENTS - 1);
+		}
+
+		/**
+		 * A part of the cache, guarded by its own lock
+		 */
+		private static class Segment
+		{
+			/**
+			 * The cached pages, from the least to the most recently used
+			 */
+			private final LinkedHashMap<PageKey, CacheEntry> entries = new LinkedHashMap<PageKey, CacheEntry>(
+				16, 0.75f, true);
+
+			/**
+			 * Must be called while holding the lock on this segment.
+			 * 
+			 * @param excluded
+			 *            the entry not to return
+			 * @return the least recently used entry besides the excluded one or {@code null}
+			 */
+			private CacheEntry eldest(final CacheEntry excluded)
+			{
+				Iterator<CacheEntry> i = entries.values().iterator();
+				while (i.hasNext())
+				{
+					CacheEntry entry = i.next();
+					if (entry != excluded)
+					{
+						return entry;
+					}
+				}
+				return null;
+			}
+		}
+
+		/**
+		 * The key of a cached page
+		 */
+		private static class PageKey
+		{
+			private final String sessionId;
+
+			private final int pageId;
+
+			private PageKey(final String sessionId, final int pageId)
+			{
+				this.sessionId = sessionId;
+				this.pageId = pageId;
+			}
+
+			@Override
+			public boolean equals(Object obj)
+			{
+				if (this == obj)
+				{
+					return true;
+				}
+				if ((obj instanceof PageKey) == false)
+				{
+					return false;
+				}
+				PageKey rhs = (PageKey)obj;
+				return pageId == rhs.pageId && sessionId.equals(rhs.sessionId);
+			}
+
+			@Override
+			public int hashCode()
+			{
+				return sessionId.hashCode() * 31 + pageId;
+			}
+		}
+
+		/**
+		 * A softly referenced page which remembers its key and size
+		 */
+		private static class CacheEntry extends SoftReference<SerializedPage>
+		{
+			private final PageKey key;
+
+			private final long weight;
+
+			/**
+			 * The stamp of the most recent use, guarded by the lock on the segment
+			 */
+			private long used;
+
+			private CacheEntry(final PageKey key, final SerializedPage page,
+				final ReferenceQueue<SerializedPage> queue)
+			{
+				super(page, queue);
+				this.key = key;
+				byte[] data = page.getData();
+				weight = ENTRY_OVERHEAD + (data != null ? data.length : 0);
+			}
+		}
 	}
 }
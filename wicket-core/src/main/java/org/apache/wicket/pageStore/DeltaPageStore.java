@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DefaultPageStore} which stores a page as the difference to an older snapshot of the
+ * same page.
+ * <p>
+ * Pages are stored with the same id again and again while the user works with them via Ajax.
+ * Usually only a few bytes of their serialized form change between two of these requests, so
+ * instead of writing the whole page this store writes a snapshot of it once and after that only
+ * the differences to that snapshot (see {@link PageDelta}). The snapshot is stored in the
+ * {@link IDataStore} with an id derived from the page id. A new snapshot is taken after
+ * {@code maxDeltas} deltas or when a delta is not much smaller than the page itself.
+ * </p>
+ * <p>
+ * Only the checksums of the snapshots are kept in memory, for the most recently stored pages of
+ * each session. Loading a page from the {@link IDataStore} reads the delta and its snapshot.
+ * </p>
+ * <p>
+ * To use it override {@link org.apache.wicket.DefaultPageManagerProvider#newPageStore(IDataStore)}
+ * in your application's init:
+ * 
+ * <pre>
+ * setPageManagerProvider(new DefaultPageManagerProvider(this)
+ * {
+ * 	protected IPageStore newPageStore(IDataStore dataStore)
+ * 	{
+ * 		int cacheSize = getStoreSettings().getInmemoryCacheSize();
+ * 		ISerializer serializer = getFrameworkSettings().getSerializer();
+ * 		return new DeltaPageStore(serializer, dataStore, cacheSize);
+ * 	}
+ * });
+ * </pre>
+ * 
+ * </p>
+ */
+public class DeltaPageStore extends DefaultPageStore
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DeltaPageStore.class);
+
+	private static final int DEFAULT_MAX_DELTAS = 20;
+
+	private static final int DEFAULT_BLOCK_SIZE = 256;
+
+	/**
+	 * The number of pages per session for which the checksums of the snapshot are kept
+	 */
+	private static final int MAX_TRACKED_PAGES = 10;
+
+	/**
+	 * A snapshot of a page, stored with the derived id
+	 */
+	private static final byte SNAPSHOT = 1;
+
+	/**
+	 * A page which is equal to its snapshot
+	 */
+	private static final byte UNCHANGED = 2;
+
+	/**
+	 * A page stored as delta to its snapshot
+	 */
+	private static final byte DELTA = 3;
+
+	private static final int SNAPSHOT_HEADER = 1 + 4;
+
+	private static final int DELTA_HEADER = 1 + 4 + 8;
+
+	private final int maxDeltas;
+
+	private final int blockSize;
+
+	/**
+	 * sessionId => pageId => snapshot
+	 */
+	private final ConcurrentMap<String, Map<Integer, Snapshot>> snapshots = new ConcurrentHashMap<String, Map<Integer, Snapshot>>();
+
+	/**
+	 * The version of the last snapshot, used to verify that a delta belongs to the stored snapshot
+	 */
+	private final AtomicInteger versions = new AtomicInteger();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageSerializer
+	 *            the {@link ISerializer} that will be used to convert pages from/to byte arrays
+	 * @param dataStore
+	 *            the {@link IDataStore} that actually stores the pages
+	 * @param cacheSize
+	 *            the number of pages to cache in memory before passing them to
+	 *            {@link IDataStore#storeData(String, int, byte[])}
+	 */
+	public DeltaPageStore(final ISerializer pageSerializer, final IDataStore dataStore,
+		final int cacheSize)
+	{
+		this(pageSerializer, dataStore, cacheSize, DEFAULT_MAX_DELTAS, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageSerializer
+	 *            the {@link ISerializer} that will be used to convert pages from/to byte arrays
+	 * @param dataStore
+	 *            the {@link IDataStore} that actually stores the pages
+	 * @param cacheSize
+	 *            the number of pages to cache in memory before passing them to
+	 *            {@link IDataStore#storeData(String, int, byte[])}
+	 * @param maxDeltas
+	 *            the number of deltas stored for a snapshot before a new snapshot is taken
+	 * @param blockSize
+	 *            the size of the blocks the snapshots are compared by
+	 */
+	public DeltaPageStore(final ISerializer pageSerializer, final IDataStore dataStore,
+		final int cacheSize, final int maxDeltas, final int blockSize)
+	{
+		super(pageSerializer, dataStore, cacheSize);
+
+		this.maxDeltas = Args.withinRange(0, Integer.MAX_VALUE, maxDeltas, "maxDeltas");
+		this.blockSize = Args.withinRange(16, 64 * 1024, blockSize, "blockSize");
+	}
+
+	@Override
+	protected void storePageData(final String sessionId, final int pageId, final byte[] data)
+	{
+		Snapshot snapshot = getSnapshot(sessionId, pageId);
+		if (snapshot != null)
+		{
+			synchronized (snapshot)
+			{
+				if (snapshot.deltas < maxDeltas)
+				{
+					byte[] delta = PageDelta.encode(snapshot.signature, data, data.length / 2);
+					if (delta != null)
+					{
+						snapshot.deltas++;
+						super.storePageData(sessionId, pageId, newDelta(snapshot, data, delta));
+						return;
+					}
+				}
+			}
+		}
+
+		storeSnapshot(sessionId, pageId, data);
+	}
+
+	@Override
+	protected byte[] getPageData(final String sessionId, final int pageId)
+	{
+		byte[] record = super.getPageData(sessionId, pageId);
+		if (record == null || record.length < SNAPSHOT_HEADER)
+		{
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		byte type = buffer.get();
+		int version = buffer.getInt();
+
+		byte[] snapshot = super.getPageData(sessionId, getSnapshotId(pageId));
+		if (snapshot == null || snapshot.length < SNAPSHOT_HEADER ||
+			ByteBuffer.wrap(snapshot).getInt(1) != version)
+		{
+			LOG.debug("The snapshot of page with id '{}' in session '{}' is not available",
+				pageId, sessionId);
+			return null;
+		}
+
+		if (type == UNCHANGED)
+		{
+			byte[] data = new byte[snapshot.length - SNAPSHOT_HEADER];
+			System.arraycopy(snapshot, SNAPSHOT_HEADER, data, 0, data.length);
+			return data;
+		}
+		else if (type == DELTA && record.length >= DELTA_HEADER)
+		{
+			long hash = buffer.getLong();
+			byte[] base = new byte[snapshot.length - SNAPSHOT_HEADER];
+			System.arraycopy(snapshot, SNAPSHOT_HEADER, base, 0, base.length);
+			try
+			{
+				byte[] data = PageDelta.apply(base, blockSize, record, DELTA_HEADER);
+				if (PageDelta.hash(data, 0, data.length) == hash)
+				{
+					return data;
+				}
+			}
+			catch (IllegalArgumentException e)
+			{
+				LOG.debug(e.getMessage(), e);
+			}
+		}
+
+		LOG.warn("Cannot restore page with id '{}' in session '{}'", pageId, sessionId);
+		return null;
+	}
+
+	@Override
+	protected void removePageData(final String sessionId, final int pageId)
+	{
+		Map<Integer, Snapshot> sessionSnapshots = snapshots.get(sessionId);
+		if (sessionSnapshots != null)
+		{
+			synchronized (sessionSnapshots)
+			{
+				sessionSnapshots.remove(pageId);
+			}
+		}
+
+		super.removePageData(sessionId, pageId);
+		super.removePageData(sessionId, getSnapshotId(pageId));
+	}
+
+	@Override
+	protected void removePageData(final String sessionId)
+	{
+		snapshots.remove(sessionId);
+		super.removePageData(sessionId);
+	}
+
+	/**
+	 * Stores a new snapshot of the page
+	 * 
+	 * @param sessionId
+	 * @param pageId
+	 * @param data
+	 */
+	private void storeSnapshot(final String sessionId, final int pageId, final byte[] data)
+	{
+		int version = versions.incrementAndGet();
+		Snapshot snapshot = new Snapshot(version, PageDelta.signature(data, blockSize));
+
+		ByteBuffer record = ByteBuffer.allocate(SNAPSHOT_HEADER + data.length);
+		record.put(SNAPSHOT).putInt(version).put(data);
+		super.storePageData(sessionId, getSnapshotId(pageId), record.array());
+
+		ByteBuffer unchanged = ByteBuffer.allocate(SNAPSHOT_HEADER);
+		unchanged.put(UNCHANGED).putInt(version);
+		super.storePageData(sessionId, pageId, unchanged.array());
+
+		Map<Integer, Snapshot> sessionSnapshots = snapshots.get(sessionId);
+		if (sessionSnapshots == null)
+		{
+			sessionSnapshots = new LinkedHashMap<Integer, Snapshot>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Integer, Snapshot> eldest)
+				{
+					return size() > MAX_TRACKED_PAGES;
+				}
+			};
+			Map<Integer, Snapshot> existing = snapshots.putIfAbsent(sessionId, sessionSnapshots);
+			if (existing != null)
+			{
+				sessionSnapshots = existing;
+			}
+		}
+		synchronized (sessionSnapshots)
+		{
+			sessionSnapshots.put(pageId, snapshot);
+		}
+	}
+
+	private Snapshot getSnapshot(final String sessionId, final int pageId)
+	{
+		Map<Integer, Snapshot> sessionSnapshots = snapshots.get(sessionId);
+		if (sessionSnapshots != null)
+		{
+			synchronized (sessionSnapshots)
+			{
+				return sessionSnapshots.get(pageId);
+			}
+		}
+		return null;
+	}
+
+	private static byte[] newDelta(final Snapshot snapshot, final byte[] data, final byte[] delta)
+	{
+		ByteBuffer record = ByteBuffer.allocate(DELTA_HEADER + delta.length);
+		record.put(DELTA).putInt(snapshot.version).putLong(PageDelta.hash(data, 0, data.length));
+		record.put(delta);
+		return record.array();
+	}
+
+	/**
+	 * The id used for the snapshot of a page. Page ids are not negative and {@code -1} has a
+	 * special meaning for {@link PageWindowManager}.
+	 * 
+	 * @param pageId
+	 * @return the id of the snapshot
+	 */
+	private static int getSnapshotId(final int pageId)
+	{
+		return -2 - pageId;
+	}
+
+	/**
+	 * The checksums of the last snapshot of a page
+	 */
+	private static class Snapshot
+	{
+		private final int version;
+
+		private final PageDelta.Signature signature;
+
+		private int deltas;
+
+		private Snapshot(final int version, final PageDelta.Signature signature)
+		{
+			this.version = version;
+			this.signature = signature;
+		}
+	}
+}
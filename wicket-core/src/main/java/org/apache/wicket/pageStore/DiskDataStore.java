@@ -61,6 +61,12 @@ public class DiskDataStore implements IDataStore
 
 	private final ConcurrentMap<String, SessionEntry> sessionEntryMap;
 
+	/**
+	 * The pool with the open channels to the session files. {@code null} when every read and write
+	 * opens its own channel.
+	 */
+	private final FileChannelPool fileChannelPool;
+
 	/**
 	 * Construct.
 	 * 
@@ -70,11 +76,30 @@ public class DiskDataStore implements IDataStore
 	 */
 	public DiskDataStore(final String applicationName, final File fileStoreFolder,
 		final Bytes maxSizePerSession)
+	{
+		this(applicationName, fileStoreFolder, maxSizePerSession, 0);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param applicationName
+	 * @param fileStoreFolder
+	 * @param maxSizePerSession
+	 * @param fileChannelPoolCapacity
+	 *            the maximum number of session files kept open between the reads and writes of
+	 *            pages. {@code 0} to open and close the file for every read and write.
+	 * @see FileChannelPool
+	 */
+	public DiskDataStore(final String applicationName, final File fileStoreFolder,
+		final Bytes maxSizePerSession, final int fileChannelPoolCapacity)
 	{
 		this.applicationName = applicationName;
 		this.fileStoreFolder = fileStoreFolder;
 		maxSizePerPageSession = Args.notNull(maxSizePerSession, "maxSizePerSession");
 		sessionEntryMap = new ConcurrentHashMap<String, SessionEntry>();
+		fileChannelPool = fileChannelPoolCapacity > 0
+			? new FileChannelPool(fileChannelPoolCapacity) : null;
 
 		try
 		{
@@ -103,6 +128,10 @@ public class DiskDataStore implements IDataStore
 	public void destroy()
 	{
 		log.debug("Destroying...");
+		if (fileChannelPool != null)
+		{
+			fileChannelPool.destroy();
+		}
 		saveIndex();
 		log.debug("Destroyed.");
 	}
@@ -354,7 +383,7 @@ public class DiskDataStore implements IDataStore
 					}
 					finally
 					{
-						IOUtils.closeQuietly(channel);
+						releaseFileChannel(channel);
 					}
 				}
 				else
@@ -407,7 +436,7 @@ public class DiskDataStore implements IDataStore
 				}
 				finally
 				{
-					IOUtils.closeQuietly(channel);
+					releaseFileChannel(channel);
 				}
 			}
 			return result;
@@ -415,6 +444,11 @@ public class DiskDataStore implements IDataStore
 
 		private FileChannel getFileChannel(boolean create)
 		{
+			if (diskDataStore.fileChannelPool != null)
+			{
+				return diskDataStore.fileChannelPool.getFileChannel(getFileName(), create);
+			}
+
 			FileChannel channel = null;
 			File file = new File(getFileName());
 			if (create || file.exists())
@@ -434,6 +468,23 @@ public class DiskDataStore implements IDataStore
 			return channel;
 		}
 
+		/**
+		 * Gives back the channel obtained with {@link #getFileChannel(boolean)}.
+		 * 
+		 * @param channel
+		 */
+		private void releaseFileChannel(FileChannel channel)
+		{
+			if (diskDataStore.fileChannelPool != null)
+			{
+				diskDataStore.fileChannelPool.returnFileChannel(getFileName());
+			}
+			else
+			{
+				IOUtils.closeQuietly(channel);
+			}
+		}
+
 		/**
 		 * Loads the specified page data.
 		 * 
@@ -460,6 +511,10 @@ public class DiskDataStore implements IDataStore
 		 */
 		public synchronized void unbind()
 		{
+			if (diskDataStore.fileChannelPool != null && fileName != null)
+			{
+				diskDataStore.fileChannelPool.closeFileChannel(fileName);
+			}
 			File sessionFolder = diskDataStore.getSessionFolder(sessionId, false);
 			if (sessionFolder.exists())
 			{
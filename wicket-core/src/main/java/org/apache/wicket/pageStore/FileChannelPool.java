@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of open {@link FileChannel}s keyed by file name.
+ * <p>
+ * Used by {@link DiskDataStore} to keep the data file of recently active sessions open between
+ * requests instead of opening and closing a {@link RandomAccessFile} for every read and write of a
+ * page. When the pool exceeds its capacity the least recently used channels which are not in use
+ * at the moment are closed.
+ * </p>
+ * <p>
+ * Every channel obtained with {@link #getFileChannel(String, boolean)} must be given back with
+ * {@link #returnFileChannel(String)}.
+ * </p>
+ */
+public class FileChannelPool
+{
+	private static final Logger log = LoggerFactory.getLogger(FileChannelPool.class);
+
+	private final int capacity;
+
+	/**
+	 * file name => channel, ordered from the least to the most recently used
+	 */
+	private final Map<String, PooledChannel> channels;
+
+	/**
+	 * file name => channel that was removed from the pool while being in use
+	 */
+	private final Map<String, PooledChannel> removed;
+
+	/**
+	 * Construct.
+	 *
+	 * @param capacity
+	 *            the maximum number of idle channels kept open
+	 */
+	public FileChannelPool(final int capacity)
+	{
+		Args.withinRange(1, Integer.MAX_VALUE, capacity, "capacity");
+
+		this.capacity = capacity;
+		channels = new LinkedHashMap<String, PooledChannel>(16, 0.75f, true);
+		removed = new HashMap<String, PooledChannel>();
+	}
+
+	/**
+	 * Returns an open channel for the given file and marks it as being in use.
+	 *
+	 * @param fileName
+	 *            the absolute name of the file
+	 * @param create
+	 *            whether to create the file if it doesn't exist
+	 * @return the channel or {@code null} if the file doesn't exist and {@code create} is
+	 *         {@code false} or the file cannot be opened
+	 */
+	public FileChannel getFileChannel(final String fileName, final boolean create)
+	{
+		List<PooledChannel> evicted;
+		FileChannel result;
+
+		synchronized (channels)
+		{
+			PooledChannel pooled = channels.get(fileName);
+			if (pooled != null && pooled.usages == 0 && pooled.channel.isOpen() == false)
+			{
+				// closed by an interrupt of a thread that used it
+				channels.remove(fileName);
+				pooled = null;
+			}
+
+			if (pooled == null)
+			{
+				File file = new File(fileName);
+				if (create == false && file.exists() == false)
+				{
+					return null;
+				}
+
+				FileChannel channel = open(file);
+				if (channel == null)
+				{
+					return null;
+				}
+				pooled = new PooledChannel(channel);
+				channels.put(fileName, pooled);
+			}
+			pooled.usages++;
+			result = pooled.channel;
+
+			evicted = evict();
+		}
+
+		for (PooledChannel pooled : evicted)
+		{
+			IOUtils.closeQuietly(pooled.channel);
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the channel for the given file as no longer used by the caller.
+	 *
+	 * @param fileName
+	 *            the absolute name of the file
+	 */
+	public void returnFileChannel(final String fileName)
+	{
+		PooledChannel toClose = null;
+
+		synchronized (channels)
+		{
+			PooledChannel pooled = channels.get(fileName);
+			if (pooled != null)
+			{
+				pooled.usages--;
+			}
+			else
+			{
+				// the channel has been removed while in use
+				toClose = removed.remove(fileName);
+				if (toClose != null && --toClose.usages > 0)
+				{
+					removed.put(fileName, toClose);
+					toClose = null;
+				}
+			}
+		}
+
+		if (toClose != null)
+		{
+			IOUtils.closeQuietly(toClose.channel);
+		}
+	}
+
+	/**
+	 * Closes the channel for the given file, e.g. before the file is deleted. If the channel is in
+	 * use at the moment it will be closed when it is returned.
+	 *
+	 * @param fileName
+	 *            the absolute name of the file
+	 */
+	public void closeFileChannel(final String fileName)
+	{
+		PooledChannel toClose = null;
+
+		synchronized (channels)
+		{
+			PooledChannel pooled = channels.remove(fileName);
+			if (pooled != null)
+			{
+				if (pooled.usages > 0)
+				{
+					removed.put(fileName, pooled);
+				}
+				else
+				{
+					toClose = pooled;
+				}
+			}
+		}
+
+		if (toClose != null)
+		{
+			IOUtils.closeQuietly(toClose.channel);
+		}
+	}
+
+	/**
+	 * @return the number of channels currently kept open by this pool
+	 */
+	public int size()
+	{
+		synchronized (channels)
+		{
+			return channels.size();
+		}
+	}
+
+	/**
+	 * Closes all channels.
+	 */
+	public void destroy()
+	{
+		List<PooledChannel> toClose;
+		synchronized (channels)
+		{
+			toClose = new ArrayList<PooledChannel>(channels.values());
+			toClose.addAll(removed.values());
+			channels.clear();
+			removed.clear();
+		}
+
+		for (PooledChannel pooled : toClose)
+		{
+			IOUtils.closeQuietly(pooled.channel);
+		}
+	}
+
+	/**
+	 * Removes the least recently used idle channels until the pool fits into its capacity. Must be
+	 * called while holding the lock on {@link #channels}.
+	 *
+	 * @return the removed channels which should be closed by the caller
+	 */
+	private List<PooledChannel> evict()
+	{
+		List<PooledChannel> evicted = new ArrayList<PooledChannel>();
+		Iterator<PooledChannel> iterator = channels.values().iterator();
+		while (channels.size() > capacity && iterator.hasNext())
+		{
+			PooledChannel pooled = iterator.next();
+			if (pooled.usages == 0)
+			{
+				iterator.remove();
+				evicted.add(pooled);
+			}
+		}
+		return evicted;
+	}
+
+	private FileChannel open(final File file)
+	{
+		try
+		{
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			return randomAccessFile.getChannel();
+		}
+		catch (FileNotFoundException fnfx)
+		{
+			// can happen if the file is locked. WICKET-4176
+			log.error(fnfx.getMessage(), fnfx);
+			return null;
+		}
+	}
+
+	private static class PooledChannel
+	{
+		private final FileChannel channel;
+
+		private int usages;
+
+		private PooledChannel(final FileChannel channel)
+		{
+			this.channel = channel;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters about the cache of serialized pages of {@link DefaultPageStore}.
+ * <p>
+ * An instance is shared by the page stores of an application, see
+ * {@link org.apache.wicket.Application#getPageCacheStatistics()}.
+ * </p>
+ */
+public class PageCacheStatistics
+{
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong pages = new AtomicLong();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Records a page found in the cache.
+	 */
+	public void hit()
+	{
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records a page not found in the cache.
+	 */
+	public void miss()
+	{
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Records a page removed from the cache to make room for other pages.
+	 */
+	public void eviction()
+	{
+		evictions.incrementAndGet();
+	}
+
+	/**
+	 * Records a change of the content of the cache.
+	 * 
+	 * @param pageCount
+	 *            the number of added (positive) or removed (negative) pages
+	 * @param byteCount
+	 *            the size of the added (positive) or removed (negative) pages
+	 */
+	public void changed(final int pageCount, final long byteCount)
+	{
+		pages.addAndGet(pageCount);
+		bytes.addAndGet(byteCount);
+	}
+
+	/**
+	 * @return the number of pages found in the cache
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of pages not found in the cache
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of pages removed from the cache to make room for other pages
+	 */
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	/**
+	 * @return the number of pages currently in the cache
+	 */
+	public long getPages()
+	{
+		return pages.get();
+	}
+
+	/**
+	 * @return the size of the pages currently in the cache, in bytes
+	 */
+	public long getBytes()
+	{
+		return bytes.get();
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters. The number and size of the cached pages are kept.
+	 */
+	public void reset()
+	{
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PageCacheStatistics [hits=" + getHits() + ", misses=" + getMisses() +
+			", evictions=" + getEvictions() + ", pages=" + getPages() + ", bytes=" + getBytes() +
+			"]";
+	}
+}
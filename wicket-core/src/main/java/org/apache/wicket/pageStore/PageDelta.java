@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes a serialized page as the difference to an older version of it.
+ * <p>
+ * The older version (the base) is described by a {@link Signature}: a weak rolling checksum and a
+ * strong hash of each of its blocks. The new version is scanned for blocks of the base at any
+ * offset, like rsync does, so inserted or removed bytes - e.g. a longer label text - do not
+ * invalidate the rest of the page. The delta is a sequence of <em>copy</em> instructions
+ * referring to blocks of the base and <em>literal</em> runs of new bytes.
+ * </p>
+ * 
+ * @see DeltaPageStore
+ */
+final class PageDelta
+{
+	private static final int LITERAL = 1;
+
+	private static final int COPY = 2;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private PageDelta()
+	{
+	}
+
+	/**
+	 * Computes the signature of the base version of a page
+	 * 
+	 * @param base
+	 *            the serialized base version
+	 * @param blockSize
+	 *            the size of the blocks
+	 * @return the signature
+	 */
+	static Signature signature(final byte[] base, final int blockSize)
+	{
+		int blocks = base.length / blockSize;
+		int[] weak = new int[blocks];
+		long[] strong = new long[blocks];
+		for (int i = 0; i < blocks; i++)
+		{
+			int offset = i * blockSize;
+			weak[i] = weakChecksum(base, offset, blockSize);
+			strong[i] = hash(base, offset, blockSize);
+		}
+		return new Signature(blockSize, weak, strong);
+	}
+
+	/**
+	 * Encodes the new version of a page as difference to the base described by the signature
+	 * 
+	 * @param signature
+	 *            the signature of the base
+	 * @param data
+	 *            the new version
+	 * @param maxSize
+	 *            the maximum size of the delta
+	 * @return the delta or {@code null} if it would be bigger than {@code maxSize}
+	 */
+	static byte[] encode(final Signature signature, final byte[] data, final int maxSize)
+	{
+		final int blockSize = signature.blockSize;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxSize, 1024));
+
+		int literalStart = 0;
+		int position = 0;
+		int copyStart = -1;
+		int copyCount = 0;
+
+		boolean fresh = true;
+		int a = 0;
+		int b = 0;
+
+		while (position + blockSize <= data.length)
+		{
+			if (fresh)
+			{
+				a = 0;
+				b = 0;
+				for (int i = 0; i < blockSize; i++)
+				{
+					int x = data[position + i] & 0xFF;
+					a += x;
+					b += (blockSize - i) * x;
+				}
+				fresh = false;
+			}
+
+			int block = signature.find(((b & 0xFFFF) << 16) | (a & 0xFFFF), data, position);
+			if (block != -1)
+			{
+				if (literalStart < position)
+				{
+					if (copyCount > 0)
+					{
+						writeCopy(out, copyStart, copyCount);
+						copyCount = 0;
+					}
+					writeLiteral(out, data, literalStart, position - literalStart);
+				}
+
+				if (copyCount > 0 && copyStart + copyCount == block)
+				{
+					copyCount++;
+				}
+				else
+				{
+					if (copyCount > 0)
+					{
+						writeCopy(out, copyStart, copyCount);
+					}
+					copyStart = block;
+					copyCount = 1;
+				}
+
+				position += blockSize;
+				literalStart = position;
+				fresh = true;
+			}
+			else
+			{
+				// roll the window by one byte
+				int leaving = data[position] & 0xFF;
+				if (position + blockSize < data.length)
+				{
+					int entering = data[position + blockSize] & 0xFF;
+					a += entering - leaving;
+					b += a - blockSize * leaving;
+				}
+				position++;
+
+				if (position - literalStart > maxSize)
+				{
+					return null;
+				}
+			}
+
+			if (out.size() > maxSize)
+			{
+				return null;
+			}
+		}
+
+		if (copyCount > 0)
+		{
+			writeCopy(out, copyStart, copyCount);
+		}
+		if (literalStart < data.length)
+		{
+			writeLiteral(out, data, literalStart, data.length - literalStart);
+		}
+
+		return out.size() > maxSize ? null : out.toByteArray();
+	}
+
+	/**
+	 * Rebuilds a version of a page from its base and delta
+	 * 
+	 * @param base
+	 *            the serialized base version
+	 * @param blockSize
+	 *            the size of the blocks used for the signature of the base
+	 * @param delta
+	 *            the delta produced by {@link #encode(Signature, byte[], int)}
+	 * @param offset
+	 *            the offset of the delta in {@code delta}
+	 * @return the serialized page
+	 * @throws IllegalArgumentException
+	 *             if the delta is corrupt or doesn't belong to the base
+	 */
+	static byte[] apply(final byte[] base, final int blockSize, final byte[] delta, int offset)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(base.length + 64);
+		int[] position = new int[] { offset };
+		while (position[0] < delta.length)
+		{
+			int op = delta[position[0]++];
+			if (op == LITERAL)
+			{
+				int length = readVarInt(delta, position);
+				checkRange(delta.length, position[0], length);
+				out.write(delta, position[0], length);
+				position[0] += length;
+			}
+			else if (op == COPY)
+			{
+				int start = readVarInt(delta, position) * blockSize;
+				int length = readVarInt(delta, position) * blockSize;
+				checkRange(base.length, start, length);
+				out.write(base, start, length);
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unknown delta instruction: " + op);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return 64 bit FNV-1a hash of the given bytes
+	 */
+	static long hash(final byte[] data, final int offset, final int length)
+	{
+		long hash = FNV_OFFSET;
+		for (int i = offset, end = offset + length; i < end; i++)
+		{
+			hash ^= data[i] & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static int weakChecksum(final byte[] data, final int offset, final int length)
+	{
+		int a = 0;
+		int b = 0;
+		for (int i = 0; i < length; i++)
+		{
+			int x = data[offset + i] & 0xFF;
+			a += x;
+			b += (length - i) * x;
+		}
+		return ((b & 0xFFFF) << 16) | (a & 0xFFFF);
+	}
+
+	private static void checkRange(final int size, final int start, final int length)
+	{
+		if (start < 0 || length < 0 || start + length > size)
+		{
+			throw new IllegalArgumentException("Corrupt delta");
+		}
+	}
+
+	private static void writeLiteral(final ByteArrayOutputStream out, final byte[] data,
+		final int offset, final int length)
+	{
+		out.write(LITERAL);
+		writeVarInt(out, length);
+		out.write(data, offset, length);
+	}
+
+	private static void writeCopy(final ByteArrayOutputStream out, final int block,
+		final int count)
+	{
+		out.write(COPY);
+		writeVarInt(out, block);
+		writeVarInt(out, count);
+	}
+
+	private static void writeVarInt(final ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarInt(final byte[] data, final int[] position)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			if (position[0] >= data.length)
+			{
+				throw new IllegalArgumentException("Corrupt delta");
+			}
+			int b = data[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Corrupt delta");
+	}
+
+	/**
+	 * The checksums of the blocks of a base version
+	 */
+	static final class Signature
+	{
+		private final int blockSize;
+
+		private final int[] weak;
+
+		private final long[] strong;
+
+		/**
+		 * open addressing table: weak checksum => block index + 1
+		 */
+		private final int[] table;
+
+		private Signature(final int blockSize, final int[] weak, final long[] strong)
+		{
+			this.blockSize = blockSize;
+			this.weak = weak;
+			this.strong = strong;
+
+			int size = Integer.highestOneBit(Math.max(weak.length, 1) * 2) * 2;
+			table = new int[size];
+			for (int i = 0; i < weak.length; i++)
+			{
+				int slot = slot(weak[i]);
+				while (table[slot] != 0)
+				{
+					slot = (slot + 1) & (table.length - 1);
+				}
+				table[slot] = i + 1;
+			}
+		}
+
+		/**
+		 * @return the size of the blocks
+		 */
+		int getBlockSize()
+		{
+			return blockSize;
+		}
+
+		/**
+		 * Finds a block of the base with the given weak checksum and the same content as the
+		 * block at {@code offset} in {@code data}
+		 * 
+		 * @return the index of the block or {@code -1}
+		 */
+		private int find(final int checksum, final byte[] data, final int offset)
+		{
+			long hash = 0;
+			boolean hashed = false;
+			int slot = slot(checksum);
+			while (table[slot] != 0)
+			{
+				int block = table[slot] - 1;
+				if (weak[block] == checksum)
+				{
+					if (hashed == false)
+					{
+						hash = hash(data, offset, blockSize);
+						hashed = true;
+					}
+					if (strong[block] == hash)
+					{
+						return block;
+					}
+				}
+				slot = (slot + 1) & (table.length - 1);
+			}
+			return -1;
+		}
+
+		private int slot(final int checksum)
+		{
+			int h = checksum * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & (table.length - 1);
+		}
+	}
+}
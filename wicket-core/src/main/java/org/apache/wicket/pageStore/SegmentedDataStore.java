@@ -0,0 +1,871 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data store implementation which appends the pages of all sessions to a small number of
+ * rotating segment files.
+ * <p>
+ * Unlike {@link DiskDataStore}, which creates a folder and a file per session, this store keeps
+ * the number of files constant no matter how many sessions are active: the pages are appended to
+ * the current segment file and an in-memory index maps (session id, page id) to the position of
+ * the page's bytes. Each segment knows the locations of the pages in it, so compacting or dropping
+ * a segment does not need to scan the whole index. When the current segment grows over the configured segment size a new one is
+ * started. A background thread compacts the older segments by moving their still referenced pages
+ * to the current segment and deleting them once most of their bytes are stale. When the number of
+ * segments exceeds the configured maximum the oldest segment is dropped together with the pages in
+ * it, the same way {@link DiskDataStore} overwrites the oldest pages of a session.
+ * </p>
+ * <p>
+ * To use it override {@link org.apache.wicket.DefaultPageManagerProvider#newDataStore()}.
+ * </p>
+ */
+public class SegmentedDataStore implements IDataStore
+{
+	private static final Logger log = LoggerFactory.getLogger(SegmentedDataStore.class);
+
+	private static final String INDEX_FILE_NAME = "SegmentedDataStoreIndex";
+
+	private static final String SEGMENT_FILE_PREFIX = "segment-";
+
+	private static final String SEGMENT_FILE_SUFFIX = ".data";
+
+	/**
+	 * A segment is compacted when less than this part of its bytes belong to stored pages
+	 */
+	private static final double COMPACTION_THRESHOLD = 0.5d;
+
+	/**
+	 * The time to wait for a compaction request. In millis.
+	 */
+	private static final long COMPACTION_WAIT = 60000L;
+
+	private final File storeFolder;
+
+	private final long segmentSize;
+
+	private final int maxSegments;
+
+	/**
+	 * session id => page id => the location of the page's bytes
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<Integer, Location>> index;
+
+	/**
+	 * segment id => segment, ordered from the oldest to the most recent one
+	 */
+	private final ConcurrentSkipListMap<Integer, Segment> segments;
+
+	/**
+	 * Guards the appending to the current segment
+	 */
+	private final Object writeLock = new Object();
+
+	/**
+	 * Used to wake up the compaction thread
+	 */
+	private final Object compactionLock = new Object();
+
+	private final Thread compactionThread;
+
+	/**
+	 * The segment where the pages are appended to. Guarded by {@link #writeLock}.
+	 */
+	private Segment current;
+
+	/**
+	 * Guarded by {@link #writeLock}.
+	 */
+	private int nextSegmentId;
+
+	private volatile boolean destroyed = false;
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationName
+	 *            the name of the application
+	 * @param fileStoreFolder
+	 *            the folder where the segment files are created
+	 * @param segmentSize
+	 *            the size after which a new segment file is started
+	 * @param maxSegments
+	 *            the maximum number of segment files. The maximum disk usage of the store is
+	 *            {@code segmentSize * maxSegments}.
+	 */
+	public SegmentedDataStore(final String applicationName, final File fileStoreFolder,
+		final Bytes segmentSize, final int maxSegments)
+	{
+		Args.notNull(applicationName, "applicationName");
+		Args.notNull(fileStoreFolder, "fileStoreFolder");
+		this.segmentSize = Args.notNull(segmentSize, "segmentSize").bytes();
+		this.maxSegments = Args.withinRange(2, Integer.MAX_VALUE, maxSegments, "maxSegments");
+		storeFolder = new File(fileStoreFolder, applicationName + "-segmentstore");
+		index = new ConcurrentHashMap<String, ConcurrentMap<Integer, Location>>();
+		segments = new ConcurrentSkipListMap<Integer, Segment>();
+
+		try
+		{
+			if (storeFolder.exists() || storeFolder.mkdirs())
+			{
+				loadIndex();
+			}
+			else
+			{
+				log.warn("Cannot create segment store folder for some reason.");
+			}
+		}
+		catch (SecurityException e)
+		{
+			throw new WicketRuntimeException(
+				"SecurityException occurred while creating SegmentedDataStore. Consider using a non-disk based IDataStore implementation. "
+					+ "See org.apache.wicket.Application.setPageManagerProvider(IPageManagerProvider)",
+				e);
+		}
+
+		compactionThread = new Thread(new CompactionRunnable(), "Wicket-SegmentCompactionThread");
+		compactionThread.setDaemon(true);
+		compactionThread.start();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#getData(java.lang.String, int)
+	 */
+	@Override
+	public byte[] getData(final String sessionId, final int id)
+	{
+		byte[] pageData = null;
+
+		// a second attempt is needed when the segment is compacted while reading from it
+		for (int attempt = 0; attempt < 2 && pageData == null; attempt++)
+		{
+			Location location = getLocation(sessionId, id);
+			if (location == null)
+			{
+				break;
+			}
+			pageData = read(location);
+		}
+
+		log.debug("Returning data{} for page with id '{}' in session with id '{}'", new Object[] {
+				pageData != null ? "" : "(null)", id, sessionId });
+		return pageData;
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String, int)
+	 */
+	@Override
+	public void removeData(final String sessionId, final int id)
+	{
+		ConcurrentMap<Integer, Location> pages = index.get(sessionId);
+		if (pages != null)
+		{
+			log.debug("Removing data for page with id '{}' in session with id '{}'", id,
+				sessionId);
+			release(pages.remove(id));
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String)
+	 */
+	@Override
+	public void removeData(final String sessionId)
+	{
+		ConcurrentMap<Integer, Location> pages = index.get(sessionId);
+		if (pages != null)
+		{
+			synchronized (pages)
+			{
+				// no page is added to the map once it is removed, see #storeData()
+				if (index.remove(sessionId, pages) == false)
+				{
+					return;
+				}
+			}
+
+			log.debug("Removing data for pages in session with id '{}'", sessionId);
+			for (Location location : pages.values())
+			{
+				release(location);
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#storeData(java.lang.String, int, byte[])
+	 */
+	@Override
+	public void storeData(final String sessionId, final int id, final byte[] data)
+	{
+		// only save page that has some data
+		if (data == null)
+		{
+			return;
+		}
+
+		Location location = append(sessionId, id, data);
+		if (location != null)
+		{
+			log.debug("Storing data for page with id '{}' in session with id '{}'", id,
+				sessionId);
+
+			ConcurrentMap<Integer, Location> pages = getPages(sessionId);
+			Location old;
+			synchronized (pages)
+			{
+				if (index.get(sessionId) == pages)
+				{
+					old = pages.put(id, location);
+				}
+				else
+				{
+					// the session has been removed meanwhile, don't recreate it
+					old = location;
+				}
+			}
+			release(old);
+
+			if (segments.containsKey(location.segmentId) == false)
+			{
+				// the segment has been dropped before the page was added to the index
+				pages.remove(id, location);
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#destroy()
+	 */
+	@Override
+	public void destroy()
+	{
+		log.debug("Destroying...");
+
+		destroyed = true;
+		synchronized (compactionLock)
+		{
+			compactionLock.notifyAll();
+		}
+		try
+		{
+			compactionThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			log.error(e.getMessage(), e);
+		}
+
+		synchronized (writeLock)
+		{
+			for (Segment segment : segments.values())
+			{
+				segment.close();
+			}
+			saveIndex();
+		}
+
+		log.debug("Destroyed.");
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#isReplicated()
+	 */
+	@Override
+	public boolean isReplicated()
+	{
+		return false;
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#canBeAsynchronous()
+	 */
+	@Override
+	public boolean canBeAsynchronous()
+	{
+		return true;
+	}
+
+	/**
+	 * @return the number of segment files
+	 */
+	public int getSegmentCount()
+	{
+		return segments.size();
+	}
+
+	/**
+	 * @return the number of sessions with stored pages
+	 */
+	public int getSessionCount()
+	{
+		return index.size();
+	}
+
+	/**
+	 * @return the folder where the segment files are stored
+	 */
+	protected File getStoreFolder()
+	{
+		return storeFolder;
+	}
+
+	/**
+	 * Moves the still referenced pages of all non-current segments which are mostly stale to the
+	 * current segment and deletes them.
+	 */
+	void compact()
+	{
+		for (Segment segment : segments.values())
+		{
+			if (destroyed)
+			{
+				return;
+			}
+
+			if (isCurrent(segment) == false && segment.isStale())
+			{
+				compact(segment);
+			}
+		}
+	}
+
+	private void compact(final Segment segment)
+	{
+		log.debug("Compacting segment {} with {} of {} bytes in use", new Object[] { segment.id,
+				segment.liveBytes.get(), segment.size });
+
+		for (Location location : segment.locations)
+		{
+			ConcurrentMap<Integer, Location> pages = index.get(location.sessionId);
+			if (pages == null)
+			{
+				continue;
+			}
+
+			byte[] data = read(location);
+			Location moved = data != null ? append(location.sessionId, location.pageId, data)
+				: null;
+			if (moved == null)
+			{
+				// the page is lost together with the segment
+				pages.remove(location.pageId, location);
+				continue;
+			}
+
+			boolean replaced;
+			synchronized (pages)
+			{
+				replaced = index.get(location.sessionId) == pages &&
+					pages.replace(location.pageId, location, moved);
+			}
+			if (replaced == false)
+			{
+				// the page or its session has been replaced or removed meanwhile
+				release(moved);
+			}
+		}
+
+		drop(segment);
+	}
+
+	/**
+	 * Appends the data to the current segment, starting a new one if needed.
+	 *
+	 * @param sessionId
+	 * @param pageId
+	 * @param data
+	 * @return the location of the data or {@code null} if it cannot be written
+	 */
+	private Location append(final String sessionId, final int pageId, final byte[] data)
+	{
+		synchronized (writeLock)
+		{
+			if (destroyed)
+			{
+				return null;
+			}
+
+			if (current == null || (current.size > 0 && current.size + data.length > segmentSize))
+			{
+				rotate();
+			}
+
+			Segment segment = current;
+			if (segment == null)
+			{
+				return null;
+			}
+
+			long offset = segment.size;
+			try
+			{
+				ByteBuffer buffer = ByteBuffer.wrap(data);
+				while (buffer.hasRemaining())
+				{
+					segment.getChannel().write(buffer, offset + buffer.position());
+				}
+			}
+			catch (IOException e)
+			{
+				log.error("Error writing to segment file " + segment.file, e);
+				return null;
+			}
+			segment.size += data.length;
+			segment.liveBytes.addAndGet(data.length);
+			Location location = new Location(sessionId, pageId, segment.id, offset, data.length);
+			segment.locations.add(location);
+			return location;
+		}
+	}
+
+	/**
+	 * Starts a new segment and drops the oldest ones if there are too many. Must be called while
+	 * holding {@link #writeLock}.
+	 */
+	private void rotate()
+	{
+		Segment segment = new Segment(nextSegmentId++, getSegmentFile(nextSegmentId - 1));
+		if (segment.open() == false)
+		{
+			current = null;
+			return;
+		}
+		segments.put(segment.id, segment);
+		current = segment;
+
+		while (segments.size() > maxSegments)
+		{
+			Segment oldest = segments.firstEntry().getValue();
+			log.debug("Dropping segment {} because there are more than {} segments", oldest.id,
+				maxSegments);
+			for (Location location : oldest.locations)
+			{
+				ConcurrentMap<Integer, Location> pages = index.get(location.sessionId);
+				if (pages != null)
+				{
+					pages.remove(location.pageId, location);
+				}
+			}
+			drop(oldest);
+		}
+
+		requestCompaction();
+	}
+
+	private void drop(final Segment segment)
+	{
+		segments.remove(segment.id);
+		segment.close();
+		Files.remove(segment.file);
+	}
+
+	private boolean isCurrent(final Segment segment)
+	{
+		synchronized (writeLock)
+		{
+			return segment == current;
+		}
+	}
+
+	private byte[] read(final Location location)
+	{
+		Segment segment = segments.get(location.segmentId);
+		if (segment == null)
+		{
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(location.length);
+		try
+		{
+			FileChannel channel = segment.getChannel();
+			while (buffer.hasRemaining())
+			{
+				if (channel.read(buffer, location.offset + buffer.position()) < 0)
+				{
+					log.error("Unexpected end of segment file {}", segment.file);
+					return null;
+				}
+			}
+		}
+		catch (ClosedChannelException e)
+		{
+			// the segment has been compacted or dropped meanwhile
+			return null;
+		}
+		catch (IOException e)
+		{
+			log.error("Error reading from segment file " + segment.file, e);
+			return null;
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Marks the bytes at the given location as stale.
+	 *
+	 * @param location
+	 *            the location of the removed or replaced page. May be {@code null}.
+	 */
+	private void release(final Location location)
+	{
+		if (location != null)
+		{
+			Segment segment = segments.get(location.segmentId);
+			if (segment != null && segment.locations.remove(location))
+			{
+				segment.liveBytes.addAndGet(-location.length);
+			}
+		}
+	}
+
+	private void requestCompaction()
+	{
+		synchronized (compactionLock)
+		{
+			compactionLock.notifyAll();
+		}
+	}
+
+	private Location getLocation(final String sessionId, final int id)
+	{
+		ConcurrentMap<Integer, Location> pages = index.get(sessionId);
+		return pages != null ? pages.get(id) : null;
+	}
+
+	private ConcurrentMap<Integer, Location> getPages(final String sessionId)
+	{
+		ConcurrentMap<Integer, Location> pages = index.get(sessionId);
+		if (pages == null)
+		{
+			pages = new ConcurrentHashMap<Integer, Location>();
+			ConcurrentMap<Integer, Location> existing = index.putIfAbsent(sessionId, pages);
+			if (existing != null)
+			{
+				pages = existing;
+			}
+		}
+		return pages;
+	}
+
+	private File getSegmentFile(final int segmentId)
+	{
+		return new File(storeFolder, SEGMENT_FILE_PREFIX + segmentId + SEGMENT_FILE_SUFFIX);
+	}
+
+	/**
+	 * Loads the index saved by {@link #saveIndex()} and opens the segments it refers to. Segment
+	 * files without an index are deleted.
+	 */
+	@SuppressWarnings("unchecked")
+	private void loadIndex()
+	{
+		File indexFile = new File(storeFolder, INDEX_FILE_NAME);
+		if (indexFile.exists() && indexFile.length() > 0)
+		{
+			try
+			{
+				FileInputStream stream = new FileInputStream(indexFile);
+				ObjectInputStream ois = new ObjectInputStream(stream);
+				try
+				{
+					nextSegmentId = ois.readInt();
+					Map<String, Map<Integer, Location>> map = (Map<String, Map<Integer, Location>>)ois.readObject();
+					for (Map.Entry<String, Map<Integer, Location>> entry : map.entrySet())
+					{
+						index.put(entry.getKey(), new ConcurrentHashMap<Integer, Location>(
+							entry.getValue()));
+					}
+				}
+				finally
+				{
+					IOUtils.closeQuietly(ois);
+					IOUtils.closeQuietly(stream);
+				}
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't load SegmentedDataStore index from file " + indexFile + ".", e);
+				index.clear();
+			}
+		}
+		Files.remove(indexFile);
+
+		File[] files = storeFolder.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File file : files)
+		{
+			String name = file.getName();
+			if (name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX))
+			{
+				Segment segment = null;
+				if (index.isEmpty() == false)
+				{
+					try
+					{
+						int id = Integer.parseInt(name.substring(SEGMENT_FILE_PREFIX.length(),
+							name.length() - SEGMENT_FILE_SUFFIX.length()));
+						segment = new Segment(id, file);
+					}
+					catch (NumberFormatException ignore)
+					{
+						// not a segment file
+					}
+				}
+
+				if (segment != null && segment.open())
+				{
+					segment.size = file.length();
+					segments.put(segment.id, segment);
+					nextSegmentId = Math.max(nextSegmentId, segment.id + 1);
+				}
+				else
+				{
+					Files.remove(file);
+				}
+			}
+		}
+
+		for (ConcurrentMap<Integer, Location> pages : index.values())
+		{
+			for (Map.Entry<Integer, Location> entry : pages.entrySet())
+			{
+				Location location = entry.getValue();
+				Segment segment = segments.get(location.segmentId);
+				if (segment != null)
+				{
+					segment.liveBytes.addAndGet(location.length);
+					segment.locations.add(location);
+				}
+				else
+				{
+					pages.remove(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the index so that the stored pages survive a restart of the application.
+	 */
+	private void saveIndex()
+	{
+		if (storeFolder.exists() == false)
+		{
+			return;
+		}
+
+		File indexFile = new File(storeFolder, INDEX_FILE_NAME);
+		Files.remove(indexFile);
+		try
+		{
+			FileOutputStream stream = new FileOutputStream(indexFile);
+			ObjectOutputStream oos = new ObjectOutputStream(stream);
+			try
+			{
+				Map<String, Map<Integer, Location>> map = new HashMap<String, Map<Integer, Location>>(
+					index.size());
+				for (Map.Entry<String, ConcurrentMap<Integer, Location>> entry : index.entrySet())
+				{
+					map.put(entry.getKey(), new HashMap<Integer, Location>(entry.getValue()));
+				}
+				oos.writeInt(nextSegmentId);
+				oos.writeObject(map);
+			}
+			finally
+			{
+				IOUtils.closeQuietly(oos);
+				IOUtils.closeQuietly(stream);
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Couldn't write SegmentedDataStore index to file " + indexFile + ".", e);
+		}
+	}
+
+	/**
+	 * The position of the bytes of a page in a segment
+	 */
+	private static class Location implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String sessionId;
+		private final int pageId;
+		private final int segmentId;
+		private final long offset;
+		private final int length;
+
+		private Location(final String sessionId, final int pageId, final int segmentId,
+			final long offset, final int length)
+		{
+			this.sessionId = sessionId;
+			this.pageId = pageId;
+			this.segmentId = segmentId;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * A segment file
+	 */
+	private static class Segment
+	{
+		private final int id;
+
+		private final File file;
+
+		/**
+		 * The number of bytes written to the segment. Modified only while holding the write lock.
+		 */
+		private volatile long size;
+
+		/**
+		 * The number of bytes which belong to pages still referenced by the index
+		 */
+		private final AtomicLong liveBytes = new AtomicLong();
+
+		/**
+		 * The locations of the pages in this segment which are still referenced by the index
+		 */
+		private final Set<Location> locations = Collections.newSetFromMap(new ConcurrentHashMap<Location, Boolean>());
+
+		private FileChannel channel;
+
+		private boolean closed = false;
+
+		private Segment(final int id, final File file)
+		{
+			this.id = id;
+			this.file = file;
+		}
+
+		private synchronized boolean open()
+		{
+			try
+			{
+				channel = new RandomAccessFile(file, "rw").getChannel();
+				return true;
+			}
+			catch (FileNotFoundException fnfx)
+			{
+				log.error(fnfx.getMessage(), fnfx);
+				return false;
+			}
+		}
+
+		/**
+		 * @return the channel to the segment file, reopened if it was closed by an interrupt of
+		 *         a thread that used it
+		 * @throws ClosedChannelException
+		 *             if the segment has been closed
+		 */
+		private synchronized FileChannel getChannel() throws ClosedChannelException
+		{
+			if (closed)
+			{
+				throw new ClosedChannelException();
+			}
+			if (channel.isOpen() == false && open() == false)
+			{
+				throw new ClosedChannelException();
+			}
+			return channel;
+		}
+
+		private synchronized void close()
+		{
+			closed = true;
+			IOUtils.closeQuietly(channel);
+		}
+
+		private boolean isStale()
+		{
+			return liveBytes.get() < size * COMPACTION_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Compacts the segments whenever a new segment is started
+	 */
+	private class CompactionRunnable implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while (destroyed == false)
+			{
+				synchronized (compactionLock)
+				{
+					try
+					{
+						compactionLock.wait(COMPACTION_WAIT);
+					}
+					catch (InterruptedException e)
+					{
+						return;
+					}
+				}
+
+				try
+				{
+					compact();
+				}
+				catch (RuntimeException e)
+				{
+					log.error("An error occurred while compacting the segments", e);
+				}
+			}
+		}
+	}
+}
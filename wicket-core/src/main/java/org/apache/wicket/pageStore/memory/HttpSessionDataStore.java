@@ -58,6 +58,8 @@ public class HttpSessionDataStore implements IDataStore
 
 	private final IDataStoreEvictionStrategy evictionStrategy;
 
+	private final PageTableFactory pageTableFactory;
+
 	/**
 	 * Construct.
 	 * 
@@ -66,9 +68,24 @@ public class HttpSessionDataStore implements IDataStore
 	 */
 	public HttpSessionDataStore(IPageManagerContext pageManagerContext,
 		IDataStoreEvictionStrategy evictionStrategy)
+	{
+		this(pageManagerContext, evictionStrategy, new PageTableFactory());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageManagerContext
+	 * @param evictionStrategy
+	 * @param pageTableFactory
+	 *            creates the tables of the sessions
+	 */
+	HttpSessionDataStore(IPageManagerContext pageManagerContext,
+		IDataStoreEvictionStrategy evictionStrategy, PageTableFactory pageTableFactory)
 	{
 		this.pageManagerContext = pageManagerContext;
 		this.evictionStrategy = evictionStrategy;
+		this.pageTableFactory = pageTableFactory;
 	}
 
 	/**
@@ -127,9 +144,9 @@ public class HttpSessionDataStore implements IDataStore
 	@Override
 	public void destroy()
 	{
-		// do nothing
 		// this is application lifecycle thread (WicketFilter#destroy())
 		// so there is no reachable http session
+		pageTableFactory.destroy();
 	}
 
 	@Override
@@ -138,15 +155,21 @@ public class HttpSessionDataStore implements IDataStore
 		return true;
 	}
 
+	/**
+	 * @param create
+	 *            whether to create the table if the session has none yet
+	 * @return the table with the pages of the current session
+	 */
 	private PageTable getPageTable(boolean create)
 	{
 		PageTable pageTable = null;
 		if (Session.exists())
 		{
 			pageTable = (PageTable)pageManagerContext.getSessionAttribute(PAGE_TABLE_KEY);
+			pageTableFactory.prepare(pageTable);
 			if (pageTable == null && create)
 			{
-				pageTable = new PageTable();
+				pageTable = pageTableFactory.newPageTable();
 				pageManagerContext.setSessionAttribute(PAGE_TABLE_KEY, pageTable);
 			}
 		}
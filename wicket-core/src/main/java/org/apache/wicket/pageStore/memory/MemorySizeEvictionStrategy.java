@@ -18,10 +18,10 @@ package org.apache.wicket.pageStore.memory;
 
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Bytes;
-import org.apache.wicket.core.util.lang.WicketObjects;
 
 /**
- * An eviction strategy that keeps the data store size up to configured bytes
+ * An eviction strategy that keeps the data store size up to configured bytes. For an
+ * {@link OffHeapHttpSessionDataStore} the size of the pages in off-heap memory is checked.
  */
 public class MemorySizeEvictionStrategy implements IDataStoreEvictionStrategy
 {
@@ -49,7 +49,7 @@ public class MemorySizeEvictionStrategy implements IDataStoreEvictionStrategy
 	public void evict(PageTable pageTable)
 	{
 
-		long storeCurrentSize = WicketObjects.sizeof(pageTable);
+		long storeCurrentSize = pageTable.getSize();
 
 		if (storeCurrentSize > maxBytes.bytes())
 		{
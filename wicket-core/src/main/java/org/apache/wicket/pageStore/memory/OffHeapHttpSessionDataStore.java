@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.page.IPageManagerContext;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A {@link HttpSessionDataStore} which keeps the bytes of the pages outside of the Java heap, in
+ * memory allocated by a {@link SlabAllocator}. The http session holds only a small table with the
+ * chunk ids of each page, so large numbers of pages do not grow the old generation of the heap.
+ * 
+ * <p>
+ * The memory of the pages of a session is freed when the session is invalidated or, at the
+ * latest, after its table has been garbage collected. The pages are still replicated with the
+ * session: they are written when the table is serialized and moved back into off-heap memory when
+ * the table is used the first time on the other node.
+ * </p>
+ * 
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * <!--@formatter:off-->
+ * MyApp#init()
+ * {
+ * 	final SlabAllocator allocator = new SlabAllocator(Bytes.megabytes(512));
+ * 
+ * 	setPageManagerProvider(new DefaultPageManagerProvider() 
+ * 	{
+ * 		protected IDataStore newDataStore() 
+ * 		{ 
+ * 			return new OffHeapHttpSessionDataStore(pageManagerContext,
+ * 				new MemorySizeEvictionStrategy(Bytes.megabytes(2)), allocator);
+ * 		}
+ * 	}
+ * }
+ * <!--@formatter:on-->
+ * </pre>
+ * 
+ * The maximum direct memory of the JVM ({@code -XX:MaxDirectMemorySize}) must be at least the
+ * maximum size of the allocator. A shared allocator is not destroyed with the data stores, the
+ * application has to destroy it on shutdown. A data store which owns its allocator destroys it
+ * with itself.
+ * </p>
+ */
+public class OffHeapHttpSessionDataStore extends HttpSessionDataStore
+{
+	private final SlabAllocator allocator;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageManagerContext
+	 * @param evictionStrategy
+	 * @param allocator
+	 *            the allocator of the off-heap memory, can be shared by several data stores
+	 */
+	public OffHeapHttpSessionDataStore(final IPageManagerContext pageManagerContext,
+		final IDataStoreEvictionStrategy evictionStrategy, final SlabAllocator allocator)
+	{
+		this(pageManagerContext, evictionStrategy, allocator, false);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param pageManagerContext
+	 * @param evictionStrategy
+	 * @param allocator
+	 *            the allocator of the off-heap memory
+	 * @param ownsAllocator
+	 *            {@code true} if the allocator is used by this data store only and should be
+	 *            destroyed with it, {@code false} if it is shared with other data stores
+	 */
+	public OffHeapHttpSessionDataStore(final IPageManagerContext pageManagerContext,
+		final IDataStoreEvictionStrategy evictionStrategy, final SlabAllocator allocator,
+		final boolean ownsAllocator)
+	{
+		super(pageManagerContext, evictionStrategy, new OffHeapPageTableFactory(Args.notNull(
+			allocator, "allocator"), ownsAllocator));
+
+		this.allocator = allocator;
+	}
+
+	/**
+	 * @return the allocator of the off-heap memory
+	 */
+	public SlabAllocator getAllocator()
+	{
+		return allocator;
+	}
+
+	/**
+	 * Creates {@link OffHeapPageTable}s and frees the memory of the tables which have been garbage
+	 * collected without being unbound from their session
+	 */
+	private static class OffHeapPageTableFactory extends PageTableFactory
+	{
+		private final SlabAllocator allocator;
+
+		private final boolean ownsAllocator;
+
+		/**
+		 * Notified when a table is garbage collected
+		 */
+		private final ReferenceQueue<OffHeapPageTable> queue = new ReferenceQueue<OffHeapPageTable>();
+
+		/**
+		 * Keeps the references to the living tables reachable
+		 */
+		private final Set<TableReference> references = Collections.newSetFromMap(new ConcurrentHashMap<TableReference, Boolean>());
+
+		private OffHeapPageTableFactory(final SlabAllocator allocator, final boolean ownsAllocator)
+		{
+			this.allocator = allocator;
+			this.ownsAllocator = ownsAllocator;
+		}
+
+		@Override
+		PageTable newPageTable()
+		{
+			OffHeapPageTable pageTable = new OffHeapPageTable(allocator);
+			references.add(new TableReference(pageTable, queue));
+			return pageTable;
+		}
+
+		@Override
+		void prepare(final PageTable pageTable)
+		{
+			expunge();
+
+			if (pageTable instanceof OffHeapPageTable)
+			{
+				OffHeapPageTable offHeapPageTable = (OffHeapPageTable)pageTable;
+				if (offHeapPageTable.isAttached() == false && offHeapPageTable.attach(allocator))
+				{
+					// deserialized, e.g. after session replication
+					references.add(new TableReference(offHeapPageTable, queue));
+				}
+			}
+		}
+
+		@Override
+		void destroy()
+		{
+			if (ownsAllocator)
+			{
+				references.clear();
+				allocator.destroy();
+			}
+			else
+			{
+				// free only the memory of this store's tables, others may still use the allocator
+				for (TableReference reference : references)
+				{
+					references.remove(reference);
+					reference.pages.clear();
+				}
+			}
+		}
+
+		/**
+		 * Frees the memory of the tables which have been garbage collected without being unbound
+		 * from their session
+		 */
+		private void expunge()
+		{
+			TableReference reference;
+			while ((reference = (TableReference)queue.poll()) != null)
+			{
+				references.remove(reference);
+				reference.pages.clear();
+			}
+		}
+	}
+
+	/**
+	 * A reference to a table which remembers its pages
+	 */
+	private static class TableReference extends PhantomReference<OffHeapPageTable>
+	{
+		private final OffHeapPageTable.Pages pages;
+
+		private TableReference(final OffHeapPageTable pageTable,
+			final ReferenceQueue<OffHeapPageTable> queue)
+		{
+			super(pageTable, queue);
+			pages = pageTable.getPages();
+		}
+	}
+}
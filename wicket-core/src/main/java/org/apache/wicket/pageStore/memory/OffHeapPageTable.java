@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link PageTable} which keeps the pages in memory allocated by a {@link SlabAllocator}. The
+ * table itself holds only the ids of the chunks of each page.
+ * <p>
+ * When the table is serialized, e.g. for session replication, the pages are written with it. A
+ * deserialized table keeps the pages on the heap until it is attached to an allocator again. The
+ * memory of the pages is freed when the table is removed from the http session or the session is
+ * invalidated.
+ * </p>
+ * 
+ * @see OffHeapHttpSessionDataStore
+ */
+class OffHeapPageTable extends PageTable implements HttpSessionBindingListener
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(OffHeapPageTable.class);
+
+	private transient SlabAllocator allocator;
+
+	private transient Pages pages;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param allocator
+	 *            the allocator of the memory for the pages
+	 */
+	OffHeapPageTable(final SlabAllocator allocator)
+	{
+		this.allocator = allocator;
+		pages = new Pages();
+		pages.allocator = allocator;
+	}
+
+	/**
+	 * @return the pages of this table
+	 */
+	Pages getPages()
+	{
+		return pages;
+	}
+
+	/**
+	 * @return {@code true} if the pages are stored in memory of an allocator
+	 */
+	boolean isAttached()
+	{
+		return allocator != null;
+	}
+
+	/**
+	 * Moves the pages of a deserialized table into memory of the allocator
+	 * 
+	 * @param allocator
+	 * @return {@code false} if the table was attached already
+	 */
+	boolean attach(final SlabAllocator allocator)
+	{
+		synchronized (pages)
+		{
+			if (this.allocator != null)
+			{
+				return false;
+			}
+			this.allocator = allocator;
+			pages.allocator = allocator;
+
+			for (Iterator<Handle> i = pages.handles.values().iterator(); i.hasNext();)
+			{
+				Handle handle = i.next();
+				handle.chunks = allocator.store(handle.data);
+				handle.data = null;
+				if (handle.chunks == null)
+				{
+					i.remove();
+					pages.size -= handle.length;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	void storePage(final Integer pageId, final byte[] pageAsBytes)
+	{
+		synchronized (pages)
+		{
+			pages.remove(pageId);
+
+			int[] chunks = allocator.store(pageAsBytes);
+			while (chunks == null && pages.handles.isEmpty() == false)
+			{
+				// make room by dropping the oldest pages of this session
+				pages.remove(pages.oldest());
+				chunks = allocator.store(pageAsBytes);
+			}
+
+			if (chunks != null)
+			{
+				pages.put(pageId, new Handle(chunks, pageAsBytes.length));
+			}
+			else
+			{
+				log.warn("Not enough off-heap memory to store page with id '{}'", pageId);
+			}
+		}
+	}
+
+	@Override
+	byte[] getPage(final Integer pageId)
+	{
+		synchronized (pages)
+		{
+			Handle handle = pages.handles.get(pageId);
+			if (handle == null)
+			{
+				return null;
+			}
+			if (handle.chunks == null)
+			{
+				return handle.data;
+			}
+			return allocator.load(handle.chunks, handle.length);
+		}
+	}
+
+	/**
+	 * @return always {@code null}, the data of the removed page is not read back
+	 */
+	@Override
+	public byte[] removePage(final Integer pageId)
+	{
+		synchronized (pages)
+		{
+			pages.remove(pageId);
+		}
+		return null;
+	}
+
+	@Override
+	public void clear()
+	{
+		pages.clear();
+	}
+
+	@Override
+	public int size()
+	{
+		synchronized (pages)
+		{
+			return pages.handles.size();
+		}
+	}
+
+	@Override
+	Integer getOldest()
+	{
+		synchronized (pages)
+		{
+			return pages.oldest();
+		}
+	}
+
+	/**
+	 * @return the off-heap memory used by the pages
+	 */
+	@Override
+	long getSize()
+	{
+		synchronized (pages)
+		{
+			return pages.size;
+		}
+	}
+
+	@Override
+	public void valueBound(final HttpSessionBindingEvent event)
+	{
+	}
+
+	@Override
+	public void valueUnbound(final HttpSessionBindingEvent event)
+	{
+		try
+		{
+			if (event.getSession().getAttribute(event.getName()) == this)
+			{
+				// bound again under the same name
+				return;
+			}
+		}
+		catch (IllegalStateException isx)
+		{
+			// the session is invalidated
+		}
+		clear();
+	}
+
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+
+		synchronized (pages)
+		{
+			out.writeInt(pages.handles.size());
+			for (Map.Entry<Integer, Handle> entry : pages.handles.entrySet())
+			{
+				Handle handle = entry.getValue();
+				byte[] data = handle.chunks != null ? allocator.load(handle.chunks, handle.length)
+					: handle.data;
+				out.writeInt(entry.getKey());
+				out.writeInt(data.length);
+				out.write(data);
+			}
+		}
+	}
+
+	private void readObject(final ObjectInputStream in) throws IOException,
+		ClassNotFoundException
+	{
+		in.defaultReadObject();
+
+		pages = new Pages();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++)
+		{
+			int pageId = in.readInt();
+			byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			pages.put(pageId, new Handle(data));
+		}
+	}
+
+	/**
+	 * The handles of the pages of a table, from the least to the most recently used.
+	 * <p>
+	 * Kept separately from the table so that the memory can be freed after the table has been
+	 * garbage collected.
+	 * </p>
+	 */
+	static final class Pages
+	{
+		private final LinkedHashMap<Integer, Handle> handles = new LinkedHashMap<Integer, Handle>(
+			16, 0.75f, true);
+
+		private SlabAllocator allocator;
+
+		private long size;
+
+		private void put(final Integer pageId, final Handle handle)
+		{
+			handles.put(pageId, handle);
+			size += handle.length;
+		}
+
+		private void remove(final Integer pageId)
+		{
+			Handle handle = handles.remove(pageId);
+			if (handle != null)
+			{
+				free(handle);
+			}
+		}
+
+		private Integer oldest()
+		{
+			Iterator<Integer> i = handles.keySet().iterator();
+			return i.hasNext() ? i.next() : null;
+		}
+
+		private void free(final Handle handle)
+		{
+			size -= handle.length;
+			if (handle.chunks != null)
+			{
+				allocator.free(handle.chunks);
+			}
+		}
+
+		/**
+		 * Frees the memory of all pages
+		 */
+		synchronized void clear()
+		{
+			for (Handle handle : handles.values())
+			{
+				free(handle);
+			}
+			handles.clear();
+		}
+	}
+
+	/**
+	 * The chunks of a page or its data while not attached to an allocator
+	 */
+	private static final class Handle
+	{
+		private final int length;
+
+		private int[] chunks;
+
+		private byte[] data;
+
+		private Handle(final int[] chunks, final int length)
+		{
+			this.chunks = chunks;
+			this.length = length;
+		}
+
+		private Handle(final byte[] data)
+		{
+			this.data = data;
+			length = data.length;
+		}
+	}
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.util.io.IClusterable;
 
 /**
@@ -107,6 +108,14 @@ class PageTable implements IClusterable
 		return index.peek();
 	}
 
+	/**
+	 * @return the size of this table in bytes, as checked by {@link MemorySizeEvictionStrategy}
+	 */
+	long getSize()
+	{
+		return WicketObjects.sizeof(this);
+	}
+
 	/**
 	 * Updates the index of last/least recently used pages by removing the page id from the index
 	 * (in case it is already in) and (re-)adding it at the head
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+/**
+ * Creates the {@link PageTable}s of the sessions of a {@link HttpSessionDataStore} and prepares
+ * them for use.
+ */
+class PageTableFactory
+{
+	/**
+	 * @return a new table for the pages of a session
+	 */
+	PageTable newPageTable()
+	{
+		return new PageTable();
+	}
+
+	/**
+	 * Called each time the table of a session is looked up.
+	 * 
+	 * @param pageTable
+	 *            the table of the current session, {@code null} if it has none
+	 */
+	void prepare(PageTable pageTable)
+	{
+	}
+
+	/**
+	 * Called when the data store is destroyed.
+	 */
+	void destroy()
+	{
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocates memory for page data outside of the Java heap.
+ * <p>
+ * The memory is organized in direct {@link ByteBuffer} slabs which are allocated lazily up to the
+ * configured maximum size. Each slab is divided into chunks of the same size. Page data is stored
+ * in as many chunks as needed, which do not have to be adjacent, so there is no fragmentation.
+ * The free chunks are kept in a free-list.
+ * </p>
+ * <p>
+ * An allocation is identified by a handle with the generation of the allocator followed by the
+ * indices of its chunks. The generation changes when the allocator is destroyed, so handles given
+ * out before are not mistaken for chunks which have been allocated again. The content of
+ * allocated chunks is read and written without locking, the allocation itself is synchronized.
+ * </p>
+ * 
+ * @see OffHeapHttpSessionDataStore
+ */
+public class SlabAllocator
+{
+	private static final Logger log = LoggerFactory.getLogger(SlabAllocator.class);
+
+	private static final int[] NO_CHUNKS = new int[0];
+
+	/**
+	 * The index of the first chunk in a handle, the generation comes before
+	 */
+	private static final int FIRST_CHUNK = 1;
+
+	private final int slabSize;
+
+	private final int chunkSize;
+
+	private final int chunksPerSlab;
+
+	private final int maxSlabs;
+
+	/**
+	 * Incremented by {@link #destroy()}, always before the slabs are replaced
+	 */
+	private volatile int generation;
+
+	/**
+	 * The allocated slabs. Replaced when a slab is added.
+	 */
+	private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+	/**
+	 * A stack with the indices of the free chunks in the allocated slabs
+	 */
+	private int[] freeChunks = NO_CHUNKS;
+
+	private int freeCount;
+
+	/**
+	 * Which of the chunks in the allocated slabs are free, to detect chunks freed twice
+	 */
+	private BitSet free = new BitSet();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            the maximum size of the allocated memory
+	 */
+	public SlabAllocator(final Bytes maxSize)
+	{
+		this(maxSize, Bytes.megabytes(4), 1024);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            the maximum size of the allocated memory
+	 * @param slabSize
+	 *            the size of a slab
+	 * @param chunkSize
+	 *            the size of the chunks the slabs are divided into
+	 */
+	public SlabAllocator(final Bytes maxSize, final Bytes slabSize, final int chunkSize)
+	{
+		Args.notNull(maxSize, "maxSize");
+		Args.notNull(slabSize, "slabSize");
+		Args.withinRange(16L, slabSize.bytes(), (long)chunkSize, "chunkSize");
+		Args.withinRange((long)chunkSize, (long)Integer.MAX_VALUE, slabSize.bytes(), "slabSize");
+
+		this.slabSize = (int)slabSize.bytes();
+		this.chunkSize = chunkSize;
+		chunksPerSlab = this.slabSize / chunkSize;
+		maxSlabs = (int)Math.min(Integer.MAX_VALUE / chunksPerSlab,
+			Math.max(1, maxSize.bytes() / this.slabSize));
+	}
+
+	/**
+	 * Allocates memory for the given data and copies the data into it.
+	 * 
+	 * @param data
+	 *            the data to store
+	 * @return the handle of the chunks holding the data or {@code null} if there is not enough free
+	 *         memory
+	 */
+	public int[] store(final byte[] data)
+	{
+		int[] chunks = allocate((data.length + chunkSize - 1) / chunkSize);
+		if (chunks != null)
+		{
+			ByteBuffer[] slabs = this.slabs;
+			if (chunks[0] != generation)
+			{
+				// destroyed meanwhile, the chunks may belong to someone else already
+				return null;
+			}
+
+			int offset = 0;
+			for (int i = FIRST_CHUNK; i < chunks.length; i++)
+			{
+				int chunk = chunks[i];
+				int length = Math.min(chunkSize, data.length - offset);
+				ByteBuffer buffer = slabs[chunk / chunksPerSlab].duplicate();
+				buffer.position((chunk % chunksPerSlab) * chunkSize);
+				buffer.put(data, offset, length);
+				offset += length;
+			}
+		}
+		return chunks;
+	}
+
+	/**
+	 * Reads data stored with {@link #store(byte[])}.
+	 * 
+	 * @param chunks
+	 *            the handle returned by {@link #store(byte[])}
+	 * @param length
+	 *            the length of the data
+	 * @return the data or {@code null} if the allocator has been destroyed since the data was
+	 *         stored
+	 */
+	public byte[] load(final int[] chunks, final int length)
+	{
+		ByteBuffer[] slabs = this.slabs;
+		if (chunks[0] != generation)
+		{
+			return null;
+		}
+
+		byte[] data = new byte[length];
+		int offset = 0;
+		for (int i = FIRST_CHUNK; i < chunks.length; i++)
+		{
+			int chunk = chunks[i];
+			if (chunk / chunksPerSlab >= slabs.length)
+			{
+				return null;
+			}
+
+			int chunkLength = Math.min(chunkSize, length - offset);
+			ByteBuffer buffer = slabs[chunk / chunksPerSlab].duplicate();
+			buffer.position((chunk % chunksPerSlab) * chunkSize);
+			buffer.get(data, offset, chunkLength);
+			offset += chunkLength;
+		}
+		return data;
+	}
+
+	/**
+	 * Gives the chunks back to the free-list. Chunks which are free already, e.g. because they have
+	 * been freed before, and handles given out before the allocator was destroyed are ignored.
+	 * 
+	 * @param chunks
+	 *            the handle returned by {@link #store(byte[])}
+	 */
+	public synchronized void free(final int[] chunks)
+	{
+		if (chunks[0] != generation)
+		{
+			// the chunks of slabs released by #destroy()
+			return;
+		}
+
+		for (int i = FIRST_CHUNK; i < chunks.length; i++)
+		{
+			int chunk = chunks[i];
+			if (chunk < 0 || chunk >= freeChunks.length)
+			{
+				continue;
+			}
+			if (free.get(chunk))
+			{
+				log.warn("Chunk {} has been freed already, ignoring it.", chunk);
+				continue;
+			}
+			free.set(chunk);
+			freeChunks[freeCount++] = chunk;
+		}
+	}
+
+	/**
+	 * @return the size of the allocated chunks, in bytes
+	 */
+	public synchronized long getUsedSize()
+	{
+		return ((long)slabs.length * chunksPerSlab - freeCount) * chunkSize;
+	}
+
+	/**
+	 * @return the size of the slabs allocated so far, in bytes
+	 */
+	public long getAllocatedSize()
+	{
+		return (long)slabs.length * slabSize;
+	}
+
+	/**
+	 * @return the maximum size of the slabs, in bytes
+	 */
+	public long getMaxSize()
+	{
+		return (long)maxSlabs * slabSize;
+	}
+
+	/**
+	 * @param length
+	 *            the length of the data
+	 * @return the size of the memory used for data with the given length
+	 */
+	public long getStoredSize(final int length)
+	{
+		return (long)((length + chunkSize - 1) / chunkSize) * chunkSize;
+	}
+
+	/**
+	 * Releases all slabs. Data stored earlier can not be loaded anymore.
+	 * <p>
+	 * The allocator must be destroyed only by its owner, not by each of the data stores sharing it.
+	 * </p>
+	 */
+	public synchronized void destroy()
+	{
+		generation++;
+		slabs = new ByteBuffer[0];
+		freeChunks = NO_CHUNKS;
+		freeCount = 0;
+		free = new BitSet();
+	}
+
+	private synchronized int[] allocate(final int count)
+	{
+		while (freeCount < count && slabs.length < maxSlabs)
+		{
+			addSlab();
+		}
+
+		if (freeCount < count)
+		{
+			return null;
+		}
+
+		int[] chunks = new int[FIRST_CHUNK + count];
+		chunks[0] = generation;
+		for (int i = FIRST_CHUNK; i < chunks.length; i++)
+		{
+			chunks[i] = freeChunks[--freeCount];
+			free.clear(chunks[i]);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Must be called while holding the lock on this allocator.
+	 */
+	private void addSlab()
+	{
+		ByteBuffer[] newSlabs = new ByteBuffer[slabs.length + 1];
+		System.arraycopy(slabs, 0, newSlabs, 0, slabs.length);
+		newSlabs[slabs.length] = ByteBuffer.allocateDirect(slabSize);
+
+		int[] newFreeChunks = new int[newSlabs.length * chunksPerSlab];
+		System.arraycopy(freeChunks, 0, newFreeChunks, 0, freeCount);
+
+		// push in reverse order so the chunks are taken in ascending order
+		int first = slabs.length * chunksPerSlab;
+		for (int chunk = first + chunksPerSlab - 1; chunk >= first; chunk--)
+		{
+			newFreeChunks[freeCount++] = chunk;
+		}
+		free.set(first, first + chunksPerSlab);
+
+		freeChunks = newFreeChunks;
+		slabs = newSlabs;
+	}
+}
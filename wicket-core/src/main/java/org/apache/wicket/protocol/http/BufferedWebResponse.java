@@ -155,18 +155,21 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		@Override
 		protected void invoke(WebResponse response)
 		{
-			AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
-
 			List<IResponseFilter> responseFilters = Application.get()
 				.getRequestCycleSettings()
 				.getResponseFilters();
 
-			if (responseFilters != null)
+			if (responseFilters == null || responseFilters.isEmpty())
 			{
-				for (IResponseFilter filter : responseFilters)
-				{
-					responseBuffer = filter.filter(responseBuffer);
-				}
+				// no need to copy the buffer
+				response.write(builder);
+				return;
+			}
+
+			AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
+			for (IResponseFilter filter : responseFilters)
+			{
+				responseBuffer = filter.filter(responseBuffer);
 			}
 			response.write(responseBuffer);
 		}
@@ -99,6 +99,14 @@ class HeaderBufferingWebResponse extends WebResponse implements IMetaDataBufferi
 		originalResponse.flush();
 	}
 
+	@Override
+	public void close()
+	{
+		stopBuffering();
+
+		originalResponse.close();
+	}
+
 	@Override
 	public boolean isRedirect()
 	{
@@ -268,6 +268,8 @@ public class WicketFilter implements Filter
 		}
 		else
 		{
+			// completes a compressed body, unless the request continues asynchronously
+			webResponse.close();
 			webResponse.flush();
 		}
 		return res;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Helpers for the gzip compression of responses.
+ * 
+ * @see ServletWebResponse
+ * @see org.apache.wicket.settings.IRequestCycleSettings#setCompressResponse(boolean)
+ */
+public final class ResponseCompression
+{
+	/**
+	 * The name of the request header listing the encodings accepted by the client
+	 */
+	public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+	/**
+	 * The name of the response header naming the encoding of the body
+	 */
+	public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+	/**
+	 * The name of the response header telling caches which request headers the response depends
+	 * on
+	 */
+	public static final String VARY_HEADER = "Vary";
+
+	/**
+	 * The gzip content encoding
+	 */
+	public static final String GZIP = "gzip";
+
+	/**
+	 * Checks whether the client accepts gzip compressed responses.
+	 * 
+	 * @param acceptEncoding
+	 *            the value of the <em>Accept-Encoding</em> request header, may be {@code null}
+	 * @return {@code true} if gzip (or any encoding) is accepted with a quality greater than zero
+	 */
+	public static boolean acceptsGzip(final String acceptEncoding)
+	{
+		if (Strings.isEmpty(acceptEncoding))
+		{
+			return false;
+		}
+
+		float gzip = -1;
+		float any = -1;
+		for (String token : Strings.split(acceptEncoding, ','))
+		{
+			String coding = token.trim();
+			float quality = 1;
+
+			int semicolon = coding.indexOf(';');
+			if (semicolon != -1)
+			{
+				quality = parseQuality(coding.substring(semicolon + 1));
+				coding = coding.substring(0, semicolon).trim();
+			}
+
+			if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding))
+			{
+				gzip = Math.max(gzip, quality);
+			}
+			else if ("*".equals(coding))
+			{
+				any = quality;
+			}
+		}
+		return gzip != -1 ? gzip > 0 : any > 0;
+	}
+
+	/**
+	 * Checks whether a response of the given content type is worth compressing, i.e. it is text
+	 * and not an already compressed format like an image or an archive.
+	 * 
+	 * @param contentType
+	 *            the content type, optionally with parameters, may be {@code null}
+	 * @return {@code true} if the content type is compressible
+	 */
+	public static boolean isCompressible(final String contentType)
+	{
+		if (Strings.isEmpty(contentType))
+		{
+			return false;
+		}
+
+		String mimeType = contentType;
+		int semicolon = mimeType.indexOf(';');
+		if (semicolon != -1)
+		{
+			mimeType = mimeType.substring(0, semicolon);
+		}
+		mimeType = mimeType.trim().toLowerCase(Locale.ENGLISH);
+
+		return mimeType.startsWith("text/") || mimeType.endsWith("+xml") ||
+			mimeType.endsWith("+json") || mimeType.equals("application/javascript") ||
+			mimeType.equals("application/x-javascript") || mimeType.equals("application/json") ||
+			mimeType.equals("application/xml");
+	}
+
+	/**
+	 * Compresses the given bytes with gzip.
+	 * 
+	 * @param data
+	 *            the bytes to compress
+	 * @return the compressed bytes
+	 */
+	public static byte[] gzip(final byte[] data)
+	{
+		Args.notNull(data, "data");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 3 + 32);
+		try
+		{
+			GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+			gzip.write(data);
+			gzip.close();
+		}
+		catch (IOException e)
+		{
+			throw new WicketRuntimeException("Cannot compress data", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static float parseQuality(final String parameter)
+	{
+		String value = parameter.trim();
+		if (value.startsWith("q=") == false && value.startsWith("Q=") == false)
+		{
+			return 1;
+		}
+		try
+		{
+			return Float.parseFloat(value.substring(2).trim());
+		}
+		catch (NumberFormatException e)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * Utility class.
+	 */
+	private ResponseCompression()
+	{
+	}
+}
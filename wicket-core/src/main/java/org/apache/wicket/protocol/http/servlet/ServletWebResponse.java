@@ -16,32 +16,87 @@
  */
 package org.apache.wicket.protocol.http.servlet;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.Cookie;
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.UrlRenderer;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.settings.IRequestCycleSettings;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.time.Time;
 
 /**
  * WebResponse that wraps a {@link ServletWebResponse}.
+ * <p>
+ * If {@link IRequestCycleSettings#getCompressResponse() response compression} is enabled and the
+ * client accepts gzip, the body of textual responses is compressed while it is written. Bodies of
+ * unknown length are held back until they reach the
+ * {@link IRequestCycleSettings#getCompressionThreshold() compression threshold}; the compressed
+ * stream is completed by {@link #close()}. Responses of requests in asynchronous mode are not
+ * compressed, they are completed outside of the request cycle.
+ * </p>
  * 
  * @author Matej Knopp
  */
 public class ServletWebResponse extends WebResponse
 {
+	private enum Compression {
+		/** compression is disabled or not accepted by the client */
+		OFF,
+		/** the body is compressible but not enough of it has been seen yet */
+		UNDECIDED,
+		/** the body is written as is */
+		PLAIN,
+		/** the body is compressed */
+		GZIP
+	}
+
 	private final HttpServletResponse httpServletResponse;
 	private final ServletWebRequest webRequest;
 
 	private boolean redirect = false;
 
+	/** the state of the compression stage, {@code null} until the first use */
+	private Compression compression;
+
+	private long compressionThreshold;
+
+	/** the body held back while the compression is {@link Compression#UNDECIDED} */
+	private ByteArrayOutputStream pendingBody;
+
+	/** the content length held back while the compression is {@link Compression#UNDECIDED} */
+	private long pendingContentLength = -1;
+
+	private GZIPOutputStream gzipStream;
+
+	/** the chunk used to copy the characters of a written sequence, created on first use */
+	private char[] charBuffer;
+
+	/** the chunk used to encode the characters of a written sequence, created on first use */
+	private ByteBuffer byteBuffer;
+
+	/** the encoder for the character encoding of the response, created on first use */
+	private CharsetEncoder encoder;
+
+	/** the character encoding {@link #encoder} has been created for */
+	private String encoderEncoding;
+
 	/**
 	 * Construct.
 	 * 
@@ -74,7 +129,16 @@ public class ServletWebResponse extends WebResponse
 	@Override
 	public void setContentLength(long length)
 	{
-		httpServletResponse.addHeader("Content-Length", Long.toString(length));
+		Compression state = getCompression();
+		if (state == Compression.UNDECIDED)
+		{
+			// the length decides whether to compress and is only valid for a plain body
+			pendingContentLength = length;
+		}
+		else if (state != Compression.GZIP)
+		{
+			httpServletResponse.addHeader("Content-Length", Long.toString(length));
+		}
 	}
 
 	@Override
@@ -93,12 +157,14 @@ public class ServletWebResponse extends WebResponse
 	@Override
 	public void setHeader(String name, String value)
 	{
+		checkContentEncoding(name);
 		httpServletResponse.setHeader(name, value);
 	}
 
 	@Override
 	public void addHeader(String name, String value)
 	{
+		checkContentEncoding(name);
 		httpServletResponse.addHeader(name, value);
 	}
 
@@ -107,7 +173,14 @@ public class ServletWebResponse extends WebResponse
 	{
 		try
 		{
-			httpServletResponse.getWriter().append(sequence);
+			if (getCompression() == Compression.OFF)
+			{
+				writeChars(sequence);
+			}
+			else
+			{
+				encodeChars(sequence);
+			}
 		}
 		catch (IOException e)
 		{
@@ -117,10 +190,16 @@ public class ServletWebResponse extends WebResponse
 
 	@Override
 	public void write(byte[] array)
+	{
+		write(array, 0, array.length);
+	}
+
+	@Override
+	public void write(byte[] array, int offset, int length)
 	{
 		try
 		{
-			httpServletResponse.getOutputStream().write(array);
+			writeBody(array, offset, length);
 		}
 		catch (IOException e)
 		{
@@ -128,29 +207,347 @@ public class ServletWebResponse extends WebResponse
 		}
 	}
 
-	@Override
-	public void write(byte[] array, int offset, int length)
+	/**
+	 * Writes the characters to the writer of the servlet response. Other than
+	 * {@link PrintWriter#append(CharSequence)} this doesn't copy the whole sequence into a string
+	 * first, but passes it in chunks.
+	 * 
+	 * @param sequence
+	 * @throws IOException
+	 */
+	private void writeChars(CharSequence sequence) throws IOException
 	{
-		try
+		PrintWriter writer = httpServletResponse.getWriter();
+		if (sequence instanceof String)
+		{
+			writer.write((String)sequence);
+			return;
+		}
+
+		char[] chars = getCharBuffer();
+		int length = sequence.length();
+		for (int start = 0; start < length; start += chars.length)
+		{
+			int end = Math.min(length, start + chars.length);
+			getChars(sequence, start, end, chars, 0);
+			writer.write(chars, 0, end - start);
+		}
+	}
+
+	/**
+	 * Encodes the characters with the character encoding of the response and writes them to the
+	 * body. The characters are encoded chunk by chunk into a buffer which is reused for the whole
+	 * response.
+	 * 
+	 * @param sequence
+	 * @throws IOException
+	 */
+	private void encodeChars(CharSequence sequence) throws IOException
+	{
+		CharsetEncoder charsetEncoder = getEncoder();
+		char[] chars = getCharBuffer();
+		CharBuffer in = CharBuffer.wrap(chars);
+		in.limit(0);
+		ByteBuffer out = getByteBuffer();
+
+		int length = sequence.length();
+		int start = 0;
+		boolean endOfInput;
+		do
+		{
+			// keep the characters which couldn't be encoded yet, e.g. a high surrogate
+			in.compact();
+			int count = Math.min(in.remaining(), length - start);
+			getChars(sequence, start, start + count, chars, in.position());
+			in.position(in.position() + count);
+			in.flip();
+			start += count;
+			endOfInput = start == length;
+
+			CoderResult result;
+			do
+			{
+				result = charsetEncoder.encode(in, out, endOfInput);
+				writeBytes(out);
+			}
+			while (result.isOverflow());
+		}
+		while (endOfInput == false);
+
+		while (charsetEncoder.flush(out).isOverflow())
+		{
+			writeBytes(out);
+		}
+		writeBytes(out);
+		charsetEncoder.reset();
+	}
+
+	/**
+	 * Writes the encoded bytes to the body and clears the buffer.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	private void writeBytes(ByteBuffer out) throws IOException
+	{
+		if (out.position() > 0)
+		{
+			writeBody(out.array(), 0, out.position());
+			out.clear();
+		}
+	}
+
+	/**
+	 * Copies characters without creating intermediate strings for the common sequences.
+	 * 
+	 * @param sequence
+	 * @param start
+	 * @param end
+	 * @param dest
+	 * @param destStart
+	 */
+	private static void getChars(CharSequence sequence, int start, int end, char[] dest,
+		int destStart)
+	{
+		if (sequence instanceof String)
+		{
+			((String)sequence).getChars(start, end, dest, destStart);
+		}
+		else if (sequence instanceof AppendingStringBuffer)
+		{
+			((AppendingStringBuffer)sequence).getChars(start, end, dest, destStart);
+		}
+		else if (sequence instanceof StringBuilder)
+		{
+			((StringBuilder)sequence).getChars(start, end, dest, destStart);
+		}
+		else if (sequence instanceof StringBuffer)
+		{
+			((StringBuffer)sequence).getChars(start, end, dest, destStart);
+		}
+		else
+		{
+			for (int i = start; i < end; i++)
+			{
+				dest[destStart++] = sequence.charAt(i);
+			}
+		}
+	}
+
+	private char[] getCharBuffer()
+	{
+		if (charBuffer == null)
+		{
+			charBuffer = new char[4096];
+		}
+		return charBuffer;
+	}
+
+	private ByteBuffer getByteBuffer()
+	{
+		if (byteBuffer == null)
+		{
+			byteBuffer = ByteBuffer.allocate(8192);
+		}
+		return byteBuffer;
+	}
+
+	/**
+	 * @return an encoder for the current character encoding of the response, replacing characters
+	 *         which cannot be encoded like {@link String#getBytes(String)} does
+	 */
+	private CharsetEncoder getEncoder()
+	{
+		String encoding = httpServletResponse.getCharacterEncoding();
+		if (encoder == null || encoding.equals(encoderEncoding) == false)
+		{
+			encoderEncoding = encoding;
+			encoder = Charset.forName(encoding)
+				.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		return encoder;
+	}
+
+	/**
+	 * Writes to the output stream of the servlet response, compressing on the fly.
+	 * 
+	 * @param array
+	 * @param offset
+	 * @param length
+	 * @throws IOException
+	 */
+	private void writeBody(byte[] array, int offset, int length) throws IOException
+	{
+		if (getCompression() == Compression.UNDECIDED)
+		{
+			if (isCompressible() == false)
+			{
+				startBody(false);
+			}
+			else if (pendingContentLength != -1)
+			{
+				startBody(pendingContentLength >= compressionThreshold);
+			}
+			else
+			{
+				if (pendingBody == null)
+				{
+					pendingBody = new ByteArrayOutputStream();
+				}
+				pendingBody.write(array, offset, length);
+				if (pendingBody.size() >= compressionThreshold)
+				{
+					startBody(true);
+				}
+				return;
+			}
+		}
+
+		if (compression == Compression.GZIP)
+		{
+			gzipStream.write(array, offset, length);
+		}
+		else
 		{
 			httpServletResponse.getOutputStream().write(array, offset, length);
 		}
-		catch (IOException e)
+	}
+
+	/**
+	 * Lazily decides whether the compression stage takes part in this response.
+	 * 
+	 * @return the state of the compression
+	 */
+	private Compression getCompression()
+	{
+		if (compression == null)
 		{
-			throw new ResponseIOException(e);
+			compression = Compression.OFF;
+			if (Application.exists() && isAsyncStarted() == false)
+			{
+				IRequestCycleSettings settings = Application.get().getRequestCycleSettings();
+				String acceptEncoding = webRequest.getHeader(ResponseCompression.ACCEPT_ENCODING_HEADER);
+				if (settings.getCompressResponse() && ResponseCompression.acceptsGzip(acceptEncoding))
+				{
+					compression = Compression.UNDECIDED;
+					compressionThreshold = settings.getCompressionThreshold().bytes();
+				}
+			}
 		}
+		return compression;
 	}
 
+	/**
+	 * @return {@code true} if the request has been put into asynchronous mode
+	 */
+	private boolean isAsyncStarted()
+	{
+		return webRequest.getContainerRequest().isAsyncStarted();
+	}
+
+	/**
+	 * @return {@code true} if the response can still be compressed
+	 */
+	private boolean isCompressible()
+	{
+		return httpServletResponse.isCommitted() == false &&
+			ResponseCompression.isCompressible(httpServletResponse.getContentType());
+	}
+
+	/**
+	 * Ends the undecided state: sets the headers for the decided encoding and writes the held back
+	 * body.
+	 * 
+	 * @param gzip
+	 *            whether to compress the body
+	 * @throws IOException
+	 */
+	private void startBody(boolean gzip) throws IOException
+	{
+		if (gzip)
+		{
+			httpServletResponse.setHeader(ResponseCompression.CONTENT_ENCODING_HEADER,
+				ResponseCompression.GZIP);
+			httpServletResponse.addHeader(ResponseCompression.VARY_HEADER,
+				ResponseCompression.ACCEPT_ENCODING_HEADER);
+			gzipStream = new GZIPOutputStream(httpServletResponse.getOutputStream(), 8192, true);
+			compression = Compression.GZIP;
+		}
+		else
+		{
+			if (pendingContentLength != -1)
+			{
+				httpServletResponse.addHeader("Content-Length",
+					Long.toString(pendingContentLength));
+			}
+			compression = Compression.PLAIN;
+		}
+		pendingContentLength = -1;
+
+		if (pendingBody != null)
+		{
+			ByteArrayOutputStream body = pendingBody;
+			pendingBody = null;
+			writeBody(body.toByteArray(), 0, body.size());
+		}
+	}
+
+	/**
+	 * A body which is encoded already by the application must not be compressed again.
+	 * 
+	 * @param headerName
+	 */
+	private void checkContentEncoding(String headerName)
+	{
+		if (ResponseCompression.CONTENT_ENCODING_HEADER.equalsIgnoreCase(headerName) &&
+			getCompression() == Compression.UNDECIDED)
+		{
+			try
+			{
+				startBody(false);
+			}
+			catch (IOException e)
+			{
+				throw new ResponseIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the compression stage before the container takes over the body, e.g. for an error
+	 * page or a redirect.
+	 */
+	private void disableCompression()
+	{
+		if (getCompression() == Compression.UNDECIDED)
+		{
+			if (pendingContentLength != -1)
+			{
+				httpServletResponse.addHeader("Content-Length",
+					Long.toString(pendingContentLength));
+			}
+			pendingContentLength = -1;
+			pendingBody = null;
+			compression = Compression.OFF;
+		}
+	}
 
 	@Override
 	public void setStatus(int sc)
 	{
+		if (sc == HttpServletResponse.SC_NO_CONTENT || sc == HttpServletResponse.SC_NOT_MODIFIED)
+		{
+			disableCompression();
+		}
 		httpServletResponse.setStatus(sc);
 	}
 
 	@Override
 	public void sendError(int sc, String msg)
 	{
+		disableCompression();
 		try
 		{
 			if (msg == null)
@@ -231,6 +628,7 @@ public class ServletWebResponse extends WebResponse
 	@Override
 	public void sendRedirect(String url)
 	{
+		disableCompression();
 		try
 		{
 			redirect = true;
@@ -286,8 +684,36 @@ public class ServletWebResponse extends WebResponse
 	{
 		try
 		{
-			HttpServletRequest httpServletRequest = webRequest.getContainerRequest();
-			if (httpServletRequest.isAsyncStarted() == false)
+			if (getCompression() == Compression.UNDECIDED)
+			{
+				if (isCompressible() == false)
+				{
+					startBody(false);
+				}
+				else if (pendingContentLength != -1)
+				{
+					startBody(pendingContentLength >= compressionThreshold);
+				}
+				else if (pendingBody != null)
+				{
+					// the body is flushed while it is written, e.g. a streamed page after its
+					// header: more of it follows, so compress it even though the part seen so far
+					// is below the threshold. The gzip stream flushes what it has compressed so far.
+					startBody(true);
+				}
+				else
+				{
+					// nothing written yet, committing the headers would prevent the compression
+					return;
+				}
+			}
+
+			if (compression == Compression.GZIP)
+			{
+				gzipStream.flush();
+			}
+
+			if (isAsyncStarted() == false)
 			{
 				httpServletResponse.flushBuffer();
 			}
@@ -298,12 +724,48 @@ public class ServletWebResponse extends WebResponse
 		}
 	}
 
+	/**
+	 * Writes the body held back by the compression stage and completes the compressed stream.
+	 * <p>
+	 * Does nothing while the request is in asynchronous mode: the response is still being written
+	 * and must not be committed yet.
+	 * </p>
+	 */
+	@Override
+	public void close()
+	{
+		if (isAsyncStarted())
+		{
+			return;
+		}
+
+		try
+		{
+			if (compression == Compression.UNDECIDED)
+			{
+				startBody(false);
+			}
+			if (compression == Compression.GZIP)
+			{
+				gzipStream.finish();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ResponseIOException(e);
+		}
+	}
+
 	@Override
 	public void reset()
 	{
 		super.reset();
 		httpServletResponse.reset();
 		redirect = false;
+		compression = null;
+		pendingBody = null;
+		pendingContentLength = -1;
+		gzipStream = null;
 	}
 
 	@Override
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters about the Urls remembered by the {@link org.apache.wicket.SystemMapper}.
+ * 
+ * @see org.apache.wicket.Application#getUrlCacheStatistics()
+ */
+public class UrlCacheStatistics
+{
+	private final AtomicLong mapHits = new AtomicLong();
+
+	private final AtomicLong mapMisses = new AtomicLong();
+
+	/**
+	 * Records a Url of a handler found in the cache.
+	 */
+	public void mapHit()
+	{
+		mapHits.incrementAndGet();
+	}
+
+	/**
+	 * Records a Url of a handler not found in the cache.
+	 */
+	public void mapMiss()
+	{
+		mapMisses.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of Urls of handlers found in the cache
+	 */
+	public long getMapHits()
+	{
+		return mapHits.get();
+	}
+
+	/**
+	 * @return the number of Urls of handlers not found in the cache
+	 */
+	public long getMapMisses()
+	{
+		return mapMisses.get();
+	}
+
+	/**
+	 * @return the ratio of Urls of handlers found in the cache, between {@code 0} and {@code 1}
+	 */
+	public double getMapHitRatio()
+	{
+		return ratio(mapHits.get(), mapMisses.get());
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset()
+	{
+		mapHits.set(0);
+		mapMisses.set(0);
+	}
+
+	private static double ratio(final long hits, final long misses)
+	{
+		long total = hits + misses;
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "UrlCacheStatistics [mapHits=" + getMapHits() + ", mapMisses=" + getMapMisses() + "]";
+	}
+}
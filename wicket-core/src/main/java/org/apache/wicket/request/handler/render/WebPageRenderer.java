@@ -17,8 +17,10 @@
 package org.apache.wicket.request.handler.render;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler.RedirectPolicy;
+import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.protocol.http.BufferedWebResponse;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.IRequestHandler;
@@ -40,6 +42,14 @@ public class WebPageRenderer extends PageRenderer
 {
 	private static final Logger logger = LoggerFactory.getLogger(WebPageRenderer.class);
 
+	/**
+	 * Marks the request cycle while a page is streamed
+	 */
+	private static final MetaDataKey<Boolean> STREAMING = new MetaDataKey<Boolean>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
 	/**
 	 * Construct.
 	 * 
@@ -138,6 +148,83 @@ public class WebPageRenderer extends PageRenderer
 		}
 	}
 
+	/**
+	 * Renders the page directly into the response of the request cycle, i.e. without buffering.
+	 * All URLs in page will be rendered relative to <code>targetUrl</code>
+	 * 
+	 * @param targetUrl
+	 * @param requestCycle
+	 * @see WebPage#isStreamable()
+	 */
+	protected void streamPage(Url targetUrl, RequestCycle requestCycle)
+	{
+		// get the page before checking for a scheduled request handler because
+		// the page may call setResponsePage in its constructor
+		IRequestablePage requestablePage = getPage();
+
+		if (requestCycle.getRequestHandlerScheduledAfterCurrent() != null)
+		{
+			// no need to render
+			return;
+		}
+
+		// keep the original base URL
+		Url originalBaseUrl = requestCycle.getUrlRenderer().setBaseUrl(targetUrl);
+
+		try
+		{
+			requestCycle.setMetaData(STREAMING, Boolean.TRUE);
+			requestablePage.renderPage();
+
+			if (requestCycle.getRequestHandlerScheduledAfterCurrent() != null)
+			{
+				// During page render another request handler got scheduled and will want to
+				// overwrite the response, which is possible as long as nothing has been sent yet
+				try
+				{
+					((WebResponse)requestCycle.getResponse()).reset();
+				}
+				catch (IllegalStateException e)
+				{
+					logger.warn(
+						"A request handler was scheduled while streaming page '{}', but the response has been sent already",
+						requestablePage.getClass().getName());
+					requestCycle.scheduleRequestHandlerAfterCurrent(null);
+				}
+			}
+		}
+		finally
+		{
+			// restore original base URL
+			requestCycle.setMetaData(STREAMING, null);
+			requestCycle.getUrlRenderer().setBaseUrl(originalBaseUrl);
+		}
+	}
+
+	/**
+	 * @param requestCycle
+	 * @return {@code true} if the page should be streamed instead of rendered to a buffer
+	 * @see WebPage#isStreamable()
+	 */
+	protected boolean isStreamable(RequestCycle requestCycle)
+	{
+		if (isAjax(requestCycle))
+		{
+			return false;
+		}
+		IRequestablePage page = getPage();
+		return (page instanceof WebPage) && ((WebPage)page).isStreamable();
+	}
+
+	/**
+	 * @param requestCycle
+	 * @return {@code true} while a page is streamed in the given request cycle
+	 */
+	public static boolean isStreaming(RequestCycle requestCycle)
+	{
+		return Boolean.TRUE.equals(requestCycle.getMetaData(STREAMING));
+	}
+
 	/**
 	 * 
 	 * @param url
@@ -193,10 +280,17 @@ public class WebPageRenderer extends PageRenderer
 			// or the targetUrl matches current url, page is stateless but it's redirect-to-render
 			// or the request determines that the current url should be preserved
 			// just render the page
-			BufferedWebResponse response = renderPage(currentUrl, requestCycle);
-			if (response != null)
+			if (isStreamable(requestCycle))
 			{
-				response.writeTo((WebResponse)requestCycle.getResponse());
+				streamPage(currentUrl, requestCycle);
+			}
+			else
+			{
+				BufferedWebResponse response = renderPage(currentUrl, requestCycle);
+				if (response != null)
+				{
+					response.writeTo((WebResponse)requestCycle.getResponse());
+				}
 			}
 		}
 		else if (getRedirectPolicy() == RedirectPolicy.ALWAYS_REDIRECT //
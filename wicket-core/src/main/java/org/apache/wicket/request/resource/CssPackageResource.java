@@ -77,6 +77,15 @@ public class CssPackageResource extends PackageResource
 		}
 	}
 
+	/**
+	 * The compressed CSS does not depend on the request. Subclasses have to opt in again.
+	 */
+	@Override
+	protected boolean isProcessedResponseCacheable()
+	{
+		return getClass() == CssPackageResource.class;
+	}
+
 	/**
 	 * Gets the {@link ICssCompressor} to be used. By default returns the configured compressor on
 	 * application level, but can be overriden by the user application to provide compressor
@@ -77,6 +77,15 @@ public class JavaScriptPackageResource extends PackageResource
 		}
 	}
 
+	/**
+	 * The compressed JavaScript does not depend on the request. Subclasses have to opt in again.
+	 */
+	@Override
+	protected boolean isProcessedResponseCacheable()
+	{
+		return getClass() == JavaScriptPackageResource.class;
+	}
+
 	/**
 	 * Gets the {@link IJavaScriptCompressor} to be used. By default returns the configured
 	 * compressor on application level, but can be overriden by the user application to provide
@@ -28,7 +28,11 @@ import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.core.util.resource.locator.IResourceStreamLocator;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
+import org.apache.wicket.protocol.http.servlet.ResponseCompression;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.settings.IRequestCycleSettings;
 import org.apache.wicket.settings.IResourceSettings;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.lang.Classes;
@@ -38,6 +42,7 @@ import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.time.Time;
+import org.apache.wicket.util.watch.IModificationWatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -264,22 +269,48 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 	{
 		final ResourceResponse resourceResponse = new ResourceResponse();
 
-		final IResourceStream resourceStream = getResourceStream();
+		final PackageResourceCache cache = getPackageResourceCache();
+		final CacheKey key = new CacheKey(scopeName, absolutePath, locale, style, variation);
 
-		// bail out if resource stream could not be found
-		if (resourceStream == null)
+		PackageResourceCache.Entry entry = null;
+		if (cache != null)
 		{
-			return sendResourceError(resourceResponse, HttpServletResponse.SC_NOT_FOUND,
-					"Unable to find resource");
+			entry = cache.get(key);
+			if (entry != null && entry.isUsableBy(this) == false)
+			{
+				entry = null;
+			}
+		}
+
+		if (entry != null)
+		{
+			resourceResponse.setLastModified(entry.getLastModified());
+			if (resourceResponse.dataNeedsToBeWritten(attributes) == false)
+			{
+				return resourceResponse;
+			}
 		}
+		else
+		{
+			final IResourceStream resourceStream = getResourceStream();
+
+			// bail out if resource stream could not be found
+			if (resourceStream == null)
+			{
+				return sendResourceError(resourceResponse, HttpServletResponse.SC_NOT_FOUND,
+					"Unable to find resource");
+			}
 
-		// add Last-Modified header (to support HEAD requests and If-Modified-Since)
-		final Time lastModified = resourceStream.lastModifiedTime();
+			// add Last-Modified header (to support HEAD requests and If-Modified-Since)
+			final Time lastModified = resourceStream.lastModifiedTime();
 
-		resourceResponse.setLastModified(lastModified);
+			resourceResponse.setLastModified(lastModified);
+
+			if (resourceResponse.dataNeedsToBeWritten(attributes) == false)
+			{
+				return resourceResponse;
+			}
 
-		if (resourceResponse.dataNeedsToBeWritten(attributes))
-		{
 			String contentType = resourceStream.getContentType();
 
 			if (contentType == null && Application.exists())
@@ -287,12 +318,6 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 				contentType = Application.get().getMimeType(path);
 			}
 
-			// set Content-Type (may be null)
-			resourceResponse.setContentType(contentType);
-			
-			// set content encoding (may be null)
-			resourceResponse.setTextEncoding(getTextEncoding());
-
 			try
 			{
 				// read resource data
@@ -300,20 +325,33 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 				bytes = IOUtils.toByteArray(resourceStream.getInputStream());
 
-				final byte[] processed = processResponse(attributes, bytes);
+				final boolean cacheable;
+				if (isProcessedResponseCacheable())
+				{
+					final byte[] processed = processResponse(attributes, bytes);
 
-				// send Content-Length header
-				resourceResponse.setContentLength(processed.length);
+					entry = new PackageResourceCache.Entry(this, lastModified, contentType,
+						processed, null);
+					cacheable = true;
+				}
+				else
+				{
+					entry = new PackageResourceCache.Entry(this, lastModified, contentType, bytes);
+					cacheable = isResourceStreamCacheable();
+				}
 
-				// send response body with resource data
-				resourceResponse.setWriteCallback(new WriteCallback()
+				if (cache != null && cacheable)
 				{
-					@Override
-					public void writeData(Attributes attributes)
+					cache.put(key, entry);
+
+					IModificationWatcher watcher = Application.get()
+						.getResourceSettings()
+						.getResourceWatcher(true);
+					if (watcher != null)
 					{
-						attributes.getResponse().write(processed);
+						cache.watch(key, resourceStream, watcher);
 					}
-				});
+				}
 			}
 			catch (IOException e)
 			{
@@ -338,11 +376,72 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 			}
 		}
 
+		// set Content-Type (may be null)
+		resourceResponse.setContentType(entry.getContentType());
+
+		// set content encoding (may be null)
+		resourceResponse.setTextEncoding(getTextEncoding());
+
+		final byte[] data;
+		if (entry.isProcessed())
+		{
+			// the cached bytes are written as they are, without a copy
+			data = compressResponse(attributes, resourceResponse, cache, key, entry);
+		}
+		else
+		{
+			// processed for this request only, the cached bytes must not be changed
+			final byte[] processed = processResponse(attributes, entry.getBytes().clone());
+			data = compressResponse(attributes, resourceResponse, null, key,
+				new PackageResourceCache.Entry(this, entry.getLastModified(),
+					entry.getContentType(), processed, null));
+		}
+
+		// send Content-Length header
+		resourceResponse.setContentLength(data.length);
+
+		// send response body with resource data
+		resourceResponse.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(Attributes attributes)
+			{
+				attributes.getResponse().write(data);
+			}
+		});
+
 		return resourceResponse;
 	}
 
+	/**
+	 * The cache for the processed bytes of this resource. Resources are cached in deployment mode,
+	 * and in development mode only if the resource watcher is enabled to remove modified resources
+	 * from the cache.
+	 * 
+	 * @return the cache or {@code null} if the resource should be processed for every request
+	 */
+	private PackageResourceCache getPackageResourceCache()
+	{
+		if (Application.exists() == false)
+		{
+			return null;
+		}
+
+		Application application = Application.get();
+		IResourceSettings resourceSettings = application.getResourceSettings();
+		if (application.usesDevelopmentConfig() && resourceSettings.getResourceWatcher(true) == null)
+		{
+			return null;
+		}
+		return resourceSettings.getPackageResourceCache();
+	}
+
 	/**
 	 * Gives a chance to modify the resource going to be written in the response
+	 * <p>
+	 * It is called for every request, unless {@link #isProcessedResponseCacheable()} allows to
+	 * cache its result. Then it is called once and the result is sent for later requests, too.
+	 * </p>
 	 * 
 	 * @param attributes
 	 *            current request attributes from client
@@ -355,6 +454,114 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return original;
 	}
 
+	/**
+	 * Tells whether the result of {@link #processResponse(Attributes, byte[])} depends only on this
+	 * resource and not on the request, so the
+	 * {@link IResourceSettings#getPackageResourceCache() package resource cache} may keep it and
+	 * send it for later requests. Otherwise only the bytes read from the resource stream are cached
+	 * and processed again for every request.
+	 * <p>
+	 * Subclasses have to opt in by overriding this method. By default only the result of
+	 * {@link PackageResource} itself is cached.
+	 * </p>
+	 * 
+	 * @return {@code true} if the processed bytes may be sent for later requests
+	 */
+	protected boolean isProcessedResponseCacheable()
+	{
+		return getClass() == PackageResource.class;
+	}
+
+	/**
+	 * Tells whether the bytes read from the {@link #getResourceStream() resource stream} depend
+	 * only on this resource and not on the request, so the
+	 * {@link IResourceSettings#getPackageResourceCache() package resource cache} may keep them when
+	 * the processed bytes may not be cached.
+	 * <p>
+	 * By default they are cached unless {@link #getResourceStream()} is overridden. Subclasses
+	 * overriding it have to opt in by overriding this method, too.
+	 * </p>
+	 * 
+	 * @return {@code true} if the bytes read from the resource stream may be used for later
+	 *         requests
+	 */
+	protected boolean isResourceStreamCacheable()
+	{
+		try
+		{
+			return getClass().getMethod("getResourceStream").getDeclaringClass() == PackageResource.class;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Gzips the resource if {@link IRequestCycleSettings#getCompressResponse() response
+	 * compression} is enabled and the client accepts it. The compressed bytes are cached along with
+	 * the processed ones.
+	 * 
+	 * @param attributes
+	 *            current request attributes from client
+	 * @param resourceResponse
+	 *            the resource response to set the headers on
+	 * @param cache
+	 *            the cache or {@code null}
+	 * @param key
+	 *            the key of this resource in the cache
+	 * @param entry
+	 *            the processed resource
+	 * @return the data to send
+	 */
+	private byte[] compressResponse(final Attributes attributes,
+		final ResourceResponse resourceResponse, final PackageResourceCache cache,
+		final CacheKey key, final PackageResourceCache.Entry entry)
+	{
+		final byte[] processed = entry.getBytes();
+		if (Application.exists() == false)
+		{
+			return processed;
+		}
+
+		IRequestCycleSettings settings = Application.get().getRequestCycleSettings();
+		if (settings.getCompressResponse() == false ||
+			processed.length < settings.getCompressionThreshold().bytes() ||
+			ResponseCompression.isCompressible(entry.getContentType()) == false)
+		{
+			return processed;
+		}
+
+		resourceResponse.getHeaders().addHeader(ResponseCompression.VARY_HEADER,
+			ResponseCompression.ACCEPT_ENCODING_HEADER);
+
+		Request request = attributes.getRequest();
+		if (request instanceof WebRequest == false)
+		{
+			return processed;
+		}
+		String acceptEncoding = ((WebRequest)request).getHeader(
+			ResponseCompression.ACCEPT_ENCODING_HEADER);
+		if (ResponseCompression.acceptsGzip(acceptEncoding) == false)
+		{
+			return processed;
+		}
+
+		byte[] compressed = entry.getCompressedBytes();
+		if (compressed == null)
+		{
+			compressed = ResponseCompression.gzip(processed);
+			if (cache != null)
+			{
+				cache.put(key, entry.withCompressedBytes(compressed));
+			}
+		}
+
+		resourceResponse.getHeaders().addHeader(ResponseCompression.CONTENT_ENCODING_HEADER,
+			ResponseCompression.GZIP);
+		return compressed;
+	}
+
 	/**
 	 * send resource specific error message and write log entry
 	 * 
@@ -631,7 +838,7 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return parentFolderPlaceholder;
 	}
 
-	private static class CacheKey implements Serializable
+	static class CacheKey implements Serializable
 	{
 		private final String scopeName;
 		private final String path;
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.request.resource.PackageResource.CacheKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.listener.IChangeListener;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.time.Time;
+import org.apache.wicket.util.watch.IModificationWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An application wide cache of the fully processed bytes of {@link PackageResource}s, i.e. after
+ * {@link PackageResource#processResponse(IResource.Attributes, byte[]) processing} by the
+ * JavaScript and CSS compressors, together with their gzip compressed form.
+ * <p>
+ * A cached resource is sent without locating, reading or processing it again. The processed bytes
+ * of resources which do not allow it with {@link PackageResource#isProcessedResponseCacheable()}
+ * are not cached, only the bytes read from their stream if
+ * {@link PackageResource#isResourceStreamCacheable()} allows it. Entries are used only for
+ * resources of the same class which produced them. The cache is bounded by the total size of
+ * the cached bytes, the least recently used resources are evicted first.
+ * </p>
+ * <p>
+ * In development mode the resources are watched by the
+ * {@link org.apache.wicket.settings.IResourceSettings#getResourceWatcher(boolean) resource
+ * watcher} and removed from the cache once modified.
+ * </p>
+ * 
+ * @see org.apache.wicket.settings.IResourceSettings#setPackageResourceCache(PackageResourceCache)
+ */
+public class PackageResourceCache
+{
+	private static final Logger log = LoggerFactory.getLogger(PackageResourceCache.class);
+
+	private final long maxSize;
+
+	/**
+	 * resource => entry, ordered from the least to the most recently used
+	 */
+	private final Map<CacheKey, Entry> entries = new LinkedHashMap<CacheKey, Entry>(16, 0.75f,
+		true);
+
+	private long size;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            the maximum total size of the cached bytes
+	 */
+	public PackageResourceCache(final Bytes maxSize)
+	{
+		Args.notNull(maxSize, "maxSize");
+
+		this.maxSize = maxSize.bytes();
+	}
+
+	/**
+	 * @param key
+	 *            the resource
+	 * @return the cached entry or {@code null}
+	 */
+	Entry get(final CacheKey key)
+	{
+		synchronized (entries)
+		{
+			return entries.get(key);
+		}
+	}
+
+	/**
+	 * Caches an entry, replacing an older one of the same resource.
+	 * 
+	 * @param key
+	 *            the resource
+	 * @param entry
+	 *            the entry
+	 */
+	void put(final CacheKey key, final Entry entry)
+	{
+		synchronized (entries)
+		{
+			Entry old = entries.remove(key);
+			if (old != null)
+			{
+				size -= old.getSize();
+			}
+
+			if (entry.getSize() > maxSize)
+			{
+				return;
+			}
+
+			entries.put(key, entry);
+			size += entry.getSize();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (size > maxSize && iterator.hasNext())
+			{
+				size -= iterator.next().getSize();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes the resource from the cache once its stream is modified.
+	 * 
+	 * @param key
+	 *            the resource
+	 * @param resourceStream
+	 *            the stream the resource has been read from
+	 * @param watcher
+	 *            the watcher
+	 */
+	void watch(final CacheKey key, final IResourceStream resourceStream,
+		final IModificationWatcher watcher)
+	{
+		watcher.add(resourceStream, new IChangeListener()
+		{
+			@Override
+			public void onChange()
+			{
+				log.info("A package resource has changed, removing it from the cache: {}",
+					resourceStream);
+
+				remove(key);
+				watcher.remove(resourceStream);
+			}
+		});
+	}
+
+	/**
+	 * @param key
+	 *            the resource
+	 */
+	void remove(final CacheKey key)
+	{
+		synchronized (entries)
+		{
+			Entry old = entries.remove(key);
+			if (old != null)
+			{
+				size -= old.getSize();
+			}
+		}
+	}
+
+	/**
+	 * Removes all resources from the cache.
+	 */
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+			size = 0;
+		}
+	}
+
+	/**
+	 * @return the number of cached resources
+	 */
+	public int getCount()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return the total size of the cached bytes
+	 */
+	public Bytes getSize()
+	{
+		synchronized (entries)
+		{
+			return Bytes.bytes(size);
+		}
+	}
+
+	/**
+	 * @return the maximum total size of the cached bytes
+	 */
+	public Bytes getMaxSize()
+	{
+		return Bytes.bytes(maxSize);
+	}
+
+	/**
+	 * A processed resource, or an unprocessed one if it has to be processed for every request.
+	 */
+	static final class Entry
+	{
+		private final Class<?> resourceClass;
+
+		private final boolean processed;
+
+		private final boolean compress;
+
+		private final Time lastModified;
+
+		private final String contentType;
+
+		private final byte[] bytes;
+
+		private final byte[] compressedBytes;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param resource
+		 *            the resource the bytes have been processed by
+		 * @param lastModified
+		 * @param contentType
+		 * @param bytes
+		 *            the processed bytes
+		 * @param compressedBytes
+		 *            the gzip compressed bytes or {@code null}
+		 */
+		Entry(final PackageResource resource, final Time lastModified, final String contentType,
+			final byte[] bytes, final byte[] compressedBytes)
+		{
+			this(resource.getClass(), true, resource.getCompress(), lastModified, contentType,
+				bytes, compressedBytes);
+		}
+
+		/**
+		 * Construct an unprocessed entry.
+		 * 
+		 * @param resource
+		 *            the resource the bytes have been read by
+		 * @param lastModified
+		 * @param contentType
+		 * @param bytes
+		 *            the bytes read from the resource stream
+		 */
+		Entry(final PackageResource resource, final Time lastModified, final String contentType,
+			final byte[] bytes)
+		{
+			this(resource.getClass(), false, false, lastModified, contentType, bytes, null);
+		}
+
+		/**
+		 * @return {@code false} if the bytes still have to be processed for each request
+		 */
+		boolean isProcessed()
+		{
+			return processed;
+		}
+
+		/**
+		 * @param resource
+		 * @return {@code true} if the bytes have been read, and processed if so, the same way the
+		 *         given resource would do it
+		 */
+		boolean isUsableBy(final PackageResource resource)
+		{
+			return resource.getClass() == resourceClass &&
+				(processed == false || resource.getCompress() == compress);
+		}
+
+		/**
+		 * @param compressedBytes
+		 * @return a copy of this entry with the given compressed bytes
+		 */
+		Entry withCompressedBytes(final byte[] compressedBytes)
+		{
+			return new Entry(resourceClass, processed, compress, lastModified, contentType, bytes,
+				compressedBytes);
+		}
+
+		private Entry(final Class<?> resourceClass, final boolean processed,
+			final boolean compress, final Time lastModified, final String contentType,
+			final byte[] bytes, final byte[] compressedBytes)
+		{
+			this.resourceClass = resourceClass;
+			this.processed = processed;
+			this.compress = compress;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.bytes = bytes;
+			this.compressedBytes = compressedBytes;
+		}
+
+		Time getLastModified()
+		{
+			return lastModified;
+		}
+
+		String getContentType()
+		{
+			return contentType;
+		}
+
+		byte[] getBytes()
+		{
+			return bytes;
+		}
+
+		byte[] getCompressedBytes()
+		{
+			return compressedBytes;
+		}
+
+		long getSize()
+		{
+			return bytes.length + (compressedBytes != null ? compressedBytes.length : 0);
+		}
+	}
+}
@@ -0,0 +1,626 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataEntry;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Page;
+import org.apache.wicket.PageReference;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxEventBehavior;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.behavior.AttributeAppender;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.core.util.objects.checker.CheckingObjectOutputStream;
+import org.apache.wicket.core.util.objects.checker.ObjectSerializationChecker;
+import org.apache.wicket.feedback.FeedbackMessage;
+import org.apache.wicket.feedback.FeedbackMessages;
+import org.apache.wicket.markup.html.TransparentWebMarkupContainer;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.basic.MultiLineLabel;
+import org.apache.wicket.markup.html.border.Border;
+import org.apache.wicket.markup.html.form.AbstractChoice;
+import org.apache.wicket.markup.html.form.AbstractSingleSelectChoice;
+import org.apache.wicket.markup.html.form.AbstractTextComponent;
+import org.apache.wicket.markup.html.form.Button;
+import org.apache.wicket.markup.html.form.CheckBox;
+import org.apache.wicket.markup.html.form.ChoiceRenderer;
+import org.apache.wicket.markup.html.form.DropDownChoice;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.FormComponent;
+import org.apache.wicket.markup.html.form.HiddenField;
+import org.apache.wicket.markup.html.form.LabeledWebMarkupContainer;
+import org.apache.wicket.markup.html.form.PasswordTextField;
+import org.apache.wicket.markup.html.form.StatelessForm;
+import org.apache.wicket.markup.html.form.SubmitLink;
+import org.apache.wicket.markup.html.form.TextArea;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.image.Image;
+import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
+import org.apache.wicket.markup.html.link.AbstractLink;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.html.list.AbstractItem;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.html.panel.FeedbackPanel;
+import org.apache.wicket.markup.html.panel.Fragment;
+import org.apache.wicket.markup.html.panel.GenericPanel;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.markup.repeater.AbstractRepeater;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.AbstractPropertyModel;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.CompoundPropertyModel;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.model.ResourceModel;
+import org.apache.wicket.model.StringResourceModel;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JavaSerializer} that writes compact class descriptors and reuses its output buffer.
+ * <p>
+ * {@link ObjectOutputStream} writes the full descriptor of every class (name, serialVersionUID
+ * and the names and types of all serializable fields) once per serialized page. For component
+ * trees made of many different classes this is a big part of the produced bytes and of the time
+ * needed to write and read them. This serializer writes the descriptor of a registered class as a
+ * two bytes id and the descriptor of any other class as its name and a fingerprint of its
+ * serializable form. The most common Wicket classes - components, models, behaviors and the
+ * containers used for {@link Component}'s data and {@link MarkupContainer}'s children - are
+ * registered by default, application classes can be added with {@link #register(Class...)}.
+ * </p>
+ * <p>
+ * The compact descriptors are resolved against the local classes, so the serialized data can be
+ * read only by an application with the same registered classes and the same serializable form of
+ * the used classes. This is the case for the page store, but use {@link JavaSerializer} if the
+ * data has to survive changes of the classes, e.g. when the
+ * {@link org.apache.wicket.pageStore.DiskDataStore disk store} is
+ * kept between deployments of different versions of the application. A mismatch is detected and
+ * reported as an error while deserializing.
+ * </p>
+ * <p>
+ * To use this serializer, put the following code in your application's init:
+ * 
+ * <pre>
+ * getFrameworkSettings().setSerializer(
+ * 	new CompactJavaSerializer(getApplicationKey()).register(MyPage.class, MyPanel.class));
+ * </pre>
+ * 
+ * </p>
+ */
+public class CompactJavaSerializer extends JavaSerializer
+{
+	private static final Logger log = LoggerFactory.getLogger(CompactJavaSerializer.class);
+
+	/**
+	 * The classes registered by default
+	 */
+	private static final Class<?>[] DEFAULT_CLASSES = new Class<?>[] {
+			// containers of the component's data and children
+			Object[].class, ArrayList.class, LinkedList.class, HashMap.class,
+			LinkedHashMap.class, Locale.class, Number.class, Integer.class, Long.class,
+			Boolean.class, Enum.class,
+
+			// components
+			Component.class, MarkupContainer.class, Page.class, WebPage.class,
+			WebComponent.class, WebMarkupContainer.class, TransparentWebMarkupContainer.class,
+			HtmlHeaderContainer.class, Panel.class, GenericPanel.class, Fragment.class,
+			Border.class, Label.class, MultiLineLabel.class, Image.class, AbstractLink.class,
+			Link.class, BookmarkablePageLink.class, AjaxLink.class, Form.class,
+			StatelessForm.class, LabeledWebMarkupContainer.class, FormComponent.class,
+			AbstractTextComponent.class, TextField.class, PasswordTextField.class,
+			HiddenField.class, TextArea.class, CheckBox.class, AbstractChoice.class,
+			AbstractSingleSelectChoice.class, DropDownChoice.class, ChoiceRenderer.class,
+			Button.class, SubmitLink.class, AbstractRepeater.class, RepeatingView.class,
+			ListView.class, AbstractItem.class, ListItem.class, Item.class, FeedbackPanel.class,
+
+			// models
+			Model.class, AbstractReadOnlyModel.class, LoadableDetachableModel.class,
+			AbstractPropertyModel.class, PropertyModel.class, CompoundPropertyModel.class,
+			ResourceModel.class, StringResourceModel.class,
+
+			// behaviors
+			Behavior.class, AttributeModifier.class, AttributeAppender.class,
+			AbstractAjaxBehavior.class, AbstractDefaultAjaxBehavior.class,
+			AjaxEventBehavior.class,
+
+			// other state of the pages
+			MetaDataEntry.class, MetaDataKey.class, FeedbackMessages.class,
+			FeedbackMessage.class, PageReference.class, PageParameters.class };
+
+	/**
+	 * The maximum number of registered classes
+	 */
+	private static final int MAX_CLASSES = 0xFFFF;
+
+	/**
+	 * Buffers bigger than this are not kept for the next serialization
+	 */
+	private static final int MAX_RETAINED_BUFFER_SIZE = 512 * 1024;
+
+	private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+
+	/**
+	 * Marks the descriptor of a registered class
+	 */
+	private static final int REGISTERED_CLASS = 1;
+
+	/**
+	 * Marks the descriptor of a class which is not registered
+	 */
+	private static final int NAMED_CLASS = 2;
+
+	/**
+	 * The parameters of the FNV-1a hash used for the fingerprints
+	 */
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final String applicationKey;
+
+	/**
+	 * id => registered class
+	 */
+	private final List<Class<?>> classes = new CopyOnWriteArrayList<Class<?>>();
+
+	/**
+	 * registered class => id
+	 */
+	private final ConcurrentMap<Class<?>, Integer> ids = new ConcurrentHashMap<Class<?>, Integer>();
+
+	/**
+	 * class => fingerprint of its serializable form
+	 */
+	private final ConcurrentMap<Class<?>, Long> fingerprints = new ConcurrentHashMap<Class<?>, Long>();
+
+	/**
+	 * The output buffer of the current thread. Only the plain array is kept, an instance of a class
+	 * of the application would pin its class loader in the threads of the container.
+	 */
+	private final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>();
+
+	/**
+	 * The fingerprint of the registered classes, computed on first use
+	 */
+	private volatile Long registryFingerprint;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param applicationKey
+	 *            the name of the application
+	 */
+	public CompactJavaSerializer(final String applicationKey)
+	{
+		super(applicationKey);
+
+		this.applicationKey = applicationKey;
+		register(DEFAULT_CLASSES);
+	}
+
+	/**
+	 * Registers classes so their descriptors are written as ids. The classes have to be registered
+	 * in the same order by every application reading the data and before the first serialization.
+	 * 
+	 * @param types
+	 *            the classes to register
+	 * @return {@code this}, for chaining
+	 */
+	public final CompactJavaSerializer register(final Class<?>... types)
+	{
+		Args.notNull(types, "types");
+
+		synchronized (classes)
+		{
+			if (registryFingerprint != null)
+			{
+				throw new IllegalStateException(
+					"Classes can not be registered after the serializer has been used.");
+			}
+
+			for (Class<?> type : types)
+			{
+				Args.notNull(type, "type");
+				if (ids.containsKey(type) == false)
+				{
+					if (classes.size() == MAX_CLASSES)
+					{
+						throw new IllegalStateException("At most " + MAX_CLASSES +
+							" classes can be registered.");
+					}
+					ids.put(type, classes.size());
+					classes.add(type);
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @param type
+	 * @return {@code true} if the descriptor of the class is written as an id
+	 */
+	public final boolean isRegistered(final Class<?> type)
+	{
+		return ids.containsKey(type);
+	}
+
+	@Override
+	public byte[] serialize(final Object object)
+	{
+		// take the buffer so a nested serialization in the same thread uses its own
+		byte[] array = buffers.get();
+		if (array == null)
+		{
+			array = new byte[INITIAL_BUFFER_SIZE];
+		}
+		else
+		{
+			buffers.remove();
+		}
+		Buffer buffer = new Buffer(array);
+
+		try
+		{
+			ObjectOutputStream oos = newObjectOutputStream(buffer);
+			try
+			{
+				oos.writeObject(applicationKey);
+				oos.writeObject(object);
+			}
+			finally
+			{
+				IOUtils.close(oos);
+			}
+			return buffer.toByteArray();
+		}
+		catch (NotSerializableException nsx)
+		{
+			log.error("Error serializing object " + object.getClass() + " [object=" + object + "]",
+				check(object, nsx));
+		}
+		catch (Exception e)
+		{
+			log.error("Error serializing object " + object.getClass() + " [object=" + object + "]",
+				e);
+		}
+		finally
+		{
+			array = buffer.array();
+			if (array.length <= MAX_RETAINED_BUFFER_SIZE)
+			{
+				buffers.set(array);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Serializes the object again with a {@link CheckingObjectOutputStream} to find out which
+	 * object in the tree is not serializable.
+	 * 
+	 * @param object
+	 *            the object which failed to serialize
+	 * @param nsx
+	 *            the original error
+	 * @return the error with the most details
+	 */
+	private Exception check(final Object object, final NotSerializableException nsx)
+	{
+		if (CheckingObjectOutputStream.isAvailable())
+		{
+			try
+			{
+				CheckingObjectOutputStream checkingObjectOutputStream = new CheckingObjectOutputStream(
+					new ByteArrayOutputStream(), new ObjectSerializationChecker(nsx));
+				checkingObjectOutputStream.writeObject(object);
+			}
+			catch (Exception e)
+			{
+				return e;
+			}
+		}
+		return nsx;
+	}
+
+	@Override
+	protected ObjectOutputStream newObjectOutputStream(final OutputStream out) throws IOException
+	{
+		return new CompactObjectOutputStream(out);
+	}
+
+	@Override
+	protected ObjectInputStream newObjectInputStream(final InputStream in) throws IOException
+	{
+		return new CompactObjectInputStream(in);
+	}
+
+	/**
+	 * @return the fingerprint of all registered classes
+	 */
+	private long getRegistryFingerprint()
+	{
+		Long fingerprint = registryFingerprint;
+		if (fingerprint == null)
+		{
+			synchronized (classes)
+			{
+				fingerprint = registryFingerprint;
+				if (fingerprint == null)
+				{
+					long hash = FNV_OFFSET;
+					for (Class<?> type : classes)
+					{
+						hash = hash(hash, getFingerprint(ObjectStreamClass.lookupAny(type)));
+					}
+					fingerprint = hash;
+					registryFingerprint = fingerprint;
+				}
+			}
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Computes a fingerprint of the serializable form of a class: its name, serialVersionUID and
+	 * the names and types of its serializable fields.
+	 * 
+	 * @param desc
+	 *            the descriptor of the class
+	 * @return the fingerprint
+	 */
+	private long getFingerprint(final ObjectStreamClass desc)
+	{
+		Class<?> type = desc.forClass();
+		Long fingerprint = fingerprints.get(type);
+		if (fingerprint == null)
+		{
+			long hash = hash(FNV_OFFSET, desc.getName());
+			hash = hash(hash, desc.getSerialVersionUID());
+			for (ObjectStreamField field : desc.getFields())
+			{
+				hash = hash(hash, field.getName());
+				hash = hash(hash, field.getTypeCode());
+				if (field.getTypeString() != null)
+				{
+					hash = hash(hash, field.getTypeString());
+				}
+			}
+			fingerprint = hash;
+			fingerprints.put(type, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	private static long hash(long hash, final String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			hash = hash(hash, value.charAt(i));
+		}
+		return hash(hash, 0);
+	}
+
+	private static long hash(long hash, final long value)
+	{
+		for (int i = 0; i < 64; i += 8)
+		{
+			hash ^= (value >>> i) & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Loads a class by name, falling back to the application's
+	 * {@link org.apache.wicket.application.IClassResolver}
+	 * 
+	 * @param className
+	 * @return the class
+	 * @throws ClassNotFoundException
+	 */
+	private static Class<?> loadClass(final String className) throws ClassNotFoundException
+	{
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (classLoader == null)
+		{
+			classLoader = CompactJavaSerializer.class.getClassLoader();
+		}
+
+		try
+		{
+			return Class.forName(className, false, classLoader);
+		}
+		catch (ClassNotFoundException cnfx)
+		{
+			if (Application.exists() == false)
+			{
+				throw cnfx;
+			}
+		}
+
+		try
+		{
+			return Application.get().getApplicationSettings().getClassResolver().resolveClass(
+				className);
+		}
+		catch (WicketRuntimeException ex)
+		{
+			if (ex.getCause() instanceof ClassNotFoundException)
+			{
+				throw (ClassNotFoundException)ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Writes the class descriptors as ids or names
+	 */
+	private class CompactObjectOutputStream extends ObjectOutputStream
+	{
+		private final long fingerprint;
+
+		private boolean headerWritten;
+
+		private CompactObjectOutputStream(final OutputStream out) throws IOException
+		{
+			super(out);
+
+			// freezes the registered classes
+			fingerprint = getRegistryFingerprint();
+		}
+
+		@Override
+		protected void writeClassDescriptor(final ObjectStreamClass desc) throws IOException
+		{
+			if (headerWritten == false)
+			{
+				writeLong(fingerprint);
+				headerWritten = true;
+			}
+
+			Integer id = ids.get(desc.forClass());
+			if (id != null)
+			{
+				writeByte(REGISTERED_CLASS);
+				writeShort(id);
+			}
+			else
+			{
+				writeByte(NAMED_CLASS);
+				writeUTF(desc.getName());
+				writeLong(getFingerprint(desc));
+			}
+		}
+	}
+
+	/**
+	 * Reads the class descriptors written by {@link CompactObjectOutputStream}
+	 */
+	private class CompactObjectInputStream extends ClassResolverObjectInputStream
+	{
+		private final long fingerprint;
+
+		private boolean headerRead;
+
+		private CompactObjectInputStream(final InputStream in) throws IOException
+		{
+			super(in);
+
+			// freezes the registered classes
+			fingerprint = getRegistryFingerprint();
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException,
+			ClassNotFoundException
+		{
+			if (headerRead == false)
+			{
+				if (readLong() != fingerprint)
+				{
+					throw new InvalidClassException(
+						"The data has been serialized with different registered classes");
+				}
+				headerRead = true;
+			}
+
+			int type = readByte();
+			if (type == REGISTERED_CLASS)
+			{
+				int id = readUnsignedShort();
+				if (id >= classes.size())
+				{
+					throw new StreamCorruptedException("Unknown class id: " + id);
+				}
+				return ObjectStreamClass.lookupAny(classes.get(id));
+			}
+			else if (type == NAMED_CLASS)
+			{
+				String className = readUTF();
+				long classFingerprint = readLong();
+				ObjectStreamClass desc = ObjectStreamClass.lookupAny(loadClass(className));
+				if (classFingerprint != getFingerprint(desc))
+				{
+					throw new InvalidClassException(className,
+						"The serializable form of the class has changed");
+				}
+				return desc;
+			}
+			throw new StreamCorruptedException("Unknown class descriptor type: " + type);
+		}
+	}
+
+	/**
+	 * A {@link ByteArrayOutputStream} which tells its capacity
+	 */
+	private static class Buffer extends ByteArrayOutputStream
+	{
+		private Buffer(final byte[] array)
+		{
+			super(0);
+			buf = array;
+		}
+
+		/**
+		 * @return the current array, replaced by a bigger one when the written data did not fit
+		 */
+		private byte[] array()
+		{
+			return buf;
+		}
+	}
+}
@@ -179,8 +179,15 @@ public class JavaSerializer implements ISerializer
 	/**
 	 * Extend {@link ObjectInputStream} to add framework class resolution logic.
 	 */
-	private static class ClassResolverObjectInputStream extends ObjectInputStream
+	protected static class ClassResolverObjectInputStream extends ObjectInputStream
 	{
+		/**
+		 * Construct.
+		 * 
+		 * @param in
+		 *            the input stream to read from
+		 * @throws IOException
+		 */
 		public ClassResolverObjectInputStream(InputStream in) throws IOException
 		{
 			super(in);
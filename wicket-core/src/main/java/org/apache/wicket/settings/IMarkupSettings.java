@@ -83,6 +83,18 @@ public interface IMarkupSettings
 	 */
 	boolean getThrowExceptionOnMissingXmlDeclaration();
 
+	/**
+	 * @return the maximum number of markups kept by the markup cache, {@code 0} for no limit
+	 * @see #setMarkupCacheSize(int)
+	 */
+	int getMarkupCacheSize();
+
+	/**
+	 * @return whether the markup of the mounted pages is loaded at application startup
+	 * @see #setWarmUpMarkup(boolean)
+	 */
+	boolean getWarmUpMarkup();
+
 	/**
 	 * Application default for automatic link resolution.
 	 * 
@@ -156,6 +168,29 @@ public interface IMarkupSettings
 	 */
 	void setThrowExceptionOnMissingXmlDeclaration(final boolean throwException);
 
+	/**
+	 * Sets the maximum number of markups kept by the {@link org.apache.wicket.markup.MarkupCache}.
+	 * Applications using many styles, variations or locales may otherwise grow the cache without
+	 * limit. When the limit is exceeded the least recently used markups are removed and parsed
+	 * again when needed. Must be set before the markup cache is created. Defaults to {@code 0},
+	 * i.e. no limit.
+	 * 
+	 * @param markupCacheSize
+	 *            the maximum number of cached markups, {@code 0} for no limit
+	 */
+	void setMarkupCacheSize(int markupCacheSize);
+
+	/**
+	 * Whether to load the markup of the home page and all mounted pages into the markup cache in
+	 * parallel once the application has been initialized, so the first requests after startup
+	 * don't have to. Defaults to {@code false}.
+	 * 
+	 * @param warmUpMarkup
+	 * @see org.apache.wicket.markup.MarkupWarmUp
+	 * @see org.apache.wicket.Application#newMarkupWarmUp()
+	 */
+	void setWarmUpMarkup(boolean warmUpMarkup);
+
 	/**
 	 * Get the markup factory
 	 * 
@@ -21,6 +21,7 @@ import java.util.List;
 import org.apache.wicket.Session;
 import org.apache.wicket.markup.html.pages.BrowserInfoPage;
 import org.apache.wicket.response.filter.IResponseFilter;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.time.Duration;
 
 
@@ -149,6 +150,23 @@ public interface IRequestCycleSettings
 	 */
 	boolean getBufferResponse();
 
+	/**
+	 * Decides whether textual responses (pages, Ajax responses and resources) are compressed with
+	 * gzip for clients which accept it.
+	 * 
+	 * @return {@code true} if responses should be compressed
+	 * @see #getCompressionThreshold()
+	 */
+	boolean getCompressResponse();
+
+	/**
+	 * Gets the size below which a response is not compressed, because the compression would not
+	 * make it notably smaller.
+	 * 
+	 * @return the compression threshold
+	 */
+	Bytes getCompressionThreshold();
+
 	/**
 	 * Gets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -200,6 +218,13 @@ public interface IRequestCycleSettings
 	 */
 	Duration getTimeout();
 
+	/**
+	 * @return the maximum number of Urls of bookmarkable pages and resources remembered by the
+	 *         {@link org.apache.wicket.SystemMapper}, {@code 0} if they are not remembered
+	 * @see #setUrlCacheSize(int)
+	 */
+	int getUrlCacheSize();
+
 	/**
 	 * Sets a flag whether the application should buffer the response's headers until the end
 	 * of the request processing. The buffering is needed if the application makes use of
@@ -211,6 +236,26 @@ public interface IRequestCycleSettings
 	 */
 	void setBufferResponse(boolean bufferResponse);
 
+	/**
+	 * Sets whether textual responses (pages, Ajax responses and resources) are compressed with
+	 * gzip for clients which send a matching <em>Accept-Encoding</em> header. The compression is
+	 * applied when the body is written to the servlet response, after all {@link IResponseFilter}s
+	 * have been applied. The compressed bytes of package resources are computed once and cached.
+	 * 
+	 * @param compressResponse
+	 *            {@code true} if responses should be compressed
+	 */
+	void setCompressResponse(boolean compressResponse);
+
+	/**
+	 * Sets the size below which a response is not compressed. Responses of unknown length are
+	 * buffered until they reach the threshold.
+	 * 
+	 * @param threshold
+	 *            the compression threshold
+	 */
+	void setCompressionThreshold(Bytes threshold);
+
 	/**
 	 * Sets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -289,6 +334,24 @@ public interface IRequestCycleSettings
 	 */
 	void setTimeout(Duration timeout);
 
+	/**
+	 * Sets the maximum number of Urls remembered by the {@link org.apache.wicket.SystemMapper}.
+	 * When set the Urls generated for bookmarkable pages and, in deployment mode, for resource
+	 * references are kept and reused for handlers with the same page class or resource reference
+	 * and equal parameters, without asking the mounted mappers again. When the limit is exceeded
+	 * the least recently used Urls are removed.
+	 * <p>
+	 * Must only be enabled if the Urls produced by the mappers mounted in the application don't
+	 * depend on anything else but the handler, e.g. on the current request. Defaults to {@code 0},
+	 * i.e. no Urls are remembered.
+	 * </p>
+	 * 
+	 * @param urlCacheSize
+	 *            the maximum number of remembered Urls, {@code 0} to disable the cache
+	 * @see org.apache.wicket.request.cycle.UrlCacheStatistics
+	 */
+	void setUrlCacheSize(int urlCacheSize);
+
 	/**
 	 * Sets how many attempts Wicket will make to render the exception request handler before
 	 *         giving up.
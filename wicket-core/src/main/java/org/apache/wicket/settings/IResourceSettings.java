@@ -31,6 +31,7 @@ import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.markup.html.PackageResourceGuard;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.resource.PackageResourceCache;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.resource.IPropertiesFactory;
 import org.apache.wicket.resource.IPropertiesFactoryContext;
@@ -313,6 +314,23 @@ public interface IResourceSettings extends IPropertiesFactoryContext
 	 */
 	IResourceCachingStrategy getCachingStrategy();
 
+	/**
+	 * Gets the cache for the processed bytes of package resources.
+	 * 
+	 * @return the cache or {@code null} if package resources are read and processed for every
+	 *         request
+	 */
+	PackageResourceCache getPackageResourceCache();
+
+	/**
+	 * Sets the cache for the processed bytes of package resources. By default the cache holds up
+	 * to 4 megabytes.
+	 * 
+	 * @param cache
+	 *            the cache or {@code null} to read and process package resources for every request
+	 */
+	void setPackageResourceCache(PackageResourceCache cache);
+
 	/**
 	 * sets the resource caching strategy
 	 * 
@@ -53,6 +53,21 @@ public interface IStoreSettings
 	 */
 	void setInmemoryCacheSize(int inmemoryCacheSize);
 
+	/**
+	 * @return the maximum size of the page instances stored in the application scoped cache
+	 */
+	Bytes getInmemoryCacheMaxBytes();
+
+	/**
+	 * Sets the maximum size of the serialized page instances which will be stored in the
+	 * application scoped cache. The least recently used pages are evicted when either this size or
+	 * {@link #getInmemoryCacheSize()} is exceeded.
+	 * 
+	 * @param maxBytes
+	 *            the maximum size of the cached pages
+	 */
+	void setInmemoryCacheMaxBytes(Bytes maxBytes);
+
 	/**
 	 * @return maximum page size. After this size is exceeded, the {@link DiskDataStore} will start
 	 *         saving the pages at the beginning of file.
@@ -85,6 +100,25 @@ public interface IStoreSettings
 	 */
 	void setFileStoreFolder(File fileStoreFolder);
 
+	/**
+	 * @return the maximum number of session files which {@link DiskDataStore} keeps open between
+	 *         the reads and writes of pages. {@code 0} means that the file is opened and closed for
+	 *         every read and write.
+	 */
+	int getFileChannelPoolCapacity();
+
+	/**
+	 * Sets the maximum number of session files which {@link DiskDataStore} keeps open between the
+	 * reads and writes of pages. Keeping the files of the active sessions open saves the system
+	 * calls for opening and closing the file for every stored and loaded page, at the price of
+	 * more open file handles per process.
+	 * 
+	 * @param capacity
+	 *            the maximum number of open session files, or {@code 0} to open and close the file
+	 *            for every read and write
+	 */
+	void setFileChannelPoolCapacity(int capacity);
+
 	/**
 	 * @return the capacity of the queue used to store the pages which will be stored asynchronously
 	 * @see AsynchronousDataStore
@@ -100,6 +134,23 @@ public interface IStoreSettings
 	 */
 	void setAsynchronousQueueCapacity(int capacity);
 
+	/**
+	 * @return the number of threads which write the pages stored asynchronously
+	 * @see AsynchronousDataStore
+	 */
+	int getAsynchronousWriterThreads();
+
+	/**
+	 * Sets the number of threads which write the pages stored asynchronously. The pages of one
+	 * session are always written by the same thread. More than one thread makes sense only if the
+	 * configured {@link IDataStore} can write the data of different sessions concurrently.
+	 * 
+	 * @param writers
+	 *            the number of writer threads, at least 1
+	 * @see AsynchronousDataStore
+	 */
+	void setAsynchronousWriterThreads(int writers);
+
 	/**
 	 * Sets a flag whether to wrap the configured {@link IDataStore} with
 	 * {@link AsynchronousDataStore}. By doing this the HTTP worker thread will not wait for the
@@ -61,6 +61,12 @@ public class MarkupSettings implements IMarkupSettings
 	 */
 	private boolean stripWicketTags = false;
 
+	/** The maximum number of markups kept by the markup cache, 0 for no limit */
+	private int markupCacheSize = 0;
+
+	/** Whether to load the markup of the mounted pages at startup */
+	private boolean warmUpMarkup = false;
+
 	/**
 	 * Construct
 	 */
@@ -126,6 +132,24 @@ public class MarkupSettings implements IMarkupSettings
 		return markupFactory;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#getMarkupCacheSize()
+	 */
+	@Override
+	public int getMarkupCacheSize()
+	{
+		return markupCacheSize;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#getWarmUpMarkup()
+	 */
+	@Override
+	public boolean getWarmUpMarkup()
+	{
+		return warmUpMarkup;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IMarkupSettings#getStripComments()
 	 */
@@ -208,6 +232,25 @@ public class MarkupSettings implements IMarkupSettings
 		markupFactory = factory;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#setMarkupCacheSize(int)
+	 */
+	@Override
+	public void setMarkupCacheSize(final int markupCacheSize)
+	{
+		Args.withinRange(0, Integer.MAX_VALUE, markupCacheSize, "markupCacheSize");
+		this.markupCacheSize = markupCacheSize;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#setWarmUpMarkup(boolean)
+	 */
+	@Override
+	public void setWarmUpMarkup(final boolean warmUpMarkup)
+	{
+		this.warmUpMarkup = warmUpMarkup;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IMarkupSettings#setStripComments(boolean)
 	 */
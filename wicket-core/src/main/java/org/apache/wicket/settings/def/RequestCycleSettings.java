@@ -23,6 +23,7 @@ import java.util.List;
 import org.apache.wicket.response.filter.IResponseFilter;
 import org.apache.wicket.settings.IRequestCycleSettings;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.time.Duration;
 
 /**
@@ -40,6 +41,12 @@ public class RequestCycleSettings implements IRequestCycleSettings
 	/** True if the response should be buffered */
 	private boolean bufferResponse = true;
 
+	/** True if textual responses should be compressed for clients accepting gzip */
+	private boolean compressResponse = false;
+
+	/** Responses smaller than this are not compressed */
+	private Bytes compressionThreshold = Bytes.kilobytes(1);
+
 	/**
 	 * Whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client
@@ -70,6 +77,9 @@ public class RequestCycleSettings implements IRequestCycleSettings
 	 */
 	private Duration timeout = Duration.ONE_MINUTE;
 
+	/** The maximum number of Urls remembered by the SystemMapper, 0 for none */
+	private int urlCacheSize = 0;
+
 	private int exceptionRetryCount = 10;
 
 // ****************************************************************************
@@ -98,6 +108,24 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		return bufferResponse;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#getCompressResponse()
+	 */
+	@Override
+	public boolean getCompressResponse()
+	{
+		return compressResponse;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#getCompressionThreshold()
+	 */
+	@Override
+	public Bytes getCompressionThreshold()
+	{
+		return compressionThreshold;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#getGatherExtendedBrowserInfo()
 	 */
@@ -150,6 +178,15 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		return timeout;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#getUrlCacheSize()
+	 */
+	@Override
+	public int getUrlCacheSize()
+	{
+		return urlCacheSize;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#setBufferResponse(boolean)
 	 */
@@ -159,6 +196,25 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		this.bufferResponse = bufferResponse;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#setCompressResponse(boolean)
+	 */
+	@Override
+	public void setCompressResponse(boolean compressResponse)
+	{
+		this.compressResponse = compressResponse;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#setCompressionThreshold(org.apache.wicket.util.lang.Bytes)
+	 */
+	@Override
+	public void setCompressionThreshold(Bytes threshold)
+	{
+		Args.notNull(threshold, "threshold");
+		compressionThreshold = threshold;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#setGatherExtendedBrowserInfo(boolean)
 	 */
@@ -197,6 +253,16 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		this.timeout = timeout;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#setUrlCacheSize(int)
+	 */
+	@Override
+	public void setUrlCacheSize(final int urlCacheSize)
+	{
+		Args.withinRange(0, Integer.MAX_VALUE, urlCacheSize, "urlCacheSize");
+		this.urlCacheSize = urlCacheSize;
+	}
+
 	@Override
 	public void setExceptionRetryCount(int retries)
 	{
@@ -35,6 +35,7 @@ import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.markup.html.SecurePackageResourceGuard;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.resource.PackageResourceCache;
 import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.NoOpResourceCachingStrategy;
@@ -54,6 +55,7 @@ import org.apache.wicket.settings.IResourceSettings;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.time.Duration;
@@ -128,6 +130,10 @@ public class ResourceSettings implements IResourceSettings
 	// resource caching strategy
 	private IResourceCachingStrategy resourceCachingStrategy;
 
+	/** The cache for the processed bytes of package resources */
+	private PackageResourceCache packageResourceCache = new PackageResourceCache(
+		Bytes.megabytes(4));
+
 	// application these settings are bound to
 	private final Application application;
 
@@ -543,6 +549,24 @@ public class ResourceSettings implements IResourceSettings
 		resourceCachingStrategy = strategy;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IResourceSettings#getPackageResourceCache()
+	 */
+	@Override
+	public PackageResourceCache getPackageResourceCache()
+	{
+		return packageResourceCache;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IResourceSettings#setPackageResourceCache(org.apache.wicket.request.resource.PackageResourceCache)
+	 */
+	@Override
+	public void setPackageResourceCache(PackageResourceCache cache)
+	{
+		packageResourceCache = cache;
+	}
+
 	@Override
 	public void setUseMinifiedResources(boolean useMinifiedResources)
 	{
@@ -33,12 +33,20 @@ public class StoreSettings implements IStoreSettings
 {
 	private static final int DEFAULT_CACHE_SIZE = 40;
 
+	private static final Bytes DEFAULT_CACHE_MAX_BYTES = Bytes.MAX;
+
 	private static final Bytes DEFAULT_MAX_SIZE_PER_SESSION = Bytes.megabytes(10);
 
 	private static final int DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY = 100;
 
+	private static final int DEFAULT_FILE_CHANNEL_POOL_CAPACITY = 0;
+
+	private static final int DEFAULT_ASYNCHRONOUS_WRITER_THREADS = 1;
+
 	private int inmemoryCacheSize = DEFAULT_CACHE_SIZE;
 
+	private Bytes inmemoryCacheMaxBytes = DEFAULT_CACHE_MAX_BYTES;
+
 	private Bytes maxSizePerSession = DEFAULT_MAX_SIZE_PER_SESSION;
 
 	private File fileStoreFolder = null;
@@ -47,6 +55,10 @@ public class StoreSettings implements IStoreSettings
 
 	private boolean isAsynchronous = true;
 
+	private int fileChannelPoolCapacity = DEFAULT_FILE_CHANNEL_POOL_CAPACITY;
+
+	private int asynchronousWriterThreads = DEFAULT_ASYNCHRONOUS_WRITER_THREADS;
+
 	/**
 	 * Construct.
 	 * 
@@ -68,6 +80,18 @@ public class StoreSettings implements IStoreSettings
 		this.inmemoryCacheSize = inmemoryCacheSize;
 	}
 
+	@Override
+	public Bytes getInmemoryCacheMaxBytes()
+	{
+		return inmemoryCacheMaxBytes;
+	}
+
+	@Override
+	public void setInmemoryCacheMaxBytes(final Bytes maxBytes)
+	{
+		inmemoryCacheMaxBytes = Args.notNull(maxBytes, "maxBytes");
+	}
+
 	@Override
 	public Bytes getMaxSizePerSession()
 	{
@@ -114,6 +138,23 @@ public class StoreSettings implements IStoreSettings
 		this.fileStoreFolder = Args.notNull(fileStoreFolder, "fileStoreFolder");
 	}
 
+	@Override
+	public int getFileChannelPoolCapacity()
+	{
+		return fileChannelPoolCapacity;
+	}
+
+	@Override
+	public void setFileChannelPoolCapacity(int capacity)
+	{
+		if (capacity < 0)
+		{
+			throw new IllegalArgumentException(
+				"The capacity of the file channel pool should not be negative.");
+		}
+		fileChannelPoolCapacity = capacity;
+	}
+
 	@Override
 	public int getAsynchronousQueueCapacity()
 	{
@@ -131,6 +172,23 @@ public class StoreSettings implements IStoreSettings
 		asynchronousQueueCapacity = queueCapacity;
 	}
 
+	@Override
+	public int getAsynchronousWriterThreads()
+	{
+		return asynchronousWriterThreads;
+	}
+
+	@Override
+	public void setAsynchronousWriterThreads(int writers)
+	{
+		if (writers < 1)
+		{
+			throw new IllegalArgumentException(
+				"The number of asynchronous writer threads should be at least 1.");
+		}
+		asynchronousWriterThreads = writers;
+	}
+
 	@Override
 	public void setAsynchronous(boolean async)
 	{
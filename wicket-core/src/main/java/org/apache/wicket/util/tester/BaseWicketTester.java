@@ -656,6 +656,9 @@ public class BaseWicketTester
 				return false;
 			}
 
+			// like WicketFilter: completes a compressed body
+			requestCycle.getOriginalResponse().close();
+
 			recordRequestResponse();
 			setupNextRequestCycle();
 
@@ -16,10 +16,14 @@
  */
 package org.apache.wicket;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebComponent;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.panel.IMarkupSourcingStrategy;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.StringResourceStream;
 import org.junit.Test;
@@ -49,6 +53,86 @@ public class MarkupContainerTest extends WicketTestCase
 		}
 	}
 
+	/**
+	 * Wide containers index their children by id, which must stay in sync with the order of the
+	 * children
+	 */
+	@Test
+	public void wideContainer()
+	{
+		MarkupContainer container = new WebMarkupContainer("container");
+		for (int i = 0; i < 100; i++)
+		{
+			container.add(new WebComponent(Integer.toString(i)));
+		}
+		assertWideContainer(container, 100);
+
+		container.remove("0");
+		container.remove("50");
+		container.swap(0, 97);
+		container.addOrReplace(new WebComponent("10"));
+		container.add(new WebComponent("100"));
+		assertNull(container.get("0"));
+		assertNull(container.get("50"));
+		assertEquals("99", container.get(0).getId());
+		assertEquals("1", container.get(97).getId());
+		assertWideContainer(container, 99);
+
+		container.detach();
+		MarkupContainer copy = (MarkupContainer)WicketObjects.cloneObject(container);
+		assertWideContainer(copy, 99);
+
+		while (container.size() > 1)
+		{
+			container.remove(container.get(0));
+		}
+		assertWideContainer(container, 1);
+	}
+
+	private void assertWideContainer(MarkupContainer container, int size)
+	{
+		assertEquals(size, container.size());
+		for (int i = 0; i < size; i++)
+		{
+			Component child = container.get(i);
+			assertSame(child, container.get(child.getId()));
+		}
+	}
+
+	/**
+	 * Containers keep their markup sourcing strategy, other components create it whenever it is
+	 * needed
+	 */
+	@Test
+	public void markupSourcingStrategyIsKeptByContainers()
+	{
+		final AtomicInteger containerStrategies = new AtomicInteger();
+		final AtomicInteger componentStrategies = new AtomicInteger();
+
+		MarkupSourcingStrategyPage page = new MarkupSourcingStrategyPage();
+		page.add(new WebMarkupContainer("container")
+		{
+			@Override
+			protected IMarkupSourcingStrategy newMarkupSourcingStrategy()
+			{
+				containerStrategies.incrementAndGet();
+				return null;
+			}
+		}.add(new WebComponent("component")
+		{
+			@Override
+			protected IMarkupSourcingStrategy newMarkupSourcingStrategy()
+			{
+				componentStrategies.incrementAndGet();
+				return null;
+			}
+		}));
+
+		tester.startPage(page);
+		assertEquals(1, containerStrategies.get());
+		assertTrue(componentStrategies.get() > 1);
+	}
+
 	/**
 	 * @throws Exception
 	 */
@@ -184,4 +268,20 @@ public class MarkupContainerTest extends WicketTestCase
 				"<html><body><div wicket:id='a1'><div wicket:id='a2'><div wicket:id='a3'></div></div></div></body></html>");
 		}
 	}
+
+	/** */
+	public static class MarkupSourcingStrategyPage extends WebPage
+		implements
+			IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><div wicket:id='container'><span wicket:id='component'></span></div></body></html>");
+		}
+	}
 }
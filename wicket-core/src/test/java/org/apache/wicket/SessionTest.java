@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockSessionStore;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.session.ISessionStore;
+import org.apache.wicket.util.IProvider;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Session}
+ */
+public class SessionTest extends WicketTestCase
+{
+	private static final MetaDataKey<String> KEY1 = new MetaDataKey<String>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private static final MetaDataKey<String> KEY2 = new MetaDataKey<String>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final FailingSessionStore sessionStore = new FailingSessionStore();
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void internalInit()
+			{
+				super.internalInit();
+
+				setSessionStoreProvider(new IProvider<ISessionStore>()
+				{
+					@Override
+					public ISessionStore get()
+					{
+						return sessionStore;
+					}
+				});
+			}
+		};
+	}
+
+	/**
+	 * Metadata can be set, replaced and removed.
+	 */
+	@Test
+	public void metaData()
+	{
+		Session session = tester.getSession();
+
+		session.setMetaData(KEY1, "a");
+		session.setMetaData(KEY2, "b");
+		assertEquals("a", session.getMetaData(KEY1));
+		assertEquals("b", session.getMetaData(KEY2));
+
+		session.setMetaData(KEY1, "c");
+		assertEquals("c", session.getMetaData(KEY1));
+
+		session.setMetaData(KEY1, null);
+		assertNull(session.getMetaData(KEY1));
+		assertEquals("b", session.getMetaData(KEY2));
+	}
+
+	/**
+	 * Concurrent requests never get the same page id or sequence value.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void concurrentIds() throws Exception
+	{
+		final Session session = tester.getSession();
+		final int threads = 16;
+		final int count = 1000;
+		final int firstPageId = session.nextPageId() + 1;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<List<Integer>>> futures = new ArrayList<Future<List<Integer>>>();
+			for (int t = 0; t < threads; t++)
+			{
+				futures.add(executor.submit(new Callable<List<Integer>>()
+				{
+					@Override
+					public List<Integer> call() throws Exception
+					{
+						List<Integer> ids = new ArrayList<Integer>();
+						for (int i = 0; i < count; i++)
+						{
+							ids.add(session.nextPageId());
+							ids.add(-session.nextSequenceValue());
+						}
+						return ids;
+					}
+				}));
+			}
+
+			Set<Integer> ids = new HashSet<Integer>();
+			for (Future<List<Integer>> future : futures)
+			{
+				ids.addAll(future.get());
+			}
+			assertEquals(2 * threads * count, ids.size());
+			assertEquals(Integer.valueOf(firstPageId + threads * count - 1), Collections.max(ids));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * A session stays dirty when flushing it fails, so it is flushed again at the end of a later
+	 * request.
+	 */
+	@Test
+	public void staysDirtyWhenFlushFails()
+	{
+		Session session = tester.getSession();
+		session.setMetaData(KEY1, "a");
+		int flushes = sessionStore.flushes;
+
+		sessionStore.fail = true;
+		try
+		{
+			session.internalDetach();
+			fail("flushing should have failed");
+		}
+		catch (IllegalStateException expected)
+		{
+			assertEquals(flushes, sessionStore.flushes);
+		}
+
+		sessionStore.fail = false;
+		session.internalDetach();
+		assertEquals(flushes + 1, sessionStore.flushes);
+
+		// clean now
+		session.internalDetach();
+		assertEquals(flushes + 1, sessionStore.flushes);
+	}
+
+	private static class FailingSessionStore extends MockSessionStore
+	{
+		private boolean fail;
+
+		private int flushes;
+
+		@Override
+		public void flushSession(Request request, Session session)
+		{
+			if (fail)
+			{
+				throw new IllegalStateException("flush failed");
+			}
+			flushes++;
+			super.flushSession(request, session);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.cycle.UrlCacheStatistics;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the url cache of {@link SystemMapper}
+ */
+public class SystemMapperTest extends WicketTestCase
+{
+	/**
+	 * Mounts a page and enables the cache.
+	 */
+	@Before
+	public void before()
+	{
+		tester.getApplication().mountPage("/some/path", MockPageParametersAware.class);
+		tester.getApplication().getRequestCycleSettings().setUrlCacheSize(10);
+		tester.getApplication().getUrlCacheStatistics().reset();
+	}
+
+	/**
+	 * The Urls of bookmarkable pages are generated once for equal parameters.
+	 */
+	@Test
+	public void cachesBookmarkablePageUrls()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+		UrlCacheStatistics statistics = tester.getApplication().getUrlCacheStatistics();
+
+		PageParameters parameters = new PageParameters().add("a", "b");
+		Url url = cycle.mapUrlFor(MockPageParametersAware.class, parameters);
+		assertEquals("some/path?a=b", url.toString());
+		assertEquals(0, statistics.getMapHits());
+		assertEquals(1, statistics.getMapMisses());
+
+		// changes of the returned Url and the parameters don't change the cached Url
+		url.getSegments().add("more");
+		parameters.add("c", "d");
+		assertEquals("some/path?a=b",
+			cycle.mapUrlFor(MockPageParametersAware.class, new PageParameters().add("a", "b"))
+				.toString());
+		assertEquals(1, statistics.getMapHits());
+
+		assertEquals("some/path?a=b&c=d",
+			cycle.mapUrlFor(MockPageParametersAware.class, parameters).toString());
+		assertEquals(1, statistics.getMapHits());
+		assertEquals(2, statistics.getMapMisses());
+	}
+
+	/**
+	 * Mounting a page invalidates the remembered Urls.
+	 */
+	@Test
+	public void mountClearsCache()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+		assertEquals("some/path",
+			cycle.mapUrlFor(MockPageParametersAware.class, null).toString());
+
+		tester.getApplication().mountPage("/other/path", MockPageParametersAware.class);
+		assertEquals("other/path",
+			cycle.mapUrlFor(MockPageParametersAware.class, null).toString());
+	}
+
+	/**
+	 * Nothing is remembered by default.
+	 */
+	@Test
+	public void disabledByDefault()
+	{
+		tester.getApplication().getRequestCycleSettings().setUrlCacheSize(0);
+		RequestCycle cycle = tester.getRequestCycle();
+		cycle.mapUrlFor(MockPageParametersAware.class, null);
+		cycle.mapUrlFor(MockPageParametersAware.class, null);
+
+		UrlCacheStatistics statistics = tester.getApplication().getUrlCacheStatistics();
+		assertEquals(0, statistics.getMapHits());
+		assertEquals(0, statistics.getMapMisses());
+	}
+}
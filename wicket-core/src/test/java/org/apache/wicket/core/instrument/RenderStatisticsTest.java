@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.instrument;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RenderStatistics}
+ */
+public class RenderStatisticsTest extends WicketTestCase
+{
+	/**
+	 * Nothing is measured unless enabled
+	 */
+	@Test
+	public void disabledByDefault()
+	{
+		assertNull(tester.getApplication().getRenderInstrumentation());
+		assertFalse(Application.isRenderInstrumented());
+
+		tester.startPage(TestPage.class);
+		tester.assertRenderedPage(TestPage.class);
+	}
+
+	/**
+	 * Components, pages and models are measured per class
+	 */
+	@Test
+	public void perClass()
+	{
+		RenderStatistics statistics = new RenderStatistics();
+		tester.getApplication().setRenderInstrumentation(statistics);
+		assertTrue(Application.isRenderInstrumented());
+
+		tester.startPage(TestPage.class);
+		tester.assertRenderedPage(TestPage.class);
+
+		ClassStatistics page = statistics.get(TestPage.class);
+		assertEquals(1, page.get(Measure.CONFIGURE).getCount());
+		assertEquals(1, page.get(Measure.BEFORE_RENDER).getCount());
+		assertEquals(1, page.get(Measure.RENDER).getCount());
+
+		ClassStatistics label = statistics.get(Label.class);
+		assertEquals(2, label.get(Measure.RENDER).getCount());
+		assertTrue(page.get(Measure.RENDER).getTotal() >= label.get(Measure.RENDER).getMax());
+
+		ClassStatistics model = statistics.get(TestModel.class);
+		assertEquals(1, model.get(Measure.MODEL_LOAD).getCount());
+		assertEquals(0, model.get(Measure.RENDER).getCount());
+
+		assertSame(page, statistics.getStatistics(Measure.RENDER).get(0));
+
+		statistics.reset();
+		assertEquals(0, statistics.get(TestPage.class).get(Measure.RENDER).getCount());
+
+		tester.getApplication().setRenderInstrumentation(null);
+		assertFalse(Application.isRenderInstrumented());
+	}
+
+	/**
+	 * Percentiles are precise up to a factor of two
+	 */
+	@Test
+	public void histogram()
+	{
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+
+		for (int i = 1; i <= 100; i++)
+		{
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050 * 1000, histogram.getTotal());
+		assertEquals(100 * 1000, histogram.getMax());
+		assertEquals(50500, histogram.getMean());
+
+		long median = histogram.getPercentile(0.5);
+		assertTrue(median >= 50 * 1000 && median < 100 * 1000);
+		assertEquals(100 * 1000, histogram.getPercentile(1));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	private static class TestModel extends LoadableDetachableModel<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected String load()
+		{
+			return "loaded";
+		}
+	}
+
+	/**
+	 * Test page
+	 */
+	public static class TestPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public TestPage()
+		{
+			add(new Label("static", "static"));
+			add(new Label("loaded", new TestModel()));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id='static'></span><span wicket:id='loaded'></span></body></html>");
+		}
+	}
+}
@@ -31,6 +31,8 @@ import org.apache.wicket.request.component.IRequestableComponent;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.util.IProvider;
+import org.apache.wicket.util.crypt.ICrypt;
 import org.apache.wicket.util.string.StringValue;
 import org.apache.wicket.util.tester.DummyHomePage;
 import org.apache.wicket.util.tester.WicketTester;
@@ -328,4 +330,55 @@ public class CryptoMapperTest extends AbstractMapperTest
 			.getQueryParameterValue("q")
 			.toString());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Urls are encrypted once per request
+	 */
+	@Test
+	public void encryptedUrlsAreRemembered()
+	{
+		final CountingCrypt crypt = new CountingCrypt();
+		CryptoMapper countingMapper = new CryptoMapper(tester.getApplication()
+			.getRootRequestMapper(), new IProvider<ICrypt>()
+		{
+			@Override
+			public ICrypt get()
+			{
+				return crypt;
+			}
+		});
+
+		IRequestHandler handler = new RenderPageRequestHandler(new PageProvider(
+			DummyHomePage.class, new PageParameters()));
+		Url url = countingMapper.mapHandler(handler);
+		url.getSegments().add("changed");
+
+		assertEquals(url.getSegments().size() - 1, countingMapper.mapHandler(handler)
+			.getSegments()
+			.size());
+		assertEquals(1, crypt.encryptions);
+	}
+
+	private static class CountingCrypt implements ICrypt
+	{
+		private int encryptions;
+
+		@Override
+		public String decryptUrlSafe(String text)
+		{
+			return text;
+		}
+
+		@Override
+		public String encryptUrlSafe(String plainText)
+		{
+			encryptions++;
+			return plainText.replace('/', '-');
+		}
+
+		@Override
+		public void setKey(String key)
+		{
+		}
+	}
+}
@@ -31,8 +31,10 @@ import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestableComponent;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.handler.EmptyRequestHandler;
 import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.IProvider;
 import org.junit.Test;
 
 /**
@@ -809,4 +811,46 @@ public class MountedMapperTest extends AbstractMapperTest
 		Url url = optionPlaceholderEncoder.mapHandler(handler);
 		assertEquals("some/path/p2/p3/i1/i2?a=b&b=c", url.toString());
 	}
+
+	/**
+	 * The fixed segments up to the first placeholder and the page class are indexed
+	 */
+	@Test
+	public void index()
+	{
+		assertArrayEquals(new String[] { "some", "mount", "path" }, encoder.getUrlPrefix());
+		assertArrayEquals(new String[] { "some" }, placeholderEncoder.getUrlPrefix());
+		assertArrayEquals(new String[] { "some" }, optionPlaceholderEncoder.getUrlPrefix());
+
+		assertEquals(MockPage.class, encoder.getHandlerKey());
+
+		PageProvider provider = new PageProvider(MockPage.class, new PageParameters());
+		provider.setPageSource(context);
+		assertEquals(MockPage.class,
+			encoder.getHandlerKey(new BookmarkablePageRequestHandler(provider)));
+		assertEquals(MockPage.class, encoder.getHandlerKey(new RenderPageRequestHandler(provider)));
+		assertNull(encoder.getHandlerKey(new EmptyRequestHandler()));
+	}
+
+	/**
+	 * Only mounted mappers of a known page class are indexed, subclasses and lazily resolved page
+	 * classes are not
+	 */
+	@Test
+	public void indexable()
+	{
+		assertTrue(new MountedMapper("/some/mount/path", MockPage.class).isIndexable());
+		assertFalse(encoder.isIndexable());
+
+		MountedMapper lazy = new MountedMapper("/some/mount/path",
+			new IProvider<Class<? extends IRequestablePage>>()
+			{
+				@Override
+				public Class<? extends IRequestablePage> get()
+				{
+					throw new AssertionError("the page class must not be resolved");
+				}
+			});
+		assertFalse(lazy.isIndexable());
+	}
 }
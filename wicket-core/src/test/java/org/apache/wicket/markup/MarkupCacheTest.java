@@ -16,11 +16,19 @@
  */
 package org.apache.wicket.markup;
 
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.wicket.Application;
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
 import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.MarkupCache.BoundedCacheImplementation;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -86,6 +94,135 @@ public class MarkupCacheTest extends WicketTestCase
 		assertNull(markup);
 	}
 
+	/**
+	 * The least recently used entries are evicted
+	 */
+	@Test
+	public void boundedCacheEvictsLeastRecentlyUsed()
+	{
+		BoundedCacheImplementation<String, String> bounded = new BoundedCacheImplementation<String, String>(
+			2);
+		bounded.put("a", "A");
+		bounded.put("b", "B");
+		assertEquals("A", bounded.get("a"));
+
+		bounded.put("c", "C");
+
+		assertEquals(2, bounded.size());
+		assertEquals("A", bounded.get("a"));
+		assertNull(bounded.get("b"));
+		assertEquals("C", bounded.get("c"));
+		assertTrue(bounded.getValues().contains("C"));
+
+		Iterator<String> values = bounded.getValues().iterator();
+		while (values.hasNext())
+		{
+			if ("A".equals(values.next()))
+			{
+				values.remove();
+			}
+		}
+		assertEquals(1, bounded.size());
+		assertNull(bounded.get("a"));
+	}
+
+	/**
+	 * Hits, misses and loads are counted
+	 */
+	@Test
+	public void statistics()
+	{
+		cache.getStatistics().reset();
+
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		MarkupCacheStatistics statistics = cache.getStatistics();
+		long loads = statistics.getLoads();
+		assertTrue(loads > 0);
+		assertTrue(statistics.getMisses() >= loads);
+
+		long hits = statistics.getHits();
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		assertTrue(statistics.getHits() > hits);
+		assertEquals(loads, statistics.getLoads());
+	}
+
+	/**
+	 * Concurrent requests for the same markup load it once
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void concurrentRequestsLoadMarkupOnce() throws Exception
+	{
+		final SlowMarkupComponent slow = new SlowMarkupComponent("slow");
+		final Application application = tester.getApplication();
+		final Session session = tester.getSession();
+		final AtomicInteger found = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(4);
+		for (int i = 0; i < 4; i++)
+		{
+			new Thread()
+			{
+				@Override
+				public void run()
+				{
+					ThreadContext.setApplication(application);
+					ThreadContext.setSession(session);
+					try
+					{
+						if (cache.getMarkup(slow, null, false) != null)
+						{
+							found.incrementAndGet();
+						}
+					}
+					finally
+					{
+						ThreadContext.detach();
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		done.await();
+
+		assertEquals(4, found.get());
+		assertEquals(1, slow.loads.get());
+	}
+
+	private static class SlowMarkupComponent extends Panel implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		public SlowMarkupComponent(final String id)
+		{
+			super(id);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			loads.incrementAndGet();
+			try
+			{
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e)
+			{
+				throw new IllegalStateException(e);
+			}
+			return new StringResourceStream("<wicket:panel>slow</wicket:panel>");
+		}
+
+		@Override
+		public MarkupType getMarkupType()
+		{
+			return MarkupType.HTML_MARKUP_TYPE;
+		}
+	}
+
 	private static class MarkupCachingAssumingComponent extends Panel
 		implements
 			IMarkupResourceStreamProvider
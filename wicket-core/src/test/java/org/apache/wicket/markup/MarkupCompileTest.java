@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Markup#compile()}
+ */
+public class MarkupCompileTest extends WicketTestCase
+{
+	/** */
+	@Test
+	public void adjacentRawMarkupIsJoined()
+	{
+		Markup markup = new Markup(new MarkupResourceStream(new StringResourceStream("")));
+		markup.addMarkupElement(new RawMarkup("<p>"));
+		markup.addMarkupElement(new RawMarkup("text"));
+		markup.addMarkupElement(new RawMarkup("</p>"));
+		markup.compile();
+
+		assertEquals(1, markup.size());
+		assertEquals("<p>text</p>", markup.get(0).toString());
+	}
+
+	/** */
+	@Test
+	public void closeTagIndexes()
+	{
+		Markup markup = Markup.of("<body wicket:id='body'><div wicket:id='a'><span wicket:id='b'>x</span></div><br wicket:id='c'/></body>");
+		assertEquals(-1, markup.getCloseTagIndex(0));
+
+		markup.compile();
+
+		assertEquals(8, markup.size());
+		assertEquals(7, markup.getCloseTagIndex(0));
+		assertEquals(5, markup.getCloseTagIndex(1));
+		assertEquals(4, markup.getCloseTagIndex(2));
+		assertEquals(-1, markup.getCloseTagIndex(3));
+		assertEquals(-1, markup.getCloseTagIndex(6));
+
+		MarkupFragment fragment = new MarkupFragment(markup, 1);
+		assertEquals(5, fragment.size());
+		assertEquals(3, fragment.getCloseTagIndex(1));
+
+		MarkupStream stream = new MarkupStream(markup);
+		stream.setCurrentIndex(2);
+		stream.skipComponent();
+		assertEquals(5, stream.getCurrentIndex());
+	}
+
+	/** */
+	@Test
+	public void renderCompiledMarkup()
+	{
+		tester.startPage(new TestPage());
+		tester.assertContainsNot("<wicket:remove>");
+		assertEquals(
+			"<html><body><div wicket:id=\"a\"><span wicket:id=\"b\">label</span></div>before after</body></html>",
+			tester.getLastResponseAsString());
+	}
+
+	/** */
+	public static class TestPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** */
+		public TestPage()
+		{
+			WebMarkupContainer a = new WebMarkupContainer("a");
+			add(a);
+			a.add(new Label("b", "label"));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><div wicket:id='a'><span wicket:id='b'>x</span></div>before <wicket:remove>removed</wicket:remove>after</body></html>");
+		}
+	}
+}
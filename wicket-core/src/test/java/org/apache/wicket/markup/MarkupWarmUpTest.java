@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.application.IComponentInstantiationListener;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MarkupWarmUp}
+ */
+public class MarkupWarmUpTest extends WicketTestCase
+{
+	private MarkupCache cache;
+
+	/**
+	 * 
+	 */
+	@Before
+	public void before()
+	{
+		cache = new MarkupCache();
+
+		tester.getApplication().getMarkupSettings().setMarkupFactory(new MarkupFactory()
+		{
+			@Override
+			public IMarkupCache getMarkupCache()
+			{
+				return cache;
+			}
+		});
+		tester.getApplication().mountPage("/extension", MarkupInheritanceExtension_1.class);
+	}
+
+	/**
+	 * The markup of mounted pages, including their base markup, is loaded by the warm-up and found
+	 * in the cache when rendering
+	 */
+	@Test
+	public void mountedPages()
+	{
+		Locale locale = tester.getSession().getLocale();
+		MarkupWarmUp warmUp = new MarkupWarmUp(tester.getApplication()).setLocale(locale)
+			.addMountedPages();
+		assertTrue(warmUp.getContainerClasses().contains(MarkupInheritanceExtension_1.class));
+
+		warmUp.warmUp();
+		MarkupCacheStatistics statistics = cache.getStatistics();
+		long loads = statistics.getLoads();
+		assertTrue(loads > 0);
+		assertNotNull(cache.getMarkupFromCache(MarkupInheritanceExtension_1.class.getName() + "_" +
+			locale + ".html", null));
+
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		tester.assertRenderedPage(MarkupInheritanceExtension_1.class);
+		assertEquals(loads, statistics.getLoads());
+	}
+
+	/**
+	 * No components are instantiated to load the markup, so instantiation listeners which might
+	 * need a session are not called
+	 */
+	@Test
+	public void noComponentInstantiation()
+	{
+		final AtomicInteger instantiations = new AtomicInteger();
+		tester.getApplication().getComponentInstantiationListeners().add(
+			new IComponentInstantiationListener()
+			{
+				@Override
+				public void onInstantiation(Component component)
+				{
+					instantiations.incrementAndGet();
+				}
+			});
+
+		new MarkupWarmUp(tester.getApplication()).addMountedPages().warmUp();
+
+		assertTrue(cache.getStatistics().getLoads() > 0);
+		assertEquals(0, instantiations.get());
+	}
+
+	/**
+	 * Classes providing their own markup are skipped
+	 */
+	@Test
+	public void skipMarkupProviders()
+	{
+		MarkupWarmUp warmUp = new MarkupWarmUp(tester.getApplication());
+		warmUp.add(StringMarkupPanel.class);
+		assertTrue(warmUp.getContainerClasses().isEmpty());
+	}
+
+	private static class StringMarkupPanel extends Panel implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private StringMarkupPanel(final String id)
+		{
+			super(id);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<wicket:panel></wicket:panel>");
+		}
+	}
+}
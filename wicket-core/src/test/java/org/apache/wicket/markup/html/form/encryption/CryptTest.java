@@ -57,6 +57,24 @@ public class CryptTest extends WicketTestCase
 		}
 	}
 
+	/**
+	 * The ciphers are reused until the key changes
+	 */
+	@Test
+	public void changeKey()
+	{
+		final ICrypt crypt = new SunJceCrypt();
+		crypt.setKey("first");
+
+		String encrypted = crypt.encryptUrlSafe("test");
+		assertEquals(encrypted, crypt.encryptUrlSafe("test"));
+		assertEquals("test", crypt.decryptUrlSafe(encrypted));
+
+		crypt.setKey("second");
+		assertFalse(encrypted.equals(crypt.encryptUrlSafe("test")));
+		assertEquals("test", crypt.decryptUrlSafe(crypt.encryptUrlSafe("test")));
+	}
+
 	/**
 	 * 
 	 */
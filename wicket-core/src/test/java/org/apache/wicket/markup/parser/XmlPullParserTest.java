@@ -20,7 +20,11 @@ import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
 
 import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.util.parse.metapattern.parsers.TagNameParser;
+import org.apache.wicket.util.parse.metapattern.parsers.VariableAssignmentParser;
 import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.value.ValueMap;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -432,4 +436,65 @@ public class XmlPullParserTest extends Assert
 		type = parser.next();
 		assertEquals(HttpTagType.CONDITIONAL_COMMENT_ENDIF, type);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The tag text is scanned by hand, names and attributes must be found like the regular
+	 * expressions of {@link TagNameParser} and {@link VariableAssignmentParser} do.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public final void attributesLikeRegularExpressions() throws Exception
+	{
+		String[] tagTexts = { "a", "a href=foo.html", "wicket:panel", "wicket:", "a-b:c x=1",
+				"a wicket:id='x' wicket:message=\"title:key\"", "a b:c:d=1 e:f.g:h=2",
+				"html xmlns:wicket", "a x = \" 1 \" y= '2'z=3", "a x=\"&lt;&amp;\" y=&amp;",
+				"a 9x=1 \"junk\" =y z==w", "a x= y=1", "a\tx\n=\r\"1\"",
+				"a x=\"a'b\" y='a\"b'", "input checked", "a _x.y-z=v.w-1_" };
+
+		for (String tagText : tagTexts)
+		{
+			final XmlPullParser parser = new XmlPullParser();
+			parser.parse("<" + tagText + ">");
+			XmlTag tag = parser.nextTag();
+
+			TagNameParser tagNameParser = new TagNameParser(tagText);
+			assertTrue(tagNameParser.matcher().lookingAt());
+			assertEquals(tagText, tagNameParser.getName(), tag.getName());
+			assertEquals(tagText, tagNameParser.getNamespace(), tag.getNamespace());
+
+			ValueMap expected = new ValueMap();
+			int pos = tagNameParser.matcher().end(0);
+			VariableAssignmentParser attributeParser = new VariableAssignmentParser(tagText);
+			while (pos < tagText.length() && attributeParser.matcher().find(pos))
+			{
+				String value = attributeParser.getValue();
+				if (value == null)
+				{
+					value = "";
+				}
+				pos = attributeParser.matcher().end(0);
+				if (value.startsWith("\"") || value.startsWith("\'"))
+				{
+					value = value.substring(1, value.length() - 1);
+				}
+				expected.put(attributeParser.getKey(),
+					Strings.unescapeMarkup(value.trim()).toString());
+			}
+			assertEquals(tagText, expected, tag.getAttributes());
+		}
+	}
+
+	/**
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ParseException.class)
+	public final void emptyCloseTag() throws Exception
+	{
+		final XmlPullParser parser = new XmlPullParser();
+		parser.parse("<a></>");
+		parser.nextTag();
+		parser.nextTag();
+	}
+}
@@ -16,9 +16,15 @@
  */
 package org.apache.wicket.page;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.wicket.MockPage;
 import org.apache.wicket.core.util.lang.WicketObjects;
@@ -306,6 +312,168 @@ public class PageAccessSynchronizerTest extends Assert
 		assertTrue(Duration.milliseconds(System.currentTimeMillis() - start).lessThan(timeout));
 	}
 
+	/**
+	 * The lock is handed over to the waiting threads in the order of their arrival
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void handOverInArrivalOrder() throws Exception
+	{
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(Duration.seconds(5));
+		final List<String> order = new CopyOnWriteArrayList<String>();
+
+		sync.lockPage(1);
+
+		Thread[] waiters = new Thread[5];
+		for (int i = 0; i < waiters.length; i++)
+		{
+			waiters[i] = new Thread("waiter " + i)
+			{
+				@Override
+				public void run()
+				{
+					sync.lockPage(1);
+					order.add(getName());
+					sync.unlockAllPages();
+				}
+			};
+			waiters[i].start();
+			// wait until the thread is queued
+			while (waiters[i].getState() != Thread.State.WAITING &&
+				waiters[i].getState() != Thread.State.TIMED_WAITING)
+			{
+				Thread.sleep(1);
+			}
+		}
+
+		sync.unlockAllPages();
+		for (Thread waiter : waiters)
+		{
+			waiter.join();
+		}
+
+		assertEquals(
+			Arrays.asList("waiter 0", "waiter 1", "waiter 2", "waiter 3", "waiter 4"), order);
+		assertTrue(sync.getLocks().get().isEmpty());
+	}
+
+	/**
+	 * The statistics count the acquired, contended and failed locks
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void statistics() throws Exception
+	{
+		final PageAccessStatistics statistics = new PageAccessStatistics();
+		final AtomicLong now = new AtomicLong();
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(
+			Duration.milliseconds(500), statistics)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected long nanoTime()
+			{
+				// the time stands still unless advanced by the test
+				return now.get();
+			}
+		};
+
+		sync.lockPage(1);
+		sync.lockPage(2);
+		assertEquals(2, statistics.getAcquiredLocks());
+		assertEquals(0, statistics.getContendedLocks());
+
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					sync.lockPage(2);
+					fail("The lock should not be acquired");
+				}
+				catch (CouldNotLockPageException expected)
+				{
+					// waited for the timeout
+				}
+				sync.lockPage(1);
+				sync.unlockAllPages();
+			}
+		};
+		other.start();
+
+		awaitWaiting(sync, 2, other);
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+		LockSupport.unpark(other);
+
+		awaitWaiting(sync, 1, other);
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		sync.unlockAllPages();
+		other.join();
+
+		assertEquals(3, statistics.getAcquiredLocks());
+		assertEquals(1, statistics.getContendedLocks());
+		assertEquals(1, statistics.getFailedLocks());
+		assertEquals(700, statistics.getTotalWaitTime());
+		assertEquals(600, statistics.getMaxWaitTime());
+		assertTrue(sync.getLocks().get().isEmpty());
+	}
+
+	/**
+	 * Waits until the thread is queued for the lock of the page.
+	 */
+	private static void awaitWaiting(PageAccessSynchronizer sync, int pageId, Thread thread)
+		throws InterruptedException
+	{
+		while (true)
+		{
+			PageLock lock = sync.getLocks().get().get(pageId);
+			if (lock != null && lock.isWaiting(thread))
+			{
+				return;
+			}
+			Thread.sleep(1);
+		}
+	}
+
+	/**
+	 * An interrupted thread stops waiting and keeps its interrupt
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void interruptWhileWaiting() throws Exception
+	{
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(Duration.seconds(5));
+		Thread owner = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				sync.lockPage(1);
+			}
+		};
+		owner.start();
+		owner.join();
+
+		Thread.currentThread().interrupt();
+		try
+		{
+			sync.lockPage(1);
+			fail("the lock is owned by another thread");
+		}
+		catch (CouldNotLockPageException e)
+		{
+			assertTrue(e.getCause() instanceof InterruptedException);
+			assertTrue(Thread.interrupted());
+		}
+		assertFalse(sync.getLocks().get().get(1).isWaiting(Thread.currentThread()));
+	}
+
 	/**
 	 * https://issues.apache.org/jira/browse/WICKET-4009
 	 */
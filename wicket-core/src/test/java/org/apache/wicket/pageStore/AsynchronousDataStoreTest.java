@@ -17,17 +17,23 @@
 package org.apache.wicket.pageStore;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.wicket.versioning.InMemoryPageStore;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
  * Tests for {@link AsynchronousDataStore}
  */
-public class AsynchronousDataStoreTest
+public class AsynchronousDataStoreTest extends Assert
 {
 //	private static final IDataStore WRAPPED_DATA_STORE = new DiskDataStore("asyncDataStoreApp", new StoreSettings(null).getFileStoreFolder(), Bytes.kilobytes(1));
 	private static final IDataStore WRAPPED_DATA_STORE = new InMemoryPageStore();
@@ -77,6 +83,135 @@ public class AsynchronousDataStoreTest
 		DATA_STORE.destroy();
 	}
 
+	/**
+	 * Entries which are superseded by a newer entry for the same page before they are written
+	 * should not reach the wrapped data store.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void coalesceSupersededEntries() throws Exception
+	{
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch proceed = new CountDownLatch(1);
+		RecordingDataStore recording = new RecordingDataStore()
+		{
+			@Override
+			public void storeData(String sessionId, int id, byte[] data)
+			{
+				writing.countDown();
+				try
+				{
+					proceed.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				super.storeData(sessionId, id, data);
+			}
+		};
+		IDataStore dataStore = new AsynchronousDataStore(recording, 100);
+		try
+		{
+			dataStore.storeData("s1", 1, DATA);
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+			// the writer is busy, so these are queued
+			dataStore.storeData("s1", 2, new byte[] { 1 });
+			dataStore.storeData("s1", 2, new byte[] { 2 });
+			dataStore.storeData("s1", 3, DATA);
+			assertArrayEquals(new byte[] { 2 }, dataStore.getData("s1", 2));
+
+			proceed.countDown();
+			recording.await(3);
+
+			assertEquals(3, recording.stored.size());
+			assertEquals("s1:1", recording.stored.get(0));
+			assertEquals("s1:2", recording.stored.get(1));
+			assertEquals("s1:3", recording.stored.get(2));
+			assertArrayEquals(new byte[] { 2 }, recording.getData("s1", 2));
+		}
+		finally
+		{
+			proceed.countDown();
+			dataStore.destroy();
+		}
+	}
+
+	/**
+	 * With several writers the pages of a session are still written in the order they were
+	 * stored.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void multipleWritersKeepSessionOrder() throws Exception
+	{
+		final int sessions = 20;
+		final int pages = 50;
+		RecordingDataStore recording = new RecordingDataStore();
+		IDataStore dataStore = new AsynchronousDataStore(recording, sessions * pages, 4);
+		try
+		{
+			for (int page = 0; page < pages; page++)
+			{
+				for (int session = 0; session < sessions; session++)
+				{
+					dataStore.storeData("s" + session, page, DATA);
+				}
+			}
+			recording.await(sessions * pages);
+
+			int[] lastPage = new int[sessions];
+			Arrays.fill(lastPage, -1);
+			for (String key : recording.stored)
+			{
+				int separator = key.indexOf(':');
+				int session = Integer.parseInt(key.substring(1, separator));
+				int page = Integer.parseInt(key.substring(separator + 1));
+				assertEquals(lastPage[session] + 1, page);
+				lastPage[session] = page;
+			}
+		}
+		finally
+		{
+			dataStore.destroy();
+		}
+	}
+
+	/**
+	 * Records the order in which the pages are stored
+	 */
+	private static class RecordingDataStore extends InMemoryPageStore
+	{
+		private final List<String> stored = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public void storeData(String sessionId, int id, byte[] data)
+		{
+			super.storeData(sessionId, id, data);
+			stored.add(sessionId + ":" + id);
+		}
+
+		@Override
+		public boolean canBeAsynchronous()
+		{
+			return true;
+		}
+
+		private void await(int count) throws InterruptedException
+		{
+			long deadline = System.currentTimeMillis() + 10000;
+			while (stored.size() < count && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(10);
+			}
+			// give a superseded entry the chance to be written erroneously
+			Thread.sleep(50);
+		}
+	}
+
 	private static abstract class AbstractTask implements Runnable
 	{
 		protected abstract void r();
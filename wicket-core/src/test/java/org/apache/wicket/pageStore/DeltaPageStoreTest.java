@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.util.Random;
+
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.versioning.InMemoryPageStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DeltaPageStore} and {@link PageDelta}
+ */
+public class DeltaPageStoreTest extends Assert
+{
+	private static final String SESSION_ID = "session";
+
+	private final Random random = new Random(42);
+
+	/**
+	 * A delta reproduces the new version even when bytes are inserted, removed and changed
+	 */
+	@Test
+	public void encodeAndApply()
+	{
+		byte[] base = randomBytes(10000);
+		byte[] data = modify(base);
+
+		PageDelta.Signature signature = PageDelta.signature(base, 64);
+		byte[] delta = PageDelta.encode(signature, data, data.length);
+
+		assertNotNull(delta);
+		assertTrue(delta.length < data.length / 10);
+		assertArrayEquals(data, PageDelta.apply(base, 64, delta, 0));
+	}
+
+	/**
+	 * Completely different data produces no delta
+	 */
+	@Test
+	public void encodeTooBig()
+	{
+		byte[] base = randomBytes(10000);
+		PageDelta.Signature signature = PageDelta.signature(base, 64);
+
+		assertNull(PageDelta.encode(signature, randomBytes(10000), 5000));
+	}
+
+	/**
+	 * Only the first version of a page is stored completely
+	 */
+	@Test
+	public void storeDeltas()
+	{
+		InMemoryPageStore dataStore = new InMemoryPageStore();
+		DeltaPageStore store = newStore(dataStore, 20);
+
+		byte[] data = randomBytes(20000);
+		store.storePageData(SESSION_ID, 1, data);
+		assertArrayEquals(data, store.getPageData(SESSION_ID, 1));
+
+		for (int i = 0; i < 5; i++)
+		{
+			data = modify(data);
+			store.storePageData(SESSION_ID, 1, data);
+
+			assertTrue(dataStore.getData(SESSION_ID, 1).length < data.length / 5);
+			assertArrayEquals(data, store.getPageData(SESSION_ID, 1));
+		}
+	}
+
+	/**
+	 * A new snapshot is taken after the configured number of deltas
+	 */
+	@Test
+	public void rebase()
+	{
+		InMemoryPageStore dataStore = new InMemoryPageStore();
+		DeltaPageStore store = newStore(dataStore, 2);
+
+		byte[] data = randomBytes(20000);
+		store.storePageData(SESSION_ID, 1, data);
+		byte[] snapshot = dataStore.getData(SESSION_ID, -3);
+
+		for (int i = 0; i < 2; i++)
+		{
+			data = modify(data);
+			store.storePageData(SESSION_ID, 1, data);
+			assertSame(snapshot, dataStore.getData(SESSION_ID, -3));
+		}
+
+		data = modify(data);
+		store.storePageData(SESSION_ID, 1, data);
+		assertNotSame(snapshot, dataStore.getData(SESSION_ID, -3));
+		assertArrayEquals(data, store.getPageData(SESSION_ID, 1));
+	}
+
+	/**
+	 * A delta without its snapshot is treated like a missing page
+	 */
+	@Test
+	public void missingSnapshot()
+	{
+		InMemoryPageStore dataStore = new InMemoryPageStore();
+		DeltaPageStore store = newStore(dataStore, 20);
+
+		byte[] data = randomBytes(20000);
+		store.storePageData(SESSION_ID, 1, data);
+		store.storePageData(SESSION_ID, 1, modify(data));
+		dataStore.removeData(SESSION_ID, -3);
+
+		assertNull(store.getPageData(SESSION_ID, 1));
+	}
+
+	/**
+	 * Removing a page removes its snapshot too
+	 */
+	@Test
+	public void removePage()
+	{
+		InMemoryPageStore dataStore = new InMemoryPageStore();
+		DeltaPageStore store = newStore(dataStore, 20);
+
+		byte[] data = randomBytes(20000);
+		store.storePageData(SESSION_ID, 1, data);
+		store.removePageData(SESSION_ID, 1);
+
+		assertNull(dataStore.getData(SESSION_ID, 1));
+		assertNull(dataStore.getData(SESSION_ID, -3));
+		assertNull(store.getPageData(SESSION_ID, 1));
+
+		// stored completely again
+		store.storePageData(SESSION_ID, 1, data);
+		assertArrayEquals(data, store.getPageData(SESSION_ID, 1));
+	}
+
+	private static DeltaPageStore newStore(IDataStore dataStore, int maxDeltas)
+	{
+		return new DeltaPageStore(new JavaSerializer("DeltaPageStoreTest"), dataStore, 0,
+			maxDeltas, 64);
+	}
+
+	private byte[] randomBytes(int length)
+	{
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Inserts, removes and changes a few bytes
+	 */
+	private byte[] modify(byte[] data)
+	{
+		int insertAt = random.nextInt(data.length / 3);
+		int removeAt = data.length / 3 + random.nextInt(data.length / 3);
+		byte[] result = new byte[data.length + 5 - 3];
+
+		System.arraycopy(data, 0, result, 0, insertAt);
+		System.arraycopy(randomBytes(5), 0, result, insertAt, 5);
+		System.arraycopy(data, insertAt, result, insertAt + 5, removeAt - insertAt);
+		System.arraycopy(data, removeAt + 3, result, removeAt + 5, data.length - removeAt - 3);
+
+		int changeAt = 2 * data.length / 3 + random.nextInt(data.length / 4);
+		result[changeAt] ^= 0x55;
+		return result;
+	}
+}
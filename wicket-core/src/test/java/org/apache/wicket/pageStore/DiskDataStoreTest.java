@@ -381,6 +381,28 @@ public class DiskDataStoreTest extends Assert
 		dataStore.destroy();
 	}
 
+	/**
+	 * store() with the session files kept open in a {@link FileChannelPool} which is smaller than
+	 * the number of sessions
+	 */
+	@Test
+	public void storeWithFileChannelPool()
+	{
+		generateFiles();
+
+		IStoreSettings storeSettings = new StoreSettings(null);
+		java.io.File fileStoreFolder = storeSettings.getFileStoreFolder();
+
+		dataStore = new DiskDataStore("app2", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			SESSION_COUNT / 5);
+		int asynchronousQueueCapacity = storeSettings.getAsynchronousQueueCapacity();
+		dataStore = new AsynchronousDataStore(dataStore, asynchronousQueueCapacity);
+
+		doTestDataStore();
+
+		dataStore.destroy();
+	}
+
 	/**
 	 * https://issues.apache.org/jira/browse/WICKET-4478
 	 *
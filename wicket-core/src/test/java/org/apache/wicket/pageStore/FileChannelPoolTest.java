@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.wicket.util.file.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FileChannelPool}
+ */
+public class FileChannelPoolTest extends Assert
+{
+	private File folder;
+
+	private FileChannelPool pool;
+
+	/**
+	 * Creates a folder for the test files
+	 * 
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		folder = File.createTempFile("FileChannelPoolTest", null);
+		Files.remove(folder);
+		Files.mkdirs(folder);
+		pool = new FileChannelPool(2);
+	}
+
+	/**
+	 * Removes the test files
+	 */
+	@After
+	public void after()
+	{
+		pool.destroy();
+		Files.removeFolder(folder);
+	}
+
+	/**
+	 * A file which doesn't exist is opened only when it should be created
+	 */
+	@Test
+	public void doesNotCreateFile()
+	{
+		String fileName = fileName("a");
+		assertNull(pool.getFileChannel(fileName, false));
+		assertFalse(new File(fileName).exists());
+
+		assertNotNull(pool.getFileChannel(fileName, true));
+		pool.returnFileChannel(fileName);
+		assertTrue(new File(fileName).exists());
+	}
+
+	/**
+	 * The same channel is returned for the same file as long as it is in the pool
+	 */
+	@Test
+	public void reusesChannel()
+	{
+		String fileName = fileName("a");
+		FileChannel channel = pool.getFileChannel(fileName, true);
+		pool.returnFileChannel(fileName);
+
+		assertSame(channel, pool.getFileChannel(fileName, false));
+		pool.returnFileChannel(fileName);
+		assertTrue(channel.isOpen());
+	}
+
+	/**
+	 * The least recently used idle channels are closed when the capacity is exceeded
+	 */
+	@Test
+	public void evictsLeastRecentlyUsed()
+	{
+		FileChannel a = pool.getFileChannel(fileName("a"), true);
+		pool.returnFileChannel(fileName("a"));
+		FileChannel b = pool.getFileChannel(fileName("b"), true);
+		pool.returnFileChannel(fileName("b"));
+
+		// touch 'a' so 'b' becomes the least recently used
+		pool.getFileChannel(fileName("a"), false);
+		pool.returnFileChannel(fileName("a"));
+
+		FileChannel c = pool.getFileChannel(fileName("c"), true);
+		pool.returnFileChannel(fileName("c"));
+
+		assertEquals(2, pool.size());
+		assertTrue(a.isOpen());
+		assertFalse(b.isOpen());
+		assertTrue(c.isOpen());
+	}
+
+	/**
+	 * Channels in use are not closed by the eviction
+	 */
+	@Test
+	public void doesNotEvictChannelsInUse()
+	{
+		FileChannel a = pool.getFileChannel(fileName("a"), true);
+		FileChannel b = pool.getFileChannel(fileName("b"), true);
+		FileChannel c = pool.getFileChannel(fileName("c"), true);
+
+		assertEquals(3, pool.size());
+		assertTrue(a.isOpen());
+		assertTrue(b.isOpen());
+		assertTrue(c.isOpen());
+
+		pool.returnFileChannel(fileName("a"));
+		pool.returnFileChannel(fileName("b"));
+		pool.returnFileChannel(fileName("c"));
+
+		FileChannel d = pool.getFileChannel(fileName("d"), true);
+		pool.returnFileChannel(fileName("d"));
+		assertEquals(2, pool.size());
+		assertFalse(a.isOpen());
+		assertFalse(b.isOpen());
+		assertTrue(d.isOpen());
+	}
+
+	/**
+	 * A closed channel which is still in use is closed when returned
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void closeChannelInUse() throws IOException
+	{
+		String fileName = fileName("a");
+		FileChannel channel = pool.getFileChannel(fileName, true);
+
+		pool.closeFileChannel(fileName);
+		assertEquals(0, pool.size());
+		assertTrue(channel.isOpen());
+		channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), 0);
+
+		pool.returnFileChannel(fileName);
+		assertFalse(channel.isOpen());
+		assertEquals(3, new File(fileName).length());
+	}
+
+	private String fileName(String name)
+	{
+		return new File(folder, name).getAbsolutePath();
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SegmentedDataStore}
+ */
+public class SegmentedDataStoreTest extends Assert
+{
+	private static final String APP_NAME = "SegmentedDataStoreTest";
+
+	private File folder;
+
+	private SegmentedDataStore store;
+
+	/**
+	 * Creates a folder for the segment files
+	 * 
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		folder = File.createTempFile(APP_NAME, null);
+		Files.remove(folder);
+		Files.mkdirs(folder);
+		store = new SegmentedDataStore(APP_NAME, folder, Bytes.bytes(100), 4);
+	}
+
+	/**
+	 * Destroys the store and removes the segment files
+	 */
+	@After
+	public void after()
+	{
+		store.destroy();
+		Files.removeFolder(folder);
+	}
+
+	/**
+	 * Pages of several sessions are stored and loaded
+	 */
+	@Test
+	public void storeAndLoad()
+	{
+		store.storeData("s1", 1, data(10, 1));
+		store.storeData("s2", 1, data(10, 2));
+		store.storeData("s1", 2, data(10, 3));
+
+		assertArrayEquals(data(10, 1), store.getData("s1", 1));
+		assertArrayEquals(data(10, 2), store.getData("s2", 1));
+		assertArrayEquals(data(10, 3), store.getData("s1", 2));
+		assertNull(store.getData("s2", 2));
+		assertNull(store.getData("s3", 1));
+		assertEquals(2, store.getSessionCount());
+		assertEquals(1, store.getSegmentCount());
+	}
+
+	/**
+	 * A stored page replaces the previous data for the same page id
+	 */
+	@Test
+	public void replace()
+	{
+		store.storeData("s1", 1, data(10, 1));
+		store.storeData("s1", 1, data(20, 2));
+
+		assertArrayEquals(data(20, 2), store.getData("s1", 1));
+	}
+
+	/**
+	 * Removing a page or a session
+	 */
+	@Test
+	public void remove()
+	{
+		store.storeData("s1", 1, data(10, 1));
+		store.storeData("s1", 2, data(10, 2));
+		store.storeData("s2", 1, data(10, 3));
+
+		store.removeData("s1", 1);
+		assertNull(store.getData("s1", 1));
+		assertArrayEquals(data(10, 2), store.getData("s1", 2));
+
+		store.removeData("s1");
+		assertNull(store.getData("s1", 2));
+		assertArrayEquals(data(10, 3), store.getData("s2", 1));
+		assertEquals(1, store.getSessionCount());
+	}
+
+	/**
+	 * A new segment is started when the current one is full and the oldest segments are dropped
+	 * when there are too many
+	 */
+	@Test
+	public void rotate()
+	{
+		for (int i = 0; i < 4; i++)
+		{
+			store.storeData("s1", i, data(60, i));
+		}
+		assertEquals(4, store.getSegmentCount());
+		assertArrayEquals(data(60, 0), store.getData("s1", 0));
+
+		store.storeData("s1", 4, data(60, 4));
+		assertEquals(4, store.getSegmentCount());
+		assertNull(store.getData("s1", 0));
+		for (int i = 1; i < 5; i++)
+		{
+			assertArrayEquals(data(60, i), store.getData("s1", i));
+		}
+	}
+
+	/**
+	 * Dropping the oldest segment removes only the pages stored in it, of any session
+	 */
+	@Test
+	public void rotateSeveralSessions()
+	{
+		store.storeData("s1", 1, data(60, 1));
+		store.storeData("s2", 1, data(60, 2));
+		store.storeData("s1", 2, data(60, 3));
+		store.storeData("s2", 2, data(60, 4));
+		store.storeData("s3", 1, data(60, 5));
+
+		assertNull(store.getData("s1", 1));
+		assertArrayEquals(data(60, 2), store.getData("s2", 1));
+		assertArrayEquals(data(60, 3), store.getData("s1", 2));
+		assertArrayEquals(data(60, 4), store.getData("s2", 2));
+		assertArrayEquals(data(60, 5), store.getData("s3", 1));
+	}
+
+	/**
+	 * The pages still in use are moved out of the mostly stale segments
+	 */
+	@Test
+	public void compact()
+	{
+		store.storeData("s1", 1, data(40, 1));
+		store.storeData("s2", 1, data(40, 2));
+		store.storeData("s3", 1, data(40, 3));
+		assertEquals(2, store.getSegmentCount());
+
+		store.removeData("s2");
+		store.compact();
+		// the first segment is still in use by more than a half
+		assertEquals(2, store.getSegmentCount());
+
+		store.removeData("s1");
+		store.compact();
+		assertEquals(1, store.getSegmentCount());
+		assertNull(store.getData("s1", 1));
+		assertArrayEquals(data(40, 3), store.getData("s3", 1));
+
+		store.storeData("s4", 1, data(20, 4));
+		store.storeData("s5", 1, data(50, 5));
+		assertEquals(2, store.getSegmentCount());
+
+		store.removeData("s3");
+		store.compact();
+		// the page of 's4' is moved to the segment of 's5'
+		assertEquals(1, store.getSegmentCount());
+		assertArrayEquals(data(20, 4), store.getData("s4", 1));
+		assertArrayEquals(data(50, 5), store.getData("s5", 1));
+	}
+
+	/**
+	 * The stored pages survive a restart
+	 */
+	@Test
+	public void restart()
+	{
+		store.storeData("s1", 1, data(60, 1));
+		store.storeData("s1", 2, data(60, 2));
+		store.destroy();
+
+		store = new SegmentedDataStore(APP_NAME, folder, Bytes.bytes(100), 4);
+		assertArrayEquals(data(60, 1), store.getData("s1", 1));
+		assertArrayEquals(data(60, 2), store.getData("s1", 2));
+		assertEquals(2, store.getSegmentCount());
+
+		store.storeData("s1", 3, data(60, 3));
+		assertEquals(3, store.getSegmentCount());
+		assertArrayEquals(data(60, 3), store.getData("s1", 3));
+	}
+
+	private static byte[] data(int length, int value)
+	{
+		byte[] data = new byte[length];
+		Arrays.fill(data, (byte)value);
+		return data;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.wicket.pageStore.DefaultPageStore.SerializedPage;
+import org.apache.wicket.pageStore.DefaultPageStore.SerializedPagesCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SerializedPagesCache}
+ */
+public class SerializedPagesCacheTest extends Assert
+{
+	/**
+	 * The least recently used page is evicted when the number of pages is exceeded
+	 */
+	@Test
+	public void evictLeastRecentlyUsed()
+	{
+		PageCacheStatistics statistics = new PageCacheStatistics();
+		SerializedPagesCache cache = new SerializedPagesCache(2, Long.MAX_VALUE, statistics);
+
+		cache.storePage(new SerializedPage("s1", 1, new byte[10]));
+		cache.storePage(new SerializedPage("s1", 2, new byte[10]));
+		assertNotNull(cache.getPage("s1", 1));
+		cache.storePage(new SerializedPage("s1", 3, new byte[10]));
+
+		assertNotNull(cache.getPage("s1", 1));
+		assertNull(cache.getPage("s1", 2));
+		assertNotNull(cache.getPage("s1", 3));
+
+		assertEquals(3, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(1, statistics.getEvictions());
+		assertEquals(2, statistics.getPages());
+	}
+
+	/**
+	 * Pages are evicted when their size exceeds the maximum
+	 */
+	@Test
+	public void evictBySize()
+	{
+		PageCacheStatistics statistics = new PageCacheStatistics();
+		SerializedPagesCache cache = new SerializedPagesCache(100, 3000, statistics);
+
+		cache.storePage(new SerializedPage("s1", 1, new byte[1000]));
+		cache.storePage(new SerializedPage("s1", 2, new byte[1000]));
+		assertEquals(2, statistics.getPages());
+
+		cache.storePage(new SerializedPage("s1", 3, new byte[1000]));
+		assertEquals(2, statistics.getPages());
+		assertTrue(statistics.getBytes() <= 3000);
+		assertNull(cache.getPage("s1", 1));
+
+		// bigger than the whole cache, not cached at all
+		long bytes = statistics.getBytes();
+		cache.storePage(new SerializedPage("s1", 4, new byte[5000]));
+		assertNull(cache.getPage("s1", 4));
+		assertEquals(2, statistics.getPages());
+		assertEquals(bytes, statistics.getBytes());
+
+		// replacing a cached page drops it
+		cache.storePage(new SerializedPage("s1", 3, new byte[5000]));
+		assertNull(cache.getPage("s1", 3));
+		assertEquals(1, statistics.getPages());
+	}
+
+	/**
+	 * The least recently used page of all sessions is evicted, never the page just stored
+	 */
+	@Test
+	public void evictLeastRecentlyUsedOfAllSessions()
+	{
+		PageCacheStatistics statistics = new PageCacheStatistics();
+		SerializedPagesCache cache = new SerializedPagesCache(2, Long.MAX_VALUE, statistics);
+
+		cache.storePage(new SerializedPage("s1", 1, new byte[10]));
+		cache.storePage(new SerializedPage("s1", 2, new byte[10]));
+		cache.storePage(new SerializedPage("s2", 1, new byte[10]));
+
+		assertNotNull(cache.getPage("s2", 1));
+		assertNull(cache.getPage("s1", 1));
+		assertNotNull(cache.getPage("s1", 2));
+
+		// s2:1 has been used before s1:2
+		cache.storePage(new SerializedPage("s3", 1, new byte[10]));
+		assertNotNull(cache.getPage("s3", 1));
+		assertNull(cache.getPage("s2", 1));
+		assertNotNull(cache.getPage("s1", 2));
+		assertEquals(2, statistics.getPages());
+	}
+
+	/**
+	 * Storing a page again replaces the cached one
+	 */
+	@Test
+	public void replace()
+	{
+		PageCacheStatistics statistics = new PageCacheStatistics();
+		SerializedPagesCache cache = new SerializedPagesCache(10, Long.MAX_VALUE, statistics);
+
+		cache.storePage(new SerializedPage("s1", 1, new byte[100]));
+		long bytes = statistics.getBytes();
+		byte[] data = new byte[200];
+		cache.storePage(new SerializedPage("s1", 1, data));
+
+		assertSame(data, cache.getPage("s1", 1).getData());
+		assertEquals(1, statistics.getPages());
+		assertEquals(bytes + 100, statistics.getBytes());
+	}
+
+	/**
+	 * Removing pages updates the statistics
+	 */
+	@Test
+	public void remove()
+	{
+		PageCacheStatistics statistics = new PageCacheStatistics();
+		SerializedPagesCache cache = new SerializedPagesCache(10, Long.MAX_VALUE, statistics);
+
+		cache.storePage(new SerializedPage("s1", 1, new byte[10]));
+		cache.storePage(new SerializedPage("s1", 2, new byte[10]));
+		cache.storePage(new SerializedPage("s2", 1, new byte[10]));
+
+		assertNotNull(cache.removePage("s1", 1));
+		assertNull(cache.removePage("s1", 1));
+		cache.removePages("s1");
+
+		assertNull(cache.getPage("s1", 2));
+		assertNotNull(cache.getPage("s2", 1));
+		assertEquals(1, statistics.getPages());
+		assertEquals(0, statistics.getEvictions());
+	}
+
+	/**
+	 * Concurrent stores of many sessions keep the cache within its bounds
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void concurrentStores() throws Exception
+	{
+		final PageCacheStatistics statistics = new PageCacheStatistics();
+		final SerializedPagesCache cache = new SerializedPagesCache(20, 20000, statistics);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < 8; t++)
+			{
+				final String sessionId = "s" + t;
+				futures.add(executor.submit(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						for (int i = 0; i < 1000; i++)
+						{
+							cache.storePage(new SerializedPage(sessionId, i, new byte[i % 1000]));
+							cache.getPage(sessionId, i - 1);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertTrue(statistics.getPages() <= 20);
+		assertTrue(statistics.getBytes() <= 20000);
+		assertTrue(statistics.getEvictions() > 0);
+	}
+}
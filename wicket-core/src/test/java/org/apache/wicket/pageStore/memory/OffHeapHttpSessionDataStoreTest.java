@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OffHeapHttpSessionDataStore}
+ */
+public class OffHeapHttpSessionDataStoreTest extends WicketTestCase
+{
+	final String sessionId = "anything";
+
+	final byte[] PAGE1 = new byte[] { 1 };
+	final byte[] PAGE2 = new byte[3000];
+
+	DummyPageManagerContext context;
+
+	SlabAllocator allocator;
+
+	OffHeapHttpSessionDataStore store;
+
+	/**
+	 * before()
+	 */
+	@Before
+	public void before()
+	{
+		context = new DummyPageManagerContext();
+		allocator = new SlabAllocator(Bytes.kilobytes(8), Bytes.kilobytes(4), 1024);
+		store = new OffHeapHttpSessionDataStore(context, new PageNumberEvictionStrategy(100),
+			allocator);
+		PAGE2[1234] = 5;
+	}
+
+	/**
+	 * after()
+	 */
+	@After
+	public void after()
+	{
+		store.destroy();
+	}
+
+	/**
+	 * The pages are stored in the allocator's memory
+	 */
+	@Test
+	public void storePage()
+	{
+		assertNull(store.getData(sessionId, 1));
+
+		store.storeData(sessionId, 1, PAGE1);
+		store.storeData(sessionId, 2, PAGE2);
+
+		assertArrayEquals(PAGE1, store.getData(sessionId, 1));
+		assertArrayEquals(PAGE2, store.getData(sessionId, 2));
+		assertEquals(4 * 1024, allocator.getUsedSize());
+		assertEquals(PAGE1.length + PAGE2.length, ((PageTable)context.attribute).getSize());
+	}
+
+	/**
+	 * Removing pages frees their memory
+	 */
+	@Test
+	public void removePage()
+	{
+		store.storeData(sessionId, 1, PAGE1);
+		store.storeData(sessionId, 2, PAGE2);
+
+		store.removeData(sessionId, 2);
+		assertNull(store.getData(sessionId, 2));
+		assertEquals(1024, allocator.getUsedSize());
+
+		store.removeData(sessionId);
+		assertNull(store.getData(sessionId, 1));
+		assertEquals(0, allocator.getUsedSize());
+	}
+
+	/**
+	 * The oldest pages of the session are dropped when the allocator is full
+	 */
+	@Test
+	public void allocatorFull()
+	{
+		store.storeData(sessionId, 1, PAGE2);
+		store.storeData(sessionId, 2, PAGE2);
+		store.storeData(sessionId, 3, PAGE2);
+
+		assertNull(store.getData(sessionId, 1));
+		assertArrayEquals(PAGE2, store.getData(sessionId, 3));
+		assertEquals(2, ((PageTable)context.attribute).size());
+	}
+
+	/**
+	 * {@link MemorySizeEvictionStrategy} checks the size of the pages in off-heap memory
+	 */
+	@Test
+	public void evictBySize()
+	{
+		store = new OffHeapHttpSessionDataStore(context, new MemorySizeEvictionStrategy(
+			Bytes.bytes(PAGE2.length)), allocator);
+
+		store.storeData(sessionId, 1, PAGE2);
+		store.storeData(sessionId, 2, PAGE1);
+
+		assertNull(store.getData(sessionId, 1));
+		assertArrayEquals(PAGE1, store.getData(sessionId, 2));
+	}
+
+	/**
+	 * The pages are serialized with the table and moved back into off-heap memory after
+	 * deserialization
+	 */
+	@Test
+	public void replication()
+	{
+		store.storeData(sessionId, 1, PAGE1);
+		store.storeData(sessionId, 2, PAGE2);
+
+		OffHeapPageTable copy = (OffHeapPageTable)WicketObjects.cloneObject(context.attribute);
+		assertFalse(copy.isAttached());
+		assertArrayEquals(PAGE2, copy.getPage(2));
+
+		store.removeData(sessionId);
+		context.attribute = copy;
+
+		assertArrayEquals(PAGE1, store.getData(sessionId, 1));
+		assertArrayEquals(PAGE2, store.getData(sessionId, 2));
+		assertTrue(copy.isAttached());
+		assertEquals(4 * 1024, allocator.getUsedSize());
+	}
+
+	/**
+	 * Destroying a store frees only its own pages of a shared allocator
+	 */
+	@Test
+	public void sharedAllocator()
+	{
+		DummyPageManagerContext otherContext = new DummyPageManagerContext();
+		OffHeapHttpSessionDataStore other = new OffHeapHttpSessionDataStore(otherContext,
+			new PageNumberEvictionStrategy(100), allocator);
+
+		store.storeData(sessionId, 1, PAGE1);
+		other.storeData(sessionId, 2, PAGE2);
+
+		store.destroy();
+		assertEquals(3 * 1024, allocator.getUsedSize());
+		assertArrayEquals(PAGE2, other.getData(sessionId, 2));
+
+		other.destroy();
+		assertEquals(0, allocator.getUsedSize());
+	}
+
+	/**
+	 * A store owning its allocator destroys it
+	 */
+	@Test
+	public void ownedAllocator()
+	{
+		store = new OffHeapHttpSessionDataStore(context, new PageNumberEvictionStrategy(100),
+			allocator, true);
+
+		store.storeData(sessionId, 1, PAGE1);
+		store.destroy();
+
+		assertEquals(0, allocator.getAllocatedSize());
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SlabAllocator}
+ */
+public class SlabAllocatorTest extends Assert
+{
+	/**
+	 * Data spanning several chunks and slabs is stored and loaded
+	 */
+	@Test
+	public void storeAndLoad()
+	{
+		SlabAllocator allocator = new SlabAllocator(Bytes.kilobytes(4), Bytes.kilobytes(1), 256);
+
+		byte[] small = new byte[] { 1, 2, 3 };
+		byte[] big = new byte[2000];
+		for (int i = 0; i < big.length; i++)
+		{
+			big[i] = (byte)i;
+		}
+
+		int[] smallChunks = allocator.store(small);
+		int[] bigChunks = allocator.store(big);
+
+		// the generation and the chunks
+		assertEquals(1 + 1, smallChunks.length);
+		assertEquals(1 + 8, bigChunks.length);
+		assertEquals(3 * 1024, allocator.getAllocatedSize());
+		assertArrayEquals(small, allocator.load(smallChunks, small.length));
+		assertArrayEquals(big, allocator.load(bigChunks, big.length));
+		assertEquals(9 * 256, allocator.getUsedSize());
+	}
+
+	/**
+	 * Nothing is allocated beyond the maximum size, freed chunks are reused
+	 */
+	@Test
+	public void full()
+	{
+		SlabAllocator allocator = new SlabAllocator(Bytes.kilobytes(2), Bytes.kilobytes(1), 256);
+
+		int[] chunks = allocator.store(new byte[1500]);
+		assertNotNull(chunks);
+		assertNull(allocator.store(new byte[1000]));
+
+		allocator.free(chunks);
+		assertEquals(0, allocator.getUsedSize());
+		assertNotNull(allocator.store(new byte[2048]));
+		assertEquals(2048, allocator.getMaxSize());
+	}
+
+	/**
+	 * Chunks freed twice are given out only once
+	 */
+	@Test
+	public void doubleFree()
+	{
+		SlabAllocator allocator = new SlabAllocator(Bytes.kilobytes(1), Bytes.kilobytes(1), 256);
+
+		int[] chunks = allocator.store(new byte[300]);
+		allocator.free(chunks);
+		allocator.free(chunks);
+		assertEquals(0, allocator.getUsedSize());
+
+		int[] first = allocator.store(new byte[512]);
+		int[] second = allocator.store(new byte[512]);
+		assertNotNull(first);
+		assertNotNull(second);
+		assertNull(allocator.store(new byte[1]));
+		assertEquals(1024, allocator.getUsedSize());
+		for (int i = 1; i < first.length; i++)
+		{
+			for (int j = 1; j < second.length; j++)
+			{
+				assertTrue(first[i] != second[j]);
+			}
+		}
+	}
+
+	/**
+	 * Empty data needs no memory
+	 */
+	@Test
+	public void empty()
+	{
+		SlabAllocator allocator = new SlabAllocator(Bytes.kilobytes(2));
+
+		int[] chunks = allocator.store(new byte[0]);
+		assertEquals(1, chunks.length);
+		assertEquals(0, allocator.load(chunks, 0).length);
+		assertEquals(0, allocator.getAllocatedSize());
+	}
+
+	/**
+	 * Handles given out before the allocator was destroyed are neither loaded nor freed, even if
+	 * their chunks have been allocated again
+	 */
+	@Test
+	public void staleHandle()
+	{
+		SlabAllocator allocator = new SlabAllocator(Bytes.kilobytes(1), Bytes.kilobytes(1), 256);
+
+		int[] stale = allocator.store(new byte[] { 1, 2, 3 });
+		allocator.destroy();
+
+		byte[] data = new byte[] { 4, 5, 6 };
+		int[] chunks = allocator.store(data);
+		assertEquals(stale[1], chunks[1]);
+
+		assertNull(allocator.load(stale, 3));
+		allocator.free(stale);
+		assertEquals(256, allocator.getUsedSize());
+		assertArrayEquals(data, allocator.load(chunks, 3));
+	}
+}
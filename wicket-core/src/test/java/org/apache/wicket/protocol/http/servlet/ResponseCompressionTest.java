@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.servlet;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.wicket.MockPageWithOneComponent;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.settings.IRequestCycleSettings;
+import org.apache.wicket.settings.IRequestCycleSettings.RenderStrategy;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the gzip compression of responses.
+ * 
+ * @see ResponseCompression
+ */
+public class ResponseCompressionTest extends WicketTestCase
+{
+	private IRequestCycleSettings settings;
+
+	/**
+	 * Renders the pages in one request so that the request headers apply
+	 */
+	@Before
+	public void before()
+	{
+		settings = tester.getApplication().getRequestCycleSettings();
+		settings.setRenderStrategy(RenderStrategy.ONE_PASS_RENDER);
+	}
+
+	/**
+	 * Parsing of the <em>Accept-Encoding</em> header
+	 */
+	@Test
+	public void acceptsGzip()
+	{
+		assertTrue(ResponseCompression.acceptsGzip("gzip"));
+		assertTrue(ResponseCompression.acceptsGzip("deflate, GZIP;q=0.5"));
+		assertTrue(ResponseCompression.acceptsGzip("x-gzip"));
+		assertTrue(ResponseCompression.acceptsGzip("*"));
+		assertFalse(ResponseCompression.acceptsGzip(null));
+		assertFalse(ResponseCompression.acceptsGzip("identity"));
+		assertFalse(ResponseCompression.acceptsGzip("gzip;q=0"));
+		assertFalse(ResponseCompression.acceptsGzip("gzip;q=0, *"));
+		assertFalse(ResponseCompression.acceptsGzip("*;q=0"));
+	}
+
+	/**
+	 * Only text is compressed
+	 */
+	@Test
+	public void isCompressible()
+	{
+		assertTrue(ResponseCompression.isCompressible("text/html; charset=UTF-8"));
+		assertTrue(ResponseCompression.isCompressible("text/xml"));
+		assertTrue(ResponseCompression.isCompressible("application/javascript"));
+		assertTrue(ResponseCompression.isCompressible("image/svg+xml"));
+		assertFalse(ResponseCompression.isCompressible("image/png"));
+		assertFalse(ResponseCompression.isCompressible("application/zip"));
+		assertFalse(ResponseCompression.isCompressible(null));
+	}
+
+	/**
+	 * A rendered page is compressed for a client accepting gzip
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void compressPage() throws IOException
+	{
+		tester.startPage(newPage());
+		String plain = tester.getLastResponseAsString();
+
+		settings.setCompressResponse(true);
+		settings.setCompressionThreshold(Bytes.bytes(16));
+		tester.addRequestHeader(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip, deflate");
+		tester.startPage(newPage());
+
+		assertEquals(ResponseCompression.GZIP,
+			tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		assertEquals(plain, new String(gunzip(tester.getLastResponse().getBinaryContent()),
+			tester.getLastResponse().getCharacterEncoding()));
+	}
+
+	/**
+	 * Text longer than the encoding buffer with characters split between its chunks is encoded
+	 * like the plain response
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void compressLongText() throws IOException
+	{
+		settings.setCompressionThreshold(Bytes.bytes(16));
+
+		// shift the text to split a surrogate pair at the end of a chunk
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 3000; i++)
+		{
+			text.append("\u00e4\u00f6\ud83d\ude00");
+		}
+		for (int shift = 0; shift < 4; shift++)
+		{
+			text.insert(0, 'x');
+
+			settings.setCompressResponse(false);
+			tester.startPage(newPage(text.toString()));
+			String plain = tester.getLastResponseAsString();
+			assertTrue(plain.contains(text));
+
+			settings.setCompressResponse(true);
+			tester.addRequestHeader(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+			tester.startPage(newPage(text.toString()));
+
+			assertEquals(plain, new String(gunzip(tester.getLastResponse().getBinaryContent()),
+				tester.getLastResponse().getCharacterEncoding()));
+		}
+	}
+
+	/**
+	 * Pages below the threshold and clients not accepting gzip get the plain response
+	 */
+	@Test
+	public void doNotCompress()
+	{
+		settings.setCompressResponse(true);
+		settings.setCompressionThreshold(Bytes.megabytes(1));
+		tester.addRequestHeader(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+		tester.startPage(newPage());
+
+		assertNull(tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		tester.assertContains("compressed label");
+
+		settings.setCompressionThreshold(Bytes.bytes(16));
+		tester.startPage(newPage());
+
+		assertNull(tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		tester.assertContains("compressed label");
+	}
+
+	/**
+	 * A streamed page flushed after its header is compressed although the header alone is below
+	 * the threshold
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void compressStreamedPage() throws IOException
+	{
+		tester.startPage(newPage());
+		String plain = tester.getLastResponseAsString();
+
+		settings.setCompressResponse(true);
+		settings.setCompressionThreshold(Bytes.megabytes(1));
+		tester.addRequestHeader(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+		MockPageWithOneComponent page = new MockPageWithOneComponent()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean isStreamable()
+			{
+				return true;
+			}
+		};
+		page.add(new Label(MockPageWithOneComponent.COMPONENT_ID, "compressed label"));
+		tester.startPage(page);
+
+		assertEquals(ResponseCompression.GZIP,
+			tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		assertEquals(plain, new String(gunzip(tester.getLastResponse().getBinaryContent()),
+			tester.getLastResponse().getCharacterEncoding()));
+	}
+
+	/**
+	 * The response of a request in asynchronous mode is neither compressed nor completed by
+	 * {@link ServletWebResponse#close()}
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void asyncRequest() throws IOException
+	{
+		settings.setCompressResponse(true);
+		settings.setCompressionThreshold(Bytes.bytes(16));
+
+		HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+		ServletWebRequest webRequest = mock(ServletWebRequest.class);
+		when(webRequest.getContainerRequest()).thenReturn(httpServletRequest);
+		when(webRequest.getHeader(ResponseCompression.ACCEPT_ENCODING_HEADER)).thenReturn("gzip");
+
+		// started before anything is written
+		when(httpServletRequest.isAsyncStarted()).thenReturn(true);
+		MockHttpServletResponse httpServletResponse = new MockHttpServletResponse(null);
+		httpServletResponse.setContentType("text/plain");
+		ServletWebResponse response = new ServletWebResponse(webRequest, httpServletResponse);
+		response.write("asynchronous text, long enough to be compressed");
+		response.close();
+		assertNull(httpServletResponse.getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		assertEquals("asynchronous text, long enough to be compressed",
+			httpServletResponse.getDocument());
+
+		// started after the compression
+		when(httpServletRequest.isAsyncStarted()).thenReturn(false);
+		httpServletResponse = new MockHttpServletResponse(null);
+		httpServletResponse.setContentType("text/plain");
+		response = new ServletWebResponse(webRequest, httpServletResponse);
+		response.write("synchronous text, long enough to be compressed");
+		when(httpServletRequest.isAsyncStarted()).thenReturn(true);
+		int length = httpServletResponse.getBinaryContent().length;
+		response.close();
+		assertEquals(length, httpServletResponse.getBinaryContent().length);
+
+		when(httpServletRequest.isAsyncStarted()).thenReturn(false);
+		response.close();
+		assertEquals("synchronous text, long enough to be compressed", new String(
+			gunzip(httpServletResponse.getBinaryContent()), "UTF-8"));
+	}
+
+	/**
+	 * Package resources are sent compressed with the length of the compressed bytes
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void compressPackageResource() throws IOException
+	{
+		byte[] plain = IOUtils.toByteArray(ResponseCompressionTest.class.getResourceAsStream(
+			"ResponseCompressionTest.css"));
+		PackageResourceReference reference = new PackageResourceReference(
+			ResponseCompressionTest.class, "ResponseCompressionTest.css");
+
+		settings.setCompressResponse(true);
+		settings.setCompressionThreshold(Bytes.bytes(16));
+		for (int i = 0; i < 2; i++)
+		{
+			tester.addRequestHeader(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+			tester.startResourceReference(reference);
+
+			byte[] body = tester.getLastResponse().getBinaryContent();
+			assertEquals(ResponseCompression.GZIP,
+				tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+			assertEquals(String.valueOf(body.length),
+				tester.getLastResponse().getHeader("Content-Length"));
+			assertArrayEquals(plain, gunzip(body));
+		}
+
+		tester.startResourceReference(reference);
+		assertNull(tester.getLastResponse().getHeader(ResponseCompression.CONTENT_ENCODING_HEADER));
+		assertArrayEquals(plain, tester.getLastResponse().getBinaryContent());
+	}
+
+	private static MockPageWithOneComponent newPage()
+	{
+		return newPage("compressed label");
+	}
+
+	private static MockPageWithOneComponent newPage(String label)
+	{
+		MockPageWithOneComponent page = new MockPageWithOneComponent();
+		page.add(new Label(MockPageWithOneComponent.COMPONENT_ID, label));
+		return page;
+	}
+
+	private static byte[] gunzip(byte[] data) throws IOException
+	{
+		return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(data)));
+	}
+}
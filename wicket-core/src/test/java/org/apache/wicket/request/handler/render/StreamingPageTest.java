@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.handler.render;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.MarkupStream;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.protocol.http.BufferedWebResponse;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.settings.IRequestCycleSettings.RenderStrategy;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for streamed pages
+ * 
+ * @see WebPage#isStreamable()
+ */
+public class StreamingPageTest extends WicketTestCase
+{
+	/** */
+	@Before
+	public void before()
+	{
+		tester.getApplication()
+			.getRequestCycleSettings()
+			.setRenderStrategy(RenderStrategy.ONE_PASS_RENDER);
+	}
+
+	/** */
+	@Test
+	public void streamablePageIsWrittenWhileRendering()
+	{
+		StreamingPage page = new StreamingPage(true);
+		tester.startPage(page);
+
+		assertFalse(page.buffered);
+		assertTrue(page.sentBeforeBody.contains("<head><script"));
+		assertFalse(page.sentBeforeBody.contains("</body>"));
+		tester.assertContains("streamed\\(\\)");
+		tester.assertLabel("label", "label");
+		assertFalse(WebPageRenderer.isStreaming(tester.getRequestCycle()));
+	}
+
+	/** */
+	@Test
+	public void otherPagesAreBuffered()
+	{
+		StreamingPage page = new StreamingPage(false);
+		tester.startPage(page);
+
+		assertTrue(page.buffered);
+		assertEquals("", page.sentBeforeBody);
+		tester.assertLabel("label", "label");
+	}
+
+	/** */
+	public static class StreamingPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final boolean streamable;
+
+		private boolean buffered;
+
+		private String sentBeforeBody;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param streamable
+		 */
+		public StreamingPage(boolean streamable)
+		{
+			this.streamable = streamable;
+
+			add(new Label("label", "label")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onComponentTagBody(MarkupStream markupStream, ComponentTag openTag)
+				{
+					buffered = getResponse() instanceof BufferedWebResponse;
+					Object containerResponse = ((WebResponse)getResponse()).getContainerResponse();
+					sentBeforeBody = ((MockHttpServletResponse)containerResponse).getDocument();
+					super.onComponentTagBody(markupStream, openTag);
+				}
+			});
+		}
+
+		@Override
+		public boolean isStreamable()
+		{
+			return streamable;
+		}
+
+		@Override
+		public void renderHead(IHeaderResponse response)
+		{
+			super.renderHead(response);
+
+			response.render(JavaScriptHeaderItem.forScript("streamed()", null));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><head></head><body><span wicket:id='label'></span></body></html>");
+		}
+	}
+}
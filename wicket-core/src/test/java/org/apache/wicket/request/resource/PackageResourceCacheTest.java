@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.RuntimeConfigurationType;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.javascript.IJavaScriptCompressor;
+import org.apache.wicket.markup.html.PackageResourceTest;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.resource.PackageResource.CacheKey;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.time.Time;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PackageResourceCache}
+ */
+public class PackageResourceCacheTest extends WicketTestCase
+{
+	private final AtomicInteger compressions = new AtomicInteger();
+
+	private RuntimeConfigurationType configurationType = RuntimeConfigurationType.DEPLOYMENT;
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				getResourceSettings().setJavaScriptCompressor(new IJavaScriptCompressor()
+				{
+					@Override
+					public String compress(String original)
+					{
+						compressions.incrementAndGet();
+						return original.toLowerCase();
+					}
+				});
+			}
+
+			@Override
+			public RuntimeConfigurationType getConfigurationType()
+			{
+				return configurationType;
+			}
+		};
+	}
+
+	/**
+	 * A resource is processed once and then sent from the cache
+	 */
+	@Test
+	public void processOnce()
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			tester.startResource(newResource());
+			assertEquals("test", tester.getLastResponseAsString());
+		}
+
+		assertEquals(1, compressions.get());
+		assertEquals(1, getCache().getCount());
+		assertEquals(Bytes.bytes(4), getCache().getSize());
+	}
+
+	/**
+	 * Bytes processed differently are not mixed up
+	 */
+	@Test
+	public void differentProcessing()
+	{
+		tester.startResource(newResource());
+		assertEquals("test", tester.getLastResponseAsString());
+
+		JavaScriptPackageResource resource = newResource();
+		resource.setCompress(false);
+		tester.startResource(resource);
+		assertEquals("TEST", tester.getLastResponseAsString());
+	}
+
+	/**
+	 * Subclasses which do not opt in are processed for every request, only the read bytes are
+	 * cached
+	 */
+	@Test
+	public void processSubclassForEveryRequest()
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+				"packaged1.txt", null, null, null)
+			{
+			});
+			assertEquals("test", tester.getLastResponseAsString());
+		}
+
+		assertEquals(3, compressions.get());
+		assertEquals(1, getCache().getCount());
+		assertEquals(Bytes.bytes(4), getCache().getSize());
+	}
+
+	/**
+	 * The bytes read by a resource with its own resource stream are neither cached nor used by
+	 * other resources
+	 */
+	@Test
+	public void ownResourceStream()
+	{
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged1.txt", null, null, null)
+		{
+		});
+		assertEquals(1, getCache().getCount());
+
+		for (int i = 0; i < 2; i++)
+		{
+			tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+				"packaged1.txt", null, null, null)
+			{
+				@Override
+				public IResourceStream getResourceStream()
+				{
+					return new StringResourceStream("OTHER", "text/javascript");
+				}
+			});
+			assertEquals("other", tester.getLastResponseAsString());
+		}
+		assertEquals(1, getCache().getCount());
+	}
+
+	/**
+	 * Without cache every request processes the resource
+	 */
+	@Test
+	public void noCache()
+	{
+		tester.getApplication().getResourceSettings().setPackageResourceCache(null);
+
+		tester.startResource(newResource());
+		tester.startResource(newResource());
+
+		assertEquals(2, compressions.get());
+	}
+
+	/**
+	 * In development mode resources are cached only if modifications are watched
+	 */
+	@Test
+	public void developmentModeWithoutWatcher()
+	{
+		configurationType = RuntimeConfigurationType.DEVELOPMENT;
+
+		tester.startResource(newResource());
+		tester.startResource(newResource());
+
+		assertEquals(2, compressions.get());
+		assertEquals(0, getCache().getCount());
+	}
+
+	/**
+	 * The cache is bounded by the size of the cached bytes
+	 */
+	@Test
+	public void evictLeastRecentlyUsed()
+	{
+		PackageResourceCache cache = new PackageResourceCache(Bytes.bytes(10));
+		JavaScriptPackageResource resource = newResource();
+
+		CacheKey a = new CacheKey("scope", "a", null, null, null);
+		CacheKey b = new CacheKey("scope", "b", null, null, null);
+		CacheKey c = new CacheKey("scope", "c", null, null, null);
+
+		cache.put(a, newEntry(resource, 4));
+		cache.put(b, newEntry(resource, 4));
+		assertNotNull(cache.get(a));
+		cache.put(c, newEntry(resource, 4));
+
+		assertEquals(2, cache.getCount());
+		assertEquals(Bytes.bytes(8), cache.getSize());
+		assertNotNull(cache.get(a));
+		assertNull(cache.get(b));
+		assertNotNull(cache.get(c));
+
+		// the compressed bytes count, too
+		cache.put(a, cache.get(a).withCompressedBytes(new byte[3]));
+		assertEquals(1, cache.getCount());
+		assertEquals(Bytes.bytes(7), cache.getSize());
+		assertNull(cache.get(c));
+
+		// too large to be cached at all
+		cache.put(b, newEntry(resource, 11));
+		assertNull(cache.get(b));
+		assertEquals(1, cache.getCount());
+
+		cache.clear();
+		assertEquals(0, cache.getCount());
+		assertEquals(Bytes.bytes(0), cache.getSize());
+	}
+
+	private PackageResourceCache getCache()
+	{
+		return tester.getApplication().getResourceSettings().getPackageResourceCache();
+	}
+
+	private static PackageResourceCache.Entry newEntry(PackageResource resource, int size)
+	{
+		return new PackageResourceCache.Entry(resource, Time.now(), "text/plain", new byte[size],
+			null);
+	}
+
+	private static JavaScriptPackageResource newResource()
+	{
+		return new JavaScriptPackageResource(PackageResourceTest.class, "packaged1.txt", null,
+			null, null);
+	}
+}
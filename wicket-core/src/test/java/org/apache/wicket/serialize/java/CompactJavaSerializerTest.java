@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.Serializable;
+
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.model.Model;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CompactJavaSerializer}
+ */
+public class CompactJavaSerializerTest extends WicketTestCase
+{
+	/**
+	 * A component tree can be serialized and deserialized
+	 */
+	@Test
+	public void roundTrip()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer("CompactJavaSerializerTest");
+
+		byte[] bytes = serializer.serialize(newTree());
+		assertNotNull(bytes);
+
+		MarkupContainer root = (MarkupContainer)serializer.deserialize(bytes);
+		assertEquals("root", root.getId());
+		assertEquals(11, root.size());
+		Component label = root.get("child0:label");
+		assertEquals("value 0", label.getDefaultModelObject());
+		assertEquals(1, label.getBehaviors().size());
+		assertEquals(new Value("state", 42), root.get("child3").getDefaultModelObject());
+	}
+
+	/**
+	 * The compact descriptors make the serialized data smaller
+	 */
+	@Test
+	public void smallerThanJavaSerializer()
+	{
+		Object tree = newTree();
+		byte[] compact = new CompactJavaSerializer("CompactJavaSerializerTest").serialize(tree);
+		byte[] java = new JavaSerializer("CompactJavaSerializerTest").serialize(tree);
+
+		assertTrue(compact.length + " < " + java.length, compact.length < java.length);
+	}
+
+	/**
+	 * Registered application classes are written as ids
+	 */
+	@Test
+	public void registeredClass()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer("CompactJavaSerializerTest");
+		byte[] unregistered = serializer.serialize(new Value("state", 1));
+
+		serializer = new CompactJavaSerializer("CompactJavaSerializerTest").register(Value.class);
+		assertTrue(serializer.isRegistered(Value.class));
+		byte[] registered = serializer.serialize(new Value("state", 1));
+
+		assertTrue(registered.length < unregistered.length);
+		assertEquals(new Value("state", 1), serializer.deserialize(registered));
+	}
+
+	/**
+	 * Data serialized with different registered classes is not deserialized
+	 */
+	@Test(expected = RuntimeException.class)
+	public void differentRegistry()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer("CompactJavaSerializerTest").register(Value.class);
+		byte[] bytes = serializer.serialize(new Value("state", 1));
+
+		new CompactJavaSerializer("CompactJavaSerializerTest").deserialize(bytes);
+	}
+
+	/**
+	 * Classes cannot be registered once the ids are in use
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void registerAfterUse()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer("CompactJavaSerializerTest");
+		serializer.serialize("used");
+
+		serializer.register(Value.class);
+	}
+
+	/**
+	 * Serialization errors produce {@code null} like in {@link JavaSerializer}
+	 */
+	@Test
+	public void notSerializable()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer("CompactJavaSerializerTest");
+		WebComponent component = new WebComponent("id", new Model<Serializable>()
+		{
+			@SuppressWarnings("unused")
+			private final Object member = new Object();
+		});
+
+		assertNull(serializer.serialize(component));
+		// the buffer is still usable
+		assertEquals("after", serializer.deserialize(serializer.serialize("after")));
+	}
+
+	private static MarkupContainer newTree()
+	{
+		WebMarkupContainer root = new WebMarkupContainer("root");
+		for (int i = 0; i < 10; i++)
+		{
+			WebMarkupContainer child = new WebMarkupContainer("child" + i);
+			Label label = new Label("label", Model.of("value " + i));
+			label.add(AttributeModifier.replace("class", "c" + i));
+			child.add(label);
+			root.add(child);
+		}
+		root.get("child3").setDefaultModel(Model.of(new Value("state", 42)));
+		root.add(new WebMarkupContainer("last"));
+		return root;
+	}
+
+	private static class Value implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+
+		private final int number;
+
+		private Value(String name, int number)
+		{
+			this.name = name;
+			this.number = number;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj instanceof Value)
+			{
+				Value other = (Value)obj;
+				return name.equals(other.name) && number == other.number;
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return name.hashCode() * 31 + number;
+		}
+	}
+}
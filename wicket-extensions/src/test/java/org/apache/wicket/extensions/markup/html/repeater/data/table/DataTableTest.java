@@ -26,6 +26,8 @@ import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketTestCase;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.repeater.data.Batch;
+import org.apache.wicket.markup.repeater.data.IBatchDataProvider;
 import org.apache.wicket.markup.repeater.data.IDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
@@ -122,6 +124,110 @@ public class DataTableTest extends WicketTestCase
 
 	}
 
+	/**
+	 * A {@link DataTable} with an {@link IBatchDataProvider} loads the count and the rows of the
+	 * current page with batches only
+	 */
+	@Test
+	public void batchDataProvider()
+	{
+		BatchPage page = new BatchPage();
+		tester.startPage(page);
+		tester.assertRenderedPage(BatchPage.class);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains(">10</div>"));
+		assertFalse(document.contains(">11</div>"));
+		assertTrue(page.provider.batches > 0);
+		assertTrue(page.provider.batches <= 2);
+
+		page.table.setCurrentPage(2);
+		tester.startPage(page);
+
+		document = tester.getLastResponseAsString();
+		assertTrue(document.contains(">25</div>"));
+		assertFalse(document.contains(">20</div>"));
+	}
+
+	/**
+	 * A provider which fails unless used with batches
+	 */
+	private static class BatchProvider implements IBatchDataProvider<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int batches;
+
+		@Override
+		public Batch<Integer> batch(long first, long count)
+		{
+			batches++;
+
+			List<IModel<Integer>> models = new ArrayList<IModel<Integer>>();
+			for (long i = first; i < Math.min(25, first + count); i++)
+			{
+				models.add(Model.of((int)i + 1));
+			}
+			return new Batch<Integer>(models, 25);
+		}
+
+		@Override
+		public Iterator<? extends Integer> iterator(long first, long count)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long size()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public IModel<Integer> model(Integer object)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void detach()
+		{
+		}
+	}
+
+	/**
+	 * A page with a paged DataTable using a {@link BatchProvider}
+	 */
+	public static class BatchPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final BatchProvider provider = new BatchProvider();
+
+		private final DataTable<Integer, String> table;
+
+		/**
+		 * Construct.
+		 */
+		public BatchPage()
+		{
+			List<IColumn<Integer, String>> columns = new ArrayList<IColumn<Integer, String>>();
+			columns.add(new PropertyColumn<Integer, String>(Model.of("value"), "intValue"));
+
+			table = new DataTable<Integer, String>("table", columns, provider, 10);
+			table.addTopToolbar(new NavigationToolbar(table));
+			add(table);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><table wicket:id='table'></table></body></html>");
+		}
+	}
+
 	/**
 	 * A page with a DataTable that either has items (tbody) or header and footer (thead/tfoot)
 	 */
@@ -192,6 +192,10 @@ public class Initializer implements IInitializer
 				":type=Application,name=SessionSettings"));
 			register(new StoreSettings(application), new ObjectName(domain +
 				":type=Application,name=StoreSettings"));
+			register(new PageAccess(application), new ObjectName(domain +
+				":type=Application,name=PageAccess"));
+			register(new RenderStatistics(application), new ObjectName(domain +
+				":type=Application,name=RenderStatistics"));
 
 			RequestLogger sessionsBean = new RequestLogger(application);
 			ObjectName sessionsBeanName = new ObjectName(domain + ":type=RequestLogger");
@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.jmx;
 
+import org.apache.wicket.markup.IMarkupCache;
+import org.apache.wicket.markup.MarkupCache;
+import org.apache.wicket.markup.MarkupCacheStatistics;
 
 /**
  * Exposes Application related functionality for JMX.
@@ -90,6 +93,78 @@ public class MarkupSettings implements MarkupSettingsMBean
 		return application.getMarkupSettings().getStripComments();
 	}
 
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheSize()
+	 */
+	@Override
+	public int getMarkupCacheSize()
+	{
+		return application.getMarkupSettings().getMarkupCacheSize();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheCount()
+	 */
+	@Override
+	public int getMarkupCacheCount()
+	{
+		IMarkupCache cache = getMarkupCache();
+		return cache != null ? cache.size() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheHits()
+	 */
+	@Override
+	public long getMarkupCacheHits()
+	{
+		MarkupCacheStatistics statistics = getMarkupCacheStatistics();
+		return statistics != null ? statistics.getHits() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheMisses()
+	 */
+	@Override
+	public long getMarkupCacheMisses()
+	{
+		MarkupCacheStatistics statistics = getMarkupCacheStatistics();
+		return statistics != null ? statistics.getMisses() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheLoads()
+	 */
+	@Override
+	public long getMarkupCacheLoads()
+	{
+		MarkupCacheStatistics statistics = getMarkupCacheStatistics();
+		return statistics != null ? statistics.getLoads() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getMarkupCacheAverageLoadTime()
+	 */
+	@Override
+	public double getMarkupCacheAverageLoadTime()
+	{
+		MarkupCacheStatistics statistics = getMarkupCacheStatistics();
+		return statistics != null ? statistics.getAverageLoadTime() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#resetMarkupCacheStatistics()
+	 */
+	@Override
+	public void resetMarkupCacheStatistics()
+	{
+		MarkupCacheStatistics statistics = getMarkupCacheStatistics();
+		if (statistics != null)
+		{
+			statistics.reset();
+		}
+	}
+
 	/**
 	 * @see org.apache.wicket.jmx.MarkupSettingsMBean#getStripWicketTags()
 	 */
@@ -161,4 +236,15 @@ public class MarkupSettings implements MarkupSettingsMBean
 	{
 		application.getMarkupSettings().setStripWicketTags(stripWicketTags);
 	}
+
+	private IMarkupCache getMarkupCache()
+	{
+		return application.getMarkupSettings().getMarkupFactory().getMarkupCache();
+	}
+
+	private MarkupCacheStatistics getMarkupCacheStatistics()
+	{
+		IMarkupCache cache = getMarkupCache();
+		return cache instanceof MarkupCache ? ((MarkupCache)cache).getStatistics() : null;
+	}
 }
@@ -63,6 +63,42 @@ public interface MarkupSettingsMBean
 	 */
 	boolean getStripComments();
 
+	/**
+	 * @return the maximum number of cached markups, 0 for no limit
+	 * @see IMarkupSettings#setMarkupCacheSize(int)
+	 */
+	int getMarkupCacheSize();
+
+	/**
+	 * @return the number of markups currently cached
+	 */
+	int getMarkupCacheCount();
+
+	/**
+	 * @return the number of markups found in the markup cache
+	 */
+	long getMarkupCacheHits();
+
+	/**
+	 * @return the number of markups not found in the markup cache
+	 */
+	long getMarkupCacheMisses();
+
+	/**
+	 * @return the number of markups loaded from their resource streams
+	 */
+	long getMarkupCacheLoads();
+
+	/**
+	 * @return the average time needed to load a markup, in milliseconds
+	 */
+	double getMarkupCacheAverageLoadTime();
+
+	/**
+	 * Resets the counters of the markup cache.
+	 */
+	void resetMarkupCacheStatistics();
+
 	/**
 	 * Gets whether to remove wicket tags from the output.
 	 * 
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+/**
+ * Exposes Application's {@link org.apache.wicket.page.PageAccessStatistics} for JMX.
+ */
+public class PageAccess implements PageAccessMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 */
+	public PageAccess(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	@Override
+	public long getAcquiredLocks()
+	{
+		return application.getPageAccessStatistics().getAcquiredLocks();
+	}
+
+	@Override
+	public long getContendedLocks()
+	{
+		return application.getPageAccessStatistics().getContendedLocks();
+	}
+
+	@Override
+	public long getFailedLocks()
+	{
+		return application.getPageAccessStatistics().getFailedLocks();
+	}
+
+	@Override
+	public long getTotalWaitTime()
+	{
+		return application.getPageAccessStatistics().getTotalWaitTime();
+	}
+
+	@Override
+	public long getMaxWaitTime()
+	{
+		return application.getPageAccessStatistics().getMaxWaitTime();
+	}
+
+	@Override
+	public void reset()
+	{
+		application.getPageAccessStatistics().reset();
+	}
+}
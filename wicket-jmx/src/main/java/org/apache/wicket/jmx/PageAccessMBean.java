@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+/**
+ * JMX MBean for the statistics about the page locks acquired by the sessions of an application
+ * 
+ * @see org.apache.wicket.page.PageAccessStatistics
+ */
+public interface PageAccessMBean
+{
+	/**
+	 * @return the number of acquired page locks
+	 */
+	long getAcquiredLocks();
+
+	/**
+	 * @return the number of acquired page locks for which the thread had to wait for another
+	 *         thread
+	 */
+	long getContendedLocks();
+
+	/**
+	 * @return the number of page locks which could not be acquired in time
+	 */
+	long getFailedLocks();
+
+	/**
+	 * @return the total time threads waited for page locks, in milliseconds
+	 */
+	long getTotalWaitTime();
+
+	/**
+	 * @return the longest time a thread waited for a page lock, in milliseconds
+	 */
+	long getMaxWaitTime();
+
+	/**
+	 * Resets the counters.
+	 */
+	void reset();
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import java.util.List;
+
+import org.apache.wicket.core.instrument.ClassStatistics;
+import org.apache.wicket.core.instrument.IRenderInstrumentation;
+import org.apache.wicket.core.instrument.Measure;
+
+/**
+ * Exposes Application's {@link org.apache.wicket.core.instrument.RenderStatistics} for JMX.
+ */
+public class RenderStatistics implements RenderStatisticsMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 */
+	public RenderStatistics(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return getRenderStatistics() != null;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		if (enabled != isEnabled())
+		{
+			application.setRenderInstrumentation(enabled
+				? new org.apache.wicket.core.instrument.RenderStatistics() : null);
+		}
+	}
+
+	@Override
+	public String[] getStatistics()
+	{
+		org.apache.wicket.core.instrument.RenderStatistics statistics = getRenderStatistics();
+		if (statistics == null)
+		{
+			return new String[0];
+		}
+
+		List<ClassStatistics> list = statistics.getStatistics(Measure.RENDER);
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = list.get(i).toString();
+		}
+		return result;
+	}
+
+	@Override
+	public void reset()
+	{
+		org.apache.wicket.core.instrument.RenderStatistics statistics = getRenderStatistics();
+		if (statistics != null)
+		{
+			statistics.reset();
+		}
+	}
+
+	private org.apache.wicket.core.instrument.RenderStatistics getRenderStatistics()
+	{
+		IRenderInstrumentation instrumentation = application.getRenderInstrumentation();
+		if (instrumentation instanceof org.apache.wicket.core.instrument.RenderStatistics)
+		{
+			return (org.apache.wicket.core.instrument.RenderStatistics)instrumentation;
+		}
+		return null;
+	}
+}
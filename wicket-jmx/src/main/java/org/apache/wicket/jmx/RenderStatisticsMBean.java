@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+/**
+ * JMX MBean for the render times of the components of an application
+ * 
+ * @see org.apache.wicket.core.instrument.RenderStatistics
+ */
+public interface RenderStatisticsMBean
+{
+	/**
+	 * @return whether render times are collected
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Starts or stops collecting render times. Disabled by default.
+	 * 
+	 * @param enabled
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return the statistics per class of components and models, the ones with the longest total
+	 *         render time first
+	 */
+	String[] getStatistics();
+
+	/**
+	 * Forgets the collected render times.
+	 */
+	void reset();
+}
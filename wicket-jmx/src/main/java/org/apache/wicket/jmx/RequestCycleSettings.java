@@ -47,6 +47,24 @@ public class RequestCycleSettings implements RequestCycleSettingsMBean
 		return application.getRequestCycleSettings().getBufferResponse();
 	}
 
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getCompressResponse()
+	 */
+	@Override
+	public boolean getCompressResponse()
+	{
+		return application.getRequestCycleSettings().getCompressResponse();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getCompressionThreshold()
+	 */
+	@Override
+	public String getCompressionThreshold()
+	{
+		return application.getRequestCycleSettings().getCompressionThreshold().toString();
+	}
+
 	/**
 	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getGatherExtendedBrowserInfo()
 	 */
@@ -83,6 +101,15 @@ public class RequestCycleSettings implements RequestCycleSettingsMBean
 		application.getRequestCycleSettings().setBufferResponse(bufferResponse);
 	}
 
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#setCompressResponse(boolean)
+	 */
+	@Override
+	public void setCompressResponse(final boolean compressResponse)
+	{
+		application.getRequestCycleSettings().setCompressResponse(compressResponse);
+	}
+
 	/**
 	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#setGatherExtendedBrowserInfo(boolean)
 	 */
@@ -122,4 +149,49 @@ public class RequestCycleSettings implements RequestCycleSettingsMBean
 	{
 		return application.getRequestCycleSettings().getExceptionRetryCount();
 	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getUrlCacheSize()
+	 */
+	@Override
+	public int getUrlCacheSize()
+	{
+		return application.getRequestCycleSettings().getUrlCacheSize();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#setUrlCacheSize(int)
+	 */
+	@Override
+	public void setUrlCacheSize(final int urlCacheSize)
+	{
+		application.getRequestCycleSettings().setUrlCacheSize(urlCacheSize);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getUrlCacheMapHitRatio()
+	 */
+	@Override
+	public double getUrlCacheMapHitRatio()
+	{
+		return application.getUrlCacheStatistics().getMapHitRatio();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#getUrlCacheStatistics()
+	 */
+	@Override
+	public String getUrlCacheStatistics()
+	{
+		return application.getUrlCacheStatistics().toString();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RequestCycleSettingsMBean#resetUrlCacheStatistics()
+	 */
+	@Override
+	public void resetUrlCacheStatistics()
+	{
+		application.getUrlCacheStatistics().reset();
+	}
 }
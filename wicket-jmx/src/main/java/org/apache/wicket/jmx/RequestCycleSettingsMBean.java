@@ -30,6 +30,16 @@ public interface RequestCycleSettingsMBean
 	 */
 	boolean getBufferResponse();
 
+	/**
+	 * @return True if this application compresses textual responses for clients accepting gzip
+	 */
+	boolean getCompressResponse();
+
+	/**
+	 * @return The size below which responses are not compressed
+	 */
+	String getCompressionThreshold();
+
 	/**
 	 * Gets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -63,6 +73,12 @@ public interface RequestCycleSettingsMBean
 	 */
 	void setBufferResponse(boolean bufferResponse);
 
+	/**
+	 * @param compressResponse
+	 *            True if this application should compress textual responses.
+	 */
+	void setCompressResponse(boolean compressResponse);
+
 	/**
 	 * Sets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -108,4 +124,30 @@ public interface RequestCycleSettingsMBean
 	 *         giving up.
 	 */
 	int getExceptionRetryCount();
+
+	/**
+	 * @return the maximum number of Urls remembered by the system mapper, 0 if disabled
+	 */
+	int getUrlCacheSize();
+
+	/**
+	 * @param urlCacheSize
+	 *            the maximum number of Urls remembered by the system mapper, 0 to disable
+	 */
+	void setUrlCacheSize(int urlCacheSize);
+
+	/**
+	 * @return the ratio of Urls of handlers found in the url cache
+	 */
+	double getUrlCacheMapHitRatio();
+
+	/**
+	 * @return the counters of the url cache
+	 */
+	String getUrlCacheStatistics();
+
+	/**
+	 * Resets the counters of the url cache.
+	 */
+	void resetUrlCacheStatistics();
 }
@@ -19,6 +19,7 @@ package org.apache.wicket.jmx;
 import java.util.List;
 
 import org.apache.wicket.ThreadContext;
+import org.apache.wicket.request.resource.PackageResourceCache;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.lang.Generics;
@@ -94,6 +95,39 @@ public class ResourceSettings implements ResourceSettingsMBean
 		return builder.toString();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPackageResourceCacheCount()
+	{
+		PackageResourceCache cache = application.getResourceSettings().getPackageResourceCache();
+		return (cache != null) ? cache.getCount() : 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getPackageResourceCacheSize()
+	{
+		PackageResourceCache cache = application.getResourceSettings().getPackageResourceCache();
+		return (cache != null) ? cache.getSize().toString() : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearPackageResourceCache()
+	{
+		PackageResourceCache cache = application.getResourceSettings().getPackageResourceCache();
+		if (cache != null)
+		{
+			cache.clear();
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
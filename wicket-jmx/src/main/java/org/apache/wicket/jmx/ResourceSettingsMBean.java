@@ -42,6 +42,22 @@ public interface ResourceSettingsMBean
 	 */
 	String getPackageResourceGuard();
 
+	/**
+	 * @return the number of package resources in the cache, 0 if there is no cache
+	 */
+	int getPackageResourceCacheCount();
+
+	/**
+	 * @return the total size of the package resources in the cache, or {@code null} if there is
+	 *         no cache
+	 */
+	String getPackageResourceCacheSize();
+
+	/**
+	 * Removes all package resources from the cache
+	 */
+	void clearPackageResourceCache();
+
 	/**
 	 * Get the property factory which will be used to load property files
 	 * 
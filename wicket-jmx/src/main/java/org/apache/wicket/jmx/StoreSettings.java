@@ -41,6 +41,48 @@ public class StoreSettings implements StoreSettingsMBean
 		return application.getStoreSettings().getInmemoryCacheSize();
 	}
 
+	@Override
+	public long getInmemoryCacheMaxBytes()
+	{
+		return application.getStoreSettings().getInmemoryCacheMaxBytes().bytes();
+	}
+
+	@Override
+	public long getInmemoryCacheHits()
+	{
+		return application.getPageCacheStatistics().getHits();
+	}
+
+	@Override
+	public long getInmemoryCacheMisses()
+	{
+		return application.getPageCacheStatistics().getMisses();
+	}
+
+	@Override
+	public long getInmemoryCacheEvictions()
+	{
+		return application.getPageCacheStatistics().getEvictions();
+	}
+
+	@Override
+	public long getInmemoryCachePages()
+	{
+		return application.getPageCacheStatistics().getPages();
+	}
+
+	@Override
+	public long getInmemoryCacheBytes()
+	{
+		return application.getPageCacheStatistics().getBytes();
+	}
+
+	@Override
+	public void resetInmemoryCacheStatistics()
+	{
+		application.getPageCacheStatistics().reset();
+	}
+
 	@Override
 	public long getMaxSizePerSession()
 	{
@@ -53,12 +95,24 @@ public class StoreSettings implements StoreSettingsMBean
 		return application.getStoreSettings().getFileStoreFolder().getAbsolutePath();
 	}
 
+	@Override
+	public int getFileChannelPoolCapacity()
+	{
+		return application.getStoreSettings().getFileChannelPoolCapacity();
+	}
+
 	@Override
 	public int getAsynchronousQueueCapacity()
 	{
 		return application.getStoreSettings().getAsynchronousQueueCapacity();
 	}
 
+	@Override
+	public int getAsynchronousWriterThreads()
+	{
+		return application.getStoreSettings().getAsynchronousWriterThreads();
+	}
+
 	@Override
 	public boolean isAsynchronous()
 	{
@@ -31,6 +31,42 @@ public interface StoreSettingsMBean
 	 */
 	int getInmemoryCacheSize();
 
+	/**
+	 * @return the maximum size of the page instances stored in the application scoped cache, in
+	 *         bytes
+	 */
+	long getInmemoryCacheMaxBytes();
+
+	/**
+	 * @return the number of pages found in the application scoped cache
+	 */
+	long getInmemoryCacheHits();
+
+	/**
+	 * @return the number of pages not found in the application scoped cache
+	 */
+	long getInmemoryCacheMisses();
+
+	/**
+	 * @return the number of pages evicted from the application scoped cache
+	 */
+	long getInmemoryCacheEvictions();
+
+	/**
+	 * @return the number of pages currently in the application scoped cache
+	 */
+	long getInmemoryCachePages();
+
+	/**
+	 * @return the size of the pages currently in the application scoped cache, in bytes
+	 */
+	long getInmemoryCacheBytes();
+
+	/**
+	 * Resets the hit, miss and eviction counters of the application scoped cache
+	 */
+	void resetInmemoryCacheStatistics();
+
 	/**
 	 * @return maximum page size. After this size is exceeded, the {@link DiskDataStore} will start
 	 *         saving the pages at the beginning of file.
@@ -43,11 +79,21 @@ public interface StoreSettingsMBean
 	 */
 	String getFileStoreFolder();
 
+	/**
+	 * @return the maximum number of session files which {@link DiskDataStore} keeps open
+	 */
+	int getFileChannelPoolCapacity();
+
 	/**
 	 * @return the capacity of the queue used to store the pages which will be stored asynchronously
 	 */
 	int getAsynchronousQueueCapacity();
 
+	/**
+	 * @return the number of threads which write the pages stored asynchronously
+	 */
+	int getAsynchronousWriterThreads();
+
 	/**
 	 * @return {@code true} when the HTTP worker thread doesn't wait for the storing of the page's
 	 *         bytes in {@link IDataStore}
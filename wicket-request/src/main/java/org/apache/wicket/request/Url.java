@@ -288,41 +288,33 @@ public class Url implements Serializable
 
 		if (relativeUrl.length() > 0)
 		{
-			boolean removeLast = false;
-			if (relativeUrl.endsWith("/"))
+			// split without intermediate arrays, keeping empty segments (also a trailing one)
+			int start = 0;
+			int slashAt;
+			while ((slashAt = relativeUrl.indexOf('/', start)) != -1)
 			{
-				// we need to append something and remove it after splitting
-				// because otherwise the
-				// trailing slashes will be lost
-				relativeUrl += "/x";
-				removeLast = true;
-			}
-
-			String segmentArray[] = Strings.split(relativeUrl, '/');
-
-			if (removeLast)
-			{
-				segmentArray[segmentArray.length - 1] = null;
-			}
-
-			for (String s : segmentArray)
-			{
-				if (s != null)
-				{
-					result.segments.add(decodeSegment(s, charset));
-				}
+				result.segments.add(decodeSegment(relativeUrl.substring(start, slashAt), charset));
+				start = slashAt + 1;
 			}
+			result.segments.add(decodeSegment(relativeUrl.substring(start), charset));
 		}
 
 		if (queryString.length() > 0)
 		{
-			String queryArray[] = Strings.split(queryString, '&');
-			for (String s : queryArray)
+			int start = 0;
+			while (start < queryString.length())
 			{
-				if (Strings.isEmpty(s) == false)
+				int ampersandAt = queryString.indexOf('&', start);
+				if (ampersandAt == -1)
+				{
+					ampersandAt = queryString.length();
+				}
+				if (ampersandAt > start)
 				{
-					result.parameters.add(parseQueryParameter(s, charset));
+					result.parameters.add(parseQueryParameter(
+						queryString.substring(start, ampersandAt), charset));
 				}
+				start = ampersandAt + 1;
 			}
 		}
 
@@ -939,13 +931,18 @@ public class Url implements Serializable
 		public String toString(final Charset charset)
 		{
 			StringBuilder result = new StringBuilder();
+			appendTo(result, charset);
+			return result.toString();
+		}
+
+		private void appendTo(final StringBuilder result, final Charset charset)
+		{
 			result.append(encodeParameter(getName(), charset));
 			if (!Strings.isEmpty(getValue()))
 			{
 				result.append('=');
 				result.append(encodeParameter(getValue(), charset));
 			}
-			return result.toString();
 		}
 	}
 
@@ -1149,7 +1146,7 @@ public class Url implements Serializable
 				{
 					query.append('&');
 				}
-				query.append(parameter.toString(charset));
+				parameter.appendTo(query, charset);
 			}
 			queryString = query.toString();
 		}
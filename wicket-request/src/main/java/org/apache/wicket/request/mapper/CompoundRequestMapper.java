@@ -18,10 +18,13 @@ package org.apache.wicket.request.mapper;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.wicket.request.IRequestHandler;
@@ -36,6 +39,10 @@ import org.slf4j.LoggerFactory;
  * Thread safe compound {@link IRequestMapper}. The mappers are searched depending on their
  * compatibility score and the orders they were registered. If two or more {@link IRequestMapper}s
  * have the same compatibility score, the last registered mapper has highest priority.
+ * <p>
+ * {@link IIndexableRequestMapper}s which are {@link IIndexableRequestMapper#isIndexable()
+ * indexable} are indexed by their url prefixes and handler keys, so only the ones which can map a
+ * request or handler are asked, no matter how many pages and resources are mounted.
  * 
  * @author igor.vaynberg
  * @author Matej Knopp
@@ -100,27 +107,257 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 		}
 	}
 
+	/**
+	 * An index of the registered mappers: a trie of the url prefixes of the
+	 * {@link IIndexableRequestMapper}s for requests and their handler keys for handlers. Immutable,
+	 * built on demand after the mappers changed.
+	 */
+	private static final class MapperIndex
+	{
+		/** the registered mappers, the most recently registered first */
+		private final IRequestMapper[] mappers;
+
+		/** the positions of the mappers which are not indexed */
+		private int[] unindexed = EMPTY;
+
+		/** the root of the trie of url prefixes */
+		private final Node root = new Node();
+
+		/** mapper class => handler key => positions of mappers */
+		private final Map<Class<?>, HandlerIndex> handlerIndexes = new HashMap<Class<?>, HandlerIndex>();
+
+		private MapperIndex(final List<IRequestMapper> list)
+		{
+			mappers = list.toArray(new IRequestMapper[list.size()]);
+
+			for (int i = 0; i < mappers.length; i++)
+			{
+				if (mappers[i] instanceof IIndexableRequestMapper &&
+					((IIndexableRequestMapper)mappers[i]).isIndexable())
+				{
+					IIndexableRequestMapper mapper = (IIndexableRequestMapper)mappers[i];
+
+					Node node = root;
+					for (String segment : mapper.getUrlPrefix())
+					{
+						node = node.getChild(segment);
+					}
+					node.positions = append(node.positions, i);
+
+					HandlerIndex handlerIndex = handlerIndexes.get(mapper.getClass());
+					if (handlerIndex == null)
+					{
+						handlerIndex = new HandlerIndex(mapper);
+						handlerIndexes.put(mapper.getClass(), handlerIndex);
+					}
+					handlerIndex.add(mapper.getHandlerKey(), i);
+				}
+				else
+				{
+					unindexed = append(unindexed, i);
+					root.positions = append(root.positions, i);
+				}
+			}
+		}
+
+		/**
+		 * @param url
+		 * @return the mappers which might map the url, the most recently registered first
+		 */
+		private List<IRequestMapper> getCandidates(final Url url)
+		{
+			List<String> segments = url.getSegments();
+			if (segments.isEmpty())
+			{
+				// all mappers, e.g. mounted mappers redirect from the home page
+				return Arrays.asList(mappers);
+			}
+
+			int[] positions = root.positions;
+			Node node = root;
+			for (String segment : segments)
+			{
+				node = node.children != null ? node.children.get(segment) : null;
+				if (node == null)
+				{
+					break;
+				}
+				positions = merge(positions, node.positions);
+			}
+			return getMappers(positions);
+		}
+
+		/**
+		 * @param handler
+		 * @return the mappers which might map the handler, the most recently registered first
+		 */
+		private List<IRequestMapper> getCandidates(final IRequestHandler handler)
+		{
+			int[] positions = unindexed;
+			for (HandlerIndex handlerIndex : handlerIndexes.values())
+			{
+				Object key = handlerIndex.mapper.getHandlerKey(handler);
+				if (key != null)
+				{
+					int[] keyed = handlerIndex.positions.get(key);
+					if (keyed != null)
+					{
+						positions = merge(positions, keyed);
+					}
+				}
+			}
+			return getMappers(positions);
+		}
+
+		private List<IRequestMapper> getMappers(final int[] positions)
+		{
+			List<IRequestMapper> list = new ArrayList<IRequestMapper>(positions.length);
+			for (int position : positions)
+			{
+				list.add(mappers[position]);
+			}
+			return list;
+		}
+	}
+
+	private static final int[] EMPTY = new int[0];
+
+	private static int[] append(final int[] positions, final int position)
+	{
+		int[] result = Arrays.copyOf(positions, positions.length + 1);
+		result[positions.length] = position;
+		return result;
+	}
+
+	/**
+	 * Merges two ascending arrays of positions.
+	 */
+	private static int[] merge(final int[] a, final int[] b)
+	{
+		if (a.length == 0)
+		{
+			return b;
+		}
+		else if (b.length == 0)
+		{
+			return a;
+		}
+
+		int[] result = new int[a.length + b.length];
+		int i = 0, j = 0, k = 0;
+		while (i < a.length && j < b.length)
+		{
+			result[k++] = a[i] < b[j] ? a[i++] : b[j++];
+		}
+		while (i < a.length)
+		{
+			result[k++] = a[i++];
+		}
+		while (j < b.length)
+		{
+			result[k++] = b[j++];
+		}
+		return result;
+	}
+
+	/**
+	 * A node of the trie of url prefixes
+	 */
+	private static final class Node
+	{
+		/** the positions of the mappers whose prefix ends here */
+		private int[] positions = EMPTY;
+
+		private Map<String, Node> children;
+
+		private Node getChild(final String segment)
+		{
+			if (children == null)
+			{
+				children = new HashMap<String, Node>();
+			}
+			Node child = children.get(segment);
+			if (child == null)
+			{
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * The mappers of one class by their handler keys
+	 */
+	private static final class HandlerIndex
+	{
+		/** a mapper of the class, asked for the keys of handlers */
+		private final IIndexableRequestMapper mapper;
+
+		private final Map<Object, int[]> positions = new HashMap<Object, int[]>();
+
+		private HandlerIndex(final IIndexableRequestMapper mapper)
+		{
+			this.mapper = mapper;
+		}
+
+		private void add(final Object key, final int position)
+		{
+			int[] keyed = positions.get(key);
+			positions.put(key, append(keyed != null ? keyed : EMPTY, position));
+		}
+	}
+
 	private final List<IRequestMapper> mappers = new CopyOnWriteArrayList<IRequestMapper>();
 
+	/** the index of {@link #mappers}, {@code null} until needed after they changed */
+	private volatile MapperIndex index;
+
 	@Override
 	public CompoundRequestMapper add(final IRequestMapper mapper)
 	{
-		mappers.add(0, mapper);
+		synchronized (mappers)
+		{
+			mappers.add(0, mapper);
+			index = null;
+		}
 		return this;
 	}
 
 	@Override
 	public CompoundRequestMapper remove(final IRequestMapper mapper)
 	{
-		mappers.remove(mapper);
+		synchronized (mappers)
+		{
+			mappers.remove(mapper);
+			index = null;
+		}
 		return this;
 	}
 
+	private MapperIndex getIndex()
+	{
+		MapperIndex current = index;
+		if (current == null)
+		{
+			synchronized (mappers)
+			{
+				current = index;
+				if (current == null)
+				{
+					current = new MapperIndex(mappers);
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the {@link Request}.
-	 * Each registered {@link IRequestMapper} is asked to provide its compatibility score. Then the
-	 * mappers are asked to map the request in order depending on the provided compatibility
-	 * score.
+	 * Each registered {@link IRequestMapper} which might map the request according to the index is
+	 * asked to provide its compatibility score. Then the mappers are asked to map the request in
+	 * order depending on the provided compatibility score.
 	 * <p>
 	 * The mapper with highest compatibility score which can map the request is returned.
 	 * 
@@ -131,9 +368,10 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public IRequestHandler mapRequest(final Request request)
 	{
-		List<MapperWithScore> list = new ArrayList<MapperWithScore>(mappers.size());
+		List<IRequestMapper> candidates = getIndex().getCandidates(request.getUrl());
+		List<MapperWithScore> list = new ArrayList<MapperWithScore>(candidates.size());
 
-		for (IRequestMapper mapper : mappers)
+		for (IRequestMapper mapper : candidates)
 		{
 			int score = mapper.getCompatibilityScore(request);
 			list.add(new MapperWithScore(mapper, score));
@@ -197,9 +435,9 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the
-	 * {@link IRequestHandler}. Each registered {@link IRequestMapper} is asked to map the
-	 * {@link IRequestHandler} until a mapper which can map the {@link IRequestHandler} is found or
-	 * no more mappers are left.
+	 * {@link IRequestHandler}. Each registered {@link IRequestMapper} which might map the handler
+	 * according to the index is asked to map the {@link IRequestHandler} until a mapper which can
+	 * map the {@link IRequestHandler} is found or no more mappers are left.
 	 * <p>
 	 * The mappers are searched in reverse order as they have been registered. More recently
 	 * registered mappers have bigger priority.
@@ -210,7 +448,7 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public Url mapHandler(final IRequestHandler handler)
 	{
-		for (IRequestMapper mapper : mappers)
+		for (IRequestMapper mapper : getIndex().getCandidates(handler))
 		{
 			Url url = mapper.mapHandler(handler);
 			if (url != null)
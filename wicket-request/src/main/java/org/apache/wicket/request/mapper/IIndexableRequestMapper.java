@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+
+/**
+ * A request mapper which tells {@link CompoundRequestMapper} which urls and handlers it can map,
+ * so that the compound mapper can find the candidates for a request or handler with an index
+ * instead of asking all of its mappers. Useful for mappers which are registered many times, e.g.
+ * one per mounted page.
+ * <p>
+ * The answers must not change once the mapper is registered. Mappers are only indexed if they
+ * opt in with {@link #isIndexable()}, implementations should not allow it for subclasses which
+ * might map other urls or handlers.
+ * 
+ * @see CompoundRequestMapper
+ */
+public interface IIndexableRequestMapper extends IRequestMapper
+{
+	/**
+	 * Tells whether the other methods of this interface describe exactly what this mapper maps.
+	 * Otherwise the mapper is asked for every request and handler like any other mapper.
+	 * 
+	 * @return {@code true} if this mapper may be indexed
+	 */
+	boolean isIndexable();
+
+	/**
+	 * Gets the segments all the urls mapped by this mapper start with. The mapper may map the empty
+	 * url too, e.g. for the home page.
+	 * 
+	 * @return the segments, empty if the urls may start with anything
+	 */
+	String[] getUrlPrefix();
+
+	/**
+	 * Gets the key of the handlers this mapper can map, e.g. the class of the mounted page.
+	 * 
+	 * @return the key, never {@code null}
+	 * @see #getHandlerKey(IRequestHandler)
+	 */
+	Object getHandlerKey();
+
+	/**
+	 * Gets the key of a handler as it is compared to the {@link #getHandlerKey() keys} of the
+	 * mappers with the same class as this one. Mappers whose key differs from the key of a handler
+	 * must not map it.
+	 * 
+	 * @param handler
+	 *            the handler to map
+	 * @return the key or {@code null} if no mapper with the class of this one can map the handler
+	 */
+	Object getHandlerKey(IRequestHandler handler);
+}
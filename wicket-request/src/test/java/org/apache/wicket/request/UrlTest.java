@@ -66,6 +66,19 @@ public class UrlTest extends Assert
 		checkQueryParams(url, "a", "4", "b", "5");
 	}
 
+	/**
+	 * Empty segments are kept, also at the end, and empty parameters are skipped.
+	 */
+	@Test
+	public void parseEmptySegmentsAndParameters()
+	{
+		checkSegments(Url.parse("a//"), "a", "", "");
+		checkSegments(Url.parse("/"), "", "");
+		checkSegments(Url.parse("a%2Fb/c%20d"), "a/b", "c d");
+		checkQueryParams(Url.parse("a?&&x=1&&y&"), "x", "1", "y", "");
+		checkQueryParams(Url.parse("a?x=1+2&y=%26"), "x", "1 2", "y", "&");
+	}
+
 	/**
 	 * 
 	 */
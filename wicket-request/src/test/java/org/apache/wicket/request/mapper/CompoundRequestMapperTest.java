@@ -16,7 +16,15 @@
  */
 package org.apache.wicket.request.mapper;
 
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
+import org.apache.wicket.request.Url.QueryParameter;
 import org.apache.wicket.request.handler.EmptyRequestHandler;
 import org.apache.wicket.request.mapper.CompoundRequestMapper.MapperWithScore;
 import org.apache.wicket.request.mapper.mount.MountMapper;
@@ -82,4 +90,198 @@ public class CompoundRequestMapperTest extends Assert
 	{
 		return new MapperWithScore(null, score);
 	}
+
+	/**
+	 * Indexed mappers are asked only for urls starting with their prefix and handlers with their
+	 * key, the others always
+	 */
+	@Test
+	public void index()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+
+		IndexedMapper root = new IndexedMapper("root");
+		IndexedMapper ab = new IndexedMapper("ab", "a", "b");
+		IndexedMapper ac = new IndexedMapper("ac", "a", "c");
+		MountMapper unindexed = new MountMapper("x/y", new EmptyRequestHandler());
+		compound.add(root).add(ab).add(ac).add(unindexed);
+
+		assertSame(ab.handler, compound.mapRequest(compound.createRequest(Url.parse("a/b"))));
+		assertEquals(1, ab.asked);
+		assertEquals(0, ac.asked);
+		assertEquals(0, root.asked);
+
+		assertTrue(compound.mapRequest(compound.createRequest(Url.parse("x/y"))) instanceof EmptyRequestHandler);
+		assertEquals(1, ab.asked);
+		assertEquals(0, ac.asked);
+
+		// the empty url may be mapped by any mapper
+		assertSame(root.handler, compound.mapRequest(compound.createRequest(Url.parse(""))));
+		assertEquals(2, ab.asked);
+		assertEquals(1, ac.asked);
+		assertEquals(1, root.asked);
+
+		assertEquals(Url.parse("a/c"), compound.mapHandler(ac.handler));
+		assertEquals(0, ab.handlerAsked);
+		assertEquals(1, ac.handlerAsked);
+
+		compound.remove(ac);
+		assertNull(compound.mapHandler(ac.handler));
+		assertNull(compound.mapRequest(compound.createRequest(Url.parse("a/c"))));
+	}
+
+	/**
+	 * Mappers which don't opt in are asked for all urls and handlers
+	 */
+	@Test
+	public void notIndexable()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+
+		IndexedMapper ab = new IndexedMapper("ab", "a", "b");
+		IndexedMapper ac = new IndexedMapper("ac", "a", "c");
+		ab.indexable = false;
+		compound.add(ab).add(ac);
+
+		assertNull(compound.mapRequest(compound.createRequest(Url.parse("x/y"))));
+		assertEquals(1, ab.asked);
+		assertEquals(0, ac.asked);
+
+		assertEquals(Url.parse("a/b"), compound.mapHandler(ab.handler));
+		assertEquals(1, ab.handlerAsked);
+		assertEquals(0, ac.handlerAsked);
+	}
+
+	/**
+	 * With the same score the most recently registered mapper wins, indexed or not
+	 */
+	@Test
+	public void indexKeepsOrder()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+
+		IndexedMapper first = new IndexedMapper("key", "a");
+		IndexedMapper second = new IndexedMapper("key", "a");
+		compound.add(first).add(second);
+
+		assertSame(second.handler, compound.mapRequest(compound.createRequest(Url.parse("a"))));
+		assertEquals(0, first.asked);
+		assertEquals(Url.parse("a"), compound.mapHandler(first.handler));
+		assertEquals(1, second.handlerAsked);
+
+		final IRequestHandler any = new EmptyRequestHandler();
+		compound.add(new IRequestMapper()
+		{
+			@Override
+			public IRequestHandler mapRequest(Request request)
+			{
+				return any;
+			}
+
+			@Override
+			public int getCompatibilityScore(Request request)
+			{
+				return 0;
+			}
+
+			@Override
+			public Url mapHandler(IRequestHandler requestHandler)
+			{
+				return null;
+			}
+		});
+		assertSame(any, compound.mapRequest(compound.createRequest(Url.parse("a"))));
+
+		compound.add(new IndexedMapper("key", "a"));
+		assertNotSame(any, compound.mapRequest(compound.createRequest(Url.parse("a"))));
+	}
+
+	/**
+	 * Maps the url of its prefix to a handler with its key
+	 */
+	private static class IndexedMapper implements IIndexableRequestMapper
+	{
+		private final String[] prefix;
+
+		private final KeyHandler handler;
+
+		private final Url url;
+
+		private int asked;
+
+		private int handlerAsked;
+
+		private boolean indexable = true;
+
+		private IndexedMapper(String key, String... prefix)
+		{
+			this.prefix = prefix;
+			handler = new KeyHandler(key);
+			url = new Url(Arrays.asList(prefix), Collections.<QueryParameter> emptyList());
+		}
+
+		@Override
+		public IRequestHandler mapRequest(Request request)
+		{
+			asked++;
+			return request.getUrl().getSegments().equals(url.getSegments()) ? handler : null;
+		}
+
+		@Override
+		public int getCompatibilityScore(Request request)
+		{
+			return 0;
+		}
+
+		@Override
+		public Url mapHandler(IRequestHandler requestHandler)
+		{
+			handlerAsked++;
+			return requestHandler == handler ? url : null;
+		}
+
+		@Override
+		public boolean isIndexable()
+		{
+			return indexable;
+		}
+
+		@Override
+		public String[] getUrlPrefix()
+		{
+			return prefix;
+		}
+
+		@Override
+		public Object getHandlerKey()
+		{
+			return handler.key;
+		}
+
+		@Override
+		public Object getHandlerKey(IRequestHandler requestHandler)
+		{
+			return requestHandler instanceof KeyHandler ? ((KeyHandler)requestHandler).key : null;
+		}
+	}
+
+	private static class KeyHandler implements IRequestHandler
+	{
+		private final String key;
+
+		private KeyHandler(String key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public void respond(IRequestCycle requestCycle)
+		{
+		}
+
+		@Override
+		public void detach(IRequestCycle requestCycle)
+		{
+		}
+	}
 }
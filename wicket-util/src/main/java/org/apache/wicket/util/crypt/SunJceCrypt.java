@@ -21,6 +21,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -34,6 +36,12 @@ import javax.crypto.spec.PBEParameterSpec;
  * implementation is based around Sun's security providers and uses the <a
  * href="http://www.ietf.org/rfc/rfc2898.txt">PBEWithMD5AndDES</a> method to encrypt and decrypt the
  * data.
+ * <p>
+ * The secret key is generated once per encryption key and initialized ciphers are reused, so
+ * encrypting many strings, e.g. all urls of a page rendered with a
+ * {@code org.apache.wicket.core.request.mapper.CryptoMapper}, does not pay for the setup of a
+ * cipher each time.
+ * </p>
  * 
  * @author Juergen Donnerstag
  */
@@ -51,13 +59,24 @@ public class SunJceCrypt extends AbstractCrypt
 	private final static byte[] salt = { (byte)0x15, (byte)0x8c, (byte)0xa3, (byte)0x4a,
 			(byte)0x66, (byte)0x51, (byte)0x2a, (byte)0xbc };
 
+	/** Whether a provider for the encryption method is known to be installed */
+	private static volatile boolean providerAvailable;
+
+	/** The ciphers for the current encryption key, null until needed */
+	private volatile Ciphers ciphers;
+
 	/**
 	 * Constructor
 	 */
 	public SunJceCrypt()
 	{
+		if (providerAvailable)
+		{
+			return;
+		}
 		if (Security.getProviders("Cipher." + CRYPT_METHOD).length > 0)
 		{
+			providerAvailable = true;
 			return; // we are good to go!
 		}
 		try
@@ -66,6 +85,7 @@ public class SunJceCrypt extends AbstractCrypt
 			final Class<?> clazz = Class.forName("com.sun.crypto.provider.SunJCE");
 
 			Security.addProvider((Provider)clazz.newInstance());
+			providerAvailable = true;
 		}
 		catch (Exception ex)
 		{
@@ -87,11 +107,40 @@ public class SunJceCrypt extends AbstractCrypt
 	protected final byte[] crypt(final byte[] input, final int mode)
 		throws GeneralSecurityException
 	{
-		SecretKey key = generateSecretKey();
-		PBEParameterSpec spec = new PBEParameterSpec(salt, COUNT);
-		Cipher ciph = Cipher.getInstance(CRYPT_METHOD);
-		ciph.init(mode, key, spec);
-		return ciph.doFinal(input);
+		Ciphers current = getCiphers();
+		Queue<Cipher> idle = current.getIdle(mode);
+
+		Cipher ciph = idle != null ? idle.poll() : null;
+		if (ciph == null)
+		{
+			ciph = Cipher.getInstance(CRYPT_METHOD);
+			ciph.init(mode, current.secretKey, new PBEParameterSpec(salt, COUNT));
+		}
+
+		// doFinal() resets the cipher to its initialized state, unless it fails
+		byte[] result = ciph.doFinal(input);
+
+		if (idle != null)
+		{
+			idle.offer(ciph);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the ciphers for the current encryption key
+	 * @throws GeneralSecurityException
+	 */
+	private Ciphers getCiphers() throws GeneralSecurityException
+	{
+		String encryptionKey = getKey();
+		Ciphers current = ciphers;
+		if (current == null || current.encryptionKey.equals(encryptionKey) == false)
+		{
+			current = new Ciphers(encryptionKey, generateSecretKey(encryptionKey));
+			ciphers = current;
+		}
+		return current;
 	}
 
 	/**
@@ -100,16 +149,57 @@ public class SunJceCrypt extends AbstractCrypt
 	 * Note: if you don't provide your own encryption key, the implementation will use a default. Be
 	 * aware that this is potential security risk. Thus make sure you always provide your own one.
 	 * 
+	 * @param encryptionKey
+	 *            the encryption key
 	 * @return secretKey the security key generated
 	 * @throws NoSuchAlgorithmException
 	 *             unable to find encryption algorithm specified
 	 * @throws InvalidKeySpecException
 	 *             invalid encryption key
 	 */
-	private final SecretKey generateSecretKey() throws NoSuchAlgorithmException,
-		InvalidKeySpecException
+	private final SecretKey generateSecretKey(final String encryptionKey)
+		throws NoSuchAlgorithmException, InvalidKeySpecException
 	{
-		final PBEKeySpec spec = new PBEKeySpec(getKey().toCharArray());
+		final PBEKeySpec spec = new PBEKeySpec(encryptionKey.toCharArray());
 		return SecretKeyFactory.getInstance(CRYPT_METHOD).generateSecret(spec);
 	}
+
+	/**
+	 * The secret key generated from an encryption key and the idle ciphers initialized with it.
+	 */
+	private static class Ciphers
+	{
+		private final String encryptionKey;
+
+		private final SecretKey secretKey;
+
+		private final Queue<Cipher> encrypting = new ConcurrentLinkedQueue<Cipher>();
+
+		private final Queue<Cipher> decrypting = new ConcurrentLinkedQueue<Cipher>();
+
+		private Ciphers(final String encryptionKey, final SecretKey secretKey)
+		{
+			this.encryptionKey = encryptionKey;
+			this.secretKey = secretKey;
+		}
+
+		/**
+		 * @param mode
+		 *            crypt mode
+		 * @return the idle ciphers for the given mode, {@code null} if ciphers for this mode are
+		 *         not reused
+		 */
+		private Queue<Cipher> getIdle(final int mode)
+		{
+			if (mode == Cipher.ENCRYPT_MODE)
+			{
+				return encrypting;
+			}
+			else if (mode == Cipher.DECRYPT_MODE)
+			{
+				return decrypting;
+			}
+			return null;
+		}
+	}
 }
@@ -77,7 +77,7 @@ public class UrlDecoder
 	 */
 	public String decode(final String s, final Charset enc)
 	{
-		return decode(s, enc.name());
+		return decode(s, enc.name(), enc);
 	}
 
 	/**
@@ -89,22 +89,42 @@ public class UrlDecoder
 	 * @see java.net.URLDecoder#decode(String, String)
 	 */
 	public String decode(final String s, final String enc)
+	{
+		return decode(s, enc, null);
+	}
+
+	/**
+	 * @param s
+	 *            string to decode
+	 * @param enc
+	 *            name of the encoding to decode with
+	 * @param charset
+	 *            the encoding to decode with, {@code null} to look it up by its name
+	 * @return decoded string
+	 */
+	private String decode(final String s, final String enc, final Charset charset)
 	{
 		if (Strings.isEmpty(s))
 		{
 			return s;
 		}
 
-		int numChars = s.length();
-		StringBuilder sb = new StringBuilder(numChars > 500 ? numChars / 2 : numChars);
-		int i = 0;
-
 		if (enc.length() == 0)
 		{
 			throw new RuntimeException(new UnsupportedEncodingException(
 				"URLDecoder: empty string enc parameter"));
 		}
 
+		// most urls contain no escapes at all
+		if (needsDecoding(s) == false)
+		{
+			return s;
+		}
+
+		int numChars = s.length();
+		StringBuilder sb = new StringBuilder(numChars > 500 ? numChars / 2 : numChars);
+		int i = 0;
+
 		char c;
 		byte[] bytes = null;
 		while (i < numChars)
@@ -156,7 +176,8 @@ public class UrlDecoder
 
 						try
 						{
-							sb.append(new String(bytes, 0, pos, enc));
+							sb.append(charset != null ? new String(bytes, 0, pos, charset)
+								: new String(bytes, 0, pos, enc));
 						}
 						catch (UnsupportedEncodingException e)
 						{
@@ -183,4 +204,22 @@ public class UrlDecoder
 		// that way none will come through
 		return sb.toString().replace("\0", "NULL");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @param s
+	 *            the string to decode
+	 * @return {@code false} if decoding would return the string unchanged
+	 */
+	private boolean needsDecoding(final String s)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == '%' || c == '\0' || (c == '+' && decodePlus))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -241,7 +241,9 @@ public class UrlEncoder
 	 */
 	public String encode(final String s, final Charset charset)
 	{
-		return encode(s, charset.name());
+		Args.notNull(charset, "charset");
+
+		return encodeWith(s, charset);
 	}
 
 	/**
@@ -254,10 +256,7 @@ public class UrlEncoder
 	 */
 	public String encode(final String unsafeInput, final String charsetName)
 	{
-		final String s = unsafeInput.replace("\0", "NULL");
-		StringBuilder out = new StringBuilder(s.length());
 		Charset charset;
-		CharArrayWriter charArrayWriter = new CharArrayWriter();
 
 		Args.notNull(charsetName, "charsetName");
 
@@ -274,6 +273,28 @@ public class UrlEncoder
 			throw new RuntimeException(new UnsupportedEncodingException(charsetName));
 		}
 
+		return encodeWith(unsafeInput, charset);
+	}
+
+	/**
+	 * @param unsafeInput
+	 *            string to encode
+	 * @param charset
+	 *            encoding to use
+	 * @return encoded string
+	 */
+	private String encodeWith(final String unsafeInput, final Charset charset)
+	{
+		// most strings consist of unreserved characters only
+		if (needsEncoding(unsafeInput) == false)
+		{
+			return unsafeInput;
+		}
+
+		final String s = unsafeInput.replace("\0", "NULL");
+		StringBuilder out = new StringBuilder(s.length());
+		CharArrayWriter charArrayWriter = new CharArrayWriter();
+
 		boolean stopEncoding = false;
 		for (int i = 0; i < s.length();)
 		{
@@ -360,4 +381,35 @@ public class UrlEncoder
 
 		return out.toString();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @param s
+	 *            the string to encode
+	 * @return {@code false} if encoding would return the string unchanged
+	 */
+	private boolean needsEncoding(final String s)
+	{
+		boolean stopEncoding = false;
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == '\0' || c == ' ')
+			{
+				// replaced even if encoding has been stopped
+				return true;
+			}
+			else if (stopEncoding == false)
+			{
+				if (c == '?' && type == Type.FULL_PATH)
+				{
+					stopEncoding = true;
+				}
+				else if (dontNeedEncoding.get(c) == false)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
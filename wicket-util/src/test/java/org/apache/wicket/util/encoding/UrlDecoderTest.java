@@ -17,6 +17,7 @@
 package org.apache.wicket.util.encoding;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -59,4 +60,16 @@ public class UrlDecoderTest
 		decoded = UrlDecoder.QUERY_INSTANCE.decode(url, "UTF-8");
 		assertEquals("http://localhost/test?a=b", decoded);
 	}
+
+	/**
+	 * Strings without escapes are returned as they are.
+	 */
+	@Test
+	public void unchangedWithoutEscapes()
+	{
+		String plain = "some/path+with;plain=chars";
+		assertSame(plain, UrlDecoder.PATH_INSTANCE.decode(plain, "UTF-8"));
+		assertEquals("some/path with;plain=chars", UrlDecoder.QUERY_INSTANCE.decode(plain, "UTF-8"));
+		assertEquals("aNULLb", UrlDecoder.PATH_INSTANCE.decode("a\0b", "UTF-8"));
+	}
 }
@@ -58,4 +58,21 @@ public class UrlEncoderTest extends Assert
 		assertEquals("someone%27s%20badNULL%20url",
 			UrlEncoder.FULL_PATH_INSTANCE.encode("someone's bad\0 url", CharEncoding.UTF_8));
 	}
+
+	/**
+	 * Strings without characters to encode are returned as they are.
+	 */
+	@Test
+	public void unchangedWithoutReservedCharacters()
+	{
+		String plain = "some-path_with.only~safe:chars@1";
+		assertSame(plain, UrlEncoder.PATH_INSTANCE.encode(plain, CharEncoding.UTF_8));
+		assertSame(plain, UrlEncoder.QUERY_INSTANCE.encode(plain, CharEncoding.UTF_8));
+
+		String query = "a/b?c d";
+		assertEquals("a/b?c+d", UrlEncoder.FULL_PATH_INSTANCE.encode(query, CharEncoding.UTF_8));
+		assertEquals("a/b?c=d", UrlEncoder.FULL_PATH_INSTANCE.encode("a/b?c=d", CharEncoding.UTF_8));
+		assertEquals("a+b", UrlEncoder.QUERY_INSTANCE.encode("a b", CharEncoding.UTF_8));
+		assertEquals("a%3Db", UrlEncoder.QUERY_INSTANCE.encode("a=b", CharEncoding.UTF_8));
+	}
 }